@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import org.junit.After
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import org.junit.runners.Parameterized.Parameters
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+/**
+ * Measures a burst of reads on one shared cache issued from several threads at once, comparing
+ * the single monitor of [LruCache] with the segments of [ConcurrentLruCache].
+ */
+@RunWith(Parameterized::class)
+class ConcurrentLruCacheBenchmarkTest(private val threads: Int) {
+    private val executor = Executors.newFixedThreadPool(threads)
+
+    private val lruCache = object : LruCache<Int, String>(CACHE_SIZE) {
+        override fun create(key: Int): String? = "value of $key"
+    }
+
+    private val concurrentCache = object : ConcurrentLruCache<Int, String>(CACHE_SIZE, threads) {
+        override fun create(key: Int): String? = "value of $key"
+    }
+
+    private val lruCacheTasks = List(threads) { thread ->
+        Callable {
+            for (i in 0 until READS_PER_THREAD) {
+                lruCache.get((i + thread * 7) % KEY_RANGE)
+            }
+        }
+    }
+
+    private val concurrentCacheTasks = List(threads) { thread ->
+        Callable {
+            for (i in 0 until READS_PER_THREAD) {
+                concurrentCache.get((i + thread * 7) % KEY_RANGE)
+            }
+        }
+    }
+
+    @get:Rule
+    val benchmark = BenchmarkRule()
+
+    @After
+    fun tearDown() {
+        executor.shutdownNow()
+    }
+
+    @Test
+    fun lruCacheContendedGet() {
+        benchmark.measureRepeated {
+            executor.invokeAll(lruCacheTasks)
+        }
+    }
+
+    @Test
+    fun concurrentLruCacheContendedGet() {
+        benchmark.measureRepeated {
+            executor.invokeAll(concurrentCacheTasks)
+        }
+    }
+
+    companion object {
+        private const val CACHE_SIZE = 512
+        private const val KEY_RANGE = 600
+        private const val READS_PER_THREAD = 2_000
+
+        @JvmStatic
+        @Parameters(name = "threads={0}")
+        fun parameters() = buildParameters(
+            listOf(1, 2, 4, 8)
+        )
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import org.junit.runners.Parameterized.Parameters
+import kotlin.random.Random
+
+/**
+ * Compares the open-addressing [IntIntMap], [LongObjectMap] and [IntSet] against the binary
+ * search based [SparseArrayCompat], [LongSparseArray] and [ArraySet] they are meant to replace
+ * for large numbers of keys.
+ */
+@RunWith(Parameterized::class)
+class PrimitiveHashMapBenchmarkTest(private val size: Int) {
+    // Despite the fixed seed, the algorithm which produces random values may vary across
+    // OS versions. Since we're not doing cross-device comparison this is acceptable.
+    private val keys = IntArray(size).apply {
+        val random = Random(0)
+        for (i in indices) {
+            this[i] = random.nextInt()
+        }
+    }
+
+    @get:Rule
+    val benchmark = BenchmarkRule()
+
+    @Test fun sparseArrayCompatPut() {
+        benchmark.measureRepeated {
+            val map = SparseArrayCompat<Int>()
+            for (key in keys) {
+                map.put(key, key)
+            }
+        }
+    }
+
+    @Test fun intIntMapPut() {
+        benchmark.measureRepeated {
+            val map = IntIntMap()
+            for (key in keys) {
+                map.put(key, key)
+            }
+        }
+    }
+
+    @Test fun sparseArrayCompatGet() {
+        val map = SparseArrayCompat<Int>()
+        for (key in keys) {
+            map.put(key, key)
+        }
+        benchmark.measureRepeated {
+            for (key in keys) {
+                map.get(key)
+            }
+        }
+    }
+
+    @Test fun intIntMapGet() {
+        val map = IntIntMap()
+        for (key in keys) {
+            map.put(key, key)
+        }
+        benchmark.measureRepeated {
+            for (key in keys) {
+                map.get(key)
+            }
+        }
+    }
+
+    @Test fun longSparseArrayPut() {
+        benchmark.measureRepeated {
+            val map = LongSparseArray<String>()
+            for (key in keys) {
+                map.put(key.toLong(), VALUE)
+            }
+        }
+    }
+
+    @Test fun longObjectMapPut() {
+        benchmark.measureRepeated {
+            val map = LongObjectMap<String>()
+            for (key in keys) {
+                map.put(key.toLong(), VALUE)
+            }
+        }
+    }
+
+    @Test fun longSparseArrayGet() {
+        val map = LongSparseArray<String>()
+        for (key in keys) {
+            map.put(key.toLong(), VALUE)
+        }
+        benchmark.measureRepeated {
+            for (key in keys) {
+                map.get(key.toLong())
+            }
+        }
+    }
+
+    @Test fun longObjectMapGet() {
+        val map = LongObjectMap<String>()
+        for (key in keys) {
+            map.put(key.toLong(), VALUE)
+        }
+        benchmark.measureRepeated {
+            for (key in keys) {
+                map.get(key.toLong())
+            }
+        }
+    }
+
+    @Test fun arraySetAdd() {
+        benchmark.measureRepeated {
+            val set = ArraySet<Int>()
+            for (key in keys) {
+                set.add(key)
+            }
+        }
+    }
+
+    @Test fun intSetAdd() {
+        benchmark.measureRepeated {
+            val set = IntSet()
+            for (key in keys) {
+                set.add(key)
+            }
+        }
+    }
+
+    companion object {
+        private const val VALUE = "value"
+
+        @JvmStatic
+        @Parameters(name = "size={0}")
+        fun parameters() = buildParameters(
+            listOf(10, 100, 1_000, 10_000, 50_000)
+        )
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free pool of the backing arrays of {@link SimpleArrayMap} and {@link ArraySet}, bucketed
+ * by capacity.
+ *
+ * <p>Every capacity up to {@link #maxCapacity()} owns a fixed number of slots. Pooled arrays are
+ * published in a slot with a compare-and-set and taken back with a get-and-set, so threads
+ * releasing and acquiring arrays of any capacity never block each other. A pooled
+ * {@code Object[]} keeps its {@code int[]} hash array in its first element.
+ */
+final class ArrayPool {
+    /**
+     * Slots of every pooled capacity. Replaced as a whole when the pool is reconfigured, which
+     * drops all arrays pooled so far.
+     */
+    private volatile Buckets mBuckets;
+    private final AtomicInteger mHitCount = new AtomicInteger();
+    private final AtomicInteger mMissCount = new AtomicInteger();
+
+    private static final class Buckets {
+        final int maxCapacity;
+        final int arraysPerCapacity;
+        final AtomicReferenceArray<Object[]> slots;
+
+        Buckets(int maxCapacity, int arraysPerCapacity) {
+            this.maxCapacity = maxCapacity;
+            this.arraysPerCapacity = arraysPerCapacity;
+            this.slots = new AtomicReferenceArray<>((maxCapacity + 1) * arraysPerCapacity);
+        }
+    }
+
+    ArrayPool(int maxCapacity, int arraysPerCapacity) {
+        configure(maxCapacity, arraysPerCapacity);
+    }
+
+    void configure(int maxCapacity, int arraysPerCapacity) {
+        if (maxCapacity < 0) {
+            throw new IllegalArgumentException("maxCapacity < 0");
+        }
+        if (arraysPerCapacity < 0) {
+            throw new IllegalArgumentException("arraysPerCapacity < 0");
+        }
+        mBuckets = new Buckets(maxCapacity, arraysPerCapacity);
+    }
+
+    int maxCapacity() {
+        return mBuckets.maxCapacity;
+    }
+
+    int hitCount() {
+        return mHitCount.get();
+    }
+
+    int missCount() {
+        return mMissCount.get();
+    }
+
+    void resetStatistics() {
+        mHitCount.set(0);
+        mMissCount.set(0);
+    }
+
+    /**
+     * Returns a pooled array for {@code capacity} whose first element is its hash array, or null
+     * if there is none. Only allocations of poolable capacities are counted as misses.
+     */
+    @Nullable
+    Object[] acquire(int capacity) {
+        final Buckets buckets = mBuckets;
+        if (capacity > buckets.maxCapacity || buckets.arraysPerCapacity == 0) {
+            return null;
+        }
+        final AtomicReferenceArray<Object[]> slots = buckets.slots;
+        final int start = capacity * buckets.arraysPerCapacity;
+        final int end = start + buckets.arraysPerCapacity;
+        for (int i = start; i < end; i++) {
+            if (slots.get(i) != null) {
+                Object[] array = slots.getAndSet(i, null);
+                // An array can be trampled by a caller which kept using a map after it
+                // released its arrays; drop it rather than hand out a corrupt pair.
+                if (array != null && array[0] instanceof int[]
+                        && ((int[]) array[0]).length == capacity) {
+                    mHitCount.incrementAndGet();
+                    return array;
+                }
+            }
+        }
+        mMissCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Offers {@code hashes} and {@code array} to the pool. The first {@code usedLength} elements
+     * of {@code array} are cleared so that it does not retain any keys or values.
+     *
+     * <p>Make sure <b>NOT</b> to call this method with arrays that can still be modified.
+     */
+    void release(int[] hashes, Object[] array, int usedLength) {
+        final Buckets buckets = mBuckets;
+        final int capacity = hashes.length;
+        if (capacity == 0 || capacity > buckets.maxCapacity || buckets.arraysPerCapacity == 0) {
+            return;
+        }
+        final AtomicReferenceArray<Object[]> slots = buckets.slots;
+        final int start = capacity * buckets.arraysPerCapacity;
+        final int end = start + buckets.arraysPerCapacity;
+        boolean cleared = false;
+        for (int i = start; i < end; i++) {
+            if (slots.get(i) == null) {
+                if (!cleared) {
+                    for (int j = usedLength - 1; j >= 1; j--) {
+                        array[j] = null;
+                    }
+                    array[0] = hashes;
+                    cleared = true;
+                }
+                if (slots.compareAndSet(i, null, array)) {
+                    return;
+                }
+            }
+        }
+    }
+}
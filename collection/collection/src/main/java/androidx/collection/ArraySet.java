@@ -57,26 +57,15 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
     private static final int BASE_SIZE = 4;
 
     /**
-     * Maximum number of entries to have in array caches.
+     * Default number of arrays of each capacity to have in the array pool.
      */
     private static final int CACHE_SIZE = 10;
 
     /**
-     * Caches of small array objects to avoid spamming garbage.  The cache
-     * Object[] variable is a pointer to a linked list of array objects.
-     * The first entry in the array is a pointer to the next array in the
-     * list; the second entry is a pointer to the int[] hash code array for it.
+     * Pool of array objects to avoid spamming garbage, shared by all sets. By default only
+     * arrays of up to {@code BASE_SIZE*2} entries are pooled.
      */
-    private static @Nullable Object[] sBaseCache;
-    private static int sBaseCacheSize;
-    private static @Nullable Object[] sTwiceBaseCache;
-    private static int sTwiceBaseCacheSize;
-    /**
-     * Separate locks for each cache since each can be accessed independently of the other without
-     * risk of a deadlock.
-     */
-    private static final Object sBaseCacheLock = new Object();
-    private static final Object sTwiceBaseCacheLock = new Object();
+    private static final ArrayPool sArrayPool = new ArrayPool(BASE_SIZE * 2, CACHE_SIZE);
 
     private int[] mHashes;
     @SuppressWarnings("WeakerAccess") /* synthetic access */
@@ -168,62 +157,13 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
         return ~end;
     }
 
-    @SuppressWarnings("ArrayToString")
     private void allocArrays(final int size) {
-        if (size == (BASE_SIZE * 2)) {
-            synchronized (sTwiceBaseCacheLock) {
-                if (sTwiceBaseCache != null) {
-                    final Object[] array = sTwiceBaseCache;
-                    try {
-                        mArray = array;
-                        sTwiceBaseCache = (Object[]) array[0];
-                        mHashes = (int[]) array[1];
-                        if (mHashes != null) {
-                            array[0] = array[1] = null;
-                            sTwiceBaseCacheSize--;
-                            if (DEBUG) {
-                                System.out.println(TAG + " Retrieving 2x cache " + mHashes
-                                        + " now have " + sTwiceBaseCacheSize + " entries");
-                            }
-                            return;
-                        }
-                    } catch (ClassCastException e) {
-                    }
-                    // Whoops!  Someone trampled the array (probably due to not protecting
-                    // their access with a lock).  Our cache is corrupt; report and give up.
-                    System.out.println(TAG + " Found corrupt ArraySet cache: [0]=" + array[0]
-                            + " [1]=" + array[1]);
-                    sTwiceBaseCache = null;
-                    sTwiceBaseCacheSize = 0;
-                }
-            }
-        } else if (size == BASE_SIZE) {
-            synchronized (sBaseCacheLock) {
-                if (sBaseCache != null) {
-                    final Object[] array = sBaseCache;
-                    try {
-                        mArray = array;
-                        sBaseCache = (Object[]) array[0];
-                        mHashes = (int[]) array[1];
-                        if (mHashes != null) {
-                            array[0] = array[1] = null;
-                            sBaseCacheSize--;
-                            if (DEBUG) {
-                                System.out.println(TAG + " Retrieving 1x cache " + mHashes
-                                        + " now have " + sBaseCacheSize + " entries");
-                            }
-                            return;
-                        }
-                    } catch (ClassCastException e) {
-                    }
-                    // Whoops!  Someone trampled the array (probably due to not protecting
-                    // their access with a lock).  Our cache is corrupt; report and give up.
-                    System.out.println(TAG + " Found corrupt ArraySet cache: [0]=" + array[0]
-                            + " [1]=" + array[1]);
-                    sBaseCache = null;
-                    sBaseCacheSize = 0;
-                }
-            }
+        final Object[] array = sArrayPool.acquire(size);
+        if (array != null) {
+            mHashes = (int[]) array[0];
+            array[0] = null;
+            mArray = array;
+            return;
         }
 
         mHashes = new int[size];
@@ -234,41 +174,49 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
      * Make sure <b>NOT</b> to call this method with arrays that can still be modified. In other
      * words, don't pass mHashes or mArray in directly.
      */
-    @SuppressWarnings("ArrayToString")
     private static void freeArrays(final int[] hashes, final Object[] array, final int size) {
-        if (hashes.length == (BASE_SIZE * 2)) {
-            synchronized (sTwiceBaseCacheLock) {
-                if (sTwiceBaseCacheSize < CACHE_SIZE) {
-                    array[0] = sTwiceBaseCache;
-                    array[1] = hashes;
-                    for (int i = size - 1; i >= 2; i--) {
-                        array[i] = null;
-                    }
-                    sTwiceBaseCache = array;
-                    sTwiceBaseCacheSize++;
-                    if (DEBUG) {
-                        System.out.println(TAG + " Storing 2x cache " + array + " now have "
-                                + sTwiceBaseCacheSize + " entries");
-                    }
-                }
-            }
-        } else if (hashes.length == BASE_SIZE) {
-            synchronized (sBaseCacheLock) {
-                if (sBaseCacheSize < CACHE_SIZE) {
-                    array[0] = sBaseCache;
-                    array[1] = hashes;
-                    for (int i = size - 1; i >= 2; i--) {
-                        array[i] = null;
-                    }
-                    sBaseCache = array;
-                    sBaseCacheSize++;
-                    if (DEBUG) {
-                        System.out.println(TAG + " Storing 1x cache " + array + " now have "
-                                + sBaseCacheSize + " entries");
-                    }
-                }
-            }
-        }
+        sArrayPool.release(hashes, array, size);
+    }
+
+    /**
+     * Configures the pool of backing arrays shared by all {@link ArraySet} instances. Arrays of
+     * sets whose capacity is at most {@code maxCapacity} are kept for reuse when the set grows,
+     * shrinks or is cleared, up to {@code arraysPerCapacity} arrays for each capacity. Arrays
+     * pooled so far are released.
+     *
+     * <p>By default, arrays of up to 8 entries are pooled, 10 for each capacity.
+     *
+     * @param maxCapacity the largest capacity whose arrays are pooled, or 0 to disable pooling.
+     * @param arraysPerCapacity the maximum number of arrays pooled for each capacity.
+     * @see SimpleArrayMap#configureArrayPool(int, int)
+     */
+    public static void configureArrayPool(int maxCapacity, int arraysPerCapacity) {
+        sArrayPool.configure(maxCapacity, arraysPerCapacity);
+    }
+
+    /**
+     * Returns the number of times the backing arrays of a set were taken from the array pool
+     * instead of being allocated.
+     */
+    public static int arrayPoolHitCount() {
+        return sArrayPool.hitCount();
+    }
+
+    /**
+     * Returns the number of times the backing arrays of a set were allocated because the
+     * array pool had none of the requested capacity. Allocations of capacities larger than
+     * the pool's maximum capacity are not counted.
+     */
+    public static int arrayPoolMissCount() {
+        return sArrayPool.missCount();
+    }
+
+    /**
+     * Resets the values returned by {@link #arrayPoolHitCount()} and
+     * {@link #arrayPoolMissCount()} to zero.
+     */
+    public static void resetArrayPoolStatistics() {
+        sArrayPool.resetStatistics();
     }
 
     /**
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Decides whether an entry which was recently added to an {@link LruCache} may displace the
+ * entry which the cache would otherwise evict to make room for it.
+ *
+ * <p>Caches created with an admission policy keep new entries in a small window first. When an
+ * entry leaves the window while the cache is full, {@link #admit} is asked whether it is worth
+ * more than the cache's least recently used entry. If it is not, the new entry is evicted
+ * instead, so that entries which are only used once cannot flush entries which are used often.
+ *
+ * <p>All methods are called while holding the cache's lock and need no synchronization of
+ * their own.
+ *
+ * @param <K> the type of the keys of the cache.
+ * @see TinyLfuAdmissionPolicy
+ */
+public interface CacheAdmissionPolicy<K> {
+    /**
+     * Called each time {@code key} is read from or written to the cache, whether or not it is
+     * present.
+     */
+    void recordAccess(@NonNull K key);
+
+    /**
+     * Returns true if {@code candidate} should be kept in the cache at the expense of
+     * {@code victim}, or false if {@code candidate} should be evicted instead.
+     */
+    boolean admit(@NonNull K candidate, @NonNull K victim);
+}
@@ -0,0 +1,482 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A variant of {@link LruCache} for caches which are shared by many threads.
+ *
+ * <p>{@link LruCache} guards every operation with a single monitor, so concurrent readers
+ * serialize behind each other. This cache instead splits its entries across a number of
+ * independently locked segments chosen by key hash, each with its own share of the maximum
+ * size and its own least-recently-used order. Operations on keys of different segments never
+ * contend.
+ *
+ * <p>The price is that recency is only tracked per segment: an eviction removes the least
+ * recently used entry of the segment which overflowed, which is not necessarily the least
+ * recently used entry of the whole cache. Likewise, a single entry whose {@link #sizeOf} is
+ * larger than its segment's share of {@link #maxSize()} is evicted immediately.
+ *
+ * <p>The {@link #sizeOf}, {@link #create} and {@link #entryRemoved} contract is identical to
+ * that of {@link LruCache}. As there, {@link #sizeOf} is called while holding the lock of the
+ * entry's segment, and {@link #create} and {@link #entryRemoved} without holding any lock.
+ */
+public class ConcurrentLruCache<K, V> {
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+    /** Passed to {@link #trimSegment} to trim a segment to its own share of the max size. */
+    private static final int SEGMENT_MAX_SIZE = -2;
+
+    private final Segment<K, V>[] mSegments;
+    private final int mSegmentMask;
+    private int mMaxSize;
+
+    private static final class Segment<K, V> {
+        final LinkedHashMap<K, V> map = new LinkedHashMap<K, V>(0, 0.75f, true);
+
+        /** Size of this segment in units. Not necessarily the number of elements. */
+        int size;
+        int maxSize;
+
+        int putCount;
+        int createCount;
+        int evictionCount;
+        int hitCount;
+        int missCount;
+
+        Segment(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    /**
+     * Creates a cache with a default number of segments.
+     *
+     * @param maxSize for caches that do not override {@link #sizeOf}, this is
+     *     the maximum number of entries in the cache. For all other caches,
+     *     this is the maximum sum of the sizes of the entries in this cache.
+     */
+    public ConcurrentLruCache(int maxSize) {
+        this(maxSize, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * @param maxSize for caches that do not override {@link #sizeOf}, this is
+     *     the maximum number of entries in the cache. For all other caches,
+     *     this is the maximum sum of the sizes of the entries in this cache.
+     * @param concurrencyLevel the estimated number of threads accessing the cache concurrently.
+     *     The cache is split into the largest power of two segments not exceeding this value
+     *     or {@code maxSize}.
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentLruCache(int maxSize, int concurrencyLevel) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("concurrencyLevel <= 0");
+        }
+        int segmentCount = Integer.highestOneBit(Math.min(concurrencyLevel, maxSize));
+        mSegments = new Segment[segmentCount];
+        mSegmentMask = segmentCount - 1;
+        mMaxSize = maxSize;
+        for (int i = 0; i < segmentCount; i++) {
+            mSegments[i] = new Segment<K, V>(segmentShare(maxSize, i));
+        }
+    }
+
+    /** Returns the part of {@code maxSize} allotted to the segment at {@code index}. */
+    private int segmentShare(int maxSize, int index) {
+        if (maxSize < 0) {
+            return maxSize;
+        }
+        int count = mSegments.length;
+        return maxSize / count + (index < maxSize % count ? 1 : 0);
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        return mSegments[ContainerHelpers.hash(key.hashCode()) & mSegmentMask];
+    }
+
+    /**
+     * Sets the size of the cache.
+     *
+     * @param maxSize The new maximum size.
+     */
+    public void resize(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+
+        synchronized (this) {
+            mMaxSize = maxSize;
+            for (int i = 0; i < mSegments.length; i++) {
+                Segment<K, V> segment = mSegments[i];
+                synchronized (segment) {
+                    segment.maxSize = segmentShare(maxSize, i);
+                }
+            }
+        }
+        trimToSize(maxSize);
+    }
+
+    /**
+     * Returns the value for {@code key} if it exists in the cache or can be
+     * created by {@code #create}. If a value was returned, it is moved to the
+     * head of its segment's queue. This returns null if a value is not cached
+     * and cannot be created.
+     */
+    @Nullable
+    public final V get(@NonNull K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+
+        final Segment<K, V> segment = segmentFor(key);
+        V mapValue;
+        synchronized (segment) {
+            mapValue = segment.map.get(key);
+            if (mapValue != null) {
+                segment.hitCount++;
+                return mapValue;
+            }
+            segment.missCount++;
+        }
+
+        /*
+         * Attempt to create a value. This may take a long time, and the map
+         * may be different when create() returns. If a conflicting value was
+         * added to the map while create() was working, we leave that value in
+         * the map and release the created value.
+         */
+
+        V createdValue = create(key);
+        if (createdValue == null) {
+            return null;
+        }
+
+        synchronized (segment) {
+            segment.createCount++;
+            mapValue = segment.map.put(key, createdValue);
+
+            if (mapValue != null) {
+                // There was a conflict so undo that last put
+                segment.map.put(key, mapValue);
+            } else {
+                segment.size += safeSizeOf(key, createdValue);
+            }
+        }
+
+        if (mapValue != null) {
+            entryRemoved(false, key, createdValue, mapValue);
+            return mapValue;
+        } else {
+            trimSegment(segment, SEGMENT_MAX_SIZE);
+            return createdValue;
+        }
+    }
+
+    /**
+     * Caches {@code value} for {@code key}. The value is moved to the head of
+     * its segment's queue.
+     *
+     * @return the previous value mapped by {@code key}.
+     */
+    @Nullable
+    public final V put(@NonNull K key, @NonNull V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("key == null || value == null");
+        }
+
+        final Segment<K, V> segment = segmentFor(key);
+        V previous;
+        synchronized (segment) {
+            segment.putCount++;
+            segment.size += safeSizeOf(key, value);
+            previous = segment.map.put(key, value);
+            if (previous != null) {
+                segment.size -= safeSizeOf(key, previous);
+            }
+        }
+
+        if (previous != null) {
+            entryRemoved(false, key, previous, value);
+        }
+
+        trimSegment(segment, SEGMENT_MAX_SIZE);
+        return previous;
+    }
+
+    /**
+     * Remove the eldest entries of each segment until the total of remaining
+     * entries is at or below the requested size.
+     *
+     * @param maxSize the maximum size of the cache before returning. May be -1
+     *            to evict even 0-sized elements.
+     */
+    public void trimToSize(int maxSize) {
+        for (int i = 0; i < mSegments.length; i++) {
+            trimSegment(mSegments[i], segmentShare(maxSize, i));
+        }
+    }
+
+    /**
+     * Evicts the eldest entries of {@code segment} until it fits in {@code maxSize}, or in the
+     * segment's own share of {@link #maxSize()} when {@code maxSize} is
+     * {@link #SEGMENT_MAX_SIZE}.
+     */
+    private void trimSegment(Segment<K, V> segment, int maxSize) {
+        while (true) {
+            K key;
+            V value;
+            synchronized (segment) {
+                if (segment.size < 0 || (segment.map.isEmpty() && segment.size != 0)) {
+                    throw new IllegalStateException(getClass().getName()
+                            + ".sizeOf() is reporting inconsistent results!");
+                }
+
+                int limit = maxSize == SEGMENT_MAX_SIZE ? segment.maxSize : maxSize;
+                if (segment.size <= limit || segment.map.isEmpty()) {
+                    break;
+                }
+
+                Map.Entry<K, V> toEvict = segment.map.entrySet().iterator().next();
+                key = toEvict.getKey();
+                value = toEvict.getValue();
+                segment.map.remove(key);
+                segment.size -= safeSizeOf(key, value);
+                segment.evictionCount++;
+            }
+
+            entryRemoved(true, key, value, null);
+        }
+    }
+
+    /**
+     * Removes the entry for {@code key} if it exists.
+     *
+     * @return the previous value mapped by {@code key}.
+     */
+    @Nullable
+    public final V remove(@NonNull K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+
+        final Segment<K, V> segment = segmentFor(key);
+        V previous;
+        synchronized (segment) {
+            previous = segment.map.remove(key);
+            if (previous != null) {
+                segment.size -= safeSizeOf(key, previous);
+            }
+        }
+
+        if (previous != null) {
+            entryRemoved(false, key, previous, null);
+        }
+
+        return previous;
+    }
+
+    /**
+     * Called for entries that have been evicted or removed. This method is
+     * invoked when a value is evicted to make space, removed by a call to
+     * {@link #remove}, or replaced by a call to {@link #put}. The default
+     * implementation does nothing.
+     *
+     * <p>The method is called without synchronization: other threads may
+     * access the cache while this method is executing.
+     *
+     * @param evicted true if the entry is being removed to make space, false
+     *     if the removal was caused by a {@link #put} or {@link #remove}.
+     * @param newValue the new value for {@code key}, if it exists. If non-null,
+     *     this removal was caused by a {@link #put}. Otherwise it was caused by
+     *     an eviction or a {@link #remove}.
+     */
+    protected void entryRemoved(boolean evicted, @NonNull K key, @NonNull V oldValue,
+            @Nullable V newValue) {
+    }
+
+    /**
+     * Called after a cache miss to compute a value for the corresponding key.
+     * Returns the computed value or null if no value can be computed. The
+     * default implementation returns null.
+     *
+     * <p>The method is called without synchronization: other threads may
+     * access the cache while this method is executing.
+     *
+     * <p>If a value for {@code key} exists in the cache when this method
+     * returns, the created value will be released with {@link #entryRemoved}
+     * and discarded. This can occur when multiple threads request the same key
+     * at the same time (causing multiple values to be created), or when one
+     * thread calls {@link #put} while another is creating a value for the same
+     * key.
+     */
+    @Nullable
+    protected V create(@NonNull K key) {
+        return null;
+    }
+
+    private int safeSizeOf(K key, V value) {
+        int result = sizeOf(key, value);
+        if (result < 0) {
+            throw new IllegalStateException("Negative size: " + key + "=" + value);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the size of the entry for {@code key} and {@code value} in
+     * user-defined units.  The default implementation returns 1 so that size
+     * is the number of entries and max size is the maximum number of entries.
+     *
+     * <p>An entry's size must not change while it is in the cache.
+     */
+    protected int sizeOf(@NonNull K key, @NonNull V value) {
+        return 1;
+    }
+
+    /**
+     * Clear the cache, calling {@link #entryRemoved} on each removed entry.
+     */
+    public final void evictAll() {
+        trimToSize(-1); // -1 will evict 0-sized elements
+    }
+
+    /**
+     * For caches that do not override {@link #sizeOf}, this returns the number
+     * of entries in the cache. For all other caches, this returns the sum of
+     * the sizes of the entries in this cache.
+     */
+    public final int size() {
+        int size = 0;
+        for (Segment<K, V> segment : mSegments) {
+            synchronized (segment) {
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * For caches that do not override {@link #sizeOf}, this returns the maximum
+     * number of entries in the cache. For all other caches, this returns the
+     * maximum sum of the sizes of the entries in this cache.
+     */
+    public synchronized final int maxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned a value that was
+     * already present in the cache.
+     */
+    public final int hitCount() {
+        int count = 0;
+        for (Segment<K, V> segment : mSegments) {
+            synchronized (segment) {
+                count += segment.hitCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned null or required a new
+     * value to be created.
+     */
+    public final int missCount() {
+        int count = 0;
+        for (Segment<K, V> segment : mSegments) {
+            synchronized (segment) {
+                count += segment.missCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times {@link #create(Object)} returned a value.
+     */
+    public final int createCount() {
+        int count = 0;
+        for (Segment<K, V> segment : mSegments) {
+            synchronized (segment) {
+                count += segment.createCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times {@link #put} was called.
+     */
+    public final int putCount() {
+        int count = 0;
+        for (Segment<K, V> segment : mSegments) {
+            synchronized (segment) {
+                count += segment.putCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of values that have been evicted.
+     */
+    public final int evictionCount() {
+        int count = 0;
+        for (Segment<K, V> segment : mSegments) {
+            synchronized (segment) {
+                count += segment.evictionCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns a copy of the current contents of the cache. Entries of each
+     * segment are ordered from least recently accessed to most recently
+     * accessed, but there is no ordering between segments.
+     */
+    @NonNull
+    public final Map<K, V> snapshot() {
+        Map<K, V> snapshot = new LinkedHashMap<K, V>();
+        for (Segment<K, V> segment : mSegments) {
+            synchronized (segment) {
+                snapshot.putAll(segment.map);
+            }
+        }
+        return snapshot;
+    }
+
+    @Override public final String toString() {
+        int hitCount = hitCount();
+        int missCount = missCount();
+        int accesses = hitCount + missCount;
+        int hitPercent = accesses != 0 ? (100 * hitCount / accesses) : 0;
+        return String.format(Locale.US,
+                "ConcurrentLruCache[maxSize=%d,segments=%d,hits=%d,misses=%d,hitRate=%d%%]",
+                maxSize(), mSegments.length, hitCount, missCount, hitPercent);
+    }
+}
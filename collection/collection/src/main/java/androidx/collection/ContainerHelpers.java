@@ -80,6 +80,35 @@ class ContainerHelpers {
         return ~lo;  // value not present
     }
 
+    /**
+     * Returns the smallest power of two table length able to hold {@code need} entries of an
+     * open-addressing hash table without exceeding a load factor of one half.
+     */
+    static int idealHashTableSize(int need) {
+        int size = 2;
+        while (size >> 1 < need) {
+            if (size >= 1 << 30) {
+                throw new IllegalStateException("Hash table capacity exceeded: " + need);
+            }
+            size <<= 1;
+        }
+        return size;
+    }
+
+    // Spreads the bits of a key so that sequential ids don't cluster in the low bits the table
+    // mask keeps. This is the finalization step of MurmurHash3.
+    static int hash(int key) {
+        int h = key ^ (key >>> 16);
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        return h ^ (h >>> 16);
+    }
+
+    static int hash(long key) {
+        return hash((int) (key ^ (key >>> 32)));
+    }
+
     private ContainerHelpers() {
     }
 }
@@ -0,0 +1,357 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * IntIntMap maps integers to integers using an open-addressing hash table. Unlike
+ * {@link SparseArrayCompat}, lookups, insertions and removals take constant time on average
+ * regardless of the number of mappings, which makes it suitable for containers holding many
+ * thousands of items. Neither keys nor values are ever auto-boxed.
+ *
+ * <p>Mappings are stored densely in insertion order and indexed through a separate
+ * linear-probing table, so it is possible to iterate over the items in this container using
+ * {@link #keyAt(int)} and {@link #valueAt(int)} with indices in the range
+ * <code>0...size()-1</code>. Unlike {@link SparseArrayCompat}, keys are not sorted, and removing
+ * a mapping moves the last mapping into the removed index. Iterate in descending index order
+ * when removing mappings during iteration.</p>
+ */
+public final class IntIntMap implements Cloneable {
+    private int[] mKeys;
+    private int[] mValues;
+    // Each slot holds the index of a mapping in mKeys/mValues plus one, or zero when empty.
+    private int[] mTable;
+    private int mSize;
+
+    /**
+     * Creates a new IntIntMap containing no mappings.
+     */
+    public IntIntMap() {
+        this(10);
+    }
+
+    /**
+     * Creates a new IntIntMap containing no mappings that will not
+     * require any additional memory allocation to store the specified
+     * number of mappings.  If you supply an initial capacity of 0, the
+     * map will be initialized with a light-weight representation
+     * not requiring any additional array allocations.
+     */
+    public IntIntMap(int initialCapacity) {
+        if (initialCapacity == 0) {
+            mKeys = ContainerHelpers.EMPTY_INTS;
+            mValues = ContainerHelpers.EMPTY_INTS;
+            mTable = ContainerHelpers.EMPTY_INTS;
+        } else {
+            allocArrays(ContainerHelpers.idealHashTableSize(initialCapacity));
+        }
+    }
+
+    @Override
+    public IntIntMap clone() {
+        IntIntMap clone;
+        try {
+            clone = (IntIntMap) super.clone();
+            clone.mKeys = mKeys.clone();
+            clone.mValues = mValues.clone();
+            clone.mTable = mTable.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e); // Cannot happen as we implement Cloneable.
+        }
+        return clone;
+    }
+
+    private void allocArrays(int tableSize) {
+        mTable = new int[tableSize];
+        mKeys = new int[tableSize >> 1];
+        mValues = new int[tableSize >> 1];
+    }
+
+    /**
+     * Returns the slot holding {@code key}, or the empty slot where it would be inserted.
+     * The table must not be empty.
+     */
+    private int findSlot(int key) {
+        final int[] table = mTable;
+        final int[] keys = mKeys;
+        final int mask = table.length - 1;
+        int slot = ContainerHelpers.hash(key) & mask;
+        while (true) {
+            int entry = table[slot];
+            if (entry == 0 || keys[entry - 1] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void grow() {
+        final int[] keys = mKeys;
+        final int[] values = mValues;
+        final int size = mSize;
+        allocArrays(ContainerHelpers.idealHashTableSize(size + 1));
+        System.arraycopy(keys, 0, mKeys, 0, size);
+        System.arraycopy(values, 0, mValues, 0, size);
+        for (int i = 0; i < size; i++) {
+            mTable[findSlot(mKeys[i])] = i + 1;
+        }
+    }
+
+    /**
+     * Empties {@code slot} and shifts back any entries of the same probe sequence which follow
+     * it, so that lookups never need to skip over deleted markers.
+     */
+    private void clearSlot(int slot) {
+        final int[] table = mTable;
+        final int[] keys = mKeys;
+        final int mask = table.length - 1;
+        int gap = slot;
+        int i = (slot + 1) & mask;
+        int entry;
+        while ((entry = table[i]) != 0) {
+            int home = ContainerHelpers.hash(keys[entry - 1]) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                table[gap] = entry;
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        table[gap] = 0;
+    }
+
+    private void removeSlot(int slot) {
+        final int index = mTable[slot] - 1;
+        clearSlot(slot);
+        final int last = mSize - 1;
+        if (index != last) {
+            final int lastKey = mKeys[last];
+            mKeys[index] = lastKey;
+            mValues[index] = mValues[last];
+            mTable[findSlot(lastKey)] = index + 1;
+        }
+        mSize = last;
+    }
+
+    /**
+     * Gets the int mapped from the specified key, or <code>0</code>
+     * if no such mapping has been made.
+     */
+    public int get(int key) {
+        return get(key, 0);
+    }
+
+    /**
+     * Gets the int mapped from the specified key, or the specified value
+     * if no such mapping has been made.
+     */
+    public int get(int key, int valueIfKeyNotFound) {
+        if (mSize == 0) {
+            return valueIfKeyNotFound;
+        }
+        int entry = mTable[findSlot(key)];
+        return entry == 0 ? valueIfKeyNotFound : mValues[entry - 1];
+    }
+
+    /**
+     * Adds a mapping from the specified key to the specified value,
+     * replacing the previous mapping from the specified key if there
+     * was one.
+     */
+    public void put(int key, int value) {
+        int slot = -1;
+        if (mTable.length != 0) {
+            slot = findSlot(key);
+            int entry = mTable[slot];
+            if (entry != 0) {
+                mValues[entry - 1] = value;
+                return;
+            }
+        }
+
+        if (mSize >= mKeys.length) {
+            grow();
+            slot = findSlot(key);
+        }
+
+        mKeys[mSize] = key;
+        mValues[mSize] = value;
+        mTable[slot] = ++mSize;
+    }
+
+    /**
+     * Copies all of the mappings from the {@code other} to this map. The effect of this call is
+     * equivalent to that of calling {@link #put(int, int)} on this map once for each mapping
+     * from key to value in {@code other}.
+     */
+    public void putAll(@NonNull IntIntMap other) {
+        for (int i = 0, size = other.size(); i < size; i++) {
+            put(other.keyAt(i), other.valueAt(i));
+        }
+    }
+
+    /**
+     * Removes the mapping from the specified key, if there was any.
+     */
+    public void remove(int key) {
+        if (mSize == 0) {
+            return;
+        }
+        int slot = findSlot(key);
+        if (mTable[slot] != 0) {
+            removeSlot(slot);
+        }
+    }
+
+    /**
+     * Removes the mapping at the given index. The last mapping, if it is not the one being
+     * removed, is moved into {@code index}.
+     */
+    public void removeAt(int index) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        removeSlot(findSlot(mKeys[index]));
+    }
+
+    /**
+     * Returns the number of key-value mappings that this map currently stores.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Return true if size() is 0.
+     * @return true if size() is 0.
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, returns
+     * the key from the <code>index</code>th key-value mapping that this
+     * map stores.
+     */
+    public int keyAt(int index) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return mKeys[index];
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, returns
+     * the value from the <code>index</code>th key-value mapping that this
+     * map stores.
+     */
+    public int valueAt(int index) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return mValues[index];
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, sets a new
+     * value for the <code>index</code>th key-value mapping that this
+     * map stores.
+     */
+    public void setValueAt(int index, int value) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        mValues[index] = value;
+    }
+
+    /**
+     * Returns the index for which {@link #keyAt} would return the
+     * specified key, or a negative number if the specified
+     * key is not mapped.
+     */
+    public int indexOfKey(int key) {
+        if (mSize == 0) {
+            return -1;
+        }
+        return mTable[findSlot(key)] - 1;
+    }
+
+    /**
+     * Returns an index for which {@link #valueAt} would return the
+     * specified value, or a negative number if no keys map to the
+     * specified value.
+     * <p>Beware that this is a linear search, unlike lookups by key,
+     * and that multiple keys can map to the same value and this will
+     * find only one of them.
+     */
+    public int indexOfValue(int value) {
+        for (int i = 0; i < mSize; i++) {
+            if (mValues[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns true if the specified key is mapped. */
+    public boolean containsKey(int key) {
+        return indexOfKey(key) >= 0;
+    }
+
+    /** Returns true if the specified value is mapped from any key. */
+    public boolean containsValue(int value) {
+        return indexOfValue(value) >= 0;
+    }
+
+    /**
+     * Removes all key-value mappings from this map.
+     */
+    public void clear() {
+        if (mSize != 0) {
+            Arrays.fill(mTable, 0);
+            mSize = 0;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation composes a string by iterating over its mappings.
+     */
+    @Override
+    public String toString() {
+        if (mSize <= 0) {
+            return "{}";
+        }
+
+        StringBuilder buffer = new StringBuilder(mSize * 28);
+        buffer.append('{');
+        for (int i = 0; i < mSize; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(mKeys[i]);
+            buffer.append('=');
+            buffer.append(mValues[i]);
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * IntSet is a set of integers backed by an open-addressing hash table. Unlike an
+ * {@link ArraySet} of {@link Integer}, values are never auto-boxed, and lookups, insertions and
+ * removals take constant time on average regardless of the number of values.
+ *
+ * <p>Values are stored densely in insertion order and indexed through a separate
+ * linear-probing table, so it is possible to iterate over the values in this set using
+ * {@link #valueAt(int)} with indices in the range <code>0...size()-1</code>. Removing a value
+ * moves the last value into the removed index. Iterate in descending index order when removing
+ * values during iteration.</p>
+ */
+public final class IntSet implements Cloneable {
+    private int[] mValues;
+    // Each slot holds the index of a value in mValues plus one, or zero when empty.
+    private int[] mTable;
+    private int mSize;
+
+    /**
+     * Creates a new empty IntSet.
+     */
+    public IntSet() {
+        this(10);
+    }
+
+    /**
+     * Creates a new empty IntSet that will not require any additional memory allocation to
+     * store the specified number of values.  If you supply an initial capacity of 0, the
+     * set will be initialized with a light-weight representation not requiring any additional
+     * array allocations.
+     */
+    public IntSet(int initialCapacity) {
+        if (initialCapacity == 0) {
+            mValues = ContainerHelpers.EMPTY_INTS;
+            mTable = ContainerHelpers.EMPTY_INTS;
+        } else {
+            allocArrays(ContainerHelpers.idealHashTableSize(initialCapacity));
+        }
+    }
+
+    @Override
+    public IntSet clone() {
+        IntSet clone;
+        try {
+            clone = (IntSet) super.clone();
+            clone.mValues = mValues.clone();
+            clone.mTable = mTable.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e); // Cannot happen as we implement Cloneable.
+        }
+        return clone;
+    }
+
+    private void allocArrays(int tableSize) {
+        mTable = new int[tableSize];
+        mValues = new int[tableSize >> 1];
+    }
+
+    /**
+     * Returns the slot holding {@code value}, or the empty slot where it would be inserted.
+     * The table must not be empty.
+     */
+    private int findSlot(int value) {
+        final int[] table = mTable;
+        final int[] values = mValues;
+        final int mask = table.length - 1;
+        int slot = ContainerHelpers.hash(value) & mask;
+        while (true) {
+            int entry = table[slot];
+            if (entry == 0 || values[entry - 1] == value) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void grow() {
+        final int[] values = mValues;
+        final int size = mSize;
+        allocArrays(ContainerHelpers.idealHashTableSize(size + 1));
+        System.arraycopy(values, 0, mValues, 0, size);
+        for (int i = 0; i < size; i++) {
+            mTable[findSlot(mValues[i])] = i + 1;
+        }
+    }
+
+    /**
+     * Empties {@code slot} and shifts back any entries of the same probe sequence which follow
+     * it, so that lookups never need to skip over deleted markers.
+     */
+    private void clearSlot(int slot) {
+        final int[] table = mTable;
+        final int[] values = mValues;
+        final int mask = table.length - 1;
+        int gap = slot;
+        int i = (slot + 1) & mask;
+        int entry;
+        while ((entry = table[i]) != 0) {
+            int home = ContainerHelpers.hash(values[entry - 1]) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                table[gap] = entry;
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        table[gap] = 0;
+    }
+
+    private void removeSlot(int slot) {
+        final int index = mTable[slot] - 1;
+        clearSlot(slot);
+        final int last = mSize - 1;
+        if (index != last) {
+            final int lastValue = mValues[last];
+            mValues[index] = lastValue;
+            mTable[findSlot(lastValue)] = index + 1;
+        }
+        mSize = last;
+    }
+
+    /**
+     * Adds the specified value to this set.
+     *
+     * @return true if this set did not already contain the value.
+     */
+    public boolean add(int value) {
+        int slot = -1;
+        if (mTable.length != 0) {
+            slot = findSlot(value);
+            if (mTable[slot] != 0) {
+                return false;
+            }
+        }
+
+        if (mSize >= mValues.length) {
+            grow();
+            slot = findSlot(value);
+        }
+
+        mValues[mSize] = value;
+        mTable[slot] = ++mSize;
+        return true;
+    }
+
+    /**
+     * Performs a {@link #add(int)} of all values in {@code other}.
+     */
+    public void addAll(@NonNull IntSet other) {
+        for (int i = 0, size = other.size(); i < size; i++) {
+            add(other.valueAt(i));
+        }
+    }
+
+    /**
+     * Removes the specified value from this set.
+     *
+     * @return true if this set contained the value.
+     */
+    public boolean remove(int value) {
+        if (mSize == 0) {
+            return false;
+        }
+        int slot = findSlot(value);
+        if (mTable[slot] != 0) {
+            removeSlot(slot);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes the value at the given index. The last value, if it is not the one being
+     * removed, is moved into {@code index}.
+     */
+    public void removeAt(int index) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        removeSlot(findSlot(mValues[index]));
+    }
+
+    /** Returns true if this set contains the specified value. */
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Returns the index for which {@link #valueAt} would return the
+     * specified value, or a negative number if the value is not in this set.
+     */
+    public int indexOf(int value) {
+        if (mSize == 0) {
+            return -1;
+        }
+        return mTable[findSlot(value)] - 1;
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, returns
+     * the <code>index</code>th value that this set stores.
+     */
+    public int valueAt(int index) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return mValues[index];
+    }
+
+    /**
+     * Returns the number of values in this set.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Return true if size() is 0.
+     * @return true if size() is 0.
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Removes all values from this set.
+     */
+    public void clear() {
+        if (mSize != 0) {
+            Arrays.fill(mTable, 0);
+            mSize = 0;
+        }
+    }
+
+    /**
+     * Returns a new array containing the values of this set, in index order.
+     */
+    @NonNull
+    public int[] toArray() {
+        return Arrays.copyOf(mValues, mSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation composes a string by iterating over its values.
+     */
+    @Override
+    public String toString() {
+        if (mSize <= 0) {
+            return "{}";
+        }
+
+        StringBuilder buffer = new StringBuilder(mSize * 14);
+        buffer.append('{');
+        for (int i = 0; i < mSize; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(mValues[i]);
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,441 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * LongObjectMap maps longs to Objects using an open-addressing hash table. Unlike
+ * {@link LongSparseArray}, lookups, insertions and removals take constant time on average
+ * regardless of the number of mappings, which makes it suitable for containers holding many
+ * thousands of items such as row ids or stable ids. Keys are never auto-boxed.
+ *
+ * <p>Mappings are stored densely in insertion order and indexed through a separate
+ * linear-probing table, so it is possible to iterate over the items in this container using
+ * {@link #keyAt(int)} and {@link #valueAt(int)} with indices in the range
+ * <code>0...size()-1</code>. Unlike {@link LongSparseArray}, keys are not sorted, and removing
+ * a mapping moves the last mapping into the removed index. Iterate in descending index order
+ * when removing mappings during iteration.</p>
+ */
+public final class LongObjectMap<E> implements Cloneable {
+    private long[] mKeys;
+    private Object[] mValues;
+    // Each slot holds the index of a mapping in mKeys/mValues plus one, or zero when empty.
+    private int[] mTable;
+    private int mSize;
+
+    /**
+     * Creates a new LongObjectMap containing no mappings.
+     */
+    public LongObjectMap() {
+        this(10);
+    }
+
+    /**
+     * Creates a new LongObjectMap containing no mappings that will not
+     * require any additional memory allocation to store the specified
+     * number of mappings.  If you supply an initial capacity of 0, the
+     * map will be initialized with a light-weight representation
+     * not requiring any additional array allocations.
+     */
+    public LongObjectMap(int initialCapacity) {
+        if (initialCapacity == 0) {
+            mKeys = ContainerHelpers.EMPTY_LONGS;
+            mValues = ContainerHelpers.EMPTY_OBJECTS;
+            mTable = ContainerHelpers.EMPTY_INTS;
+        } else {
+            allocArrays(ContainerHelpers.idealHashTableSize(initialCapacity));
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public LongObjectMap<E> clone() {
+        LongObjectMap<E> clone;
+        try {
+            clone = (LongObjectMap<E>) super.clone();
+            clone.mKeys = mKeys.clone();
+            clone.mValues = mValues.clone();
+            clone.mTable = mTable.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e); // Cannot happen as we implement Cloneable.
+        }
+        return clone;
+    }
+
+    private void allocArrays(int tableSize) {
+        mTable = new int[tableSize];
+        mKeys = new long[tableSize >> 1];
+        mValues = new Object[tableSize >> 1];
+    }
+
+    /**
+     * Returns the slot holding {@code key}, or the empty slot where it would be inserted.
+     * The table must not be empty.
+     */
+    private int findSlot(long key) {
+        final int[] table = mTable;
+        final long[] keys = mKeys;
+        final int mask = table.length - 1;
+        int slot = ContainerHelpers.hash(key) & mask;
+        while (true) {
+            int entry = table[slot];
+            if (entry == 0 || keys[entry - 1] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void grow() {
+        final long[] keys = mKeys;
+        final Object[] values = mValues;
+        final int size = mSize;
+        allocArrays(ContainerHelpers.idealHashTableSize(size + 1));
+        System.arraycopy(keys, 0, mKeys, 0, size);
+        System.arraycopy(values, 0, mValues, 0, size);
+        for (int i = 0; i < size; i++) {
+            mTable[findSlot(mKeys[i])] = i + 1;
+        }
+    }
+
+    /**
+     * Empties {@code slot} and shifts back any entries of the same probe sequence which follow
+     * it, so that lookups never need to skip over deleted markers.
+     */
+    private void clearSlot(int slot) {
+        final int[] table = mTable;
+        final long[] keys = mKeys;
+        final int mask = table.length - 1;
+        int gap = slot;
+        int i = (slot + 1) & mask;
+        int entry;
+        while ((entry = table[i]) != 0) {
+            int home = ContainerHelpers.hash(keys[entry - 1]) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                table[gap] = entry;
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        table[gap] = 0;
+    }
+
+    private void removeSlot(int slot) {
+        final int index = mTable[slot] - 1;
+        clearSlot(slot);
+        final int last = mSize - 1;
+        if (index != last) {
+            final long lastKey = mKeys[last];
+            mKeys[index] = lastKey;
+            mValues[index] = mValues[last];
+            mTable[findSlot(lastKey)] = index + 1;
+        }
+        mValues[last] = null;
+        mSize = last;
+    }
+
+    /**
+     * Gets the Object mapped from the specified key, or <code>null</code>
+     * if no such mapping has been made.
+     */
+    @Nullable
+    @SuppressWarnings("NullAway") // See SparseArrayCompat.get(int).
+    public E get(long key) {
+        return get(key, null);
+    }
+
+    /**
+     * Gets the Object mapped from the specified key, or the specified Object
+     * if no such mapping has been made.
+     */
+    @SuppressWarnings("unchecked")
+    public E get(long key, E valueIfKeyNotFound) {
+        if (mSize == 0) {
+            return valueIfKeyNotFound;
+        }
+        int entry = mTable[findSlot(key)];
+        return entry == 0 ? valueIfKeyNotFound : (E) mValues[entry - 1];
+    }
+
+    /**
+     * Adds a mapping from the specified key to the specified value,
+     * replacing the previous mapping from the specified key if there
+     * was one.
+     */
+    public void put(long key, E value) {
+        int slot = -1;
+        if (mTable.length != 0) {
+            slot = findSlot(key);
+            int entry = mTable[slot];
+            if (entry != 0) {
+                mValues[entry - 1] = value;
+                return;
+            }
+        }
+
+        if (mSize >= mKeys.length) {
+            grow();
+            slot = findSlot(key);
+        }
+
+        mKeys[mSize] = key;
+        mValues[mSize] = value;
+        mTable[slot] = ++mSize;
+    }
+
+    /**
+     * Copies all of the mappings from the {@code other} to this map. The effect of this call is
+     * equivalent to that of calling {@link #put(long, Object)} on this map once for each mapping
+     * from key to value in {@code other}.
+     */
+    public void putAll(@NonNull LongObjectMap<? extends E> other) {
+        for (int i = 0, size = other.size(); i < size; i++) {
+            put(other.keyAt(i), other.valueAt(i));
+        }
+    }
+
+    /**
+     * Add a new value to the map only if the key does not already have a value or it is
+     * mapped to {@code null}.
+     * @param key The key under which to store the value.
+     * @param value The value to store for the given key.
+     * @return Returns the value that was stored for the given key, or null if there
+     * was no such key.
+     */
+    @Nullable
+    public E putIfAbsent(long key, E value) {
+        E mapValue = get(key);
+        if (mapValue == null) {
+            put(key, value);
+        }
+        return mapValue;
+    }
+
+    /**
+     * Removes the mapping from the specified key, if there was any.
+     */
+    public void remove(long key) {
+        if (mSize == 0) {
+            return;
+        }
+        int slot = findSlot(key);
+        if (mTable[slot] != 0) {
+            removeSlot(slot);
+        }
+    }
+
+    /**
+     * Remove an existing key from the map only if it is currently mapped to {@code value}.
+     * @param key The key of the mapping to remove.
+     * @param value The value expected to be mapped to the key.
+     * @return Returns true if the mapping was removed.
+     */
+    public boolean remove(long key, Object value) {
+        int index = indexOfKey(key);
+        if (index >= 0 && ContainerHelpers.equal(value, mValues[index])) {
+            removeAt(index);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes the mapping at the given index. The last mapping, if it is not the one being
+     * removed, is moved into {@code index}.
+     */
+    public void removeAt(int index) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        removeSlot(findSlot(mKeys[index]));
+    }
+
+    /**
+     * Replace the mapping for {@code key} only if it is already mapped to a value.
+     * @param key The key of the mapping to replace.
+     * @param value The value to store for the given key.
+     * @return Returns the previous mapped value or null.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public E replace(long key, E value) {
+        int index = indexOfKey(key);
+        if (index >= 0) {
+            E oldValue = (E) mValues[index];
+            mValues[index] = value;
+            return oldValue;
+        }
+        return null;
+    }
+
+    /**
+     * Replace the mapping for {@code key} only if it is already mapped to a value.
+     *
+     * @param key The key of the mapping to replace.
+     * @param oldValue The value expected to be mapped to the key.
+     * @param newValue The value to store for the given key.
+     * @return Returns true if the value was replaced.
+     */
+    public boolean replace(long key, E oldValue, E newValue) {
+        int index = indexOfKey(key);
+        if (index >= 0 && ContainerHelpers.equal(oldValue, mValues[index])) {
+            mValues[index] = newValue;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of key-value mappings that this map currently stores.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Return true if size() is 0.
+     * @return true if size() is 0.
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, returns
+     * the key from the <code>index</code>th key-value mapping that this
+     * map stores.
+     */
+    public long keyAt(int index) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return mKeys[index];
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, returns
+     * the value from the <code>index</code>th key-value mapping that this
+     * map stores.
+     */
+    @SuppressWarnings("unchecked")
+    public E valueAt(int index) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return (E) mValues[index];
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, sets a new
+     * value for the <code>index</code>th key-value mapping that this
+     * map stores.
+     */
+    public void setValueAt(int index, E value) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        mValues[index] = value;
+    }
+
+    /**
+     * Returns the index for which {@link #keyAt} would return the
+     * specified key, or a negative number if the specified
+     * key is not mapped.
+     */
+    public int indexOfKey(long key) {
+        if (mSize == 0) {
+            return -1;
+        }
+        return mTable[findSlot(key)] - 1;
+    }
+
+    /**
+     * Returns an index for which {@link #valueAt} would return the
+     * specified key, or a negative number if no keys map to the
+     * specified value.
+     * <p>Beware that this is a linear search, unlike lookups by key,
+     * and that multiple keys can map to the same value and this will
+     * find only one of them.
+     * <p>Note also that unlike most collections' {@code indexOf} methods,
+     * this method compares values using {@code ==} rather than {@code equals}.
+     */
+    public int indexOfValue(E value) {
+        for (int i = 0; i < mSize; i++) {
+            if (mValues[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns true if the specified key is mapped. */
+    public boolean containsKey(long key) {
+        return indexOfKey(key) >= 0;
+    }
+
+    /** Returns true if the specified value is mapped from any key. */
+    public boolean containsValue(E value) {
+        return indexOfValue(value) >= 0;
+    }
+
+    /**
+     * Removes all key-value mappings from this map.
+     */
+    public void clear() {
+        if (mSize != 0) {
+            Arrays.fill(mTable, 0);
+            Arrays.fill(mValues, 0, mSize, null);
+            mSize = 0;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation composes a string by iterating over its mappings. If
+     * this map contains itself as a value, the string "(this Map)"
+     * will appear in its place.
+     */
+    @Override
+    public String toString() {
+        if (mSize <= 0) {
+            return "{}";
+        }
+
+        StringBuilder buffer = new StringBuilder(mSize * 28);
+        buffer.append('{');
+        for (int i = 0; i < mSize; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(mKeys[i]);
+            buffer.append('=');
+            Object value = mValues[i];
+            if (value != this) {
+                buffer.append(value);
+            } else {
+                buffer.append("(this Map)");
+            }
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+}
@@ -29,19 +29,33 @@ import java.util.Map;
  * this implementation is still used; it does not try to switch to the
  * framework's implementation. See the framework SDK documentation for a class
  * overview.
+ *
+ * <p>Strict least-recently-used eviction lets a single scan over many keys flush every
+ * frequently used entry. Caches created with a {@link CacheAdmissionPolicy} keep new entries
+ * in a small window instead, about one percent of the maximum size, and only let an entry
+ * leaving the window into the full cache if the policy prefers it over the least recently used
+ * entry. Otherwise the new entry is evicted and counted in {@link #admissionRejectionCount()}.
  */
 public class LruCache<K, V> {
     private final LinkedHashMap<K, V> map;
+    @Nullable
+    private final CacheAdmissionPolicy<K> admissionPolicy;
+    /** Entries added recently, only used when there is an admission policy. */
+    @Nullable
+    private final LinkedHashMap<K, V> window;
 
     /** Size of this cache in units. Not necessarily the number of elements. */
     private int size;
     private int maxSize;
+    private int windowSize;
+    private int windowMaxSize;
 
     private int putCount;
     private int createCount;
     private int evictionCount;
     private int hitCount;
     private int missCount;
+    private int admissionRejectionCount;
 
     /**
      * @param maxSize for caches that do not override {@link #sizeOf}, this is
@@ -49,11 +63,33 @@ public class LruCache<K, V> {
      *     this is the maximum sum of the sizes of the entries in this cache.
      */
     public LruCache(int maxSize) {
+        this(maxSize, null);
+    }
+
+    /**
+     * @param maxSize for caches that do not override {@link #sizeOf}, this is
+     *     the maximum number of entries in the cache. For all other caches,
+     *     this is the maximum sum of the sizes of the entries in this cache.
+     * @param admissionPolicy decides whether new entries may displace the least recently used
+     *     entry once the cache is full, or null for strict least-recently-used eviction.
+     */
+    public LruCache(int maxSize, @Nullable CacheAdmissionPolicy<K> admissionPolicy) {
         if (maxSize <= 0) {
             throw new IllegalArgumentException("maxSize <= 0");
         }
         this.maxSize = maxSize;
         this.map = new LinkedHashMap<K, V>(0, 0.75f, true);
+        this.admissionPolicy = admissionPolicy;
+        if (admissionPolicy != null) {
+            this.window = new LinkedHashMap<K, V>(0, 0.75f, true);
+            this.windowMaxSize = windowMaxSizeFor(maxSize);
+        } else {
+            this.window = null;
+        }
+    }
+
+    private static int windowMaxSizeFor(int maxSize) {
+        return Math.max(1, maxSize / 100);
     }
 
     /**
@@ -68,6 +104,7 @@ public class LruCache<K, V> {
 
         synchronized (this) {
             this.maxSize = maxSize;
+            this.windowMaxSize = windowMaxSizeFor(maxSize);
         }
         trimToSize(maxSize);
     }
@@ -86,7 +123,13 @@ public class LruCache<K, V> {
 
         V mapValue;
         synchronized (this) {
+            if (admissionPolicy != null) {
+                admissionPolicy.recordAccess(key);
+            }
             mapValue = map.get(key);
+            if (mapValue == null && window != null) {
+                mapValue = window.get(key);
+            }
             if (mapValue != null) {
                 hitCount++;
                 return mapValue;
@@ -108,13 +151,26 @@ public class LruCache<K, V> {
 
         synchronized (this) {
             createCount++;
-            mapValue = map.put(key, createdValue);
-
-            if (mapValue != null) {
-                // There was a conflict so undo that last put
-                map.put(key, mapValue);
+            if (window != null) {
+                mapValue = map.get(key);
+                if (mapValue == null) {
+                    mapValue = window.get(key);
+                }
+                if (mapValue == null) {
+                    int createdSize = safeSizeOf(key, createdValue);
+                    window.put(key, createdValue);
+                    windowSize += createdSize;
+                    size += createdSize;
+                }
             } else {
-                size += safeSizeOf(key, createdValue);
+                mapValue = map.put(key, createdValue);
+
+                if (mapValue != null) {
+                    // There was a conflict so undo that last put
+                    map.put(key, mapValue);
+                } else {
+                    size += safeSizeOf(key, createdValue);
+                }
             }
         }
 
@@ -122,7 +178,7 @@ public class LruCache<K, V> {
             entryRemoved(false, key, createdValue, mapValue);
             return mapValue;
         } else {
-            trimToSize(maxSize);
+            trimAfterAddition();
             return createdValue;
         }
     }
@@ -142,8 +198,20 @@ public class LruCache<K, V> {
         V previous;
         synchronized (this) {
             putCount++;
-            size += safeSizeOf(key, value);
-            previous = map.put(key, value);
+            if (admissionPolicy != null) {
+                admissionPolicy.recordAccess(key);
+            }
+            int valueSize = safeSizeOf(key, value);
+            size += valueSize;
+            if (window != null && !map.containsKey(key)) {
+                windowSize += valueSize;
+                previous = window.put(key, value);
+                if (previous != null) {
+                    windowSize -= safeSizeOf(key, previous);
+                }
+            } else {
+                previous = map.put(key, value);
+            }
             if (previous != null) {
                 size -= safeSizeOf(key, previous);
             }
@@ -153,7 +221,7 @@ public class LruCache<K, V> {
             entryRemoved(false, key, previous, value);
         }
 
-        trimToSize(maxSize);
+        trimAfterAddition();
         return previous;
     }
 
@@ -169,20 +237,73 @@ public class LruCache<K, V> {
             K key;
             V value;
             synchronized (this) {
-                if (size < 0 || (map.isEmpty() && size != 0)) {
-                    throw new IllegalStateException(getClass().getName()
-                            + ".sizeOf() is reporting inconsistent results!");
-                }
+                checkSizeConsistency();
 
-                if (size <= maxSize || map.isEmpty()) {
+                if (size <= maxSize || (map.isEmpty() && isWindowEmpty())) {
                     break;
                 }
 
-                Map.Entry<K, V> toEvict = map.entrySet().iterator().next();
+                Map.Entry<K, V> toEvict = map.isEmpty()
+                        ? window.entrySet().iterator().next()
+                        : map.entrySet().iterator().next();
                 key = toEvict.getKey();
                 value = toEvict.getValue();
-                map.remove(key);
-                size -= safeSizeOf(key, value);
+                removeEntry(key, value);
+                evictionCount++;
+            }
+
+            entryRemoved(true, key, value, null);
+        }
+    }
+
+    /**
+     * Trims the cache back to its maximum size after an entry was added to it, consulting the
+     * admission policy for entries which leave the window.
+     */
+    private void trimAfterAddition() {
+        if (admissionPolicy == null) {
+            trimToSize(maxSize);
+            return;
+        }
+
+        while (true) {
+            K key;
+            V value;
+            synchronized (this) {
+                checkSizeConsistency();
+
+                if (windowSize > windowMaxSize && !window.isEmpty()) {
+                    Map.Entry<K, V> candidate = window.entrySet().iterator().next();
+                    K candidateKey = candidate.getKey();
+                    V candidateValue = candidate.getValue();
+                    if (size <= maxSize || map.isEmpty()) {
+                        // There is room for the candidate, or nothing it could displace.
+                        window.remove(candidateKey);
+                        windowSize -= safeSizeOf(candidateKey, candidateValue);
+                        map.put(candidateKey, candidateValue);
+                        continue;
+                    }
+
+                    Map.Entry<K, V> victim = map.entrySet().iterator().next();
+                    if (admissionPolicy.admit(candidateKey, victim.getKey())) {
+                        key = victim.getKey();
+                        value = victim.getValue();
+                    } else {
+                        key = candidateKey;
+                        value = candidateValue;
+                        admissionRejectionCount++;
+                    }
+                } else if (size > maxSize && !(map.isEmpty() && window.isEmpty())) {
+                    Map.Entry<K, V> toEvict = map.isEmpty()
+                            ? window.entrySet().iterator().next()
+                            : map.entrySet().iterator().next();
+                    key = toEvict.getKey();
+                    value = toEvict.getValue();
+                } else {
+                    break;
+                }
+
+                removeEntry(key, value);
                 evictionCount++;
             }
 
@@ -190,6 +311,27 @@ public class LruCache<K, V> {
         }
     }
 
+    private void checkSizeConsistency() {
+        if (size < 0 || (map.isEmpty() && isWindowEmpty() && size != 0)) {
+            throw new IllegalStateException(getClass().getName()
+                    + ".sizeOf() is reporting inconsistent results!");
+        }
+    }
+
+    private boolean isWindowEmpty() {
+        return window == null || window.isEmpty();
+    }
+
+    /** Removes an entry known to be in the cache from whichever map holds it. */
+    private void removeEntry(K key, V value) {
+        int valueSize = safeSizeOf(key, value);
+        if (map.remove(key) == null && window != null) {
+            window.remove(key);
+            windowSize -= valueSize;
+        }
+        size -= valueSize;
+    }
+
     /**
      * Removes the entry for {@code key} if it exists.
      *
@@ -204,6 +346,12 @@ public class LruCache<K, V> {
         V previous;
         synchronized (this) {
             previous = map.remove(key);
+            if (previous == null && window != null) {
+                previous = window.remove(key);
+                if (previous != null) {
+                    windowSize -= safeSizeOf(key, previous);
+                }
+            }
             if (previous != null) {
                 size -= safeSizeOf(key, previous);
             }
@@ -336,17 +484,37 @@ public class LruCache<K, V> {
         return evictionCount;
     }
 
+    /**
+     * Returns the number of recently added values that were evicted because the
+     * cache's {@link CacheAdmissionPolicy} preferred the values they would have
+     * displaced. These evictions are also included in {@link #evictionCount()}.
+     */
+    public synchronized final int admissionRejectionCount() {
+        return admissionRejectionCount;
+    }
+
     /**
      * Returns a copy of the current contents of the cache, ordered from least
-     * recently accessed to most recently accessed.
+     * recently accessed to most recently accessed. For caches with a
+     * {@link CacheAdmissionPolicy}, entries still in the admission window
+     * are ordered after all other entries.
      */
     public synchronized final Map<K, V> snapshot() {
-        return new LinkedHashMap<K, V>(map);
+        LinkedHashMap<K, V> snapshot = new LinkedHashMap<K, V>(map);
+        if (window != null) {
+            snapshot.putAll(window);
+        }
+        return snapshot;
     }
 
     @Override public synchronized final String toString() {
         int accesses = hitCount + missCount;
         int hitPercent = accesses != 0 ? (100 * hitCount / accesses) : 0;
+        if (admissionPolicy != null) {
+            return String.format(Locale.US,
+                    "LruCache[maxSize=%d,hits=%d,misses=%d,hitRate=%d%%,rejections=%d]",
+                    maxSize, hitCount, missCount, hitPercent, admissionRejectionCount);
+        }
         return String.format(Locale.US, "LruCache[maxSize=%d,hits=%d,misses=%d,hitRate=%d%%]",
                 maxSize, hitCount, missCount, hitPercent);
     }
@@ -53,20 +53,15 @@ public class SimpleArrayMap<K, V> {
     private static final int BASE_SIZE = 4;
 
     /**
-     * Maximum number of entries to have in array caches.
+     * Default number of arrays of each capacity to have in the array pool.
      */
     private static final int CACHE_SIZE = 10;
 
     /**
-     * Caches of small array objects to avoid spamming garbage.  The cache
-     * Object[] variable is a pointer to a linked list of array objects.
-     * The first entry in the array is a pointer to the next array in the
-     * list; the second entry is a pointer to the int[] hash code array for it.
+     * Pool of array objects to avoid spamming garbage, shared by all maps. By default only
+     * arrays of up to {@code BASE_SIZE*2} entries are pooled.
      */
-    static @Nullable Object[] mBaseCache;
-    static int mBaseCacheSize;
-    static @Nullable Object[] mTwiceBaseCache;
-    static int mTwiceBaseCacheSize;
+    private static final ArrayPool sArrayPool = new ArrayPool(BASE_SIZE * 2, CACHE_SIZE);
 
     int[] mHashes;
     Object[] mArray;
@@ -160,73 +155,72 @@ public class SimpleArrayMap<K, V> {
         return ~end;
     }
 
-    @SuppressWarnings("ArrayToString")
     private void allocArrays(final int size) {
-        if (size == (BASE_SIZE*2)) {
-            synchronized (SimpleArrayMap.class) {
-                if (mTwiceBaseCache != null) {
-                    final Object[] array = mTwiceBaseCache;
-                    mArray = array;
-                    mTwiceBaseCache = (Object[])array[0];
-                    mHashes = (int[])array[1];
-                    array[0] = array[1] = null;
-                    mTwiceBaseCacheSize--;
-                    if (DEBUG) System.out.println(TAG + " Retrieving 2x cache " + mHashes
-                            + " now have " + mTwiceBaseCacheSize + " entries");
-                    return;
-                }
-            }
-        } else if (size == BASE_SIZE) {
-            synchronized (SimpleArrayMap.class) {
-                if (mBaseCache != null) {
-                    final Object[] array = mBaseCache;
-                    mArray = array;
-                    mBaseCache = (Object[])array[0];
-                    mHashes = (int[])array[1];
-                    array[0] = array[1] = null;
-                    mBaseCacheSize--;
-                    if (DEBUG) System.out.println(TAG + " Retrieving 1x cache " + mHashes
-                            + " now have " + mBaseCacheSize + " entries");
-                    return;
-                }
-            }
+        final Object[] array = sArrayPool.acquire(size);
+        if (array != null) {
+            mHashes = (int[]) array[0];
+            array[0] = null;
+            mArray = array;
+            return;
         }
 
         mHashes = new int[size];
         mArray = new Object[size<<1];
     }
 
-    @SuppressWarnings("ArrayToString")
+    /**
+     * Make sure <b>NOT</b> to call this method with arrays that can still be modified. In other
+     * words, don't pass mHashes or mArray in directly.
+     */
     private static void freeArrays(final int[] hashes, final Object[] array, final int size) {
-        if (hashes.length == (BASE_SIZE*2)) {
-            synchronized (SimpleArrayMap.class) {
-                if (mTwiceBaseCacheSize < CACHE_SIZE) {
-                    array[0] = mTwiceBaseCache;
-                    array[1] = hashes;
-                    for (int i=(size<<1)-1; i>=2; i--) {
-                        array[i] = null;
-                    }
-                    mTwiceBaseCache = array;
-                    mTwiceBaseCacheSize++;
-                    if (DEBUG) System.out.println(TAG + " Storing 2x cache " + array
-                            + " now have " + mTwiceBaseCacheSize + " entries");
-                }
-            }
-        } else if (hashes.length == BASE_SIZE) {
-            synchronized (SimpleArrayMap.class) {
-                if (mBaseCacheSize < CACHE_SIZE) {
-                    array[0] = mBaseCache;
-                    array[1] = hashes;
-                    for (int i=(size<<1)-1; i>=2; i--) {
-                        array[i] = null;
-                    }
-                    mBaseCache = array;
-                    mBaseCacheSize++;
-                    if (DEBUG) System.out.println(TAG + " Storing 1x cache " + array
-                            + " now have " + mBaseCacheSize + " entries");
-                }
-            }
-        }
+        sArrayPool.release(hashes, array, size << 1);
+    }
+
+    /**
+     * Configures the pool of backing arrays shared by all {@link SimpleArrayMap} and
+     * {@link ArrayMap} instances. Arrays of maps whose capacity is at most {@code maxCapacity}
+     * are kept for reuse when the map grows, shrinks or is cleared, up to
+     * {@code arraysPerCapacity} arrays for each capacity. Arrays pooled so far are released.
+     *
+     * <p>By default, arrays of up to 8 entries are pooled, 10 for each capacity. Raising the
+     * limits trades memory for fewer allocations in code which churns through many maps of
+     * similar sizes, which can be measured with {@link #arrayPoolHitCount()} and
+     * {@link #arrayPoolMissCount()}.
+     *
+     * @param maxCapacity the largest capacity whose arrays are pooled, or 0 to disable pooling.
+     * @param arraysPerCapacity the maximum number of arrays pooled for each capacity.
+     */
+    public static void configureArrayPool(int maxCapacity, int arraysPerCapacity) {
+        sArrayPool.configure(maxCapacity, arraysPerCapacity);
+    }
+
+    /**
+     * Returns the number of times the backing arrays of a map were taken from the array pool
+     * instead of being allocated.
+     *
+     * @see #configureArrayPool(int, int)
+     */
+    public static int arrayPoolHitCount() {
+        return sArrayPool.hitCount();
+    }
+
+    /**
+     * Returns the number of times the backing arrays of a map were allocated because the
+     * array pool had none of the requested capacity. Allocations of capacities larger than
+     * the pool's maximum capacity are not counted.
+     *
+     * @see #configureArrayPool(int, int)
+     */
+    public static int arrayPoolMissCount() {
+        return sArrayPool.missCount();
+    }
+
+    /**
+     * Resets the values returned by {@link #arrayPoolHitCount()} and
+     * {@link #arrayPoolMissCount()} to zero.
+     */
+    public static void resetArrayPoolStatistics() {
+        sArrayPool.resetStatistics();
     }
 
     /**
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A {@link CacheAdmissionPolicy} which admits an entry only if it was accessed more often than
+ * the entry it would replace.
+ *
+ * <p>Access frequencies are estimated with a count-min sketch of 4-bit counters, so the memory
+ * used does not depend on the number of distinct keys seen. Once the number of recorded
+ * accesses reaches ten times the expected number of entries, all counters are halved, which
+ * lets the estimates follow changes in the popularity of keys.
+ *
+ * @param <K> the type of the keys of the cache.
+ */
+public final class TinyLfuAdmissionPolicy<K> implements CacheAdmissionPolicy<K> {
+    // Arbitrary odd constants picking a different counter of each row for the same key.
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    // Each long holds sixteen 4-bit counters.
+    private final long[] mTable;
+    private final int mTableMask;
+    private final int mSampleSize;
+    private int mAdditions;
+
+    /**
+     * @param expectedEntries the number of entries the cache is expected to hold. For caches
+     *     which do not override {@link LruCache#sizeOf}, this is their maximum size.
+     */
+    public TinyLfuAdmissionPolicy(int expectedEntries) {
+        if (expectedEntries <= 0) {
+            throw new IllegalArgumentException("expectedEntries <= 0");
+        }
+        int tableSize = Integer.highestOneBit(Math.min(expectedEntries, 1 << 29) - 1) << 1;
+        mTable = new long[Math.max(tableSize, 8)];
+        mTableMask = mTable.length - 1;
+        mSampleSize = expectedEntries > Integer.MAX_VALUE / 10
+                ? Integer.MAX_VALUE : 10 * expectedEntries;
+    }
+
+    @Override
+    public void recordAccess(@NonNull K key) {
+        int hash = ContainerHelpers.hash(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int shift = (start + i) << 2;
+            if (((mTable[index] >>> shift) & 0xfL) != 0xfL) {
+                mTable[index] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++mAdditions == mSampleSize) {
+            reset();
+        }
+    }
+
+    @Override
+    public boolean admit(@NonNull K candidate, @NonNull K victim) {
+        return frequency(candidate) > frequency(victim);
+    }
+
+    /** Returns the estimated number of times {@code key} was accessed, at most 15. */
+    int frequency(@NonNull K key) {
+        int hash = ContainerHelpers.hash(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = 0xf;
+        for (int i = 0; i < 4; i++) {
+            int shift = (start + i) << 2;
+            int count = (int) ((mTable[indexOf(hash, i)] >>> shift) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    private int indexOf(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return (int) h & mTableMask;
+    }
+
+    /** Halves every counter so that old accesses weigh less than recent ones. */
+    private void reset() {
+        for (int i = 0; i < mTable.length; i++) {
+            mTable[i] = (mTable[i] >>> 1) & RESET_MASK;
+        }
+        mAdditions >>>= 1;
+    }
+}
@@ -32,11 +32,24 @@
  *         prevents boxing compared to a traditional {@link java.util.Map}.
  *     </li>
  *     <li>
+ *         <b>{@link androidx.collection.IntIntMap} / {@link androidx.collection.LongObjectMap} /
+ *         {@link androidx.collection.IntSet}</b>
+ *         <p>
+ *         Hash-based maps and sets with primitive keys, which prevent boxing and keep
+ *         constant-time lookups and insertions for large numbers of items.
+ *     </li>
+ *     <li>
  *         <b>{@link androidx.collection.LruCache}</b>
  *         <p>
  *         A map-like cache which keeps frequently-used entries and automatically evicts others.
  *     </li>
  *     <li>
+ *         <b>{@link androidx.collection.ConcurrentLruCache}</b>
+ *         <p>
+ *         A variant of {@link androidx.collection.LruCache} split into independently locked
+ *         segments, for caches shared by many threads.
+ *     </li>
+ *     <li>
  *         <b>{@link androidx.collection.CircularArray} /
  *         {@link androidx.collection.CircularIntArray}</b>
  *         <p>
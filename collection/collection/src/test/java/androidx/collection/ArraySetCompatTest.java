@@ -45,4 +45,27 @@ public class ArraySetCompatTest {
         } catch (NoSuchElementException expected) {
         }
     }
+
+    @Test
+    public void arrayPoolReusesArraysOfConfiguredCapacities() {
+        ArraySet.configureArrayPool(32, 1);
+        try {
+            ArraySet<String> set = new ArraySet<>(20);
+            set.add("a");
+            set.clear();
+
+            ArraySet.resetArrayPoolStatistics();
+            ArraySet<String> reused = new ArraySet<>(20);
+            assertEquals(1, ArraySet.arrayPoolHitCount());
+            assertFalse(reused.contains("a"));
+            assertTrue(reused.add("b"));
+            assertTrue(reused.contains("b"));
+
+            new ArraySet<String>(20);
+            assertEquals(1, ArraySet.arrayPoolMissCount());
+        } finally {
+            ArraySet.configureArrayPool(8, 10);
+            ArraySet.resetArrayPoolStatistics();
+        }
+    }
 }
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JUnit4.class)
+public class ConcurrentLruCacheTest {
+
+    @Test
+    public void singleSegmentEvictsLeastRecentlyUsed() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(3, 1);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        assertEquals("A", cache.get("a"));
+        cache.put("d", "D");
+        assertNull(cache.get("b"));
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.evictionCount());
+        assertEquals(4, cache.putCount());
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    public void sizeNeverExceedsMaxSize() {
+        ConcurrentLruCache<Integer, String> cache = new ConcurrentLruCache<>(100, 8);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, "value" + i);
+            assertTrue(cache.size() <= 100);
+        }
+        assertEquals(cache.snapshot().size(), cache.size());
+        assertEquals(1000, cache.putCount());
+        assertEquals(1000 - cache.size(), cache.evictionCount());
+    }
+
+    @Test
+    public void segmentCountIsLimitedByMaxSize() {
+        ConcurrentLruCache<Integer, String> cache = new ConcurrentLruCache<>(1, 16);
+        cache.put(1, "a");
+        cache.put(2, "b");
+        assertEquals(1, cache.size());
+        assertEquals("b", cache.get(2));
+    }
+
+    @Test
+    public void createOnCacheMiss() {
+        ConcurrentLruCache<String, String> cache = newCreatingCache();
+        assertEquals("created-aa", cache.get("aa"));
+        assertEquals("created-aa", cache.get("aa"));
+        assertEquals(1, cache.createCount());
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void entryRemovedIsCalledForReplacementsRemovalsAndEvictions() {
+        final List<String> log = new ArrayList<>();
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(2, 1) {
+            @Override
+            protected void entryRemoved(boolean evicted, String key, String oldValue,
+                    String newValue) {
+                log.add(key + "=" + oldValue + (evicted ? " evicted" : "") + "->" + newValue);
+            }
+        };
+        cache.put("a", "A");
+        cache.put("a", "A2");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        cache.remove("c");
+        cache.evictAll();
+        assertEquals("[a=A->A2, a=A2 evicted->null, c=C->null, b=B evicted->null]",
+                log.toString());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void sizeOfIsUsedForAccounting() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(10, 1) {
+            @Override
+            protected int sizeOf(String key, String value) {
+                return value.length();
+            }
+        };
+        cache.put("a", "xxxx");
+        cache.put("b", "yyyy");
+        assertEquals(8, cache.size());
+        cache.put("c", "zzzz");
+        assertEquals(8, cache.size());
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void resizeTrimsEverySegment() {
+        ConcurrentLruCache<Integer, String> cache = new ConcurrentLruCache<>(64, 4);
+        for (int i = 0; i < 64; i++) {
+            cache.put(i, "value");
+        }
+        cache.resize(8);
+        assertEquals(8, cache.maxSize());
+        assertTrue(cache.size() <= 8);
+    }
+
+    @Test
+    public void cannotPutNullKey() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(3);
+        try {
+            cache.put(null, "A");
+            fail();
+        } catch (NullPointerException expected) {
+        }
+    }
+
+    @Test
+    public void constructorDoesNotAllowZeroCacheSize() {
+        try {
+            new ConcurrentLruCache<String, String>(0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void concurrentAccessKeepsCountersConsistent() throws InterruptedException {
+        final ConcurrentLruCache<Integer, Integer> cache =
+                new ConcurrentLruCache<Integer, Integer>(50, 8) {
+                    @Override
+                    protected Integer create(Integer key) {
+                        return key;
+                    }
+                };
+        final int threadCount = 8;
+        final int iterations = 10_000;
+        final AtomicInteger failures = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(threadCount);
+        for (int t = 0; t < threadCount; t++) {
+            final int seed = t;
+            new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < iterations; i++) {
+                        int key = (i * 31 + seed) % 200;
+                        if (cache.get(key) != key) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+        done.await();
+        assertEquals(0, failures.get());
+        assertEquals(threadCount * iterations, cache.hitCount() + cache.missCount());
+        assertTrue(cache.size() <= 50);
+    }
+
+    private ConcurrentLruCache<String, String> newCreatingCache() {
+        return new ConcurrentLruCache<String, String>(3, 1) {
+            @Override
+            protected String create(String key) {
+                return (key.length() > 1) ? ("created-" + key) : null;
+            }
+        };
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class IntIntMapTest {
+    @Test
+    public void getOrDefaultPrefersStoredValue() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 1);
+        assertEquals(1, map.get(1, 2));
+    }
+
+    @Test
+    public void getOrDefaultUsesDefaultWhenAbsent() {
+        IntIntMap map = new IntIntMap();
+        assertEquals(-1, map.get(1, -1));
+        assertEquals(0, map.get(1));
+    }
+
+    @Test
+    public void putReplacesExistingValue() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 1);
+        map.put(1, 2);
+        assertEquals(1, map.size());
+        assertEquals(2, map.get(1));
+    }
+
+    @Test
+    public void zeroCapacityGrowsOnPut() {
+        IntIntMap map = new IntIntMap(0);
+        assertEquals(-1, map.get(0, -1));
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i * 2);
+        }
+        assertEquals(100, map.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i * 2, map.get(i));
+        }
+    }
+
+    @Test
+    public void zeroAndNegativeKeys() {
+        IntIntMap map = new IntIntMap();
+        map.put(0, 10);
+        map.put(-1, 20);
+        map.put(Integer.MIN_VALUE, 30);
+        assertEquals(10, map.get(0));
+        assertEquals(20, map.get(-1));
+        assertEquals(30, map.get(Integer.MIN_VALUE));
+    }
+
+    @Test
+    public void removeMovesLastMappingIntoIndex() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 10);
+        map.put(2, 20);
+        map.put(3, 30);
+        map.remove(1);
+        assertEquals(2, map.size());
+        assertEquals(3, map.keyAt(0));
+        assertEquals(30, map.valueAt(0));
+        assertEquals(0, map.indexOfKey(3));
+        assertFalse(map.containsKey(1));
+    }
+
+    @Test
+    public void removeAtInDescendingOrderRemovesEverything() {
+        IntIntMap map = new IntIntMap();
+        for (int i = 0; i < 50; i++) {
+            map.put(i, i);
+        }
+        for (int i = map.size() - 1; i >= 0; i--) {
+            map.removeAt(i);
+        }
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void indexOfValue() {
+        IntIntMap map = new IntIntMap();
+        map.put(5, 50);
+        assertEquals(0, map.indexOfValue(50));
+        assertEquals(-1, map.indexOfValue(51));
+        assertTrue(map.containsValue(50));
+    }
+
+    @Test
+    public void clearThenReuse() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 1);
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(1));
+        map.put(2, 2);
+        assertEquals(2, map.get(2));
+    }
+
+    @Test
+    public void cloneIsIndependent() {
+        IntIntMap source = new IntIntMap();
+        source.put(1, 1);
+        IntIntMap clone = source.clone();
+        clone.put(2, 2);
+        assertEquals(1, source.size());
+        assertEquals(2, clone.size());
+    }
+
+    @Test
+    public void putAll() {
+        IntIntMap dest = new IntIntMap();
+        dest.put(1, 1);
+        IntIntMap source = new IntIntMap();
+        source.put(1, 2);
+        source.put(3, 3);
+        dest.putAll(source);
+        assertEquals(2, dest.size());
+        assertEquals(2, dest.get(1));
+        assertEquals(3, dest.get(3));
+    }
+
+    @Test
+    public void toStringFormatsMappings() {
+        IntIntMap map = new IntIntMap();
+        assertEquals("{}", map.toString());
+        map.put(1, 2);
+        map.put(3, 4);
+        assertEquals("{1=2, 3=4}", map.toString());
+    }
+
+    @Test
+    public void matchesHashMapUnderRandomOperations() {
+        Random random = new Random(0);
+        IntIntMap map = new IntIntMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.put(key, i);
+                expected.put(key, i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals((int) expected.get(map.keyAt(i)), map.valueAt(i));
+        }
+        for (int key = 0; key < 2_000; key++) {
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+        }
+    }
+}
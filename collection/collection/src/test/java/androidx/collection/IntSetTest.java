@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+@RunWith(JUnit4.class)
+public class IntSetTest {
+    @Test
+    public void addReportsWhetherValueWasNew() {
+        IntSet set = new IntSet();
+        assertTrue(set.add(1));
+        assertFalse(set.add(1));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void removeReportsWhetherValueWasPresent() {
+        IntSet set = new IntSet(0);
+        assertFalse(set.remove(1));
+        set.add(1);
+        assertTrue(set.remove(1));
+        assertFalse(set.contains(1));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void toArrayReturnsValuesInIndexOrder() {
+        IntSet set = new IntSet();
+        set.add(3);
+        set.add(1);
+        set.add(2);
+        assertArrayEquals(new int[] { 3, 1, 2 }, set.toArray());
+        set.remove(3);
+        assertArrayEquals(new int[] { 2, 1 }, set.toArray());
+    }
+
+    @Test
+    public void addAll() {
+        IntSet dest = new IntSet();
+        dest.add(1);
+        IntSet source = new IntSet();
+        source.add(1);
+        source.add(2);
+        dest.addAll(source);
+        assertEquals(2, dest.size());
+        assertTrue(dest.contains(2));
+    }
+
+    @Test
+    public void matchesHashSetUnderRandomOperations() {
+        Random random = new Random(0);
+        IntSet set = new IntSet();
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            int value = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        for (int value = 0; value < 2_000; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+}
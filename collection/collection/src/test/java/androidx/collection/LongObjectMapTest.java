@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class LongObjectMapTest {
+    @Test
+    public void getOrDefaultPrefersStoredValue() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(1L, "1");
+        assertEquals("1", map.get(1L, "2"));
+    }
+
+    @Test
+    public void getOrDefaultReturnsNullWhenNullStored() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(1L, null);
+        assertNull(map.get(1L, "1"));
+        assertTrue(map.containsKey(1L));
+    }
+
+    @Test
+    public void keysDifferingInHighBitsAreDistinct() {
+        LongObjectMap<String> map = new LongObjectMap<>(0);
+        map.put(1L, "low");
+        map.put(1L << 32, "high");
+        map.put((1L << 32) | 1L, "both");
+        assertEquals("low", map.get(1L));
+        assertEquals("high", map.get(1L << 32));
+        assertEquals("both", map.get((1L << 32) | 1L));
+    }
+
+    @Test
+    public void putIfAbsentDoesNotOverwriteStoredValue() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(1L, "1");
+        assertEquals("1", map.putIfAbsent(1L, "2"));
+        assertEquals("1", map.get(1L));
+        assertNull(map.putIfAbsent(2L, "2"));
+        assertEquals("2", map.get(2L));
+    }
+
+    @Test
+    public void removeWithValue() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(1L, "1");
+        assertFalse(map.remove(1L, "2"));
+        assertTrue(map.remove(1L, "1"));
+        assertFalse(map.containsKey(1L));
+    }
+
+    @Test
+    public void replace() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        assertNull(map.replace(1L, "1"));
+        assertFalse(map.containsKey(1L));
+        map.put(1L, "1");
+        assertEquals("1", map.replace(1L, "2"));
+        assertFalse(map.replace(1L, "1", "3"));
+        assertTrue(map.replace(1L, "2", "3"));
+        assertEquals("3", map.get(1L));
+    }
+
+    @Test
+    public void removeReleasesValueReference() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(1L, "1");
+        map.put(2L, "2");
+        map.remove(1L);
+        assertEquals(1, map.size());
+        assertEquals(2L, map.keyAt(0));
+        assertEquals("2", map.valueAt(0));
+        assertEquals(-1, map.indexOfValue("1"));
+    }
+
+    @Test
+    public void cloneIsIndependent() {
+        LongObjectMap<String> source = new LongObjectMap<>();
+        source.put(1L, "1");
+        LongObjectMap<String> clone = source.clone();
+        clone.put(2L, "2");
+        assertEquals(1, source.size());
+        assertEquals(2, clone.size());
+    }
+
+    @Test
+    public void matchesHashMapUnderRandomOperations() {
+        Random random = new Random(0);
+        LongObjectMap<String> map = new LongObjectMap<>();
+        Map<Long, String> expected = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(2_000) * 0x100000001L;
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.put(key, "value" + i);
+                expected.put(key, "value" + i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals(expected.get(map.keyAt(i)), map.valueAt(i));
+        }
+    }
+}
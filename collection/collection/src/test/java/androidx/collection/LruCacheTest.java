@@ -18,6 +18,7 @@ package androidx.collection;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import org.junit.Test;
@@ -523,6 +524,80 @@ public class LruCacheTest {
         assertEquals(rounds, tally.mValuesPut + tally.mConflicts + tally.mRemoved);
     }
 
+    @Test
+    public void testAdmissionPolicyProtectsFrequentlyUsedEntries() {
+        LruCache<Integer, String> cache = new LruCache<>(100,
+                new TinyLfuAdmissionPolicy<Integer>(100));
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, "hot");
+        }
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 100; i++) {
+                cache.get(i);
+            }
+        }
+        // A scan over keys which are each used only once.
+        for (int i = 100; i < 1000; i++) {
+            cache.put(i, "cold");
+        }
+        int hotEntries = 0;
+        for (String value : cache.snapshot().values()) {
+            if ("hot".equals(value)) {
+                hotEntries++;
+            }
+        }
+        assertTrue(hotEntries >= 95);
+        assertEquals(100, cache.size());
+        assertTrue(cache.admissionRejectionCount() > 0);
+        assertTrue(cache.evictionCount() >= cache.admissionRejectionCount());
+    }
+
+    @Test
+    public void testAdmissionPolicyWithoutScanKeepsRecentEntries() {
+        LruCache<String, String> cache = new LruCache<>(3,
+                new TinyLfuAdmissionPolicy<String>(3));
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        assertEquals(3, cache.size());
+        assertEquals("A", cache.get("a"));
+        assertEquals("B", cache.get("b"));
+        assertEquals("C", cache.get("c"));
+        assertEquals(0, cache.admissionRejectionCount());
+    }
+
+    @Test
+    public void testAdmissionPolicyCallsEntryRemovedForRejections() {
+        final List<String> log = new ArrayList<String>();
+        LruCache<String, String> cache = new LruCache<String, String>(2,
+                new TinyLfuAdmissionPolicy<String>(2)) {
+            @Override protected void entryRemoved(
+                    boolean evicted, String key, String oldValue, String newValue) {
+                log.add(key + "=" + oldValue + (evicted ? "!" : ""));
+            }
+        };
+        cache.put("a", "A");
+        cache.get("a");
+        cache.get("a");
+        cache.put("c", "C");
+        // c leaves the window but has been used less often than a.
+        cache.put("d", "D");
+        assertEquals(Arrays.asList("c=C!"), log);
+        assertEquals(1, cache.admissionRejectionCount());
+        assertEquals(1, cache.evictionCount());
+        assertSnapshot(cache, "a", "A", "d", "D");
+        cache.evictAll();
+        assertEquals(0, cache.size());
+        assertEquals(3, log.size());
+    }
+
+    @Test
+    public void testAdmissionPolicyToStringReportsRejections() {
+        LruCache<String, String> cache = new LruCache<>(1, new TinyLfuAdmissionPolicy<String>(1));
+        assertEquals("LruCache[maxSize=1,hits=0,misses=0,hitRate=0%,rejections=0]",
+                cache.toString());
+    }
+
     private LruCache<String, String> newCreatingCache() {
         return new LruCache<String, String>(3) {
             @Override protected String create(String key) {
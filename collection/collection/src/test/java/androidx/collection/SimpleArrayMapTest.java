@@ -401,4 +401,51 @@ public class SimpleArrayMapTest {
             }
         }
     }
+
+    @Test
+    public void arrayPoolReusesArraysOfConfiguredCapacities() {
+        SimpleArrayMap.configureArrayPool(64, 2);
+        try {
+            SimpleArrayMap<String, String> map = new SimpleArrayMap<>(40);
+            map.put("a", "A");
+            map.clear();
+
+            SimpleArrayMap.resetArrayPoolStatistics();
+            SimpleArrayMap<String, String> reused = new SimpleArrayMap<>(40);
+            assertEquals(1, SimpleArrayMap.arrayPoolHitCount());
+            assertEquals(0, SimpleArrayMap.arrayPoolMissCount());
+            // Pooled arrays must not leak the mappings of their previous owner.
+            assertTrue(reused.isEmpty());
+            assertNull(reused.get("a"));
+            reused.put("b", "B");
+            assertEquals("B", reused.get("b"));
+
+            new SimpleArrayMap<String, String>(40);
+            assertEquals(1, SimpleArrayMap.arrayPoolMissCount());
+
+            new SimpleArrayMap<String, String>(65);
+            assertEquals(1, SimpleArrayMap.arrayPoolMissCount());
+        } finally {
+            SimpleArrayMap.configureArrayPool(8, 10);
+            SimpleArrayMap.resetArrayPoolStatistics();
+        }
+    }
+
+    @Test
+    public void arrayPoolCanBeDisabled() {
+        SimpleArrayMap.configureArrayPool(0, 0);
+        try {
+            SimpleArrayMap<String, String> map = new SimpleArrayMap<>(4);
+            map.put("a", "A");
+            map.clear();
+
+            SimpleArrayMap.resetArrayPoolStatistics();
+            new SimpleArrayMap<String, String>(4);
+            assertEquals(0, SimpleArrayMap.arrayPoolHitCount());
+            assertEquals(0, SimpleArrayMap.arrayPoolMissCount());
+        } finally {
+            SimpleArrayMap.configureArrayPool(8, 10);
+            SimpleArrayMap.resetArrayPoolStatistics();
+        }
+    }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TinyLfuAdmissionPolicyTest {
+    @Test
+    public void frequencyCountsAccesses() {
+        TinyLfuAdmissionPolicy<String> policy = new TinyLfuAdmissionPolicy<>(100);
+        assertEquals(0, policy.frequency("a"));
+        policy.recordAccess("a");
+        policy.recordAccess("a");
+        assertEquals(2, policy.frequency("a"));
+    }
+
+    @Test
+    public void frequencySaturatesAtFifteen() {
+        TinyLfuAdmissionPolicy<String> policy = new TinyLfuAdmissionPolicy<>(100);
+        for (int i = 0; i < 20; i++) {
+            policy.recordAccess("a");
+        }
+        assertEquals(15, policy.frequency("a"));
+    }
+
+    @Test
+    public void admitsOnlyMoreFrequentCandidates() {
+        TinyLfuAdmissionPolicy<String> policy = new TinyLfuAdmissionPolicy<>(100);
+        policy.recordAccess("victim");
+        policy.recordAccess("victim");
+        policy.recordAccess("candidate");
+        assertFalse(policy.admit("candidate", "victim"));
+        policy.recordAccess("candidate");
+        assertFalse(policy.admit("candidate", "victim"));
+        policy.recordAccess("candidate");
+        assertTrue(policy.admit("candidate", "victim"));
+    }
+
+    @Test
+    public void countersAreHalvedAfterSamplePeriod() {
+        TinyLfuAdmissionPolicy<Integer> policy = new TinyLfuAdmissionPolicy<>(1);
+        for (int i = 0; i < 8; i++) {
+            policy.recordAccess(0);
+        }
+        assertEquals(8, policy.frequency(0));
+        // The sample period of a policy expecting one entry is ten additions.
+        policy.recordAccess(0);
+        policy.recordAccess(0);
+        assertEquals(5, policy.frequency(0));
+    }
+}
@@ -0,0 +1,497 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.datastore.core
+
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.launch
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.EOFException
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileNotFoundException
+import java.io.FileOutputStream
+import java.io.IOException
+import java.io.InputStream
+import java.io.OutputStream
+import java.util.logging.Level
+import java.util.logging.Logger
+import java.util.zip.CRC32
+
+/**
+ * Storage that appends a record per update to a log next to the data file, instead of
+ * rewriting the whole file for every update.
+ *
+ * The data file keeps the format of [Serializer.writeTo], so it stays readable by a DataStore
+ * that does not use a log. The log starts with a header that identifies the data file it
+ * applies to by its length and CRC32. Each record is framed by its length and CRC32, and is
+ * fsync'ed before [append] returns. A torn record at the end of the log belongs to an update
+ * that never completed, so it is dropped when the log is replayed.
+ *
+ * Once the log grows past [compactionThresholdBytes], the current value is written to a new
+ * data file in [scope]. Records appended while that happens are carried over into a new log,
+ * which is written before the new data file is moved in place and moved in place after it.
+ * Whichever of the two logs matches the data file after a crash is the one that is replayed.
+ */
+internal class AppendOnlyLog<T>(
+    private val file: File,
+    private val serializer: DeltaSerializer<T>,
+    private val compactionThresholdBytes: Long,
+    private val scope: CoroutineScope
+) {
+    private companion object {
+        const val MAGIC = 0x44534c47 // "DSLG"
+        const val HEADER_SIZE = 16L
+        const val RECORD_OVERHEAD = 8
+        const val NO_DATA_FILE = -1L
+
+        const val SCRATCH_SUFFIX = ".tmp"
+        const val LOG_SUFFIX = ".log"
+        const val COMPACTION_SUFFIX = ".compact"
+
+        val logger: Logger = Logger.getLogger(AppendOnlyLog::class.java.name)
+    }
+
+    /** Identifies the content of a data file. */
+    private data class FileId(val length: Long, val crc: Int)
+
+    private val logFile = File(file.path + LOG_SUFFIX)
+    private val compactedLogFile = File(logFile.path + SCRATCH_SUFFIX)
+    private val compactedFile = File(file.path + COMPACTION_SUFFIX + SCRATCH_SUFFIX)
+
+    private val lock = Any()
+
+    // All guarded by lock.
+    private var fileId: FileId? = null
+    private var current: T? = null
+    private var logLength = 0L
+    private var generation = 0
+    private var compacting = false
+
+    /**
+     * Reads the data file and replays the log on top of it.
+     */
+    fun read(): T = synchronized(lock) {
+        val (baseValue, id) = try {
+            FileInputStream(file).use { stream ->
+                val checked = ChecksumInputStream(stream)
+                val value = serializer.readFrom(checked)
+                value to checked.finish()
+            }
+        } catch (ex: FileNotFoundException) {
+            if (file.exists()) {
+                throw ex
+            }
+            serializer.defaultValue to FileId(NO_DATA_FILE, 0)
+        }
+
+        var logMatches = logFile.exists() && readHeader(logFile) == id
+        if (!logMatches && compactedLogFile.exists() && readHeader(compactedLogFile) == id) {
+            // A compaction moved the new data file in place, but not yet its log.
+            compactedLogFile.moveTo(logFile)
+            logMatches = true
+        } else {
+            compactedLogFile.delete()
+        }
+
+        var value = baseValue
+        var length = 0L
+        if (logMatches) {
+            val replayed = replay(value)
+            value = replayed.first
+            length = replayed.second
+        } else {
+            // Left behind by a compaction or replace that moved a new data file in place.
+            logFile.delete()
+        }
+
+        fileId = id
+        current = value
+        logLength = length
+        generation++
+        value
+    }
+
+    /**
+     * Appends a record that turns [oldValue] into [newValue]. [read] has to be called first.
+     */
+    fun append(oldValue: T, newValue: T) {
+        val payload = ByteArrayOutputStream()
+        serializer.writeDelta(oldValue, newValue, UncloseableOutputStream(payload))
+        val record = frameRecord(payload.toByteArray())
+
+        val shouldCompact = synchronized(lock) {
+            val id = fileId ?: throw IOException(
+                "The log of $file is inconsistent until it is read again."
+            )
+            val start = logLength
+            file.createParentDirectories()
+            FileOutputStream(logFile, true).use { stream ->
+                try {
+                    // Drop anything left behind by an append that failed.
+                    stream.channel.truncate(start)
+                    if (start == 0L) {
+                        stream.write(header(id))
+                    }
+                    stream.write(record)
+                    stream.fd.sync()
+                } catch (ex: IOException) {
+                    try {
+                        stream.channel.truncate(start)
+                    } catch (truncateEx: IOException) {
+                        ex.addSuppressed(truncateEx)
+                    }
+                    throw ex
+                }
+            }
+            logLength = (if (start == 0L) HEADER_SIZE else start) + record.size
+            current = newValue
+
+            (logLength > compactionThresholdBytes && !compacting).also {
+                if (it) compacting = true
+            }
+        }
+
+        if (shouldCompact) {
+            scope.launch {
+                try {
+                    compact()
+                } catch (ex: CancellationException) {
+                    throw ex
+                } catch (ex: Exception) {
+                    // Failing the scope would fail the DataStore. Unless compact() had to refuse
+                    // appends until the next read(), the log is still valid and compaction will
+                    // be retried after the next append.
+                    logger.log(Level.WARNING, "Unable to compact the log of $file", ex)
+                } finally {
+                    synchronized(lock) { compacting = false }
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the data file with [newValue] and drops the log.
+     */
+    fun replace(newValue: T): Unit = synchronized(lock) {
+        val scratchFile = File(file.path + SCRATCH_SUFFIX)
+        val id = writeDataFile(newValue, scratchFile)
+        compactedLogFile.delete()
+        try {
+            scratchFile.moveTo(file)
+        } catch (ex: IOException) {
+            scratchFile.delete() // Swallow failure to delete
+            throw ex
+        }
+        // The log no longer matches the data file, so it would be dropped if this fails.
+        logFile.delete()
+
+        fileId = id
+        current = newValue
+        logLength = 0L
+        generation++
+    }
+
+    /**
+     * Internal only to prevent creation of synthetic accessor function. Do not call this from
+     * outside this class.
+     */
+    internal fun compact() {
+        val (snapshot, snapshotLength, snapshotGeneration) = synchronized(lock) {
+            @Suppress("UNCHECKED_CAST")
+            Triple(current as T, logLength, generation)
+        }
+
+        // The slow part runs without the lock, so that updates can keep appending to the log.
+        val id = writeDataFile(snapshot, compactedFile)
+
+        synchronized(lock) {
+            if (generation != snapshotGeneration) {
+                // The data file was replaced or read again in the meantime.
+                compactedFile.delete()
+                return
+            }
+            try {
+                FileOutputStream(compactedLogFile).use { output ->
+                    output.write(header(id))
+                    if (logLength > snapshotLength) {
+                        FileInputStream(logFile).use { input ->
+                            input.skipFully(snapshotLength)
+                            input.copyBytesTo(output, logLength - snapshotLength)
+                        }
+                    }
+                    output.fd.sync()
+                }
+                compactedFile.moveTo(file)
+            } catch (ex: IOException) {
+                compactedFile.delete()
+                compactedLogFile.delete()
+                throw ex
+            }
+            try {
+                compactedLogFile.moveTo(logFile)
+            } catch (ex: IOException) {
+                // The old log does not match the new data file anymore, start over from the
+                // current value.
+                @Suppress("UNCHECKED_CAST")
+                val value = current as T
+                fileId = null
+                try {
+                    replace(value)
+                } catch (replaceEx: Exception) {
+                    // Re-open whatever is on disk so that appends go to a log matching the data
+                    // file, and carry over what did not make it there. If that fails too,
+                    // appends are refused until the next read().
+                    try {
+                        val reopened = read()
+                        if (reopened != value) {
+                            append(reopened, value)
+                        }
+                    } catch (reopenEx: Exception) {
+                        fileId = null
+                        replaceEx.addSuppressed(reopenEx)
+                    }
+                    throw replaceEx
+                }
+                return
+            }
+
+            val tail = logLength - snapshotLength
+            fileId = id
+            logLength = if (tail > 0) HEADER_SIZE + tail else 0L
+            generation++
+        }
+    }
+
+    /**
+     * Applies all complete records in the log to [base] and truncates a torn record at the end.
+     */
+    private fun replay(base: T): Pair<T, Long> {
+        var value = base
+        var validLength = HEADER_SIZE
+        val fileLength = logFile.length()
+        val input = DataInputStream(FileInputStream(logFile).buffered())
+        try {
+            input.skipFully(HEADER_SIZE)
+            while (validLength + RECORD_OVERHEAD <= fileLength) {
+                val size = input.readInt()
+                if (size < 0 || validLength + RECORD_OVERHEAD + size > fileLength) {
+                    break
+                }
+                val payload = ByteArray(size)
+                input.readFully(payload)
+                if (input.readInt() != crc(payload)) {
+                    break
+                }
+                value = serializer.readDelta(value, ByteArrayInputStream(payload))
+                validLength += RECORD_OVERHEAD + size
+            }
+        } finally {
+            input.close()
+        }
+        if (fileLength > validLength) {
+            FileOutputStream(logFile, true).use { stream ->
+                stream.channel.truncate(validLength)
+                stream.fd.sync()
+            }
+        }
+        return value to validLength
+    }
+
+    private fun writeDataFile(value: T, target: File): FileId {
+        file.createParentDirectories()
+        try {
+            return FileOutputStream(target).use { stream ->
+                val checked = ChecksumOutputStream(stream)
+                serializer.writeTo(value, checked)
+                stream.fd.sync()
+                checked.id()
+            }
+        } catch (ex: IOException) {
+            if (target.exists()) {
+                target.delete() // Swallow failure to delete
+            }
+            throw ex
+        }
+    }
+
+    private fun readHeader(log: File): FileId? {
+        return try {
+            DataInputStream(FileInputStream(log)).use { input ->
+                if (input.readInt() != MAGIC) {
+                    null
+                } else {
+                    FileId(input.readLong(), input.readInt())
+                }
+            }
+        } catch (ex: EOFException) {
+            null
+        }
+    }
+
+    private fun header(id: FileId): ByteArray {
+        val bytes = ByteArrayOutputStream(HEADER_SIZE.toInt())
+        DataOutputStream(bytes).apply {
+            writeInt(MAGIC)
+            writeLong(id.length)
+            writeInt(id.crc)
+        }
+        return bytes.toByteArray()
+    }
+
+    private fun frameRecord(payload: ByteArray): ByteArray {
+        val bytes = ByteArrayOutputStream(payload.size + RECORD_OVERHEAD)
+        DataOutputStream(bytes).apply {
+            writeInt(payload.size)
+            write(payload)
+            writeInt(crc(payload))
+        }
+        return bytes.toByteArray()
+    }
+
+    private fun crc(bytes: ByteArray): Int {
+        val crc = CRC32()
+        crc.update(bytes)
+        return crc.value.toInt()
+    }
+
+    private fun File.moveTo(target: File) {
+        if (!renameTo(target)) {
+            throw IOException(
+                "Unable to rename $this." +
+                    "This likely means that there are multiple instances of DataStore " +
+                    "for this file. Ensure that you are only creating a single instance of " +
+                    "datastore for this file."
+            )
+        }
+    }
+
+    private fun File.createParentDirectories() {
+        val parent: File? = canonicalFile.parentFile
+
+        parent?.let {
+            it.mkdirs()
+            if (!it.isDirectory) {
+                throw IOException("Unable to create parent directories of $this")
+            }
+        }
+    }
+
+    private fun InputStream.skipFully(count: Long) {
+        var remaining = count
+        while (remaining > 0) {
+            val skipped = skip(remaining)
+            if (skipped <= 0) {
+                throw EOFException()
+            }
+            remaining -= skipped
+        }
+    }
+
+    private fun InputStream.copyBytesTo(output: OutputStream, count: Long) {
+        val buffer = ByteArray(DEFAULT_BUFFER_SIZE)
+        var remaining = count
+        while (remaining > 0) {
+            val read = read(buffer, 0, minOf(buffer.size.toLong(), remaining).toInt())
+            if (read < 0) {
+                throw EOFException()
+            }
+            output.write(buffer, 0, read)
+            remaining -= read
+        }
+    }
+
+    /** Computes the [FileId] of everything read, including what the serializer left unread. */
+    private class ChecksumInputStream(private val input: InputStream) : InputStream() {
+        private val crc = CRC32()
+        private var length = 0L
+
+        override fun read(): Int {
+            val b = input.read()
+            if (b >= 0) {
+                crc.update(b)
+                length++
+            }
+            return b
+        }
+
+        override fun read(b: ByteArray, off: Int, len: Int): Int {
+            val read = input.read(b, off, len)
+            if (read > 0) {
+                crc.update(b, off, read)
+                length += read
+            }
+            return read
+        }
+
+        override fun close() {
+            // The underlying stream is closed once the whole file has been read.
+        }
+
+        fun finish(): FileId {
+            val buffer = ByteArray(DEFAULT_BUFFER_SIZE)
+            while (read(buffer, 0, buffer.size) >= 0) {
+                // Read the rest of the file.
+            }
+            return FileId(length, crc.value.toInt())
+        }
+    }
+
+    /** Computes the [FileId] of everything written, closing is a no-op. */
+    private class ChecksumOutputStream(private val output: OutputStream) : OutputStream() {
+        private val crc = CRC32()
+        private var length = 0L
+
+        override fun write(b: Int) {
+            output.write(b)
+            crc.update(b)
+            length++
+        }
+
+        override fun write(b: ByteArray, off: Int, len: Int) {
+            output.write(b, off, len)
+            crc.update(b, off, len)
+            length += len
+        }
+
+        override fun flush() {
+            output.flush()
+        }
+
+        override fun close() {
+            // Closed by the caller after the fd is synced.
+        }
+
+        fun id() = FileId(length, crc.value.toInt())
+    }
+
+    private class UncloseableOutputStream(private val output: OutputStream) : OutputStream() {
+        override fun write(b: Int) {
+            output.write(b)
+        }
+
+        override fun write(b: ByteArray, off: Int, len: Int) {
+            output.write(b, off, len)
+        }
+
+        override fun close() {
+            // Serializers may close the stream, the record is still framed afterwards.
+        }
+    }
+}
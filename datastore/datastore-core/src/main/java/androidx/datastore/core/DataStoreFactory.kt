@@ -45,6 +45,11 @@ public object DataStoreFactory {
      * @param migrations Migrations are run before any access to data can occur. Migrations must
      * be idempotent.
      * @param scope The scope in which IO operations and transform functions will execute.
+     * @param coalescingWindowMillis How long DataStore waits for more updates after receiving one.
+     * Updates that are queued at the end of the window are applied in order and written to disk
+     * with a single write. Updates that are queued while a write is in progress are always
+     * coalesced, this only makes DataStore wait for more of them.
+     * @param metrics Receives the number of updates per write and the depth of the update queue.
      * @param produceFile Function which returns the file that the new DataStore will act on. The
      * function must return the same path every time. No two instances of DataStore should act on
      * the same file at the same time.
@@ -57,13 +62,80 @@ public object DataStoreFactory {
         corruptionHandler: ReplaceFileCorruptionHandler<T>? = null,
         migrations: List<DataMigration<T>> = listOf(),
         scope: CoroutineScope = CoroutineScope(Dispatchers.IO + SupervisorJob()),
+        coalescingWindowMillis: Long = 0,
+        metrics: DataStoreMetrics? = null,
         produceFile: () -> File
-    ): DataStore<T> =
-        SingleProcessDataStore(
+    ): DataStore<T> {
+        require(coalescingWindowMillis >= 0) { "coalescingWindowMillis must not be negative." }
+        return SingleProcessDataStore(
             produceFile = produceFile,
             serializer = serializer,
             corruptionHandler = corruptionHandler ?: NoOpCorruptionHandler(),
             initTasksList = listOf(DataMigrationInitializer.getInitializer(migrations)),
-            scope = scope
+            scope = scope,
+            coalescingWindowMillis = coalescingWindowMillis,
+            metrics = metrics
         )
+    }
+
+    /**
+     * Create an instance of SingleProcessDataStore that appends a record for every update to a
+     * log next to the file, instead of rewriting the whole file. The log is replayed when the
+     * data is read, and compacted into the file in [scope] once it grows past
+     * [compactionThresholdBytes]. An update is durable once updateData returns, like with
+     * [create].
+     *
+     * The file keeps the format of [Serializer.writeTo], so a DataStore created with [create] can
+     * read it after the log has been compacted into it.
+     *
+     * Never create more than one instance of DataStore for a given file; doing so can break all
+     * DataStore functionality. You should consider managing your DataStore instance as a
+     * singleton.
+     *
+     * @param serializer Serializer for the type T used with DataStore, which also writes the
+     * records of the log. The type T must be immutable.
+     * @param corruptionHandler The corruptionHandler is invoked if DataStore encounters a
+     * [CorruptionException] when attempting to read data. CorruptionExceptions are thrown by
+     * serializers when data can not be de-serialized.
+     * @param migrations Migrations are run before any access to data can occur. Migrations must
+     * be idempotent.
+     * @param compactionThresholdBytes The size of the log in bytes after which it is compacted
+     * into the file.
+     * @param scope The scope in which IO operations and transform functions will execute.
+     * @param coalescingWindowMillis How long DataStore waits for more updates after receiving one.
+     * Updates that are queued at the end of the window are applied in order and written to disk
+     * with a single write. Updates that are queued while a write is in progress are always
+     * coalesced, this only makes DataStore wait for more of them.
+     * @param metrics Receives the number of updates per write and the depth of the update queue.
+     * @param produceFile Function which returns the file that the new DataStore will act on. The
+     * function must return the same path every time. No two instances of DataStore should act on
+     * the same file at the same time.
+     *
+     * @return a new DataStore instance with the provided configuration
+     */
+    @JvmOverloads // Generate constructors for default params for java users.
+    public fun <T> createAppendOnly(
+        serializer: DeltaSerializer<T>,
+        corruptionHandler: ReplaceFileCorruptionHandler<T>? = null,
+        migrations: List<DataMigration<T>> = listOf(),
+        compactionThresholdBytes: Long = SingleProcessDataStore.DEFAULT_COMPACTION_THRESHOLD_BYTES,
+        scope: CoroutineScope = CoroutineScope(Dispatchers.IO + SupervisorJob()),
+        coalescingWindowMillis: Long = 0,
+        metrics: DataStoreMetrics? = null,
+        produceFile: () -> File
+    ): DataStore<T> {
+        require(compactionThresholdBytes > 0) { "compactionThresholdBytes must be positive." }
+        require(coalescingWindowMillis >= 0) { "coalescingWindowMillis must not be negative." }
+        return SingleProcessDataStore(
+            produceFile = produceFile,
+            serializer = serializer,
+            corruptionHandler = corruptionHandler ?: NoOpCorruptionHandler(),
+            initTasksList = listOf(DataMigrationInitializer.getInitializer(migrations)),
+            scope = scope,
+            deltaSerializer = serializer,
+            compactionThresholdBytes = compactionThresholdBytes,
+            coalescingWindowMillis = coalescingWindowMillis,
+            metrics = metrics
+        )
+    }
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.datastore.core
+
+/**
+ * Receives statistics about how DataStore coalesces updates into writes.
+ *
+ * Calls are made from the scope of the DataStore. Implementations should return quickly and must
+ * not throw.
+ */
+public interface DataStoreMetrics {
+
+    /**
+     * Called after the result of one or more updates was written to disk with a single write.
+     *
+     * @param updateCount the number of updates whose result was written
+     * @param queueDepth the number of reads and updates that were waiting behind the write when
+     * it completed
+     */
+    public fun onWrite(updateCount: Int, queueDepth: Int)
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.datastore.core
+
+import java.io.InputStream
+import java.io.OutputStream
+
+/**
+ * A [Serializer] that can also describe an update as a record relative to the previous value.
+ *
+ * Used by DataStores created with [DataStoreFactory.createAppendOnly], which append a record
+ * for every update to a log instead of rewriting the whole file. The type T MUST be immutable.
+ */
+public interface DeltaSerializer<T> : Serializer<T> {
+
+    /**
+     * Marshal the changes from [oldValue] to [newValue] to a stream. Closing the provided
+     * OutputStream is a no-op.
+     *
+     * The default implementation writes the whole [newValue].
+     *
+     * @param oldValue the value the record is applied to when reading
+     * @param newValue the value that applying the record has to produce
+     * @param output the OutputStream to serialize the record to
+     */
+    public fun writeDelta(oldValue: T, newValue: T, output: OutputStream) {
+        writeTo(newValue, output)
+    }
+
+    /**
+     * Unmarshal a record written by [writeDelta] and apply it to [oldValue].
+     *
+     * The default implementation reads a whole value.
+     *
+     * @param oldValue the value the record was written against
+     * @param input the InputStream with the record, which ends at the end of the record
+     */
+    public fun readDelta(oldValue: T, input: InputStream): T {
+        return readFrom(input)
+    }
+}
@@ -51,6 +51,19 @@ internal class SimpleActor<T>(
      */
     private val remainingMessages = AtomicInteger(0)
 
+    /**
+     * Number of messages taken by [drainPending] while consuming the current message. Only
+     * accessed by the consumer.
+     */
+    private var drainedMessages = 0
+
+    /**
+     * The number of messages waiting behind the message that is currently being consumed. Must
+     * only be called from [consumeMessage].
+     */
+    val pendingMessages: Int
+        get() = maxOf(0, remainingMessages.get() - 1 - drainedMessages)
+
     init {
         // If the scope doesn't have a job, it won't be cancelled, so we don't need to register a
         // callback.
@@ -123,8 +136,34 @@ internal class SimpleActor<T>(
                     scope.ensureActive()
 
                     consumeMessage(messageQueue.receive())
-                } while (remainingMessages.decrementAndGet() != 0)
+
+                    val consumed = 1 + drainedMessages
+                    drainedMessages = 0
+                } while (remainingMessages.addAndGet(-consumed) != 0)
             }
         }
     }
+
+    /**
+     * Takes up to [maxMessages] of the messages waiting behind the message that is currently
+     * being consumed, in the order they were offered. Must only be called from [consumeMessage],
+     * which is then responsible for the returned messages as if they had been passed to it.
+     */
+    fun drainPending(maxMessages: Int = Int.MAX_VALUE): List<T> {
+        // Messages are added to the queue before they are counted, so every counted message is
+        // in the queue. Messages that are not counted yet are left for the next iteration.
+        val count = minOf(pendingMessages, maxMessages)
+        if (count <= 0) {
+            return emptyList()
+        }
+        val messages = ArrayList<T>(count)
+        for (i in 0 until count) {
+            // Null if the scope was cancelled in the meantime, the remaining messages are passed
+            // to onUndeliveredElement.
+            val msg = messageQueue.poll() ?: break
+            messages.add(msg)
+        }
+        drainedMessages += messages.size
+        return messages
+    }
 }
\ No newline at end of file
@@ -22,6 +22,7 @@ import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.completeWith
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.dropWhile
@@ -84,7 +85,21 @@ internal class SingleProcessDataStore<T>(
      */
     initTasksList: List<suspend (api: InitializerApi<T>) -> Unit> = emptyList(),
     private val corruptionHandler: CorruptionHandler<T> = NoOpCorruptionHandler<T>(),
-    private val scope: CoroutineScope = CoroutineScope(Dispatchers.IO + SupervisorJob())
+    private val scope: CoroutineScope = CoroutineScope(Dispatchers.IO + SupervisorJob()),
+    /**
+     * If non-null, updates are appended to a log next to the file instead of rewriting the whole
+     * file, see [AppendOnlyLog].
+     */
+    private val deltaSerializer: DeltaSerializer<T>? = null,
+    /**
+     * The size of the log in bytes after which it is compacted into the file.
+     */
+    private val compactionThresholdBytes: Long = DEFAULT_COMPACTION_THRESHOLD_BYTES,
+    /**
+     * How long to wait for more updates before applying the queued ones with a single write.
+     */
+    private val coalescingWindowMillis: Long = 0,
+    private val metrics: DataStoreMetrics? = null
 ) : DataStore<T> {
 
     override val data: Flow<T> = flow {
@@ -161,6 +176,10 @@ internal class SingleProcessDataStore<T>(
 
     private val file: File by lazy { produceFile() }
 
+    private val appendLog: AppendOnlyLog<T>? by lazy {
+        deltaSerializer?.let { AppendOnlyLog(file, it, compactionThresholdBytes, scope) }
+    }
+
     @Suppress("UNCHECKED_CAST")
     private val downstreamFlow = MutableStateFlow(UnInitialized as State<T>)
 
@@ -191,7 +210,7 @@ internal class SingleProcessDataStore<T>(
         ) : Message<T>()
     }
 
-    private val actor = SimpleActor<Message<T>>(
+    private val actor: SimpleActor<Message<T>> = SimpleActor(
         scope = scope,
         onComplete = {
             it?.let {
@@ -218,11 +237,39 @@ internal class SingleProcessDataStore<T>(
                 handleRead(msg)
             }
             is Message.Update -> {
-                handleUpdate(msg)
+                if (coalescingWindowMillis > 0) {
+                    try {
+                        delay(coalescingWindowMillis)
+                    } catch (ex: CancellationException) {
+                        msg.ack.completeExceptionally(ex)
+                        throw ex
+                    }
+                }
+                handleMessages(listOf(msg) + actor.drainPending())
             }
         }
     }
 
+    /**
+     * Handles the given messages in order, applying consecutive updates with a single write.
+     */
+    private suspend fun handleMessages(messages: List<Message<T>>) {
+        val updates = mutableListOf<Message.Update<T>>()
+        for (msg in messages) {
+            when (msg) {
+                is Message.Read -> {
+                    handleUpdates(updates.toList())
+                    updates.clear()
+                    handleRead(msg)
+                }
+                is Message.Update -> {
+                    updates.add(msg)
+                }
+            }
+        }
+        handleUpdates(updates)
+    }
+
     private suspend fun handleRead(read: Message.Read<T>) {
         when (val currentState = downstreamFlow.value) {
             is Data -> {
@@ -243,37 +290,41 @@ internal class SingleProcessDataStore<T>(
         }
     }
 
-    private suspend fun handleUpdate(update: Message.Update<T>) {
-        // All branches of this *must* complete ack either successfully or exceptionally.
+    private suspend fun handleUpdates(updates: List<Message.Update<T>>) {
+        // All updates *must* complete ack either successfully or exceptionally.
         // We must *not* throw an exception, just propagate it to the ack.
-        update.ack.completeWith(
+        val initialized = updates.filter { update ->
             runCatching {
+                initForUpdate(update)
+            }.onFailure {
+                update.ack.completeExceptionally(it)
+            }.isSuccess
+        }
+        if (initialized.isNotEmpty()) {
+            transformAndWrite(initialized)
+        }
+    }
 
-                when (val currentState = downstreamFlow.value) {
-                    is Data -> {
-                        // We are already initialized, we just need to perform the update
-                        transformAndWrite(update.transform, update.callerContext)
-                    }
-                    is ReadException, is UnInitialized -> {
-                        if (currentState === update.lastState) {
-                            // we need to try to read again
-                            readAndInitOrPropagateAndThrowFailure()
-
-                            // We've successfully read, now we need to perform the update
-                            transformAndWrite(update.transform, update.callerContext)
-                        } else {
-                            // Someone else beat us to read but also failed. We just need to
-                            // signal the writer that is waiting on ack.
-                            // This cast is safe because we can't be in the UnInitialized
-                            // state if the state has changed.
-                            throw (currentState as ReadException).readException
-                        }
-                    }
-
-                    is Final -> throw currentState.finalException // won't happen
+    private suspend fun initForUpdate(update: Message.Update<T>) {
+        when (val currentState = downstreamFlow.value) {
+            is Data -> {
+                // We are already initialized, we just need to perform the update
+            }
+            is ReadException, is UnInitialized -> {
+                if (currentState === update.lastState) {
+                    // we need to try to read again
+                    readAndInitOrPropagateAndThrowFailure()
+                } else {
+                    // Someone else beat us to read but also failed. We just need to
+                    // signal the writer that is waiting on ack.
+                    // This cast is safe because we can't be in the UnInitialized
+                    // state if the state has changed.
+                    throw (currentState as ReadException).readException
                 }
             }
-        )
+
+            is Final -> throw currentState.finalException // won't happen
+        }
     }
 
     private suspend fun readAndInitOrPropagateAndThrowFailure() {
@@ -315,7 +366,7 @@ internal class SingleProcessDataStore<T>(
 
                     val newData = transform(initData)
                     if (newData != initData) {
-                        writeData(newData)
+                        writeUpdate(initData, newData)
                         initData = newData
                     }
 
@@ -355,6 +406,7 @@ internal class SingleProcessDataStore<T>(
     }
 
     private suspend fun readData(): T {
+        appendLog?.let { return it.read() }
         try {
             FileInputStream(file).use { stream ->
                 return serializer.readFrom(stream)
@@ -368,35 +420,87 @@ internal class SingleProcessDataStore<T>(
     }
 
     // downstreamFlow.value must be successfully set to data before calling this
-    private suspend fun transformAndWrite(
-        transform: suspend (t: T) -> T,
-        callerContext: CoroutineContext
-    ): T {
+    private suspend fun transformAndWrite(updates: List<Message.Update<T>>) {
         // value is not null or an exception because we must have the value set by now so this cast
         // is safe.
         val curDataAndHash = downstreamFlow.value as Data<T>
-        curDataAndHash.checkHashCode()
-
         val curData = curDataAndHash.value
-        val newData = withContext(callerContext) { transform(curData) }
 
-        // Check that curData has not changed...
-        curDataAndHash.checkHashCode()
+        // Apply the transforms in order, each of them to the result of the previous one.
+        var lastDataAndHash = curDataAndHash
+        val results = updates.map { update ->
+            runCatching {
+                lastDataAndHash.checkHashCode()
+
+                val newData = withContext(update.callerContext) {
+                    update.transform(lastDataAndHash.value)
+                }
+
+                // Check that the data has not changed...
+                lastDataAndHash.checkHashCode()
+
+                if (lastDataAndHash.value == newData) lastDataAndHash.value else newData
+            }.onSuccess {
+                if (it !== lastDataAndHash.value) {
+                    lastDataAndHash = Data(it, it.hashCode())
+                }
+            }
+        }
+
+        val newData = lastDataAndHash.value
+        val writeResult = runCatching {
+            if (curData != newData) {
+                writeUpdate(curData, newData)
+                downstreamFlow.value = lastDataAndHash
+                true
+            } else {
+                false
+            }
+        }
+
+        updates.forEachIndexed { index, update ->
+            val result = results[index]
+            val writeException = writeResult.exceptionOrNull()
+            update.ack.completeWith(
+                if (result.isSuccess && writeException != null) {
+                    Result.failure(writeException)
+                } else {
+                    result
+                }
+            )
+        }
+
+        if (writeResult.getOrNull() == true) {
+            metrics?.onWrite(results.count { it.isSuccess }, actor.pendingMessages)
+        }
+    }
 
-        return if (curData == newData) {
-            curData
+    /**
+     * Persists the update from curData to newData.
+     *
+     * Internal only to prevent creation of synthetic accessor function. Do not call this from
+     * outside this class.
+     */
+    internal fun writeUpdate(curData: T, newData: T) {
+        val log = appendLog
+        if (log != null) {
+            log.append(curData, newData)
         } else {
             writeData(newData)
-            downstreamFlow.value = Data(newData, newData.hashCode())
-            newData
         }
     }
 
     /**
+     * Replaces everything on disk with newData.
+     *
      * Internal only to prevent creation of synthetic accessor function. Do not call this from
      * outside this class.
      */
     internal fun writeData(newData: T) {
+        appendLog?.let {
+            it.replace(newData)
+            return
+        }
         file.createParentDirectories()
 
         val scratchFile = File(file.absolutePath + SCRATCH_SUFFIX)
@@ -424,6 +528,10 @@ internal class SingleProcessDataStore<T>(
         }
     }
 
+    internal companion object {
+        internal const val DEFAULT_COMPACTION_THRESHOLD_BYTES = 256L * 1024
+    }
+
     private fun File.createParentDirectories() {
         val parent: File? = canonicalFile.parentFile
 
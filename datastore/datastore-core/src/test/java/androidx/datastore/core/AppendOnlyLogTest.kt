@@ -0,0 +1,282 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.datastore.core
+
+import androidx.testutils.assertThrows
+import com.google.common.truth.Truth.assertThat
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.test.TestCoroutineDispatcher
+import kotlinx.coroutines.test.TestCoroutineScope
+import kotlinx.coroutines.test.runBlockingTest
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.IOException
+import java.io.InputStream
+import java.io.OutputStream
+
+@ExperimentalCoroutinesApi
+@RunWith(JUnit4::class)
+class AppendOnlyLogTest {
+    @get:Rule
+    val tempFolder = TemporaryFolder()
+
+    private lateinit var testFile: File
+    private lateinit var logFile: File
+    private lateinit var scope: TestCoroutineScope
+
+    @Before
+    fun setUp() {
+        testFile = File(tempFolder.root, "test_file")
+        logFile = File(testFile.path + ".log")
+        scope = TestCoroutineScope(TestCoroutineDispatcher() + Job())
+    }
+
+    @After
+    fun cleanUp() {
+        scope.cleanupTestCoroutines()
+    }
+
+    @Test
+    fun testReadWithoutFile() {
+        assertThat(newLog().read()).isEqualTo(0)
+    }
+
+    @Test
+    fun testAppendDoesNotRewriteFile() {
+        val log = newLog()
+        log.read()
+        log.append(0, 5)
+        log.append(5, 7)
+
+        assertThat(testFile.exists()).isFalse()
+        assertThat(newLog().read()).isEqualTo(7)
+    }
+
+    @Test
+    fun testAppendAfterExistingFile() {
+        newLog().replace(10)
+
+        val log = newLog()
+        assertThat(log.read()).isEqualTo(10)
+        log.append(10, 11)
+
+        assertThat(readFile()).isEqualTo(10)
+        assertThat(newLog().read()).isEqualTo(11)
+    }
+
+    @Test
+    fun testTornRecordIsDropped() {
+        val log = newLog()
+        log.read()
+        log.append(0, 3)
+        log.append(3, 8)
+        logFile.writeBytes(logFile.readBytes().copyOf(logFile.length().toInt() - 1))
+
+        val newLog = newLog()
+        assertThat(newLog.read()).isEqualTo(3)
+        newLog.append(3, 4)
+
+        assertThat(newLog().read()).isEqualTo(4)
+    }
+
+    @Test
+    fun testCorruptRecordIsDropped() {
+        val log = newLog()
+        log.read()
+        log.append(0, 3)
+        log.append(3, 8)
+        val bytes = logFile.readBytes()
+        bytes[bytes.size - 5]++
+        logFile.writeBytes(bytes)
+
+        assertThat(newLog().read()).isEqualTo(3)
+    }
+
+    @Test
+    fun testCompaction() {
+        val log = newLog(compactionThresholdBytes = 40)
+        log.read()
+        for (i in 1..10) {
+            log.append(i - 1, i)
+        }
+
+        assertThat(readFile()).isAtLeast(1)
+        assertThat(logFile.length()).isAtMost(40)
+        assertThat(newLog().read()).isEqualTo(10)
+    }
+
+    @Test
+    fun testReplaceDropsLog() {
+        val log = newLog()
+        log.read()
+        log.append(0, 3)
+        log.replace(20)
+
+        assertThat(logFile.exists()).isFalse()
+        assertThat(newLog().read()).isEqualTo(20)
+    }
+
+    @Test
+    fun testStaleLogIsIgnored() {
+        val log = newLog()
+        log.read()
+        log.append(0, 1)
+        log.append(1, 3)
+        val staleLog = logFile.readBytes()
+        log.compact()
+
+        // A crash after the data file was replaced, but before the log was replaced.
+        logFile.writeBytes(staleLog)
+
+        assertThat(newLog().read()).isEqualTo(3)
+    }
+
+    @Test
+    fun testCompactedLogIsRecovered() {
+        val log = newLog()
+        log.read()
+        log.append(0, 1)
+        log.append(1, 3)
+        val staleLog = logFile.readBytes()
+        log.compact()
+        log.append(3, 6)
+        val compactedLog = logFile.readBytes()
+
+        // A crash after the data file was replaced, but before the log was replaced.
+        logFile.writeBytes(staleLog)
+        File(logFile.path + ".tmp").writeBytes(compactedLog)
+
+        assertThat(newLog().read()).isEqualTo(6)
+        assertThat(File(logFile.path + ".tmp").exists()).isFalse()
+    }
+
+    @Test
+    fun testFailedCompactionKeepsScopeActive() {
+        val serializer = HookedSerializer()
+        val log = AppendOnlyLog(testFile, serializer, 1, scope)
+        log.read()
+        serializer.beforeWrites += { throw IllegalStateException("failing write") }
+        log.append(0, 1)
+
+        assertThat(scope.coroutineContext[Job]!!.isActive).isTrue()
+        log.append(1, 3)
+
+        assertThat(readFile()).isEqualTo(3)
+        assertThat(newLog().read()).isEqualTo(3)
+    }
+
+    @Test
+    fun testAppendAfterFailedCompactionFallback() {
+        val serializer = HookedSerializer()
+        val log = AppendOnlyLog(testFile, serializer, 1024, scope)
+        log.read()
+        log.append(0, 1)
+        val blocker = File(logFile, "blocker")
+        serializer.beforeWrites += {
+            // The compacted log cannot be moved over a directory that is not empty.
+            logFile.delete()
+            logFile.mkdirs()
+            blocker.createNewFile()
+        }
+        serializer.beforeWrites += {
+            blocker.delete()
+            logFile.delete()
+            throw IOException("failing write")
+        }
+
+        assertThrows<IOException> { log.compact() }
+        log.append(1, 3)
+
+        assertThat(newLog().read()).isEqualTo(3)
+    }
+
+    @Test
+    fun testDataStore() = runBlockingTest {
+        val store = newDataStore()
+        store.updateData { 1 }
+        store.updateData { it + 2 }
+
+        assertThat(testFile.exists()).isFalse()
+        assertThat(newDataStore().data.first()).isEqualTo(3)
+    }
+
+    @Test
+    fun testDataStoreAfterCompactionReadableWithoutLog() = runBlockingTest {
+        val store = newDataStore(compactionThresholdBytes = 1)
+        store.updateData { 1 }
+        store.updateData { it + 2 }
+
+        assertThat(readFile()).isEqualTo(3)
+    }
+
+    private fun newLog(compactionThresholdBytes: Long = 1024) =
+        AppendOnlyLog(testFile, DifferenceSerializer, compactionThresholdBytes, scope)
+
+    private fun newDataStore(compactionThresholdBytes: Long = 1024) =
+        SingleProcessDataStore(
+            { testFile },
+            DifferenceSerializer,
+            scope = scope,
+            deltaSerializer = DifferenceSerializer,
+            compactionThresholdBytes = compactionThresholdBytes
+        )
+
+    private fun readFile() = testFile.inputStream().use { DifferenceSerializer.readFrom(it) }
+
+    /** Runs the next of [beforeWrites], if any, before writing a data file. */
+    private class HookedSerializer : DeltaSerializer<Int> by DifferenceSerializer {
+        val beforeWrites = mutableListOf<() -> Unit>()
+
+        override fun writeTo(t: Int, output: OutputStream) {
+            if (beforeWrites.isNotEmpty()) {
+                beforeWrites.removeAt(0).invoke()
+            }
+            DifferenceSerializer.writeTo(t, output)
+        }
+    }
+
+    /**
+     * Records the difference to the previous value, so that applying a record twice or to the
+     * wrong value gives a different result.
+     */
+    private object DifferenceSerializer : DeltaSerializer<Int> {
+        override val defaultValue = 0
+
+        override fun readFrom(input: InputStream) = DataInputStream(input).readInt()
+
+        override fun writeTo(t: Int, output: OutputStream) {
+            DataOutputStream(output).writeInt(t)
+        }
+
+        override fun readDelta(oldValue: Int, input: InputStream) =
+            oldValue + DataInputStream(input).readInt()
+
+        override fun writeDelta(oldValue: Int, newValue: Int, output: OutputStream) {
+            DataOutputStream(output).writeInt(newValue - oldValue)
+        }
+    }
+}
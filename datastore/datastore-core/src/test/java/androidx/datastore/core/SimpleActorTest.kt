@@ -68,6 +68,40 @@ class SimpleActorTest {
         assertThat(msgs).isEqualTo(listOf(1, 2, 3, 4))
     }
 
+    @Test
+    fun testDrainPending() = runBlockingTest {
+        val msgs = mutableListOf<Int>()
+        val drained = mutableListOf<Int>()
+        val continueConsuming = CompletableDeferred<Unit>()
+        lateinit var actor: SimpleActor<Int>
+
+        actor = SimpleActor(
+            this,
+            onComplete = {},
+            onUndeliveredElement = { _, _ -> }
+        ) {
+            msgs.add(it)
+            if (it == 1) {
+                continueConsuming.await()
+                drained.addAll(actor.drainPending(maxMessages = 2))
+            }
+        }
+
+        actor.offer(1)
+        actor.offer(2)
+        actor.offer(3)
+        actor.offer(4)
+        actor.offer(5)
+
+        assertThat(actor.pendingMessages).isEqualTo(4)
+
+        continueConsuming.complete(Unit)
+
+        assertThat(drained).isEqualTo(listOf(2, 3))
+        assertThat(msgs).isEqualTo(listOf(1, 4, 5))
+        assertThat(actor.pendingMessages).isEqualTo(0)
+    }
+
     @Test
     fun testOnCompleteIsCalledWhenScopeIsCancelled() = runBlocking<Unit> {
         val scope = CoroutineScope(Job())
@@ -180,6 +180,99 @@ class SingleProcessDataStoreTest {
         assertThat(store.data.first()).isEqualTo(1)
     }
 
+    @Test
+    fun testQueuedUpdatesAreCoalesced() = runBlockingTest {
+        val writes = mutableListOf<Pair<Int, Int>>()
+        val store = newDataStore(
+            metrics = object : DataStoreMetrics {
+                override fun onWrite(updateCount: Int, queueDepth: Int) {
+                    writes.add(updateCount to queueDepth)
+                }
+            }
+        )
+        val transformStarted = CompletableDeferred<Unit>()
+        val continueTransform = CompletableDeferred<Unit>()
+
+        val slowUpdate = async {
+            store.updateData {
+                transformStarted.complete(Unit)
+                continueTransform.await()
+                it.inc()
+            }
+        }
+        transformStarted.await()
+        val queuedUpdates = List(4) {
+            async { store.updateData { it.inc() } }
+        }
+
+        continueTransform.complete(Unit)
+
+        assertThat(slowUpdate.await()).isEqualTo(1)
+        assertThat(queuedUpdates.map { it.await() }).isEqualTo(listOf<Byte>(2, 3, 4, 5))
+        assertThat(writes).isEqualTo(listOf(1 to 4, 4 to 0))
+        assertThat(store.data.first()).isEqualTo(5)
+    }
+
+    @Test
+    fun testQueuedUpdateFailureOnlyFailsThatUpdate() = runBlockingTest {
+        val transformStarted = CompletableDeferred<Unit>()
+        val continueTransform = CompletableDeferred<Unit>()
+
+        val slowUpdate = async {
+            store.updateData {
+                transformStarted.complete(Unit)
+                continueTransform.await()
+                it.inc()
+            }
+        }
+        transformStarted.await()
+        val firstQueued = async { store.updateData { it.inc() } }
+        val failingQueued = async {
+            runCatching { store.updateData { throw IOException("Failing transform") } }
+        }
+        val lastQueued = async { store.updateData { it.inc() } }
+
+        continueTransform.complete(Unit)
+
+        slowUpdate.await()
+        assertThat(firstQueued.await()).isEqualTo(2)
+        assertThat(failingQueued.await().exceptionOrNull()).isInstanceOf(IOException::class.java)
+        assertThat(lastQueued.await()).isEqualTo(3)
+        assertThat(store.data.first()).isEqualTo(3)
+    }
+
+    @Test
+    fun testQueuedUpdatesFailWhenWriteFails() = runBlockingTest {
+        val transformStarted = CompletableDeferred<Unit>()
+        val continueTransform = CompletableDeferred<Unit>()
+
+        val slowUpdate = async {
+            store.updateData {
+                transformStarted.complete(Unit)
+                continueTransform.await()
+                it.inc()
+            }
+        }
+        transformStarted.await()
+        val failingQueued = async {
+            runCatching {
+                store.updateData {
+                    testingSerializer.failingWrite = true
+                    it.inc()
+                }
+            }
+        }
+        val lastQueued = async { runCatching { store.updateData { it.inc() } } }
+
+        continueTransform.complete(Unit)
+
+        slowUpdate.await()
+        assertThat(failingQueued.await().exceptionOrNull()).isInstanceOf(IOException::class.java)
+        assertThat(lastQueued.await().exceptionOrNull()).isInstanceOf(IOException::class.java)
+        testingSerializer.failingWrite = false
+        assertThat(store.data.first()).isEqualTo(1)
+    }
+
     @Test
     fun testReadAfterTransientBadWrite() = runBlockingTest {
         store.updateData { 1 }
@@ -862,14 +955,16 @@ class SingleProcessDataStoreTest {
         serializer: Serializer<Byte> = testingSerializer,
         scope: CoroutineScope = dataStoreScope,
         initTasksList: List<suspend (api: InitializerApi<Byte>) -> Unit> = listOf(),
-        corruptionHandler: CorruptionHandler<Byte> = NoOpCorruptionHandler<Byte>()
+        corruptionHandler: CorruptionHandler<Byte> = NoOpCorruptionHandler<Byte>(),
+        metrics: DataStoreMetrics? = null
     ): DataStore<Byte> {
         return SingleProcessDataStore(
             { file },
             serializer = serializer,
             scope = scope,
             initTasksList = initTasksList,
-            corruptionHandler = corruptionHandler
+            corruptionHandler = corruptionHandler,
+            metrics = metrics
         )
     }
 }
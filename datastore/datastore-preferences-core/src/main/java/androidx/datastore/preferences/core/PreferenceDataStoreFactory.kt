@@ -75,6 +75,56 @@ public object PreferenceDataStoreFactory {
         }
         return PreferenceDataStore(delegate)
     }
+
+    /**
+     * Create an instance of SingleProcessDataStore that appends the changed and removed keys of
+     * every update to a log next to the file, instead of rewriting all preferences. See
+     * [DataStoreFactory.createAppendOnly]. Never create more than one instance of DataStore for a
+     * given file; doing so can break all DataStore functionality. You should consider managing
+     * your DataStore instance as a singleton.
+     *
+     * @param corruptionHandler The corruptionHandler is invoked if DataStore encounters a
+     * [CorruptionException] when attempting to read data. CorruptionExceptions are thrown by
+     * serializers when data cannot be de-serialized.
+     * @param migrations are run before any access to data can occur. Each producer and migration
+     * may be run more than once whether or not it already succeeded (potentially because another
+     * migration failed or a write to disk failed.)
+     * @param compactionThresholdBytes The size of the log in bytes after which it is compacted
+     * into the file.
+     * @param scope The scope in which IO operations and transform functions will execute.
+     * @param produceFile Function which returns the file that the new DataStore will act on.
+     * The function must return the same path every time. No two instances of PreferenceDataStore
+     * should act on the same file at the same time. The file must have the extension
+     * preferences_pb.
+     *
+     * @return a new DataStore instance with the provided configuration
+     */
+    @JvmOverloads
+    public fun createAppendOnly(
+        corruptionHandler: ReplaceFileCorruptionHandler<Preferences>? = null,
+        migrations: List<DataMigration<Preferences>> = listOf(),
+        compactionThresholdBytes: Long = DEFAULT_COMPACTION_THRESHOLD_BYTES,
+        scope: CoroutineScope = CoroutineScope(Dispatchers.IO + SupervisorJob()),
+        produceFile: () -> File
+    ): DataStore<Preferences> {
+        val delegate = DataStoreFactory.createAppendOnly(
+            serializer = PreferencesSerializer,
+            corruptionHandler = corruptionHandler,
+            migrations = migrations,
+            compactionThresholdBytes = compactionThresholdBytes,
+            scope = scope
+        ) {
+            val file = produceFile()
+            check(file.extension == PreferencesSerializer.fileExtension) {
+                "File extension for file: $file does not match required extension for" +
+                    " Preferences file: ${PreferencesSerializer.fileExtension}"
+            }
+            file
+        }
+        return PreferenceDataStore(delegate)
+    }
+
+    private const val DEFAULT_COMPACTION_THRESHOLD_BYTES = 256L * 1024
 }
 
 internal class PreferenceDataStore(private val delegate: DataStore<Preferences>) :
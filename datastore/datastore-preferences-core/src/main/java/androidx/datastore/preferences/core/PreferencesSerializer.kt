@@ -20,7 +20,7 @@ import androidx.datastore.core.CorruptionException
 import androidx.datastore.preferences.PreferencesProto.PreferenceMap
 import androidx.datastore.preferences.PreferencesProto.Value
 import androidx.datastore.preferences.PreferencesProto.StringSet
-import androidx.datastore.core.Serializer
+import androidx.datastore.core.DeltaSerializer
 import androidx.datastore.preferences.PreferencesMapCompat
 import java.io.IOException
 import java.io.InputStream
@@ -33,7 +33,7 @@ import kotlin.jvm.Throws
  * TODO(b/156533452): this is a temporary implementation to allow for development. This will be
  * replaced before launching.
  */
-internal object PreferencesSerializer : Serializer<Preferences> {
+internal object PreferencesSerializer : DeltaSerializer<Preferences> {
     val fileExtension = "preferences_pb"
 
     override val defaultValue: Preferences
@@ -66,6 +66,47 @@ internal object PreferencesSerializer : Serializer<Preferences> {
         protoBuilder.build().writeTo(output)
     }
 
+    /**
+     * Writes the keys that were added or changed with their new value, and the keys that were
+     * removed with a value that is not set.
+     */
+    @Throws(IOException::class, CorruptionException::class)
+    override fun writeDelta(oldValue: Preferences, newValue: Preferences, output: OutputStream) {
+        val oldPreferences = oldValue.asMap()
+        val newPreferences = newValue.asMap()
+        val protoBuilder = PreferenceMap.newBuilder()
+
+        for ((key, value) in newPreferences) {
+            if (oldPreferences[key] != value) {
+                protoBuilder.putPreferences(key.name, getValueProto(value))
+            }
+        }
+        for (key in oldPreferences.keys) {
+            if (key !in newPreferences) {
+                protoBuilder.putPreferences(key.name, Value.getDefaultInstance())
+            }
+        }
+
+        protoBuilder.build().writeTo(output)
+    }
+
+    @Throws(IOException::class, CorruptionException::class)
+    override fun readDelta(oldValue: Preferences, input: InputStream): Preferences {
+        val preferencesProto = PreferencesMapCompat.readFrom(input)
+
+        val mutablePreferences = oldValue.toMutablePreferences()
+
+        preferencesProto.preferencesMap.forEach { (name, value) ->
+            if (value.valueCase == Value.ValueCase.VALUE_NOT_SET) {
+                mutablePreferences -= Preferences.Key<Any>(name)
+            } else {
+                addProtoEntryToPreferences(name, value, mutablePreferences)
+            }
+        }
+
+        return mutablePreferences.toPreferences()
+    }
+
     private fun getValueProto(value: Any): Value {
         return when (value) {
             is Boolean -> Value.newBuilder().setBoolean(value).build()
@@ -177,6 +177,39 @@ class PreferencesSerializerTest {
         assertEquals(prefs, readPrefs)
     }
 
+    @Test
+    fun testWriteAndReadDelta() {
+        val intKey = intPreferencesKey("int_key")
+        val stringKey = stringPreferencesKey("string_key")
+        val booleanKey = booleanPreferencesKey("boolean_key")
+        val unchangedKey = stringSetPreferencesKey("unchanged_key")
+
+        val oldPrefs = preferencesOf(
+            intKey to 1,
+            stringKey to "string1",
+            unchangedKey to setOf("string1", "string2")
+        )
+        val newPrefs = preferencesOf(
+            intKey to 2,
+            booleanKey to true,
+            unchangedKey to setOf("string1", "string2")
+        )
+
+        testFile.outputStream().use {
+            preferencesSerializer.writeDelta(oldPrefs, newPrefs, it)
+        }
+
+        val readPrefs = testFile.inputStream().use {
+            preferencesSerializer.readDelta(oldPrefs, it)
+        }
+
+        assertEquals(newPrefs, readPrefs)
+        val delta = testFile.inputStream().use {
+            preferencesSerializer.readDelta(emptyPreferences(), it)
+        }
+        assertEquals(preferencesOf(intKey to 2, booleanKey to true), delta)
+    }
+
     @Test
     fun testThrowsCorruptionException() {
         // Not a valid proto - protos cannot start with a 0 byte.
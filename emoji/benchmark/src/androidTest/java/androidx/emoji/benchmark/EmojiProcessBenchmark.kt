@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.emoji.benchmark
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.emoji.bundled.BundledEmojiCompatConfig
+import androidx.emoji.text.EmojiCompat
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SdkSuppress
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import kotlin.random.Random
+
+/**
+ * Processes long synthetic texts with different ratios of emoji to plain text.
+ */
+@LargeTest
+@SdkSuppress(minSdkVersion = 19)
+@RunWith(Parameterized::class)
+class EmojiProcessBenchmark(private val length: Int, private val emojiRatio: Float) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val text = generateText(length, emojiRatio)
+
+    @Before
+    fun setup() {
+        val latch = CountDownLatch(1)
+        val config = BundledEmojiCompatConfig(ApplicationProvider.getApplicationContext())
+            .registerInitCallback(object : EmojiCompat.InitCallback() {
+                override fun onInitialized() {
+                    latch.countDown()
+                }
+            })
+        EmojiCompat.reset(config)
+        latch.await(10, TimeUnit.SECONDS)
+    }
+
+    @Test
+    fun process() {
+        val emojiCompat = EmojiCompat.get()
+        benchmarkRule.measureRepeated {
+            emojiCompat.process(
+                text, 0, text.length, Int.MAX_VALUE, EmojiCompat.REPLACE_STRATEGY_ALL
+            )
+        }
+    }
+
+    companion object {
+        /**
+         * Single codepoints, variation selector, keycap, skin tone, flag and ZWJ sequences.
+         */
+        private val EMOJIS = listOf(
+            intArrayOf(0x1F600),
+            intArrayOf(0x1F44D),
+            intArrayOf(0x2764, 0xFE0F),
+            intArrayOf(0x0031, 0xFE0F, 0x20E3),
+            intArrayOf(0x1F44B, 0x1F3FD),
+            intArrayOf(0x1F1EC, 0x1F1E7),
+            intArrayOf(0x1F468, 0x200D, 0x1F469, 0x200D, 0x1F467, 0x200D, 0x1F466),
+            intArrayOf(0x1F3F3, 0xFE0F, 0x200D, 0x1F308)
+        )
+
+        private val WORDS = listOf("hello", "world", "see", "you", "at", "the", "café", "soon")
+
+        private fun generateText(length: Int, emojiRatio: Float): String {
+            val random = Random(length)
+            val builder = StringBuilder(length + 16)
+            while (builder.length < length) {
+                if (random.nextFloat() < emojiRatio) {
+                    EMOJIS[random.nextInt(EMOJIS.size)].forEach { builder.appendCodePoint(it) }
+                } else {
+                    builder.append(WORDS[random.nextInt(WORDS.size)])
+                }
+                builder.append(' ')
+            }
+            return builder.toString()
+        }
+
+        @JvmStatic
+        @Parameterized.Parameters(name = "length={0}_emojiRatio={1}")
+        fun params() = listOf(1_000, 10_000).flatMap { length ->
+            listOf(0f, 0.1f, 0.5f).map { ratio -> arrayOf<Any>(length, ratio) }
+        }
+    }
+}
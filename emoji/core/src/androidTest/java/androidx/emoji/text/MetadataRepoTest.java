@@ -92,16 +92,55 @@ public class MetadataRepoTest {
         assertEquals(null, getNode(new int[]{1, 2, 3, 4, 5}));
     }
 
-    final EmojiMetadata getNode(final int[] codepoints) {
-        return getNode(mMetadataRepo.getRootNode(), codepoints, 0);
+    @Test
+    public void testPut_branchingCodePoints() {
+        final int[] codePoint1 = new int[]{0x1F468, 0x200D, 0x1F469};
+        final EmojiMetadata metadata1 = new TestEmojiMetadata(codePoint1);
+
+        final int[] codePoint2 = new int[]{0x1F468, 0x200D, 0x1F466};
+        final EmojiMetadata metadata2 = new TestEmojiMetadata(codePoint2);
+
+        final int[] codePoint3 = new int[]{0x1F468};
+        final EmojiMetadata metadata3 = new TestEmojiMetadata(codePoint3);
+
+        final int[] codePoint4 = new int[]{0x2764, 0xFE0F};
+        final EmojiMetadata metadata4 = new TestEmojiMetadata(codePoint4);
+
+        mMetadataRepo.put(metadata1);
+        mMetadataRepo.put(metadata4);
+        mMetadataRepo.put(metadata2);
+        mMetadataRepo.put(metadata3);
+
+        assertSame(metadata1, getNode(codePoint1));
+        assertSame(metadata2, getNode(codePoint2));
+        assertSame(metadata3, getNode(codePoint3));
+        assertSame(metadata4, getNode(codePoint4));
+
+        assertEquals(null, getNode(new int[]{0x1F468, 0x200D}));
+        assertEquals(null, getNode(new int[]{0x1F468, 0x200D, 0x1F467}));
+        assertEquals(null, getNode(new int[]{0x2764}));
+        assertEquals(null, getNode(new int[]{0x2765}));
     }
 
-    final EmojiMetadata getNode(MetadataRepo.Node node, final int[] codepoints, int start) {
-        if (codepoints.length < start) return null;
-        if (codepoints.length == start) return node.getData();
+    @Test
+    public void testPut_sameCodePoints() {
+        final int[] codePoint = new int[]{1, 2};
+        final EmojiMetadata metadata1 = new TestEmojiMetadata(codePoint, 1);
+        final EmojiMetadata metadata2 = new TestEmojiMetadata(codePoint, 2);
+
+        mMetadataRepo.put(metadata1);
+        mMetadataRepo.put(metadata2);
+
+        assertSame(metadata2, getNode(codePoint));
+    }
 
-        final MetadataRepo.Node childNode = node.get(codepoints[start]);
-        if (childNode == null) return null;
-        return getNode(childNode, codepoints, start + 1);
+    final EmojiMetadata getNode(final int[] codepoints) {
+        final MetadataRepo.Trie trie = mMetadataRepo.getTrie();
+        int node = MetadataRepo.Trie.ROOT;
+        for (int codepoint : codepoints) {
+            node = trie.getChild(node, codepoint);
+            if (node == MetadataRepo.Trie.NO_NODE) return null;
+        }
+        return trie.getData(node);
     }
 }
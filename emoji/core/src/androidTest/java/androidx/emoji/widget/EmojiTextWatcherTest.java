@@ -29,9 +29,11 @@ import static org.mockito.Mockito.when;
 
 import android.text.Spannable;
 import android.text.SpannableString;
+import android.text.Spanned;
 import android.widget.EditText;
 
 import androidx.emoji.text.EmojiCompat;
+import androidx.emoji.text.EmojiSpan;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import androidx.test.filters.SmallTest;
 
@@ -120,4 +122,29 @@ public class EmojiTextWatcherTest {
         verify(mEmojiCompat, times(0)).process(any(Spannable.class), anyInt(), anyInt());
         verify(mEmojiCompat, times(1)).registerInitCallback(any(EmojiCompat.InitCallback.class));
     }
+
+    @Test
+    public void testFindProcessStart_withPlainText() {
+        final Spannable testString = new SpannableString("abc\uD83D\uDE00d");
+
+        assertEquals(5, EmojiTextWatcher.findProcessStart(testString, 5));
+    }
+
+    @Test
+    public void testFindProcessStart_withModifierAfterEmoji() {
+        // waving hand emoji followed by a skin tone modifier
+        final Spannable testString = new SpannableString("ab\uD83D\uDC4B\uD83C\uDFFD");
+        testString.setSpan(mock(EmojiSpan.class), 2, 4, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+
+        assertEquals(2, EmojiTextWatcher.findProcessStart(testString, 4));
+    }
+
+    @Test
+    public void testFindProcessStart_withJoinerBeforeInsertion() {
+        // man emoji, zero width joiner and woman emoji
+        final Spannable testString = new SpannableString("a\uD83D\uDC68\u200D\uD83D\uDC69");
+        testString.setSpan(mock(EmojiSpan.class), 1, 3, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+
+        assertEquals(1, EmojiTextWatcher.findProcessStart(testString, 4));
+    }
 }
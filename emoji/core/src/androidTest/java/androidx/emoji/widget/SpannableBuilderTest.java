@@ -24,6 +24,7 @@ import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyObject;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -211,4 +212,33 @@ public class SpannableBuilderTest {
                 anyInt());
         verify(textWatcher, times(1)).afterTextChanged(any(Editable.class));
     }
+
+    @Test
+    public void testEndBatchEdit_firesChangedRangeOnly() {
+        final EmojiSpan span = mock(EmojiSpan.class);
+        final SpannableBuilder spannable = new SpannableBuilder(mClass, "0123456789");
+        spannable.setSpan(mWatcher, 0, spannable.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+        reset(mWatcher);
+
+        spannable.beginBatchEdit();
+        spannable.setSpan(span, 3, 5, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        spannable.endBatchEdit();
+
+        verify((SpanWatcher) mWatcher, never()).onSpanAdded(any(Spannable.class),
+                same(span), anyInt(), anyInt());
+        verify(mWatcher, times(1)).onTextChanged(same(spannable), eq(3), eq(2), eq(2));
+    }
+
+    @Test
+    public void testEndBatchEdit_withoutChanges_doesNotFire() {
+        final SpannableBuilder spannable = new SpannableBuilder(mClass, "0123456789");
+        spannable.setSpan(mWatcher, 0, spannable.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+        reset(mWatcher);
+
+        spannable.beginBatchEdit();
+        spannable.endBatchEdit();
+
+        verify(mWatcher, never()).onTextChanged(any(CharSequence.class), anyInt(), anyInt(),
+                anyInt());
+    }
 }
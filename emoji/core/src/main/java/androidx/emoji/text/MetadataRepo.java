@@ -19,7 +19,6 @@ import static androidx.annotation.RestrictTo.Scope.LIBRARY_GROUP_PREFIX;
 
 import android.content.res.AssetManager;
 import android.graphics.Typeface;
-import android.util.SparseArray;
 
 import androidx.annotation.AnyThread;
 import androidx.annotation.NonNull;
@@ -32,6 +31,8 @@ import androidx.text.emoji.flatbuffer.MetadataList;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
 
 /**
  * Class to hold the emoji metadata required to process and draw emojis.
@@ -39,11 +40,6 @@ import java.nio.ByteBuffer;
 @AnyThread
 @RequiresApi(19)
 public final class MetadataRepo {
-    /**
-     * The default children size of the root node.
-     */
-    private static final int DEFAULT_ROOT_SIZE = 1024;
-
     /**
      * MetadataList that contains the emoji metadata.
      */
@@ -56,9 +52,9 @@ public final class MetadataRepo {
     private final char[] mEmojiCharArray;
 
     /**
-     * Empty root node of the trie.
+     * Trie that maps emoji codepoint sequences to EmojiMetadata.
      */
-    private final Node mRootNode;
+    private Trie mTrie;
 
     /**
      * Typeface to be used to render emojis.
@@ -74,7 +70,7 @@ public final class MetadataRepo {
     MetadataRepo() {
         mTypeface = null;
         mMetadataList = null;
-        mRootNode = new Node(DEFAULT_ROOT_SIZE);
+        mTrie = Trie.build(new EmojiMetadata[0]);
         mEmojiCharArray = new char[0];
     }
 
@@ -88,7 +84,6 @@ public final class MetadataRepo {
             @NonNull final MetadataList metadataList) {
         mTypeface = typeface;
         mMetadataList = metadataList;
-        mRootNode = new Node(DEFAULT_ROOT_SIZE);
         mEmojiCharArray = new char[mMetadataList.listLength() * 2];
         constructIndex(mMetadataList);
     }
@@ -135,14 +130,16 @@ public final class MetadataRepo {
      */
     private void constructIndex(final MetadataList metadataList) {
         int length = metadataList.listLength();
+        final EmojiMetadata[] emojis = new EmojiMetadata[length];
         for (int i = 0; i < length; i++) {
             final EmojiMetadata metadata = new EmojiMetadata(this, i);
             //since all emojis are mapped to a single codepoint in Private Use Area A they are 2
             //chars wide
             //noinspection ResultOfMethodCallIgnored
             Character.toChars(metadata.getId(), mEmojiCharArray, i * 2);
-            put(metadata);
+            emojis[i] = metadata;
         }
+        mTrie = Trie.build(emojis);
     }
 
     /**
@@ -165,8 +162,8 @@ public final class MetadataRepo {
      * @hide
      */
     @RestrictTo(LIBRARY_GROUP_PREFIX)
-    Node getRootNode() {
-        return mRootNode;
+    Trie getTrie() {
+        return mTrie;
     }
 
     /**
@@ -186,7 +183,8 @@ public final class MetadataRepo {
     }
 
     /**
-     * Add an EmojiMetadata to the index.
+     * Add an EmojiMetadata to the index. The trie is rebuilt on every call, therefore this should
+     * only be used by tests.
      *
      * @hide
      */
@@ -197,50 +195,190 @@ public final class MetadataRepo {
         Preconditions.checkArgument(data.getCodepointsLength() > 0,
                 "invalid metadata codepoint length");
 
-        mRootNode.put(data, 0, data.getCodepointsLength() - 1);
+        mTrie = mTrie.plus(data);
     }
 
     /**
-     * Trie node that holds mapping from emoji codepoint(s) to EmojiMetadata. A single codepoint
-     * emoji is represented by a child of the root node.
+     * Trie that holds mapping from emoji codepoint(s) to EmojiMetadata. A single codepoint emoji
+     * is represented by a child of the root node.
+     * <p>
+     * Nodes are plain int indices rather than objects. They are laid out breadth first, so the
+     * children of a node are adjacent and sorted by codepoint, and the edge codepoints are
+     * binary searched in a single int array. The trie is immutable once built.
      *
      * @hide
      */
     @RestrictTo(LIBRARY_GROUP_PREFIX)
-    static class Node {
-        private final SparseArray<Node> mChildren;
-        private EmojiMetadata mData;
+    static final class Trie {
+        /**
+         * Index of the root node.
+         */
+        static final int ROOT = 0;
+
+        /**
+         * Returned from {@link #getChild(int, int)} when there is no such child.
+         */
+        static final int NO_NODE = -1;
+
+        /**
+         * Number of codepoints in the Basic Multilingual Plane.
+         */
+        private static final int BMP_SIZE = 0x10000;
+
+        /**
+         * Codepoint on the edge from the parent to each node. Unused for the root.
+         */
+        private final int[] mKeys;
+
+        /**
+         * The children of node {@code n} are the nodes in
+         * {@code [mChildStart[n], mChildStart[n + 1])}.
+         */
+        private final int[] mChildStart;
 
-        private Node() {
-            this(1);
+        /**
+         * EmojiMetadata that ends at each node, or {@code null}.
+         */
+        private final EmojiMetadata[] mData;
+
+        /**
+         * Bit set of the BMP codepoints that have a child under the root. Most codepoints in a
+         * text are not the start of an emoji, this rejects them without a search.
+         */
+        private final long[] mRootFilter;
+
+        private Trie(final int[] keys, final int[] childStart, final EmojiMetadata[] data) {
+            mKeys = keys;
+            mChildStart = childStart;
+            mData = data;
+            mRootFilter = new long[BMP_SIZE / 64];
+            for (int child = mChildStart[ROOT]; child < mChildStart[ROOT + 1]; child++) {
+                if (mKeys[child] < BMP_SIZE) {
+                    mRootFilter[mKeys[child] >>> 6] |= 1L << mKeys[child];
+                }
+            }
         }
 
-        @SuppressWarnings("WeakerAccess") /* synthetic access */
-        Node(final int defaultChildrenSize) {
-            mChildren = new SparseArray<>(defaultChildrenSize);
+        /**
+         * @return the child of {@code node} for {@code codePoint}, or {@link #NO_NODE}
+         */
+        int getChild(final int node, final int codePoint) {
+            if (node == ROOT && codePoint < BMP_SIZE
+                    && (mRootFilter[codePoint >>> 6] & (1L << codePoint)) == 0) {
+                return NO_NODE;
+            }
+            int low = mChildStart[node];
+            int high = mChildStart[node + 1] - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                final int key = mKeys[mid];
+                if (key < codePoint) {
+                    low = mid + 1;
+                } else if (key > codePoint) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return NO_NODE;
         }
 
-        Node get(final int key) {
-            return mChildren == null ? null : mChildren.get(key);
+        /**
+         * @return the EmojiMetadata that ends at {@code node}, or {@code null}
+         */
+        EmojiMetadata getData(final int node) {
+            return mData[node];
         }
 
-        final EmojiMetadata getData() {
-            return mData;
+        /**
+         * @return a new trie with the contents of this one and {@code data}
+         */
+        Trie plus(@NonNull final EmojiMetadata data) {
+            final EmojiMetadata[] emojis = new EmojiMetadata[mData.length + 1];
+            int count = 0;
+            for (EmojiMetadata emoji : mData) {
+                if (emoji != null) {
+                    emojis[count++] = emoji;
+                }
+            }
+            emojis[count++] = data;
+            return build(Arrays.copyOf(emojis, count));
         }
 
-        @SuppressWarnings("WeakerAccess") /* synthetic access */
-        void put(@NonNull final EmojiMetadata data, final int start, final int end) {
-            Node node = get(data.getCodepointAt(start));
-            if (node == null) {
-                node = new Node();
-                mChildren.put(data.getCodepointAt(start), node);
+        /**
+         * Builds the trie for the given emojis. When several emojis have the same codepoints the
+         * last one wins.
+         */
+        static Trie build(@NonNull final EmojiMetadata[] emojis) {
+            final int count = emojis.length;
+            // codepoints are read from the flatbuffer on every access, read them once
+            final int[][] codepoints = new int[count][];
+            final Integer[] order = new Integer[count];
+            int capacity = 1;
+            for (int i = 0; i < count; i++) {
+                final int length = emojis[i].getCodepointsLength();
+                codepoints[i] = new int[length];
+                for (int j = 0; j < length; j++) {
+                    codepoints[i][j] = emojis[i].getCodepointAt(j);
+                }
+                order[i] = i;
+                capacity += length;
             }
+            // stable, so equal sequences keep their order
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    final int[] first = codepoints[o1];
+                    final int[] second = codepoints[o2];
+                    final int length = Math.min(first.length, second.length);
+                    for (int i = 0; i < length; i++) {
+                        if (first[i] != second[i]) {
+                            return first[i] < second[i] ? -1 : 1;
+                        }
+                    }
+                    return first.length - second.length;
+                }
+            });
 
-            if (end > start) {
-                node.put(data, start + 1, end);
-            } else {
-                node.mData = data;
+            final int[] keys = new int[capacity];
+            final int[] childStart = new int[capacity + 1];
+            final EmojiMetadata[] data = new EmojiMetadata[capacity];
+            // every node covers the range of sorted sequences that start with its path
+            final int[] rangeStart = new int[capacity];
+            final int[] rangeEnd = new int[capacity];
+            final int[] depth = new int[capacity];
+            rangeEnd[ROOT] = count;
+            int nodeCount = 1;
+            // nodes are numbered in the order they are created, which is breadth first
+            for (int node = 0; node < nodeCount; node++) {
+                childStart[node] = nodeCount;
+                final int level = depth[node];
+                final int end = rangeEnd[node];
+                int i = rangeStart[node];
+                // sequences that end at this node are sorted before the longer ones
+                while (i < end && codepoints[order[i]].length == level) {
+                    data[node] = emojis[order[i]];
+                    i++;
+                }
+                while (i < end) {
+                    final int key = codepoints[order[i]][level];
+                    int j = i + 1;
+                    while (j < end && codepoints[order[j]][level] == key) {
+                        j++;
+                    }
+                    keys[nodeCount] = key;
+                    rangeStart[nodeCount] = i;
+                    rangeEnd[nodeCount] = j;
+                    depth[nodeCount] = level + 1;
+                    nodeCount++;
+                    i = j;
+                }
             }
+            childStart[nodeCount] = nodeCount;
+
+            return new Trie(Arrays.copyOf(keys, nodeCount),
+                    Arrays.copyOf(childStart, nodeCount + 1),
+                    Arrays.copyOf(data, nodeCount));
         }
     }
 }
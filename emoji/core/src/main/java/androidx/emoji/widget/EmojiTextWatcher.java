@@ -26,6 +26,7 @@ import androidx.annotation.RequiresApi;
 import androidx.annotation.RestrictTo;
 import androidx.emoji.text.EmojiCompat;
 import androidx.emoji.text.EmojiCompat.InitCallback;
+import androidx.emoji.text.EmojiSpan;
 
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
@@ -38,6 +39,12 @@ import java.lang.ref.WeakReference;
 @RestrictTo(LIBRARY_GROUP_PREFIX)
 @RequiresApi(19)
 final class EmojiTextWatcher implements android.text.TextWatcher {
+    /**
+     * Maximum number of codepoints to step back over when looking for the emoji that an inserted
+     * text continues.
+     */
+    private static final int MAX_LOOKBACK_CODEPOINTS = 8;
+
     private final EditText mEditText;
     private InitCallback mInitCallback;
     private int mMaxEmojiCount = EditTextAttributeHelper.MAX_EMOJI_COUNT;
@@ -76,7 +83,8 @@ final class EmojiTextWatcher implements android.text.TextWatcher {
             switch (EmojiCompat.get().getLoadState()){
                 case EmojiCompat.LOAD_STATE_SUCCEEDED:
                     final Spannable s = (Spannable) charSequence;
-                    EmojiCompat.get().process(s, start, start + after, mMaxEmojiCount,
+                    final int processStart = after > 0 ? findProcessStart(s, start) : start;
+                    EmojiCompat.get().process(s, processStart, start + after, mMaxEmojiCount,
                             mEmojiReplaceStrategy);
                     break;
                 case EmojiCompat.LOAD_STATE_LOADING:
@@ -90,6 +98,55 @@ final class EmojiTextWatcher implements android.text.TextWatcher {
         }
     }
 
+    /**
+     * Only the inserted text is processed, therefore an emoji sequence that continues an emoji
+     * before the insertion point would not be found, i.e. a skin tone modifier or a ZWJ sequence
+     * typed after an emoji. In that case processing starts from the beginning of that emoji
+     * instead, which keeps the work proportional to the size of the edit.
+     *
+     * @param text the text that changed
+     * @param start start index of the inserted text
+     * @return the index to start processing from
+     */
+    static int findProcessStart(final Spannable text, final int start) {
+        int index = start;
+        // step back over the joiners and modifiers that are not part of an emoji yet
+        for (int i = 0; i < MAX_LOOKBACK_CODEPOINTS && index > 0; i++) {
+            final int codePoint = Character.codePointBefore(text, index);
+            if (!continuesSequence(codePoint)) {
+                break;
+            }
+            index -= Character.charCount(codePoint);
+        }
+
+        if (index == start && (start >= text.length()
+                || !continuesSequence(Character.codePointAt(text, start)))) {
+            return start;
+        }
+
+        final EmojiSpan[] spans = text.getSpans(index, index, EmojiSpan.class);
+        for (EmojiSpan span : spans) {
+            final int spanStart = text.getSpanStart(span);
+            if (spanStart < index && text.getSpanEnd(span) >= index) {
+                index = spanStart;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @return {@code true} if the codepoint can only be part of an emoji sequence together with
+     * the codepoint before it
+     */
+    private static boolean continuesSequence(final int codePoint) {
+        return codePoint == 0x200D // zero width joiner
+                || codePoint == 0xFE0E || codePoint == 0xFE0F // variation selectors
+                || codePoint == 0x20E3 // combining enclosing keycap
+                || (codePoint >= 0x1F3FB && codePoint <= 0x1F3FF) // skin tone modifiers
+                || (codePoint >= 0x1F1E6 && codePoint <= 0x1F1FF) // regional indicators
+                || (codePoint >= 0xE0020 && codePoint <= 0xE007F); // tags
+    }
+
     @Override
     public void beforeTextChanged(CharSequence s, int start, int count, int after) {
         // do nothing
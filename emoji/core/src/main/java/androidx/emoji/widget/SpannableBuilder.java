@@ -288,12 +288,23 @@ public final class SpannableBuilder extends SpannableStringBuilder {
     }
 
     /**
-     * Unblock all watcher wrapper events. Called by editing operations, namely
-     * {@link SpannableStringBuilder#replace(int, int, CharSequence)}.
+     * Inform the watchers about the range of the EmojiSpan changes blocked during a batch edit.
+     * Only that range is reported as changed, so that DynamicLayout does not re-layout the whole
+     * text after each edit.
      */
     private void fireWatchers() {
         for (int i = 0; i < mWatchers.size(); i++) {
-            mWatchers.get(i).onTextChanged(this, 0, this.length(), this.length());
+            mWatchers.get(i).fireBlockedChanges(this);
+        }
+    }
+
+    /**
+     * Forget the EmojiSpan changes blocked during a replace operation, the text change event
+     * already covers them.
+     */
+    private void discardBlockedChanges() {
+        for (int i = 0; i < mWatchers.size(); i++) {
+            mWatchers.get(i).discardBlockedChanges();
         }
     }
 
@@ -302,6 +313,7 @@ public final class SpannableBuilder extends SpannableStringBuilder {
         blockWatchers();
         super.replace(start, end, tb);
         unblockwatchers();
+        discardBlockedChanges();
         return this;
     }
 
@@ -311,6 +323,7 @@ public final class SpannableBuilder extends SpannableStringBuilder {
         blockWatchers();
         super.replace(start, end, tb, tbstart, tbend);
         unblockwatchers();
+        discardBlockedChanges();
         return this;
     }
 
@@ -364,6 +377,13 @@ public final class SpannableBuilder extends SpannableStringBuilder {
         final Object mObject;
         private final AtomicInteger mBlockCalls = new AtomicInteger(0);
 
+        /**
+         * Range of the text covered by the blocked EmojiSpan events, empty when
+         * mBlockedStart > mBlockedEnd.
+         */
+        private int mBlockedStart = Integer.MAX_VALUE;
+        private int mBlockedEnd = Integer.MIN_VALUE;
+
         WatcherWrapper(Object object) {
             this.mObject = object;
         }
@@ -390,6 +410,7 @@ public final class SpannableBuilder extends SpannableStringBuilder {
         @Override
         public void onSpanAdded(Spannable text, Object what, int start, int end) {
             if (mBlockCalls.get() > 0 && isEmojiSpan(what)) {
+                addBlockedRange(start, end);
                 return;
             }
             ((SpanWatcher) mObject).onSpanAdded(text, what, start, end);
@@ -402,6 +423,7 @@ public final class SpannableBuilder extends SpannableStringBuilder {
         @Override
         public void onSpanRemoved(Spannable text, Object what, int start, int end) {
             if (mBlockCalls.get() > 0 && isEmojiSpan(what)) {
+                addBlockedRange(start, end);
                 return;
             }
             ((SpanWatcher) mObject).onSpanRemoved(text, what, start, end);
@@ -415,6 +437,8 @@ public final class SpannableBuilder extends SpannableStringBuilder {
         public void onSpanChanged(Spannable text, Object what, int ostart, int oend, int nstart,
                 int nend) {
             if (mBlockCalls.get() > 0 && isEmojiSpan(what)) {
+                addBlockedRange(ostart, oend);
+                addBlockedRange(nstart, nend);
                 return;
             }
             ((SpanWatcher) mObject).onSpanChanged(text, what, ostart, oend, nstart, nend);
@@ -428,6 +452,32 @@ public final class SpannableBuilder extends SpannableStringBuilder {
             mBlockCalls.decrementAndGet();
         }
 
+        private void addBlockedRange(final int start, final int end) {
+            mBlockedStart = Math.min(mBlockedStart, start);
+            mBlockedEnd = Math.max(mBlockedEnd, end);
+        }
+
+        /**
+         * Report the range of the blocked EmojiSpan events as a text change, once no calls are
+         * blocked anymore.
+         */
+        final void fireBlockedChanges(final Spannable text) {
+            if (mBlockCalls.get() > 0 || mBlockedStart > mBlockedEnd) {
+                return;
+            }
+            final int start = Math.min(mBlockedStart, text.length());
+            final int count = Math.min(mBlockedEnd, text.length()) - start;
+            discardBlockedChanges();
+            onTextChanged(text, start, count, count);
+        }
+
+        final void discardBlockedChanges() {
+            if (mBlockCalls.get() == 0) {
+                mBlockedStart = Integer.MAX_VALUE;
+                mBlockedEnd = Integer.MIN_VALUE;
+            }
+        }
+
         private boolean isEmojiSpan(final Object span) {
             return span instanceof EmojiSpan;
         }
@@ -18,6 +18,7 @@ package androidx.exifinterface.media;
 
 import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -925,6 +926,57 @@ public class ExifInterfaceTest {
 
     }
 
+    @Test
+    @LargeTest
+    public void testSaveAttributesInPlace() throws IOException {
+        File imageFile = getFileFromExternalDir(JPEG_WITH_EXIF_BYTE_ORDER_II);
+        final long fileLength = imageFile.length();
+        final String dateTimeOriginal = "2020:02:02 10:10:10";
+
+        ExifInterface exif = new ExifInterface(imageFile.getAbsolutePath());
+        final long[] dateTimeOriginalRange =
+                exif.getAttributeRange(ExifInterface.TAG_DATETIME_ORIGINAL);
+        final long[] thumbnailRange = exif.getThumbnailRange();
+
+        // Both values keep the format and size of the values in the file.
+        exif.setAttribute(ExifInterface.TAG_DATETIME_ORIGINAL, dateTimeOriginal);
+        exif.setAttribute(ExifInterface.TAG_ORIENTATION,
+                Integer.toString(ExifInterface.ORIENTATION_ROTATE_180));
+        exif.saveAttributes();
+
+        // The file wasn't rewritten, so ranges are still available.
+        assertEquals(fileLength, imageFile.length());
+        assertArrayEquals(dateTimeOriginalRange,
+                exif.getAttributeRange(ExifInterface.TAG_DATETIME_ORIGINAL));
+        assertArrayEquals(thumbnailRange, exif.getThumbnailRange());
+
+        exif = new ExifInterface(imageFile.getAbsolutePath());
+        assertStringTag(exif, ExifInterface.TAG_DATETIME_ORIGINAL, dateTimeOriginal);
+        assertIntTag(exif, ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_ROTATE_180);
+        assertArrayEquals(dateTimeOriginalRange,
+                exif.getAttributeRange(ExifInterface.TAG_DATETIME_ORIGINAL));
+    }
+
+    @Test
+    @LargeTest
+    public void testSaveAttributesRewritesFileWhenSizeChanges() throws IOException {
+        File imageFile = getFileFromExternalDir(JPEG_WITH_EXIF_BYTE_ORDER_II);
+        final String model = "A model name longer than the original one";
+
+        ExifInterface exif = new ExifInterface(imageFile.getAbsolutePath());
+        exif.setAttribute(ExifInterface.TAG_MODEL, model);
+        exif.saveAttributes();
+
+        try {
+            exif.getAttributeRange(ExifInterface.TAG_MODEL);
+            fail("The file should have been rewritten");
+        } catch (IllegalStateException e) {
+            // Success
+        }
+        exif = new ExifInterface(imageFile.getAbsolutePath());
+        assertStringTag(exif, ExifInterface.TAG_MODEL, model);
+    }
+
     @SuppressWarnings("deprecation")
     @Test
     @SmallTest
@@ -20,6 +20,7 @@ import static androidx.exifinterface.media.ExifInterfaceUtils.byteArrayToHexStri
 import static androidx.exifinterface.media.ExifInterfaceUtils.convertToLongArray;
 import static androidx.exifinterface.media.ExifInterfaceUtils.copy;
 import static androidx.exifinterface.media.ExifInterfaceUtils.isSupportedFormatForSavingAttributes;
+import static androidx.exifinterface.media.ExifInterfaceUtils.isSupportedFormatForSavingAttributesInPlace;
 import static androidx.exifinterface.media.ExifInterfaceUtils.parseSubSeconds;
 import static androidx.exifinterface.media.ExifInterfaceUtils.startsWith;
 
@@ -58,6 +59,7 @@ import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.nio.ByteBuffer;
@@ -3890,6 +3892,11 @@ public class ExifInterface {
     private boolean mIsExifDataOnly;
     @SuppressWarnings("unchecked")
     private final HashMap<String, ExifAttribute>[] mAttributes = new HashMap[EXIF_TAGS.length];
+    // The attributes as they are stored in the file, used by saveAttributes() to find the
+    // attributes that can be overwritten in place.
+    @SuppressWarnings("unchecked")
+    private final HashMap<String, ExifAttribute>[] mAttributesInFile =
+            new HashMap[EXIF_TAGS.length];
     private Set<Integer> mAttributesOffsets = new HashSet<>(EXIF_TAGS.length);
     private ByteOrder mExifByteOrder = ByteOrder.BIG_ENDIAN;
     private boolean mHasThumbnail;
@@ -4578,6 +4585,15 @@ public class ExifInterface {
                 mAttributes[i] = new HashMap<>();
             }
 
+            // For seekable files, seek the file directly instead of keeping everything that has
+            // been read in memory in order to be able to seek backwards.
+            FileInputStream seekableIn = null;
+            long startPosition = 0;
+            if (mSeekableFileDescriptor != null && in instanceof FileInputStream) {
+                seekableIn = (FileInputStream) in;
+                startPosition = seekableIn.getChannel().position();
+            }
+
             // Check file type
             if (!mIsExifDataOnly) {
                 in = new BufferedInputStream(in, SIGNATURE_CHECK_SIZE);
@@ -4585,7 +4601,9 @@ public class ExifInterface {
             }
 
             // Create byte-ordered input stream
-            ByteOrderedDataInputStream inputStream = new ByteOrderedDataInputStream(in);
+            ByteOrderedDataInputStream inputStream = seekableIn != null
+                    ? new ByteOrderedDataInputStream(in, seekableIn, startPosition)
+                    : new ByteOrderedDataInputStream(in);
 
             if (!mIsExifDataOnly) {
                 switch (mMimeType) {
@@ -4646,6 +4664,9 @@ public class ExifInterface {
             }
         } finally {
             addDefaultValuesForCompatibility();
+            for (int i = 0; i < EXIF_TAGS.length; ++i) {
+                mAttributesInFile[i] = new HashMap<>(mAttributes[i]);
+            }
 
             if (DEBUG) {
                 printAttributes();
@@ -4687,6 +4708,12 @@ public class ExifInterface {
      * and make a single call rather than multiple calls for each attribute.
      * <p>
      * This method is supported for JPEG, PNG and WebP files.
+     * <p>
+     * For JPEG and WebP files, if every attribute that was set since the file was parsed already
+     * existed in the file with the same format and size (e.g. {@link #TAG_ORIENTATION}, or a date
+     * time tag), and no attribute was added or removed, the new values are written directly over
+     * the old ones without copying the rest of the file. In that case the offsets returned by
+     * {@link #getAttributeRange(String)} and {@link #getThumbnailRange()} remain valid.
      * <p class="note">
      * Note: after calling this method, any attempts to obtain range information
      * from {@link #getAttributeRange(String)} or {@link #getThumbnailRange()}
@@ -4707,6 +4734,10 @@ public class ExifInterface {
                     "ExifInterface does not support saving attributes for the current input.");
         }
 
+        if (!mModified && saveAttributesInPlace()) {
+            return;
+        }
+
         // Remember the fact that we've changed the file on disk from what was
         // originally parsed, meaning we can't answer range questions
         mModified = true;
@@ -4802,6 +4833,86 @@ public class ExifInterface {
         mThumbnailBytes = null;
     }
 
+    /**
+     * Writes the attributes that were set since the file was parsed directly over their values in
+     * the file, if none of them changes the layout of the Exif data.
+     *
+     * @return {@code true} if the attributes were saved, or {@code false} if the file needs to be
+     *         rewritten instead.
+     */
+    private boolean saveAttributesInPlace() throws IOException {
+        if (!isSupportedFormatForSavingAttributesInPlace(mMimeType)) {
+            return false;
+        }
+        for (int i = 0; i < EXIF_TAGS.length; ++i) {
+            if (mAttributesInFile[i] == null
+                    || !mAttributes[i].keySet().equals(mAttributesInFile[i].keySet())) {
+                // An attribute was added or removed.
+                return false;
+            }
+            for (Map.Entry<String, ExifAttribute> entry : mAttributes[i].entrySet()) {
+                final ExifAttribute attribute = entry.getValue();
+                final ExifAttribute attributeInFile = mAttributesInFile[i].get(entry.getKey());
+                if (attribute != attributeInFile
+                        && (attributeInFile.bytesOffset == ExifAttribute.BYTES_OFFSET_UNKNOWN
+                        || attribute.format != attributeInFile.format
+                        || attribute.bytes.length != attributeInFile.bytes.length)) {
+                    return false;
+                }
+            }
+        }
+
+        RandomAccessFile file = null;
+        try {
+            if (mFilename != null) {
+                file = new RandomAccessFile(mFilename, "rw");
+            }
+            for (int i = 0; i < EXIF_TAGS.length; ++i) {
+                for (Map.Entry<String, ExifAttribute> entry : mAttributes[i].entrySet()) {
+                    final ExifAttribute attribute = entry.getValue();
+                    final ExifAttribute attributeInFile = mAttributesInFile[i].get(entry.getKey());
+                    if (attribute == attributeInFile) {
+                        continue;
+                    }
+                    if (file != null) {
+                        file.seek(attributeInFile.bytesOffset);
+                        file.write(attribute.bytes);
+                    } else {
+                        writeToFileDescriptor(mSeekableFileDescriptor,
+                                attributeInFile.bytesOffset, attribute.bytes);
+                    }
+                    // Keep the offset so that the attribute range stays available.
+                    final ExifAttribute savedAttribute = new ExifAttribute(attribute.format,
+                            attribute.numberOfComponents, attributeInFile.bytesOffset,
+                            attribute.bytes);
+                    entry.setValue(savedAttribute);
+                    mAttributesInFile[i].put(entry.getKey(), savedAttribute);
+                }
+            }
+        } finally {
+            closeQuietly(file);
+        }
+        return true;
+    }
+
+    private static void writeToFileDescriptor(FileDescriptor fd, long offset, byte[] bytes)
+            throws IOException {
+        // mSeekableFileDescriptor will be non-null only for SDK_INT >= 21, but this check is
+        // needed to prevent calling Os.lseek at runtime for SDK < 21.
+        if (Build.VERSION.SDK_INT >= 21) {
+            try {
+                Os.lseek(fd, offset, OsConstants.SEEK_SET);
+                int bytesWritten = 0;
+                while (bytesWritten < bytes.length) {
+                    bytesWritten += Os.write(fd, bytes, bytesWritten, bytes.length - bytesWritten);
+                }
+                // Catching ErrnoException will raise error in API < 21
+            } catch (Exception e) {
+                throw new IOException("Failed to write attribute to file descriptor", e);
+            }
+        }
+    }
+
     /**
      * Returns true if the image file has a thumbnail.
      */
@@ -7707,17 +7818,39 @@ public class ExifInterface {
         final int mLength;
         @SuppressWarnings("WeakerAccess") /* synthetic access */
         int mPosition;
+        // When non-null, backward seeks reposition this file instead of resetting to a mark.
+        private final FileInputStream mSeekableInputStream;
+        private final long mStartPosition;
 
         public ByteOrderedDataInputStream(InputStream in) throws IOException {
             this(in, ByteOrder.BIG_ENDIAN);
         }
 
         ByteOrderedDataInputStream(InputStream in, ByteOrder byteOrder) throws IOException {
+            this(in, byteOrder, null, 0);
+        }
+
+        /**
+         * Creates a stream that reads {@code in}, which must be positioned at
+         * {@code startPosition} in {@code seekableIn}, and seeks within {@code seekableIn}
+         * directly, so that the data that has been read doesn't need to be kept in memory.
+         */
+        ByteOrderedDataInputStream(InputStream in, FileInputStream seekableIn,
+                long startPosition) throws IOException {
+            this(in, ByteOrder.BIG_ENDIAN, seekableIn, startPosition);
+        }
+
+        private ByteOrderedDataInputStream(InputStream in, ByteOrder byteOrder,
+                FileInputStream seekableIn, long startPosition) throws IOException {
             mDataInputStream = new DataInputStream(in);
             mLength = mDataInputStream.available();
             mPosition = 0;
-            // TODO (b/142218289): Need to handle case where input stream does not support mark
-            mDataInputStream.mark(mLength);
+            mSeekableInputStream = seekableIn;
+            mStartPosition = startPosition;
+            if (mSeekableInputStream == null) {
+                // TODO (b/142218289): Need to handle case where input stream does not support mark
+                mDataInputStream.mark(mLength);
+            }
             mByteOrder = byteOrder;
         }
 
@@ -7730,6 +7863,14 @@ public class ExifInterface {
         }
 
         public void seek(long byteCount) throws IOException {
+            if (mPosition > byteCount && mSeekableInputStream != null) {
+                mSeekableInputStream.getChannel().position(mStartPosition + byteCount);
+                // Drop anything that was buffered from the previous position.
+                mDataInputStream = new DataInputStream(
+                        new BufferedInputStream(mSeekableInputStream));
+                mPosition = (int) byteCount;
+                return;
+            }
             if (mPosition > byteCount) {
                 mPosition = 0;
                 mDataInputStream.reset();
@@ -105,6 +105,17 @@ class ExifInterfaceUtils {
         return false;
     }
 
+    /**
+     * Returns whether attribute values can be overwritten directly in the file for the given
+     * format. PNG is excluded since its eXIf chunk is covered by a CRC.
+     */
+    static boolean isSupportedFormatForSavingAttributesInPlace(int mimeType) {
+        if (mimeType == IMAGE_TYPE_JPEG || mimeType == IMAGE_TYPE_WEBP) {
+            return true;
+        }
+        return false;
+    }
+
     static String byteArrayToHexString(byte[] bytes) {
         StringBuilder sb = new StringBuilder(bytes.length * 2);
         for (int i = 0; i < bytes.length; i++) {
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tools.build.jetifier.processor
+
+import com.android.tools.build.jetifier.core.utils.Log
+import java.io.File
+import java.io.IOException
+import java.nio.file.AtomicMoveNotSupportedException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.security.MessageDigest
+
+/**
+ * On disk cache of jetified libraries.
+ *
+ * Entries are keyed by a hash of the library content together with [configKey], which has to
+ * describe everything else that affects the result (the config and the processor options). A
+ * library that did not need any changes is stored as an empty marker file, so that it is not
+ * copied into the cache.
+ */
+internal class ArchiveCache(private val directory: File, private val configKey: String) {
+
+    companion object {
+        private const val TAG = "ArchiveCache"
+        private const val CHANGED_SUFFIX = ".jar"
+        private const val UNCHANGED_SUFFIX = ".unchanged"
+        private const val BUFFER_SIZE = 64 * 1024
+    }
+
+    /**
+     * A cached result.
+     *
+     * @param output the jetified library, or null if the library did not need any changes.
+     */
+    class Entry(val output: File?)
+
+    init {
+        Files.createDirectories(directory.toPath())
+    }
+
+    /**
+     * Returns the cache key of the given library.
+     */
+    fun keyFor(library: File): String {
+        val digest = MessageDigest.getInstance("SHA-256")
+        digest.update(configKey.toByteArray())
+        val buffer = ByteArray(BUFFER_SIZE)
+        library.inputStream().use { input ->
+            var read = input.read(buffer)
+            while (read >= 0) {
+                digest.update(buffer, 0, read)
+                read = input.read(buffer)
+            }
+        }
+        return digest.digest().joinToString("") { String.format("%02x", it) }
+    }
+
+    fun get(key: String): Entry? {
+        val changed = File(directory, key + CHANGED_SUFFIX)
+        if (changed.isFile) {
+            return Entry(changed)
+        }
+        if (File(directory, key + UNCHANGED_SUFFIX).isFile) {
+            return Entry(null)
+        }
+        return null
+    }
+
+    /**
+     * Stores the result for the given key.
+     *
+     * @param output the jetified library, or null if the library did not need any changes.
+     */
+    fun put(key: String, output: File?) {
+        val target = if (output != null) {
+            File(directory, key + CHANGED_SUFFIX)
+        } else {
+            File(directory, key + UNCHANGED_SUFFIX)
+        }
+        var temp: Path? = null
+        try {
+            // Write next to the target and move it in place, so that a concurrent build never
+            // sees a partially written entry.
+            temp = Files.createTempFile(directory.toPath(), key, ".tmp")
+            if (output != null) {
+                Files.copy(output.toPath(), temp, StandardCopyOption.REPLACE_EXISTING)
+            }
+            move(temp, target.toPath())
+        } catch (e: IOException) {
+            Log.w(TAG, "Failed to cache '%s': %s", output ?: key, e.message)
+        } finally {
+            if (temp != null) {
+                Files.deleteIfExists(temp)
+            }
+        }
+    }
+
+    private fun move(from: Path, to: Path) {
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE)
+        } catch (e: AtomicMoveNotSupportedException) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING)
+        }
+    }
+}
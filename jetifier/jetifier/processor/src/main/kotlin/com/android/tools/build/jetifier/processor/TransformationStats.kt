@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tools.build.jetifier.processor
+
+import java.io.File
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Timing statistics of a single [Processor.transform2] run.
+ *
+ * When the processor runs in parallel the times are summed over all the threads, so they measure
+ * the work done rather than the elapsed time.
+ *
+ * @param archiveTimesNanos time spent on each input library, from reading it to writing the
+ * result. Keyed by the input file.
+ * @param transformerTimesNanos time spent in each transformer. Keyed by the transformer's simple
+ * class name.
+ * @param transformerFileCounts number of files processed by each transformer. Keyed by the
+ * transformer's simple class name.
+ * @param cacheHits number of libraries whose result was taken from the cache.
+ */
+data class TransformationStats(
+    val archiveTimesNanos: Map<File, Long>,
+    val transformerTimesNanos: Map<String, Long>,
+    val transformerFileCounts: Map<String, Int>,
+    val cacheHits: Int
+) {
+    companion object {
+        val EMPTY = TransformationStats(emptyMap(), emptyMap(), emptyMap(), 0)
+    }
+}
+
+/**
+ * Collects [TransformationStats] from several threads.
+ */
+internal class TransformationStatsRecorder {
+
+    private val archiveTimes = ConcurrentHashMap<File, AtomicLong>()
+    private val transformerTimes = ConcurrentHashMap<String, AtomicLong>()
+    private val transformerCounts = ConcurrentHashMap<String, AtomicInteger>()
+    private val cacheHits = AtomicInteger()
+
+    inline fun timeArchive(archive: File, block: () -> Unit) {
+        val start = System.nanoTime()
+        try {
+            block()
+        } finally {
+            addArchiveTime(archive, System.nanoTime() - start)
+        }
+    }
+
+    inline fun timeTransformer(name: String, block: () -> Unit) {
+        val start = System.nanoTime()
+        try {
+            block()
+        } finally {
+            addTransformerTime(name, System.nanoTime() - start)
+        }
+    }
+
+    fun addArchiveTime(archive: File, nanos: Long) {
+        archiveTimes.getOrPut(archive) { AtomicLong() }.addAndGet(nanos)
+    }
+
+    fun addTransformerTime(name: String, nanos: Long) {
+        transformerTimes.getOrPut(name) { AtomicLong() }.addAndGet(nanos)
+        transformerCounts.getOrPut(name) { AtomicInteger() }.incrementAndGet()
+    }
+
+    fun recordCacheHit() {
+        cacheHits.incrementAndGet()
+    }
+
+    fun build() = TransformationStats(
+        archiveTimesNanos = archiveTimes.mapValues { it.value.get() },
+        transformerTimesNanos = transformerTimes.mapValues { it.value.get() },
+        transformerFileCounts = transformerCounts.mapValues { it.value.get() },
+        cacheHits = cacheHits.get()
+    )
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tools.build.jetifier.processor
+
+import com.android.tools.build.jetifier.core.config.Config
+import com.android.tools.build.jetifier.core.type.JavaType
+import com.android.tools.build.jetifier.core.type.TypesMap
+import com.android.tools.build.jetifier.processor.archive.Archive
+import com.android.tools.build.jetifier.processor.archive.ArchiveFile
+import com.google.common.truth.Truth
+import org.junit.Test
+import java.io.File
+import java.nio.file.Files
+import java.nio.file.Paths
+
+/**
+ * Tests that running the processor on several threads gives the same results as the sequential
+ * processor created by [Processor.createProcessor4].
+ */
+class ParallelTransformationTest {
+
+    private val config = Config.fromOptional(
+        restrictToPackagePrefixes = setOf("android/support/v7/preference"),
+        typesMap = TypesMap(
+            JavaType("android/support/v7/preference/Preference")
+                to JavaType("android/test/pref/Preference")
+        )
+    )
+
+    private val changedXml =
+        "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+            "<android.support.v7.preference.Preference/>"
+
+    private val unchangedXml =
+        "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+            "<android.test.pref.Preference/>"
+
+    private val unmappedXml =
+        "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+            "<android.support.v7.preference.Missing/>"
+
+    @Test
+    fun parallelRun_sameOutputAsCreateProcessor4() {
+        val inputs = List(6) { i -> createLibrary(if (i % 3 == 0) unchangedXml else changedXml) }
+
+        @Suppress("deprecation")
+        val sequential = transform(
+            Processor.createProcessor4(config = config, timestampsPolicy = TimestampsPolicy.EPOCH),
+            inputs
+        )
+        val parallel = transform(
+            Processor.createProcessor5(
+                config = config,
+                timestampsPolicy = TimestampsPolicy.EPOCH,
+                parallelism = 3
+            ),
+            inputs
+        )
+
+        Truth.assertThat(parallel.numberOfLibsModified).isEqualTo(sequential.numberOfLibsModified)
+        Truth.assertThat(parallel.librariesMap.keys).containsExactlyElementsIn(inputs)
+        inputs.forEach {
+            Truth.assertThat(parallel.librariesMap[it]?.toMd5()?.toList())
+                .isEqualTo(sequential.librariesMap[it]?.toMd5()?.toList())
+        }
+    }
+
+    @Test
+    fun parallelRun_recordsStatsForEachLibrary() {
+        val inputs = List(4) { createLibrary(changedXml) }
+
+        val result = transform(
+            Processor.createProcessor5(config = config, parallelism = 4),
+            inputs
+        )
+
+        Truth.assertThat(result.stats.archiveTimesNanos.keys).hasSize(inputs.size)
+        Truth.assertThat(result.stats.transformerFileCounts.values.sum())
+            .isAtLeast(inputs.size * 2)
+        Truth.assertThat(result.stats.cacheHits).isEqualTo(0)
+    }
+
+    @Test
+    fun parallelRun_countsErrorsFromAllThreads() {
+        val inputs = List(8) { createLibrary(unmappedXml) }
+        val processor = Processor.createProcessor5(
+            config = config,
+            useFallbackIfTypeIsMissing = false,
+            parallelism = 4
+        )
+
+        var error: IllegalArgumentException? = null
+        try {
+            transform(processor, inputs)
+        } catch (e: IllegalArgumentException) {
+            error = e
+        }
+
+        Truth.assertThat(error).isNotNull()
+        Truth.assertThat(error!!.message).contains("errors found during the remapping")
+    }
+
+    private fun createLibrary(xml: String): File {
+        val archive = Archive(
+            Paths.get("some/path"),
+            listOf(
+                ArchiveFile(Paths.get("/", "test.xml"), xml.toByteArray()),
+                ArchiveFile(Paths.get("/", "other.xml"), unchangedXml.toByteArray())
+            )
+        )
+        return archive.writeSelfToFile(Files.createTempFile("test", ".zip"))
+    }
+
+    private fun transform(processor: Processor, inputs: List<File>): TransformationResult {
+        return processor.transform2(
+            input = inputs.map {
+                FileMapping(it, Files.createTempFile("testRefactored", ".zip").toFile())
+            }.toSet(),
+            copyUnmodifiedLibsAlso = true
+        )
+    }
+}
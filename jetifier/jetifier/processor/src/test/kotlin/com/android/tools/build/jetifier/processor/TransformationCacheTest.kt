@@ -0,0 +1,156 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tools.build.jetifier.processor
+
+import com.android.tools.build.jetifier.core.config.Config
+import com.android.tools.build.jetifier.core.rule.RewriteRule
+import com.android.tools.build.jetifier.core.rule.RewriteRulesMap
+import com.android.tools.build.jetifier.core.type.JavaType
+import com.android.tools.build.jetifier.core.type.TypesMap
+import com.android.tools.build.jetifier.processor.archive.Archive
+import com.android.tools.build.jetifier.processor.archive.ArchiveFile
+import com.google.common.truth.Truth
+import org.junit.Test
+import java.io.File
+import java.nio.file.Files
+import java.nio.file.Paths
+
+/**
+ * Tests that the processor produces the same results when running in parallel and when taking
+ * them from the cache.
+ */
+class TransformationCacheTest {
+
+    private val config = Config.fromOptional(
+        restrictToPackagePrefixes = setOf("android/support/v7/preference"),
+        rulesMap =
+            RewriteRulesMap(
+                RewriteRule(from = "android/support/v7/preference/Preference(.+)", to = "ignore")
+            ),
+        typesMap = TypesMap(
+            JavaType("android/support/v7/preference/Preference")
+                to JavaType("android/test/pref/Preference")
+        )
+    )
+
+    private val changedXml =
+        "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+            "<android.support.v7.preference.Preference/>"
+
+    private val unchangedXml =
+        "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+            "<android.test.pref.Preference/>"
+
+    @Test
+    fun changedLibrary_secondRun_takenFromCache() {
+        val cacheDir = Files.createTempDirectory("jetifierCache").toFile()
+        val input = createLibrary(changedXml)
+
+        val first = runProcessor(input, cacheDir)
+        val second = runProcessor(input, cacheDir)
+
+        Truth.assertThat(first.result.stats.cacheHits).isEqualTo(0)
+        Truth.assertThat(second.result.stats.cacheHits).isEqualTo(1)
+        Truth.assertThat(second.result.numberOfLibsModified).isEqualTo(1)
+        Truth.assertThat(second.result.librariesMap).containsExactly(input, second.output)
+        Truth.assertThat(second.output.toMd5()).isEqualTo(first.output.toMd5())
+    }
+
+    @Test
+    fun unchangedLibrary_secondRun_takenFromCache() {
+        val cacheDir = Files.createTempDirectory("jetifierCache").toFile()
+        val input = createLibrary(unchangedXml)
+
+        runProcessor(input, cacheDir, copyUnmodifiedLibsAlso = false)
+        val second = runProcessor(input, cacheDir, copyUnmodifiedLibsAlso = false)
+
+        Truth.assertThat(second.result.stats.cacheHits).isEqualTo(1)
+        Truth.assertThat(second.result.numberOfLibsModified).isEqualTo(0)
+        Truth.assertThat(second.result.librariesMap).containsExactly(input, null)
+    }
+
+    @Test
+    fun differentConfig_notTakenFromCache() {
+        val cacheDir = Files.createTempDirectory("jetifierCache").toFile()
+        val input = createLibrary(changedXml)
+
+        runProcessor(input, cacheDir)
+        val second = runProcessor(input, cacheDir, config = Config.EMPTY)
+
+        Truth.assertThat(second.result.stats.cacheHits).isEqualTo(0)
+        Truth.assertThat(second.result.numberOfLibsModified).isEqualTo(0)
+    }
+
+    @Test
+    fun parallelRun_sameOutputAsSequential() {
+        val inputs = List(8) { i -> createLibrary(if (i % 2 == 0) changedXml else unchangedXml) }
+
+        val sequential = transform(inputs, parallelism = 1)
+        val parallel = transform(inputs, parallelism = 4)
+
+        Truth.assertThat(parallel.values.map { it?.toMd5()?.toList() })
+            .containsExactlyElementsIn(sequential.values.map { it?.toMd5()?.toList() })
+            .inOrder()
+        Truth.assertThat(parallel.keys).containsExactlyElementsIn(inputs).inOrder()
+    }
+
+    private fun createLibrary(xml: String): File {
+        val archive = Archive(
+            Paths.get("some/path"),
+            listOf(
+                ArchiveFile(Paths.get("/", "test.xml"), xml.toByteArray()),
+                ArchiveFile(Paths.get("/", "other.xml"), unchangedXml.toByteArray())
+            )
+        )
+        return archive.writeSelfToFile(Files.createTempFile("test", ".zip"))
+    }
+
+    private fun runProcessor(
+        input: File,
+        cacheDir: File,
+        config: Config = this.config,
+        copyUnmodifiedLibsAlso: Boolean = true
+    ): Run {
+        val output = Files.createTempFile("testRefactored", ".zip").toFile()
+        val processor = Processor.createProcessor5(
+            config = config,
+            timestampsPolicy = TimestampsPolicy.EPOCH,
+            cacheDirectory = cacheDir
+        )
+        val result = processor.transform2(
+            input = setOf(FileMapping(input, output)),
+            copyUnmodifiedLibsAlso = copyUnmodifiedLibsAlso
+        )
+        return Run(result, output)
+    }
+
+    private fun transform(inputs: List<File>, parallelism: Int): Map<File, File?> {
+        val processor = Processor.createProcessor5(
+            config = config,
+            timestampsPolicy = TimestampsPolicy.EPOCH,
+            parallelism = parallelism
+        )
+        return processor.transform2(
+            input = inputs.map {
+                FileMapping(it, Files.createTempFile("testRefactored", ".zip").toFile())
+            }.toSet(),
+            copyUnmodifiedLibsAlso = false
+        ).librariesMap
+    }
+
+    private class Run(val result: TransformationResult, val output: File)
+}
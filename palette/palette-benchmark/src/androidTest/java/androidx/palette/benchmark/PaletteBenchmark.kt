@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.palette.benchmark
+
+import android.graphics.Bitmap
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.palette.graphics.Palette
+import androidx.test.filters.LargeTest
+import org.junit.After
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.nio.IntBuffer
+import java.util.concurrent.Executors
+import kotlin.random.Random
+
+/**
+ * Generates palettes for a fixed corpus of synthetic images, so that runs are comparable across
+ * devices and builds.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class PaletteBenchmark(private val size: Int, private val resizeArea: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val pixels = List(CORPUS_SIZE) { seed -> generatePixels(seed, size) }
+
+    private val bitmaps = pixels.map { Bitmap.createBitmap(it, size, size, Bitmap.Config.ARGB_8888) }
+
+    private val executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors())
+
+    @Test
+    fun generateSequential() {
+        benchmarkRule.measureRepeated {
+            bitmaps.forEach { builder(it).generate() }
+        }
+    }
+
+    @Test
+    fun generateAll() {
+        benchmarkRule.measureRepeated {
+            Palette.generateAll(bitmaps.map { builder(it) }, executor)
+        }
+    }
+
+    @Test
+    fun generateFromPixels() {
+        benchmarkRule.measureRepeated {
+            pixels.forEach {
+                Palette.Builder(IntBuffer.wrap(it), size, size)
+                    .resizeBitmapArea(resizeArea)
+                    .generate()
+            }
+        }
+    }
+
+    @After
+    fun teardown() {
+        executor.shutdown()
+        bitmaps.forEach { it.recycle() }
+    }
+
+    private fun builder(bitmap: Bitmap) = Palette.from(bitmap).resizeBitmapArea(resizeArea)
+
+    companion object {
+        private const val CORPUS_SIZE = 8
+
+        /**
+         * Mixes gradients, noise and flat blocks, which exercise the quantizer's box splitting
+         * differently.
+         */
+        private fun generatePixels(seed: Int, size: Int): IntArray {
+            val random = Random(seed)
+            val blockColor = random.nextInt() or 0xFF000000.toInt()
+            return IntArray(size * size) { i ->
+                val x = i % size
+                val y = i / size
+                when ((x / 64 + y / 64 + seed) % 3) {
+                    0 -> (0xFF shl 24) or ((x * 255 / size) shl 16) or ((y * 255 / size) shl 8) or
+                        (seed * 31 and 0xFF)
+                    1 -> random.nextInt() or 0xFF000000.toInt()
+                    else -> blockColor
+                }
+            }
+        }
+
+        @JvmStatic
+        @Parameterized.Parameters(name = "size={0}_resizeArea={1}")
+        fun params() = listOf(512, 1024).flatMap { size ->
+            listOf(
+                arrayOf<Any>(size, 112 * 112),
+                arrayOf<Any>(size, 0)
+            )
+        }
+    }
+}
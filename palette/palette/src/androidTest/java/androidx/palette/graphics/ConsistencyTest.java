@@ -26,6 +26,12 @@ import androidx.test.filters.SmallTest;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 @RunWith(AndroidJUnit4.class)
 public class ConsistencyTest {
 
@@ -46,6 +52,56 @@ public class ConsistencyTest {
         }
     }
 
+    @Test
+    @SmallTest
+    public void testGenerateAllConsistency() {
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+        final Palette expected = Palette.from(bitmap).generate();
+
+        final List<Palette.Builder> builders = new ArrayList<>();
+        for (int i = 0; i < NUMBER_TRIALS; i++) {
+            builders.add(Palette.from(bitmap));
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Palette> palettes = Palette.generateAll(builders, executor);
+            assertEquals(NUMBER_TRIALS, palettes.size());
+            for (Palette palette : palettes) {
+                assetPalettesEqual(expected, palette);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @SmallTest
+    public void testPixelsConsistency() {
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+        final int width = bitmap.getWidth();
+        final int height = bitmap.getHeight();
+        final int[] pixels = new int[width * height];
+        bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+
+        // Without resizing, both sources see exactly the same pixels
+        assetPalettesEqual(
+                Palette.from(bitmap).resizeBitmapArea(0).generate(),
+                new Palette.Builder(IntBuffer.wrap(pixels), width, height)
+                        .resizeBitmapArea(0).generate());
+        assetPalettesEqual(
+                Palette.from(bitmap).resizeBitmapArea(0)
+                        .setRegion(0, 0, width / 2, height / 2).generate(),
+                new Palette.Builder(IntBuffer.wrap(pixels), width, height)
+                        .resizeBitmapArea(0)
+                        .setRegion(0, 0, width / 2, height / 2).generate());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    @SmallTest
+    public void testPixelsTooSmall() {
+        new Palette.Builder(IntBuffer.allocate(99), 10, 10);
+    }
+
     private static void assetPalettesEqual(Palette p1, Palette p2) {
         assertEquals(p1.getVibrantSwatch(), p2.getVibrantSwatch());
         assertEquals(p1.getLightVibrantSwatch(), p2.getLightVibrantSwatch());
@@ -18,8 +18,10 @@ package androidx.palette.graphics;
 
 import android.graphics.Color;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.core.graphics.ColorUtils;
+import androidx.core.util.Pools;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -49,31 +51,57 @@ final class ColorCutQuantizer {
     private static final int QUANTIZE_WORD_WIDTH = 5;
     private static final int QUANTIZE_WORD_MASK = (1 << QUANTIZE_WORD_WIDTH) - 1;
 
+    static final int HISTOGRAM_SIZE = 1 << (QUANTIZE_WORD_WIDTH * 3);
+
+    /**
+     * Histograms are 128KB each, so they are reused across quantizers instead of being
+     * allocated for every palette. Enough are kept for each core to generate a palette at once.
+     */
+    private static final Pools.SynchronizedPool<int[]> sHistogramPool =
+            new Pools.SynchronizedPool<>(Runtime.getRuntime().availableProcessors());
+
     final int[] mColors;
+    // Only valid during construction, after which it is zeroed and released to the pool
     final int[] mHistogram;
     final List<Palette.Swatch> mQuantizedColors;
     @Nullable final Palette.Filter[] mFilters;
 
     private final float[] mTempHsl = new float[3];
 
+    /**
+     * Returns an empty histogram, reusing a released one if possible. It should be filled with
+     * {@link #addToHistogram} and then passed to
+     * {@link #ColorCutQuantizer(int[], int, Palette.Filter[])}, which releases it.
+     */
+    @NonNull
+    static int[] obtainHistogram() {
+        final int[] histogram = sHistogramPool.acquire();
+        return histogram != null ? histogram : new int[HISTOGRAM_SIZE];
+    }
+
+    /**
+     * Adds the given RGB888 pixels to a histogram obtained from {@link #obtainHistogram()}.
+     */
+    static void addToHistogram(@NonNull int[] histogram, @NonNull int[] pixels, int count) {
+        for (int i = 0; i < count; i++) {
+            histogram[quantizeFromRgb888(pixels[i])]++;
+        }
+    }
+
     /**
      * Constructor.
      *
-     * @param pixels histogram representing an image's pixel data
+     * @param histogram histogram representing an image's pixel data, obtained from
+     *                  {@link #obtainHistogram()}. It is released once the colors are quantized,
+     *                  so it must not be used by the caller anymore.
      * @param maxColors The maximum number of colors that should be in the result palette.
      * @param filters Set of filters to use in the quantization stage
      */
-    ColorCutQuantizer(int[] pixels, int maxColors, @Nullable Palette.Filter[] filters) {
+    ColorCutQuantizer(@NonNull int[] histogram, int maxColors,
+            @Nullable Palette.Filter[] filters) {
         mFilters = filters;
 
-        final int[] hist = mHistogram = new int[1 << (QUANTIZE_WORD_WIDTH * 3)];
-        for (int i = 0; i < pixels.length; i++) {
-            final int quantizedColor = quantizeFromRgb888(pixels[i]);
-            // Now update the pixel value to the quantized value
-            pixels[i] = quantizedColor;
-            // And update the histogram
-            hist[quantizedColor]++;
-        }
+        final int[] hist = mHistogram = histogram;
 
         // Now let's count the number of distinct colors
         int distinctColorCount = 0;
@@ -107,6 +135,13 @@ final class ColorCutQuantizer {
             // We need use quantization to reduce the number of colors
             mQuantizedColors = quantizePixels(maxColors);
         }
+
+        // Only the distinct colors have a population left, so clearing them is enough to release
+        // an empty histogram
+        for (int color : colors) {
+            hist[color] = 0;
+        }
+        sHistogramPool.release(hist);
     }
 
     /**
@@ -426,7 +461,7 @@ final class ColorCutQuantizer {
     /**
      * Quantized a RGB888 value to have a word width of {@value #QUANTIZE_WORD_WIDTH}.
      */
-    private static int quantizeFromRgb888(int color) {
+    static int quantizeFromRgb888(int color) {
         int r = modifyWordWidth(Color.red(color), 8, QUANTIZE_WORD_WIDTH);
         int g = modifyWordWidth(Color.green(color), 8, QUANTIZE_WORD_WIDTH);
         int b = modifyWordWidth(Color.blue(color), 8, QUANTIZE_WORD_WIDTH);
@@ -30,10 +30,15 @@ import androidx.collection.SimpleArrayMap;
 import androidx.core.graphics.ColorUtils;
 import androidx.core.util.Preconditions;
 
+import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A helper class to extract prominent colors from an image.
@@ -111,6 +116,88 @@ public final class Palette {
         return new Builder(swatches).generate();
     }
 
+    /**
+     * Generate the {@link Palette}s of all the given {@link Builder}s in parallel, using the
+     * calling thread and the threads of the given {@link Executor}.
+     * <p>
+     * This is more efficient than generating each Palette on its own when there are many
+     * images, for example the thumbnails of a grid, since the work is spread over all of the
+     * CPU cores. Like {@link Builder#generate()}, this blocks the calling thread, which should not
+     * be the main thread. If the executor rejects work, the remaining Palettes are generated on
+     * the calling thread. If the calling thread is interrupted while it waits for the executor,
+     * an {@link IllegalStateException} is thrown.
+     *
+     * @param builders The builders of the Palettes to generate. Each should only be generated once.
+     * @param executor The executor to generate Palettes on, in addition to the calling thread.
+     * @return The generated Palettes, in the same order as {@code builders}.
+     */
+    @NonNull
+    public static List<Palette> generateAll(@NonNull List<Builder> builders,
+            @NonNull Executor executor) {
+        final BatchGenerator generator = new BatchGenerator(builders);
+        final int workers = Math.min(builders.size(),
+                Runtime.getRuntime().availableProcessors()) - 1;
+        for (int i = 0; i < workers; i++) {
+            try {
+                executor.execute(generator);
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        generator.run();
+        return generator.getPalettes();
+    }
+
+    /**
+     * Generates the Palettes of a list of builders, each thread that runs it takes the next
+     * builder until none are left.
+     */
+    private static class BatchGenerator implements Runnable {
+        private final List<Builder> mBuilders;
+        private final Palette[] mPalettes;
+        private final AtomicInteger mNextBuilder = new AtomicInteger();
+        private final CountDownLatch mGenerated;
+        private volatile Throwable mFailure;
+
+        BatchGenerator(List<Builder> builders) {
+            mBuilders = builders;
+            mPalettes = new Palette[builders.size()];
+            mGenerated = new CountDownLatch(builders.size());
+        }
+
+        @Override
+        public void run() {
+            int index;
+            while ((index = mNextBuilder.getAndIncrement()) < mPalettes.length) {
+                try {
+                    if (mFailure == null) {
+                        mPalettes[index] = mBuilders.get(index).generate();
+                    }
+                } catch (Throwable t) {
+                    mFailure = t;
+                } finally {
+                    mGenerated.countDown();
+                }
+            }
+        }
+
+        List<Palette> getPalettes() {
+            try {
+                // only waits for the Palettes still being generated by the executor
+                mGenerated.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while generating Palettes", e);
+            }
+            if (mFailure instanceof Error) {
+                throw (Error) mFailure;
+            } else if (mFailure != null) {
+                throw (RuntimeException) mFailure;
+            }
+            return Arrays.asList(mPalettes);
+        }
+    }
+
     /**
      * @deprecated Use {@link Builder} to generate the Palette.
      */
@@ -592,6 +679,9 @@ public final class Palette {
     public static final class Builder {
         @Nullable private final List<Swatch> mSwatches;
         @Nullable private final Bitmap mBitmap;
+        @Nullable private final IntBuffer mPixels;
+        private final int mPixelsWidth;
+        private final int mPixelsHeight;
 
         private final List<Target> mTargets = new ArrayList<>();
 
@@ -611,9 +701,44 @@ public final class Palette {
             }
             mFilters.add(DEFAULT_FILTER);
             mBitmap = bitmap;
+            mPixels = null;
+            mPixelsWidth = 0;
+            mPixelsHeight = 0;
+            mSwatches = null;
+
+            addDefaultTargets();
+        }
+
+        /**
+         * Construct a new {@link Builder} using the pixels of an image as the source.
+         * <p>
+         * The pixels are read starting at the current position of the buffer, without changing
+         * it, as packed ARGB color ints stored row by row, like the ones returned by
+         * {@link Bitmap#getPixels(int[], int, int, int, int, int, int)}. Only the pixels needed
+         * to generate the palette are read: those in the {@link #setRegion(int, int, int, int)
+         * region}, if any, and a subset of them when the image is larger than the
+         * {@link #resizeBitmapArea(int) resize area}. The buffer must not be modified until the
+         * palette is generated.
+         *
+         * @param pixels The pixels of the image.
+         * @param width  The width of the image, in pixels.
+         * @param height The height of the image, in pixels.
+         */
+        public Builder(@NonNull IntBuffer pixels, @Px int width, @Px int height) {
+            if (width <= 0 || height <= 0 || pixels.remaining() / width < height) {
+                throw new IllegalArgumentException("Pixels are not valid");
+            }
+            mFilters.add(DEFAULT_FILTER);
+            mBitmap = null;
+            mPixels = pixels;
+            mPixelsWidth = width;
+            mPixelsHeight = height;
             mSwatches = null;
 
-            // Add the default targets
+            addDefaultTargets();
+        }
+
+        private void addDefaultTargets() {
             mTargets.add(Target.LIGHT_VIBRANT);
             mTargets.add(Target.VIBRANT);
             mTargets.add(Target.DARK_VIBRANT);
@@ -633,11 +758,14 @@ public final class Palette {
             mFilters.add(DEFAULT_FILTER);
             mSwatches = swatches;
             mBitmap = null;
+            mPixels = null;
+            mPixelsWidth = 0;
+            mPixelsHeight = 0;
         }
 
         /**
          * Set the maximum number of colors to use in the quantization step when using a
-         * {@link android.graphics.Bitmap} as the source.
+         * {@link android.graphics.Bitmap} or pixels as the source.
          * <p>
          * Good values for depend on the source image type. For landscapes, good values are in
          * the range 10-16. For images which are largely made up of people's faces then this
@@ -678,6 +806,9 @@ public final class Palette {
          * This value has a large effect on the processing time. The larger the resized image is,
          * the greater time it will take to generate the palette. The smaller the image is, the
          * more detail is lost in the resulting image and thus less precision for color selection.
+         * <p>
+         * When using pixels as the source, the image is not resized. Instead, only a subset of
+         * its pixels covering about {@code area} pixels is sampled.
          *
          * @param area the number of pixels that the intermediary scaled down Bitmap should cover,
          *             or any value <= 0 to disable resizing.
@@ -715,7 +846,7 @@ public final class Palette {
 
         /**
          * Set a region of the bitmap to be used exclusively when calculating the palette.
-         * <p>This only works when the original input is a {@link Bitmap}.</p>
+         * <p>This only works when the original input is a {@link Bitmap} or pixels.</p>
          *
          * @param left The left side of the rectangle used for the region.
          * @param top The top of the rectangle used for the region.
@@ -724,10 +855,14 @@ public final class Palette {
          */
         @NonNull
         public Builder setRegion(@Px int left, @Px int top, @Px int right, @Px int bottom) {
-            if (mBitmap != null) {
+            if (mBitmap != null || mPixels != null) {
                 if (mRegion == null) mRegion = new Rect();
                 // Set the Rect to be initially the whole Bitmap
-                mRegion.set(0, 0, mBitmap.getWidth(), mBitmap.getHeight());
+                if (mBitmap != null) {
+                    mRegion.set(0, 0, mBitmap.getWidth(), mBitmap.getHeight());
+                } else {
+                    mRegion.set(0, 0, mPixelsWidth, mPixelsHeight);
+                }
                 // Now just get the intersection with the region
                 if (!mRegion.intersect(left, top, right, bottom)) {
                     throw new IllegalArgumentException("The given region must intersect with "
@@ -797,23 +932,25 @@ public final class Palette {
                             bitmap.getHeight());
                 }
 
-                // Now generate a quantizer from the Bitmap
-                final ColorCutQuantizer quantizer = new ColorCutQuantizer(
-                        getPixelsFromBitmap(bitmap),
-                        mMaxColors,
-                        mFilters.isEmpty() ? null : mFilters.toArray(new Filter[mFilters.size()]));
+                final int[] pixels = getPixelsFromBitmap(bitmap);
 
                 // If created a new bitmap, recycle it
                 if (bitmap != mBitmap) {
                     bitmap.recycle();
                 }
 
-                swatches = quantizer.getQuantizedColors();
+                // Now generate a quantizer from the pixels
+                final int[] histogram = ColorCutQuantizer.obtainHistogram();
+                ColorCutQuantizer.addToHistogram(histogram, pixels, pixels.length);
+                swatches = quantize(histogram);
+            } else if (mPixels != null) {
+                // We have pixels, sample them straight into a histogram
+                swatches = quantize(getHistogramFromPixels(mPixels));
             } else if (mSwatches != null) {
                 // Else we're using the provided swatches
                 swatches = mSwatches;
             } else {
-                // The constructors enforce either a bitmap or swatches are present.
+                // The constructors enforce either a bitmap, pixels or swatches are present.
                 throw new AssertionError();
             }
 
@@ -859,48 +996,63 @@ public final class Palette {
             }.executeOnExecutor(android.os.AsyncTask.THREAD_POOL_EXECUTOR, mBitmap);
         }
 
-        private int[] getPixelsFromBitmap(Bitmap bitmap) {
-            final int bitmapWidth = bitmap.getWidth();
-            final int bitmapHeight = bitmap.getHeight();
-            final int[] pixels = new int[bitmapWidth * bitmapHeight];
-            bitmap.getPixels(pixels, 0, bitmapWidth, 0, 0, bitmapWidth, bitmapHeight);
+        private List<Swatch> quantize(int[] histogram) {
+            final ColorCutQuantizer quantizer = new ColorCutQuantizer(
+                    histogram,
+                    mMaxColors,
+                    mFilters.isEmpty() ? null : mFilters.toArray(new Filter[mFilters.size()]));
+            return quantizer.getQuantizedColors();
+        }
 
+        private int[] getPixelsFromBitmap(Bitmap bitmap) {
             if (mRegion == null) {
                 // If we don't have a region, return all of the pixels
+                final int bitmapWidth = bitmap.getWidth();
+                final int bitmapHeight = bitmap.getHeight();
+                final int[] pixels = new int[bitmapWidth * bitmapHeight];
+                bitmap.getPixels(pixels, 0, bitmapWidth, 0, 0, bitmapWidth, bitmapHeight);
                 return pixels;
             } else {
-                // If we do have a region, lets create a subset array containing only the region's
-                // pixels
+                // If we do have a region, only read the region's pixels
                 final int regionWidth = mRegion.width();
                 final int regionHeight = mRegion.height();
-                // pixels contains all of the pixels, so we need to iterate through each row and
-                // copy the regions pixels into a new smaller array
                 final int[] subsetPixels = new int[regionWidth * regionHeight];
-                for (int row = 0; row < regionHeight; row++) {
-                    System.arraycopy(pixels, ((row + mRegion.top) * bitmapWidth) + mRegion.left,
-                            subsetPixels, row * regionWidth, regionWidth);
-                }
+                bitmap.getPixels(subsetPixels, 0, regionWidth, mRegion.left, mRegion.top,
+                        regionWidth, regionHeight);
                 return subsetPixels;
             }
         }
 
         /**
-         * Scale the bitmap down as needed.
+         * Builds the histogram of the pixels in the region, if any. Instead of scaling the image
+         * down, only one pixel out of each square of {@code step * step} pixels is sampled.
          */
-        private Bitmap scaleBitmapDown(final Bitmap bitmap) {
-            double scaleRatio = -1;
-
-            if (mResizeArea > 0) {
-                final int bitmapArea = bitmap.getWidth() * bitmap.getHeight();
-                if (bitmapArea > mResizeArea) {
-                    scaleRatio = Math.sqrt(mResizeArea / (double) bitmapArea);
-                }
-            } else if (mResizeMaxDimension > 0) {
-                final int maxDimension = Math.max(bitmap.getWidth(), bitmap.getHeight());
-                if (maxDimension > mResizeMaxDimension) {
-                    scaleRatio = mResizeMaxDimension / (double) maxDimension;
+        private int[] getHistogramFromPixels(IntBuffer pixels) {
+            final double scaleRatio = getScaleRatio(mPixelsWidth, mPixelsHeight);
+            final int step = scaleRatio <= 0 ? 1 : (int) Math.ceil(1 / scaleRatio);
+
+            final Rect region = mRegion;
+            final int left = region != null ? region.left : 0;
+            final int top = region != null ? region.top : 0;
+            final int right = region != null ? region.right : mPixelsWidth;
+            final int bottom = region != null ? region.bottom : mPixelsHeight;
+
+            final int[] histogram = ColorCutQuantizer.obtainHistogram();
+            final int start = pixels.position();
+            for (int y = top; y < bottom; y += step) {
+                final int rowStart = start + y * mPixelsWidth;
+                for (int x = left; x < right; x += step) {
+                    histogram[ColorCutQuantizer.quantizeFromRgb888(pixels.get(rowStart + x))]++;
                 }
             }
+            return histogram;
+        }
+
+        /**
+         * Scale the bitmap down as needed.
+         */
+        private Bitmap scaleBitmapDown(final Bitmap bitmap) {
+            final double scaleRatio = getScaleRatio(bitmap.getWidth(), bitmap.getHeight());
 
             if (scaleRatio <= 0) {
                 // Scaling has been disabled or not needed so just return the Bitmap
@@ -912,6 +1064,27 @@ public final class Palette {
                     (int) Math.ceil(bitmap.getHeight() * scaleRatio),
                     false);
         }
+
+        /**
+         * @return the ratio to scale an image of the given size down by, or -1 if it does not
+         * need to be scaled down.
+         */
+        private double getScaleRatio(int width, int height) {
+            double scaleRatio = -1;
+
+            if (mResizeArea > 0) {
+                final int area = width * height;
+                if (area > mResizeArea) {
+                    scaleRatio = Math.sqrt(mResizeArea / (double) area);
+                }
+            } else if (mResizeMaxDimension > 0) {
+                final int maxDimension = Math.max(width, height);
+                if (maxDimension > mResizeMaxDimension) {
+                    scaleRatio = mResizeMaxDimension / (double) maxDimension;
+                }
+            }
+            return scaleRatio;
+        }
     }
 
     /**
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.benchmark
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.recyclerview.widget.DiffUtil
+import androidx.recyclerview.widget.ListUpdateCallback
+import androidx.recyclerview.widget.RecyclerView
+import androidx.test.filters.LargeTest
+import org.junit.After
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.concurrent.Executors
+import kotlin.random.Random
+
+/**
+ * Diffs synthetic lists that are too large for an unbounded diff with moves to complete in a
+ * reasonable time, using stable ids and an operation budget.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class LargeDiffBenchmark(
+    private val size: Int,
+    private val stableIds: Boolean,
+    private val maxOperations: Long,
+    private val parallel: Boolean
+) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val before = (0 until size).toList()
+
+    // shuffles a tenth of the list and adds and removes a hundredth of it
+    private val after = before.toMutableList().also { list ->
+        val random = Random(size)
+        list.subList(size / 4, size / 4 + size / 10).shuffle(random)
+        repeat(size / 100) {
+            list.removeAt(random.nextInt(list.size))
+            list.add(random.nextInt(list.size + 1), size + it)
+        }
+    }
+
+    private val executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors())
+
+    private val callback = object : DiffUtil.Callback() {
+        override fun areItemsTheSame(oldItemPosition: Int, newItemPosition: Int) =
+            before[oldItemPosition] == after[newItemPosition]
+
+        override fun getOldListSize() = before.size
+
+        override fun getNewListSize() = after.size
+
+        override fun areContentsTheSame(oldItemPosition: Int, newItemPosition: Int) =
+            before[oldItemPosition] == after[newItemPosition]
+
+        override fun getOldItemId(oldItemPosition: Int) =
+            if (stableIds) before[oldItemPosition].toLong() else RecyclerView.NO_ID
+
+        override fun getNewItemId(newItemPosition: Int) =
+            if (stableIds) after[newItemPosition].toLong() else RecyclerView.NO_ID
+    }
+
+    @Test
+    fun runDiff() {
+        benchmarkRule.measureRepeated {
+            val result = if (parallel) {
+                DiffUtil.calculateDiffInSegments(callback, true, maxOperations, null, executor)
+            } else {
+                DiffUtil.calculateDiff(callback, true, maxOperations, null)
+            }
+            result.dispatchUpdatesTo(dummyUpdateCallback)
+        }
+    }
+
+    @After
+    fun teardown() {
+        executor.shutdown()
+    }
+
+    companion object {
+        private val dummyUpdateCallback = object : ListUpdateCallback {
+            override fun onChanged(position: Int, count: Int, payload: Any?) {
+            }
+
+            override fun onMoved(fromPosition: Int, toPosition: Int) {
+            }
+
+            override fun onInserted(position: Int, count: Int) {
+            }
+
+            override fun onRemoved(position: Int, count: Int) {
+            }
+        }
+
+        @JvmStatic
+        @Parameterized.Parameters(
+            name = "size={0}_stableIds={1}_maxOperations={2}_parallel={3}"
+        )
+        fun params() = listOf(10_000, 100_000).flatMap { size ->
+            listOf(
+                arrayOf<Any>(size, true, Long.MAX_VALUE, false),
+                arrayOf<Any>(size, true, 1_000_000L, false),
+                arrayOf<Any>(size, false, 1_000_000L, false),
+                arrayOf<Any>(size, true, Long.MAX_VALUE, true)
+            )
+        }
+    }
+}
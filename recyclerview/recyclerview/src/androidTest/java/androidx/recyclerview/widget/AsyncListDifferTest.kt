@@ -20,6 +20,7 @@ import androidx.test.ext.junit.runners.AndroidJUnit4
 import androidx.test.filters.MediumTest
 import androidx.testutils.TestExecutor
 import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
 import org.junit.Assert.assertNotSame
 import org.junit.Assert.assertSame
 import org.junit.Assert.fail
@@ -346,6 +347,95 @@ class AsyncListDifferTest {
         verifyNoMoreInteractions(listener)
     }
 
+    @Test
+    fun submitListCancelsRunningDiff() {
+        val comparedItems = mutableListOf<String>()
+        val differ = AsyncListDiffer(
+            IGNORE_CALLBACK,
+            AsyncDifferConfig.Builder(object : DiffUtil.ItemCallback<String>() {
+                override fun areItemsTheSame(oldItem: String, newItem: String): Boolean {
+                    comparedItems.add(newItem)
+                    return oldItem == newItem
+                }
+
+                override fun areContentsTheSame(oldItem: String, newItem: String): Boolean {
+                    return oldItem == newItem
+                }
+            })
+                .setMainThreadExecutor(mMainThread)
+                .setBackgroundThreadExecutor(mBackgroundThread)
+                .build()
+        )
+        differ.submitList(listOf("a", "b"))
+
+        // both diffs are queued, the first one is canceled before it gets to run
+        differ.submitList(listOf("a", "b", "c"))
+        differ.submitList(listOf("a", "b", "d"))
+        drain()
+
+        assertEquals(listOf("a", "b", "d"), differ.currentList)
+        assertFalse(comparedItems.contains("c"))
+    }
+
+    @Test
+    fun maxDiffOperations() {
+        val callback = mock(ListUpdateCallback::class.java)
+        val differ = AsyncListDiffer(
+            callback,
+            AsyncDifferConfig.Builder(STRING_DIFF_CALLBACK)
+                .setMainThreadExecutor(mMainThread)
+                .setBackgroundThreadExecutor(mBackgroundThread)
+                .setMaxDiffOperations(0)
+                .build()
+        )
+        differ.submitList(listOf("a", "b", "c", "d"))
+        verify(callback).onInserted(0, 4)
+        drain()
+
+        // "a" and "d" are matched for free, "b" and "c" are swapped but not diffed
+        differ.submitList(listOf("a", "c", "b", "d"))
+        drain()
+        verify(callback).onRemoved(1, 2)
+        verify(callback).onInserted(1, 2)
+        verifyNoMoreInteractions(callback)
+    }
+
+    @Test
+    fun parallelDiff() {
+        val callback = mock(ListUpdateCallback::class.java)
+        val differ = AsyncListDiffer(
+            callback,
+            AsyncDifferConfig.Builder(object : DiffUtil.ItemCallback<String>() {
+                override fun areItemsTheSame(oldItem: String, newItem: String): Boolean {
+                    return oldItem == newItem
+                }
+
+                override fun areContentsTheSame(oldItem: String, newItem: String): Boolean {
+                    return oldItem == newItem
+                }
+
+                override fun getItemId(item: String): Long {
+                    return item[0].toLong()
+                }
+            })
+                .setMainThreadExecutor(mMainThread)
+                .setBackgroundThreadExecutor(mBackgroundThread)
+                // segments that are not picked up by the executor run on the diffing thread
+                .setParallelDiffExecutor(mBackgroundThread)
+                .build()
+        )
+        val letters = ('a'..'t').map { it.toString() }
+        differ.submitList(letters)
+        verify(callback).onInserted(0, 20)
+        drain()
+
+        differ.submitList(letters - "k")
+        drain()
+        assertEquals(letters - "k", differ.currentList)
+        verify(callback).onRemoved(10, 1)
+        verifyNoMoreInteractions(callback)
+    }
+
     private fun drain() {
         var executed: Boolean
         do {
@@ -19,6 +19,7 @@ package androidx.recyclerview.widget;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
@@ -35,6 +36,9 @@ import androidx.test.filters.SmallTest;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @SmallTest
 @RunWith(AndroidJUnit4.class)
 public class RecycledViewPoolTest {
@@ -91,6 +95,166 @@ public class RecycledViewPoolTest {
         assertEquals(0, pool.getRecycledViewCount(3));
     }
 
+    @Test
+    public void stats_countsHitsMissesAndDiscards() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        pool.setMaxRecycledViews(0, 1);
+        pool.putRecycledView(makeHolder(0));
+        pool.putRecycledView(makeHolder(0));
+        assertNotNull(pool.getRecycledView(0));
+        assertEquals(null, pool.getRecycledView(0));
+        pool.factorInCreateTime(0, 100);
+        pool.factorInBindTime(0, 10);
+
+        RecyclerView.RecycledViewPool.Stats stats = pool.getStats(0);
+        assertEquals(0, stats.getViewType());
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.getDiscardCount());
+        assertEquals(1, stats.getCreateCount());
+        assertEquals(1, stats.getBindCount());
+        assertEquals(1, stats.getMaxRecycledViews());
+        assertEquals(0, stats.getRecycledViewCount());
+        assertEquals(100, stats.getAverageCreateTimeNs());
+        assertEquals(10, stats.getAverageBindTimeNs());
+    }
+
+    @Test
+    public void statsListener_calledAtFlingEnd() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        final List<RecyclerView.RecycledViewPool.Stats> updates = new ArrayList<>();
+        pool.setStatsListener(new RecyclerView.RecycledViewPool.StatsListener() {
+            @Override
+            public void onStatsUpdated(@NonNull RecyclerView.RecycledViewPool pool,
+                    @NonNull RecyclerView.RecycledViewPool.Stats stats) {
+                updates.add(stats);
+            }
+        });
+        pool.putRecycledView(makeHolder(1));
+
+        pool.onFlingStarted();
+        pool.getRecycledView(1);
+        assertEquals(0, updates.size());
+        pool.onFlingEnded();
+
+        assertEquals(1, updates.size());
+        assertEquals(1, updates.get(0).getViewType());
+        assertEquals(1, updates.get(0).getHitCount());
+    }
+
+    @Test
+    public void adaptiveSizing_disabledByDefault() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        assertFalse(pool.isAdaptiveSizingEnabled());
+        pool.factorInCreateTime(0, 100);
+        pool.factorInBindTime(0, 10);
+
+        flingWithMissesAndDiscards(pool, 0, 3);
+
+        assertEquals(5, pool.getStats(0).getMaxRecycledViews());
+    }
+
+    @Test
+    public void adaptiveSizing_growsWhenCreateIsExpensive() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        pool.setAdaptiveSizingEnabled(true);
+        pool.factorInCreateTime(0, 100);
+        pool.factorInBindTime(0, 10);
+
+        flingWithMissesAndDiscards(pool, 0, 3);
+
+        assertEquals(8, pool.getStats(0).getMaxRecycledViews());
+    }
+
+    @Test
+    public void adaptiveSizing_growthIsBounded() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        pool.setAdaptiveSizingEnabled(true);
+        pool.factorInCreateTime(0, 100);
+        pool.factorInBindTime(0, 10);
+
+        for (int i = 0; i < 10; i++) {
+            flingWithMissesAndDiscards(pool, 0, 5);
+        }
+
+        assertEquals(20, pool.getStats(0).getMaxRecycledViews());
+    }
+
+    @Test
+    public void adaptiveSizing_doesNotGrowWhenCreateIsCheap() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        pool.setAdaptiveSizingEnabled(true);
+        pool.factorInCreateTime(0, 10);
+        pool.factorInBindTime(0, 100);
+
+        flingWithMissesAndDiscards(pool, 0, 3);
+
+        assertEquals(5, pool.getStats(0).getMaxRecycledViews());
+    }
+
+    @Test
+    public void adaptiveSizing_shrinksUnusedCapacity() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        pool.setAdaptiveSizingEnabled(true);
+        for (int i = 0; i < 5; i++) {
+            pool.putRecycledView(makeHolder(0));
+        }
+
+        pool.onFlingStarted();
+        // never goes below 4 ViewHolders in the pool
+        pool.putRecycledView(pool.getRecycledView(0));
+        pool.onFlingEnded();
+
+        assertEquals(3, pool.getStats(0).getMaxRecycledViews());
+        assertEquals(3, pool.getRecycledViewCount(0));
+    }
+
+    @Test
+    public void adaptiveSizing_keepsExplicitMax() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        pool.setAdaptiveSizingEnabled(true);
+        pool.setMaxRecycledViews(0, 2);
+        pool.factorInCreateTime(0, 100);
+        pool.factorInBindTime(0, 10);
+
+        flingWithMissesAndDiscards(pool, 0, 3);
+
+        assertEquals(2, pool.getStats(0).getMaxRecycledViews());
+    }
+
+    @Test
+    public void adaptiveSizing_waitsForAllFlingsToEnd() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        pool.setAdaptiveSizingEnabled(true);
+        pool.factorInCreateTime(0, 100);
+        pool.factorInBindTime(0, 10);
+
+        pool.onFlingStarted();
+        flingWithMissesAndDiscards(pool, 0, 3);
+        assertEquals(5, pool.getStats(0).getMaxRecycledViews());
+        pool.onFlingEnded();
+
+        assertEquals(8, pool.getStats(0).getMaxRecycledViews());
+    }
+
+    /**
+     * Simulates a fling that misses the given view type and then discards ViewHolders of it
+     * once the pool is full.
+     */
+    private void flingWithMissesAndDiscards(RecyclerView.RecycledViewPool pool, int viewType,
+            int count) {
+        pool.onFlingStarted();
+        for (int i = 0; i < count; i++) {
+            assertEquals(null, pool.getRecycledView(viewType));
+        }
+        final int max = pool.getStats(viewType).getMaxRecycledViews();
+        for (int i = 0; i < max + count; i++) {
+            pool.putRecycledView(makeHolder(viewType));
+        }
+        pool.onFlingEnded();
+        pool.clear();
+    }
+
     @Test
     public void onAdapterChanged_attachedToOneOldAdapterNotNullNotCompatWithPrev_clears() {
         onAdapterChanged(1, true, true, true);
@@ -20,7 +20,10 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 import android.os.Build;
+import android.os.Looper;
+import android.view.ViewGroup;
 
+import androidx.annotation.NonNull;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import androidx.test.filters.LargeTest;
 import androidx.test.filters.SdkSuppress;
@@ -29,8 +32,12 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @LargeTest
 @SdkSuppress(minSdkVersion = Build.VERSION_CODES.LOLLIPOP)
@@ -109,4 +116,77 @@ public class RecyclerViewPrefetchTest extends BaseRecyclerViewInstrumentationTes
         assertThat(cachedViews().size(), is(1));
         assertThat(cachedViews().get(0).getAbsoluteAdapterPosition(), is(6));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void prefetchCreatesInBackground() throws Throwable {
+        final RecyclerView recyclerView = new RecyclerView(getActivity());
+        final AtomicInteger mainThreadCreates = new AtomicInteger();
+        recyclerView.setAdapter(new TestAdapter(50) {
+            @Override
+            public TestViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+                if (Looper.myLooper() == Looper.getMainLooper()) {
+                    mainThreadCreates.incrementAndGet();
+                }
+                return super.onCreateViewHolder(parent, viewType);
+            }
+        });
+        PrefetchLayoutManager layout = new PrefetchLayoutManager();
+        recyclerView.setLayoutManager(layout);
+        final List<Thread> creationThreads = new CopyOnWriteArrayList<>();
+        final CountDownLatch createdLatch = new CountDownLatch(1);
+        recyclerView.setViewHolderCreationExecutor(new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        creationThreads.add(Thread.currentThread());
+                        command.run();
+                        createdLatch.countDown();
+                    }
+                }).start();
+            }
+        });
+
+        {
+            layout.expectLayouts(1);
+            setRecyclerView(recyclerView);
+            layout.waitForLayout(10);
+        }
+
+        final long[] createCountBefore = new long[1];
+        final int[] mainThreadCreatesBefore = new int[1];
+        mActivityRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                // creating a view now takes too long to be done during prefetch
+                recyclerView.getRecycledViewPool().factorInCreateTime(0,
+                        TimeUnit.SECONDS.toNanos(100));
+                createCountBefore[0] =
+                        recyclerView.getRecycledViewPool().getStats(0).getCreateCount();
+                mainThreadCreatesBefore[0] = mainThreadCreates.get();
+            }
+        });
+        smoothScrollBy(50);
+
+        layout.waitForPrefetch(10);
+        assertThat(createdLatch.await(10, TimeUnit.SECONDS), is(true));
+        getInstrumentation().waitForIdleSync();
+        for (Thread thread : creationThreads) {
+            assertThat(thread == Looper.getMainLooper().getThread(), is(false));
+        }
+        // the created holder is either still in the pool, or was bound by a later prefetch
+        assertThat(recyclerView.getRecycledViewPool().getRecycledViewCount(0)
+                + cachedViews().size() > 0, is(true));
+        // holders created in the background are counted by the pool like the others
+        mActivityRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                long createCount =
+                        recyclerView.getRecycledViewPool().getStats(0).getCreateCount();
+                assertThat(createCount - createCountBefore[0]
+                        > mainThreadCreates.get() - mainThreadCreatesBefore[0], is(true));
+            }
+        });
+    }
+}
@@ -16,6 +16,7 @@
 
 package androidx.recyclerview.widget;
 
+import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
@@ -39,15 +40,22 @@ public final class AsyncDifferConfig<T> {
     private final Executor mBackgroundThreadExecutor;
     @NonNull
     private final DiffUtil.ItemCallback<T> mDiffCallback;
+    private final long mMaxDiffOperations;
+    @Nullable
+    private final Executor mParallelDiffExecutor;
 
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     AsyncDifferConfig(
             @Nullable Executor mainThreadExecutor,
             @NonNull Executor backgroundThreadExecutor,
-            @NonNull DiffUtil.ItemCallback<T> diffCallback) {
+            @NonNull DiffUtil.ItemCallback<T> diffCallback,
+            long maxDiffOperations,
+            @Nullable Executor parallelDiffExecutor) {
         mMainThreadExecutor = mainThreadExecutor;
         mBackgroundThreadExecutor = backgroundThreadExecutor;
         mDiffCallback = diffCallback;
+        mMaxDiffOperations = maxDiffOperations;
+        mParallelDiffExecutor = parallelDiffExecutor;
     }
 
     /** @hide */
@@ -70,6 +78,28 @@ public final class AsyncDifferConfig<T> {
         return mDiffCallback;
     }
 
+    /**
+     * Returns the maximum number of item comparisons done to calculate a diff.
+     *
+     * @see Builder#setMaxDiffOperations(long)
+     */
+    @SuppressWarnings("WeakerAccess")
+    public long getMaxDiffOperations() {
+        return mMaxDiffOperations;
+    }
+
+    /**
+     * Returns the executor used to diff segments of the lists in parallel, or {@code null} if
+     * lists are diffed on a single thread.
+     *
+     * @see Builder#setParallelDiffExecutor(Executor)
+     */
+    @SuppressWarnings("WeakerAccess")
+    @Nullable
+    public Executor getParallelDiffExecutor() {
+        return mParallelDiffExecutor;
+    }
+
     /**
      * Builder class for {@link AsyncDifferConfig}.
      *
@@ -80,6 +110,9 @@ public final class AsyncDifferConfig<T> {
         private Executor mMainThreadExecutor;
         private Executor mBackgroundThreadExecutor;
         private final DiffUtil.ItemCallback<T> mDiffCallback;
+        private long mMaxDiffOperations = Long.MAX_VALUE;
+        @Nullable
+        private Executor mParallelDiffExecutor;
 
         public Builder(@NonNull DiffUtil.ItemCallback<T> diffCallback) {
             mDiffCallback = diffCallback;
@@ -119,6 +152,60 @@ public final class AsyncDifferConfig<T> {
             return this;
         }
 
+        /**
+         * If provided, limits the number of item comparisons done to calculate the diff between
+         * an old and a new list.
+         * <p>
+         * Parts of the lists that cannot be diffed within this budget are dispatched as removed
+         * and re-inserted instead of being diffed item by item. This bounds the time spent on
+         * diffing very large lists, at the cost of less precise updates.
+         * <p>
+         * If not provided, the number of comparisons is not limited.
+         *
+         * @param maxDiffOperations The maximum number of item comparisons for a single diff.
+         * @return this
+         * @see DiffUtil#calculateDiff(DiffUtil.Callback, boolean, long,
+         * androidx.core.os.CancellationSignal)
+         */
+        @SuppressWarnings({"unused", "WeakerAccess"})
+        @NonNull
+        public Builder<T> setMaxDiffOperations(@IntRange(from = 0) long maxDiffOperations) {
+            if (maxDiffOperations < 0) {
+                throw new IllegalArgumentException("maxDiffOperations cannot be negative");
+            }
+            mMaxDiffOperations = maxDiffOperations;
+            return this;
+        }
+
+        /**
+         * If provided, enables diffing large lists in parallel on the given executor.
+         * <p>
+         * When items have stable ids (see {@link DiffUtil.ItemCallback#getItemId(Object)}), the
+         * lists are split on runs of items that are in the same order in both lists and the parts
+         * in between are diffed in parallel, on the background thread executor and on this
+         * executor.
+         * The results are then combined into a single set of updates. This trades precision for
+         * speed: the updates are always correct but they are not guaranteed to be the minimal
+         * ones.
+         * <p>
+         * The {@link DiffUtil.ItemCallback} is called from multiple threads at once when this is
+         * enabled. A {@link java.util.concurrent.ForkJoinPool} is a good fit for this executor,
+         * the background thread executor itself can also be used.
+         * <p>
+         * If not provided, each diff runs on a single thread of the background thread executor.
+         *
+         * @param executor The executor to diff segments of the lists on, or {@code null}.
+         * @return this
+         * @see DiffUtil#calculateDiffInSegments(DiffUtil.Callback, boolean, long,
+         * androidx.core.os.CancellationSignal, Executor)
+         */
+        @SuppressWarnings({"unused", "WeakerAccess"})
+        @NonNull
+        public Builder<T> setParallelDiffExecutor(@Nullable Executor executor) {
+            mParallelDiffExecutor = executor;
+            return this;
+        }
+
         /**
          * Creates a {@link AsyncListDiffer} with the given parameters.
          *
@@ -137,7 +224,9 @@ public final class AsyncDifferConfig<T> {
             return new AsyncDifferConfig<>(
                     mMainThreadExecutor,
                     mBackgroundThreadExecutor,
-                    mDiffCallback);
+                    mDiffCallback,
+                    mMaxDiffOperations,
+                    mParallelDiffExecutor);
         }
 
         // TODO: remove the below once supportlib has its own appropriate executors
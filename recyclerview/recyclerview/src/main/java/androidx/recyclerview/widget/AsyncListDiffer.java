@@ -21,6 +21,8 @@ import android.os.Looper;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.os.CancellationSignal;
+import androidx.core.os.OperationCanceledException;
 
 import java.util.Collections;
 import java.util.List;
@@ -200,6 +202,11 @@ public class AsyncListDiffer<T> {
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     int mMaxScheduledGeneration;
 
+    // Cancels the diff that is currently running for mMaxScheduledGeneration, if any
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    @Nullable
+    CancellationSignal mRunningDiffCancellationSignal;
+
     /**
      * Get the current List - any diffing to present this list has already been computed and
      * dispatched via the ListUpdateCallback.
@@ -252,6 +259,11 @@ public class AsyncListDiffer<T> {
             @Nullable final Runnable commitCallback) {
         // incrementing generation means any currently-running diffs are discarded when they finish
         final int runGeneration = ++mMaxScheduledGeneration;
+        // the result of a running diff would be discarded, stop it early
+        if (mRunningDiffCancellationSignal != null) {
+            mRunningDiffCancellationSignal.cancel();
+            mRunningDiffCancellationSignal = null;
+        }
 
         if (newList == mList) {
             // nothing to do (Note - still had to inc generation, since may have ongoing work)
@@ -286,68 +298,24 @@ public class AsyncListDiffer<T> {
         }
 
         final List<T> oldList = mList;
+        final CancellationSignal cancellationSignal = new CancellationSignal();
+        mRunningDiffCancellationSignal = cancellationSignal;
         mConfig.getBackgroundThreadExecutor().execute(new Runnable() {
             @Override
             public void run() {
-                final DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
-                    @Override
-                    public int getOldListSize() {
-                        return oldList.size();
-                    }
-
-                    @Override
-                    public int getNewListSize() {
-                        return newList.size();
-                    }
-
-                    @Override
-                    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
-                        T oldItem = oldList.get(oldItemPosition);
-                        T newItem = newList.get(newItemPosition);
-                        if (oldItem != null && newItem != null) {
-                            return mConfig.getDiffCallback().areItemsTheSame(oldItem, newItem);
-                        }
-                        // If both items are null we consider them the same.
-                        return oldItem == null && newItem == null;
-                    }
-
-                    @Override
-                    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
-                        T oldItem = oldList.get(oldItemPosition);
-                        T newItem = newList.get(newItemPosition);
-                        if (oldItem != null && newItem != null) {
-                            return mConfig.getDiffCallback().areContentsTheSame(oldItem, newItem);
-                        }
-                        if (oldItem == null && newItem == null) {
-                            return true;
-                        }
-                        // There is an implementation bug if we reach this point. Per the docs, this
-                        // method should only be invoked when areItemsTheSame returns true. That
-                        // only occurs when both items are non-null or both are null and both of
-                        // those cases are handled above.
-                        throw new AssertionError();
-                    }
-
-                    @Nullable
-                    @Override
-                    public Object getChangePayload(int oldItemPosition, int newItemPosition) {
-                        T oldItem = oldList.get(oldItemPosition);
-                        T newItem = newList.get(newItemPosition);
-                        if (oldItem != null && newItem != null) {
-                            return mConfig.getDiffCallback().getChangePayload(oldItem, newItem);
-                        }
-                        // There is an implementation bug if we reach this point. Per the docs, this
-                        // method should only be invoked when areItemsTheSame returns true AND
-                        // areContentsTheSame returns false. That only occurs when both items are
-                        // non-null which is the only case handled above.
-                        throw new AssertionError();
-                    }
-                });
+                final DiffUtil.DiffResult result;
+                try {
+                    result = calculateDiff(oldList, newList, cancellationSignal);
+                } catch (OperationCanceledException e) {
+                    // a newer list was submitted, its diff will be dispatched instead
+                    return;
+                }
 
                 mMainThreadExecutor.execute(new Runnable() {
                     @Override
                     public void run() {
                         if (mMaxScheduledGeneration == runGeneration) {
+                            mRunningDiffCancellationSignal = null;
                             latchList(newList, result, commitCallback);
                         }
                     }
@@ -356,6 +324,88 @@ public class AsyncListDiffer<T> {
         });
     }
 
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    DiffUtil.DiffResult calculateDiff(
+            @NonNull final List<T> oldList,
+            @NonNull final List<T> newList,
+            @NonNull CancellationSignal cancellationSignal) {
+        final DiffUtil.Callback callback = new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldList.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newList.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                T oldItem = oldList.get(oldItemPosition);
+                T newItem = newList.get(newItemPosition);
+                if (oldItem != null && newItem != null) {
+                    return mConfig.getDiffCallback().areItemsTheSame(oldItem, newItem);
+                }
+                // If both items are null we consider them the same.
+                return oldItem == null && newItem == null;
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                T oldItem = oldList.get(oldItemPosition);
+                T newItem = newList.get(newItemPosition);
+                if (oldItem != null && newItem != null) {
+                    return mConfig.getDiffCallback().areContentsTheSame(oldItem, newItem);
+                }
+                if (oldItem == null && newItem == null) {
+                    return true;
+                }
+                // There is an implementation bug if we reach this point. Per the docs, this
+                // method should only be invoked when areItemsTheSame returns true. That
+                // only occurs when both items are non-null or both are null and both of
+                // those cases are handled above.
+                throw new AssertionError();
+            }
+
+            @Nullable
+            @Override
+            public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+                T oldItem = oldList.get(oldItemPosition);
+                T newItem = newList.get(newItemPosition);
+                if (oldItem != null && newItem != null) {
+                    return mConfig.getDiffCallback().getChangePayload(oldItem, newItem);
+                }
+                // There is an implementation bug if we reach this point. Per the docs, this
+                // method should only be invoked when areItemsTheSame returns true AND
+                // areContentsTheSame returns false. That only occurs when both items are
+                // non-null which is the only case handled above.
+                throw new AssertionError();
+            }
+
+            @Override
+            public long getOldItemId(int oldItemPosition) {
+                T oldItem = oldList.get(oldItemPosition);
+                return oldItem != null
+                        ? mConfig.getDiffCallback().getItemId(oldItem) : RecyclerView.NO_ID;
+            }
+
+            @Override
+            public long getNewItemId(int newItemPosition) {
+                T newItem = newList.get(newItemPosition);
+                return newItem != null
+                        ? mConfig.getDiffCallback().getItemId(newItem) : RecyclerView.NO_ID;
+            }
+        };
+        final Executor parallelDiffExecutor = mConfig.getParallelDiffExecutor();
+        if (parallelDiffExecutor != null) {
+            return DiffUtil.calculateDiffInSegments(callback, true,
+                    mConfig.getMaxDiffOperations(), cancellationSignal, parallelDiffExecutor);
+        }
+        return DiffUtil.calculateDiff(callback, true, mConfig.getMaxDiffOperations(),
+                cancellationSignal);
+    }
+
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     void latchList(
             @NonNull List<T> newList,
@@ -19,6 +19,8 @@ package androidx.recyclerview.widget;
 import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.os.CancellationSignal;
+import androidx.core.os.OperationCanceledException;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
@@ -26,8 +28,15 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * DiffUtil is a utility class that calculates the difference between two lists and outputs a
@@ -59,7 +68,13 @@ import java.util.List;
  * If move detection is enabled, it takes an additional O(MN) time where M is the total number of
  * added items and N is the total number of removed items. If your lists are already sorted by
  * the same constraint (e.g. a created timestamp for a list of posts), you can disable move
- * detection to improve performance.
+ * detection to improve performance. If your items have stable ids, you can also return them from
+ * {@link Callback#getOldItemId(int)} and {@link Callback#getNewItemId(int)}, in which case moves
+ * are matched through a hash lookup in O(M + N) expected time.
+ * <p>
+ * For very large lists, {@link #calculateDiff(Callback, boolean, long, CancellationSignal)} can
+ * be used to bound the amount of work spent on the diff and to cancel it once its result is no
+ * longer needed.
  * <p>
  * The actual runtime of the algorithm significantly depends on the number of changes in the list
  * and the cost of your comparison methods. Below are some average run times for reference:
@@ -84,6 +99,10 @@ public class DiffUtil {
         // utility class, no instance.
     }
 
+    // Minimum number of consecutive items that must have the same stable ids in both lists to be
+    // used as an anchor when diffing the lists in segments.
+    private static final int MIN_ANCHOR_SIZE = 8;
+
     private static final Comparator<Diagonal> DIAGONAL_COMPARATOR = new Comparator<Diagonal>() {
         @Override
         public int compare(Diagonal o1, Diagonal o2) {
@@ -121,17 +140,54 @@ public class DiffUtil {
      */
     @NonNull
     public static DiffResult calculateDiff(@NonNull Callback cb, boolean detectMoves) {
+        return calculateDiff(cb, detectMoves, new Budget(Long.MAX_VALUE, null));
+    }
+
+    /**
+     * Calculates the list of update operations that can covert one list into the other one, doing
+     * at most {@code maxOperations} item comparisons.
+     * <p>
+     * Each call to {@link Callback#areItemsTheSame(int, int)} counts as one operation. The common
+     * prefix and suffix of the lists are always matched since that only takes linear time. Once
+     * the budget is used up, the parts of the lists that are not solved yet are not compared
+     * anymore and are reported as a removal of their old items followed by an insertion of their
+     * new items, as if that part of the data set changed entirely. Moves are not detected in that
+     * case.
+     * <p>
+     * If a {@link CancellationSignal} is provided, it is checked regularly while the diff is
+     * calculated and an {@link OperationCanceledException} is thrown as soon as it is canceled.
+     * This allows dropping a diff whose result is not going to be used, e.g. because a newer list
+     * was submitted in the meantime.
+     *
+     * @param cb The callback that acts as a gateway to the backing list data
+     * @param detectMoves True if DiffUtil should try to detect moved items, false otherwise.
+     * @param maxOperations The maximum number of item comparisons that can be done to calculate
+     *                      the diff.
+     * @param cancellationSignal Signal to cancel the calculation, or {@code null} if none.
+     *
+     * @return A DiffResult that contains the information about the edit sequence to convert the
+     * old list into the new list.
+     * @throws OperationCanceledException if the cancellation signal was canceled before the diff
+     * was calculated.
+     */
+    @NonNull
+    public static DiffResult calculateDiff(@NonNull Callback cb, boolean detectMoves,
+            @IntRange(from = 0) long maxOperations,
+            @Nullable CancellationSignal cancellationSignal) {
+        if (maxOperations < 0) {
+            throw new IllegalArgumentException("maxOperations cannot be negative");
+        }
+        return calculateDiff(cb, detectMoves, new Budget(maxOperations, cancellationSignal));
+    }
+
+    @NonNull
+    private static DiffResult calculateDiff(@NonNull Callback cb, boolean detectMoves,
+            @NonNull Budget budget) {
         final int oldSize = cb.getOldListSize();
         final int newSize = cb.getNewListSize();
 
         final List<Diagonal> diagonals = new ArrayList<>();
 
-        // instead of a recursive implementation, we keep our own stack to avoid potential stack
-        // overflow exceptions
-        final List<Range> stack = new ArrayList<>();
-
-        stack.add(new Range(0, oldSize, 0, newSize));
-
         final int max = (oldSize + newSize + 1) / 2;
         // allocate forward and backward k-lines. K lines are diagonal lines in the matrix. (see the
         // paper for details)
@@ -139,11 +195,172 @@ public class DiffUtil {
         final CenteredArray forward = new CenteredArray(max * 2 + 1);
         final CenteredArray backward = new CenteredArray(max * 2 + 1);
 
+        findDiagonals(new Range(0, oldSize, 0, newSize), cb, forward, backward, diagonals, budget);
+        // sort snakes
+        Collections.sort(diagonals, DIAGONAL_COMPARATOR);
+
+        return new DiffResult(cb, diagonals,
+                forward.backingData(), backward.backingData(),
+                detectMoves, budget);
+    }
+
+    /**
+     * Calculates the list of update operations that can covert one list into the other one,
+     * diffing independent segments of the lists in parallel.
+     * <p>
+     * The lists are split on anchors, runs of consecutive items that have the same stable ids (see
+     * {@link Callback#getOldItemId(int)}) in the same order in both lists. The items in between
+     * two anchors are diffed independently from the rest of the lists, on the calling thread and
+     * on the given executor, and the matches of all segments are stitched into a single
+     * DiffResult. Moves are detected over the whole lists afterwards, so an item that moved from
+     * one segment to another is still dispatched as a move.
+     * <p>
+     * The result is a valid edit script but it may not be minimal, e.g. if a block of items that
+     * moved ends up being used as an anchor. If the items don't have stable ids or no anchor is
+     * found, this falls back to a regular diff.
+     * <p>
+     * The operation budget is shared between the segments proportionally to their size. See
+     * {@link #calculateDiff(Callback, boolean, long, CancellationSignal)} for how the budget and
+     * the cancellation signal are used.
+     * <p>
+     * The callback is called from multiple threads at once. Segments that the executor does not
+     * pick up, e.g. because all of its threads are busy, are diffed on the calling thread, so it
+     * is safe to call this method from a task running on the same executor.
+     *
+     * @param cb The callback that acts as a gateway to the backing list data
+     * @param detectMoves True if DiffUtil should try to detect moved items, false otherwise.
+     * @param maxOperations The maximum number of item comparisons that can be done to calculate
+     *                      the diff.
+     * @param cancellationSignal Signal to cancel the calculation, or {@code null} if none.
+     * @param executor The executor to diff segments of the lists on.
+     *
+     * @return A DiffResult that contains the information about the edit sequence to convert the
+     * old list into the new list.
+     * @throws OperationCanceledException if the cancellation signal was canceled before the diff
+     * was calculated.
+     */
+    @NonNull
+    public static DiffResult calculateDiffInSegments(@NonNull Callback cb, boolean detectMoves,
+            @IntRange(from = 0) long maxOperations,
+            @Nullable CancellationSignal cancellationSignal,
+            @NonNull Executor executor) {
+        if (maxOperations < 0) {
+            throw new IllegalArgumentException("maxOperations cannot be negative");
+        }
+        final Budget budget = new Budget(maxOperations, cancellationSignal);
+        budget.throwIfCanceled();
+        final List<Diagonal> diagonals = new ArrayList<>();
+        final List<Range> segments = findSegments(cb, diagonals);
+        if (segments == null) {
+            return calculateDiff(cb, detectMoves, budget);
+        }
+        final SegmentDiffer segmentDiffer = new SegmentDiffer(cb, segments, budget);
+        final int workers = Math.min(segments.size(),
+                Runtime.getRuntime().availableProcessors()) - 1;
+        for (int i = 0; i < workers; i++) {
+            try {
+                executor.execute(segmentDiffer);
+            } catch (RejectedExecutionException e) {
+                // the calling thread will diff the remaining segments
+                break;
+            }
+        }
+        segmentDiffer.run();
+        segmentDiffer.addDiagonalsTo(diagonals);
+        // sort snakes
+        Collections.sort(diagonals, DIAGONAL_COMPARATOR);
+
+        return new DiffResult(cb, diagonals,
+                new int[cb.getOldListSize()], new int[cb.getNewListSize()],
+                detectMoves, budget);
+    }
+
+    /**
+     * Finds the anchors between the two lists, adds them to the given diagonals and returns the
+     * ranges in between them that still need to be diffed, or {@code null} if the lists cannot be
+     * split.
+     */
+    @Nullable
+    private static List<Range> findSegments(Callback cb, List<Diagonal> anchors) {
+        final int oldSize = cb.getOldListSize();
+        final int newSize = cb.getNewListSize();
+        // position of each id in the old list, or NO_POSITION if the id is not unique
+        final Map<Long, Integer> oldPositions = new HashMap<>();
+        for (int posX = 0; posX < oldSize; posX++) {
+            final long id = cb.getOldItemId(posX);
+            if (id == RecyclerView.NO_ID) {
+                return null;
+            }
+            if (oldPositions.put(id, posX) != null) {
+                oldPositions.put(id, DiffResult.NO_POSITION);
+            }
+        }
+        final List<Range> segments = new ArrayList<>();
+        // end of the last anchor
+        int oldListStart = 0;
+        int newListStart = 0;
+        int posY = 0;
+        while (posY < newSize) {
+            final long id = cb.getNewItemId(posY);
+            final Integer oldPosition = id == RecyclerView.NO_ID ? null : oldPositions.get(id);
+            // anchors must keep the order of both lists
+            if (oldPosition == null || oldPosition < oldListStart) {
+                posY++;
+                continue;
+            }
+            final int posX = oldPosition;
+            int size = 0;
+            while (posX + size < oldSize
+                    && posY + size < newSize
+                    && cb.getOldItemId(posX + size) == cb.getNewItemId(posY + size)
+                    && cb.areItemsTheSame(posX + size, posY + size)) {
+                size++;
+            }
+            if (size >= MIN_ANCHOR_SIZE) {
+                if (posX > oldListStart && posY > newListStart) {
+                    segments.add(new Range(oldListStart, posX, newListStart, posY));
+                }
+                anchors.add(new Diagonal(posX, posY, size));
+                oldListStart = posX + size;
+                newListStart = posY + size;
+            }
+            posY += Math.max(size, 1);
+        }
+        if (anchors.isEmpty()) {
+            return null;
+        }
+        if (oldSize > oldListStart && newSize > newListStart) {
+            segments.add(new Range(oldListStart, oldSize, newListStart, newSize));
+        }
+        return segments;
+    }
+
+    /**
+     * Runs Myers' algorithm on the given range and adds the diagonals it finds to the given list.
+     * The k-line arrays must be large enough for the size of the range.
+     */
+    private static void findDiagonals(
+            Range initialRange,
+            Callback cb,
+            CenteredArray forward,
+            CenteredArray backward,
+            List<Diagonal> diagonals,
+            Budget budget) {
+        // instead of a recursive implementation, we keep our own stack to avoid potential stack
+        // overflow exceptions
+        final List<Range> stack = new ArrayList<>();
+
+        if (budget.isLimited()) {
+            matchCommonEnds(initialRange, cb, diagonals, budget);
+        }
+        stack.add(initialRange);
+
         // We pool the ranges to avoid allocations for each recursive call.
         final List<Range> rangePool = new ArrayList<>();
         while (!stack.isEmpty()) {
+            budget.throwIfCanceled();
             final Range range = stack.remove(stack.size() - 1);
-            final Snake snake = midPoint(range, cb, forward, backward);
+            final Snake snake = midPoint(range, cb, forward, backward, budget);
             if (snake != null) {
                 // if it has a diagonal, save it
                 if (snake.diagonalSize() > 0) {
@@ -171,23 +388,58 @@ public class DiffUtil {
             }
 
         }
-        // sort snakes
-        Collections.sort(diagonals, DIAGONAL_COMPARATOR);
+    }
 
-        return new DiffResult(cb, diagonals,
-                forward.backingData(), backward.backingData(),
-                detectMoves);
+    /**
+     * Adds diagonals for the common prefix and suffix of the given range and shrinks the range to
+     * the part in between.
+     */
+    private static void matchCommonEnds(
+            Range range,
+            Callback cb,
+            List<Diagonal> diagonals,
+            Budget budget) {
+        int prefix = 0;
+        while (range.oldListStart + prefix < range.oldListEnd
+                && range.newListStart + prefix < range.newListEnd
+                && cb.areItemsTheSame(range.oldListStart + prefix,
+                range.newListStart + prefix)) {
+            prefix++;
+        }
+        if (prefix > 0) {
+            diagonals.add(new Diagonal(range.oldListStart, range.newListStart, prefix));
+            range.oldListStart += prefix;
+            range.newListStart += prefix;
+        }
+        int suffix = 0;
+        while (range.oldListEnd - suffix > range.oldListStart
+                && range.newListEnd - suffix > range.newListStart
+                && cb.areItemsTheSame(range.oldListEnd - suffix - 1,
+                range.newListEnd - suffix - 1)) {
+            suffix++;
+        }
+        if (suffix > 0) {
+            range.oldListEnd -= suffix;
+            range.newListEnd -= suffix;
+            diagonals.add(new Diagonal(range.oldListEnd, range.newListEnd, suffix));
+        }
+        // these comparisons are linear, they are counted but never stop the diff
+        budget.consume(prefix + suffix + 2);
     }
 
     /**
      * Finds a middle snake in the given range.
+     * <p>
+     * Returns {@code null} without a snake if the budget runs out, in which case the whole range
+     * is treated as removed from the old list and inserted into the new one.
      */
     @Nullable
     private static Snake midPoint(
             Range range,
             Callback cb,
             CenteredArray forward,
-            CenteredArray backward) {
+            CenteredArray backward,
+            Budget budget) {
         if (range.oldSize() < 1 || range.newSize() < 1) {
             return null;
         }
@@ -195,11 +447,15 @@ public class DiffUtil {
         forward.set(1, range.oldListStart);
         backward.set(1, range.oldListEnd);
         for (int d = 0; d < max; d++) {
-            Snake snake = forward(range, cb, forward, backward, d);
+            if (budget.isExhausted()) {
+                return null;
+            }
+            budget.throwIfCanceled();
+            Snake snake = forward(range, cb, forward, backward, d, budget);
             if (snake != null) {
                 return snake;
             }
-            snake = backward(range, cb, forward, backward, d);
+            snake = backward(range, cb, forward, backward, d, budget);
             if (snake != null) {
                 return snake;
             }
@@ -213,7 +469,8 @@ public class DiffUtil {
             Callback cb,
             CenteredArray forward,
             CenteredArray backward,
-            int d) {
+            int d,
+            Budget budget) {
         boolean checkForSnake = Math.abs(range.oldSize() - range.newSize()) % 2 == 1;
         int delta = range.oldSize() - range.newSize();
         for (int k = -d; k <= d; k += 2) {
@@ -234,12 +491,17 @@ public class DiffUtil {
             y = range.newListStart + (x - range.oldListStart) - k;
             startY = (d == 0 || x != startX) ? y : y - 1;
             // now find snake size
+            int operations = 0;
             while (x < range.oldListEnd
                     && y < range.newListEnd
                     && cb.areItemsTheSame(x, y)) {
                 x++;
                 y++;
+                operations++;
             }
+            // the last comparison that ended the snake counts as well
+            budget.consume(x < range.oldListEnd && y < range.newListEnd
+                    ? operations + 1 : operations);
             // now we have furthest reaching x, record it
             forward.set(k, x);
             if (checkForSnake) {
@@ -270,7 +532,8 @@ public class DiffUtil {
             Callback cb,
             CenteredArray forward,
             CenteredArray backward,
-            int d) {
+            int d,
+            Budget budget) {
         boolean checkForSnake = (range.oldSize() - range.newSize()) % 2 == 0;
         int delta = range.oldSize() - range.newSize();
         // same as forward but we go backwards from end of the lists to be beginning
@@ -295,12 +558,17 @@ public class DiffUtil {
             y = range.newListEnd - ((range.oldListEnd - x) - k);
             startY = (d == 0 || x != startX) ? y : y + 1;
             // now find snake size
+            int operations = 0;
             while (x > range.oldListStart
                     && y > range.newListStart
                     && cb.areItemsTheSame(x - 1, y - 1)) {
                 x--;
                 y--;
+                operations++;
             }
+            // the last comparison that ended the snake counts as well
+            budget.consume(x > range.oldListStart && y > range.newListStart
+                    ? operations + 1 : operations);
             // now we have furthest point, record it (min X)
             backward.set(k, x);
             if (checkForSnake) {
@@ -395,6 +663,39 @@ public class DiffUtil {
         public Object getChangePayload(int oldItemPosition, int newItemPosition) {
             return null;
         }
+
+        /**
+         * Returns the stable id of the item at the given position in the old list, or
+         * {@link RecyclerView#NO_ID} if it does not have one.
+         * <p>
+         * When move detection is enabled, DiffUtil uses these ids to find the new position of
+         * removed items with a hash lookup instead of comparing them with every added item.
+         * Items for which {@link #areItemsTheSame(int, int)} returns {@code true} must have the
+         * same id, otherwise their move won't be detected.
+         * <p>
+         * Default implementation returns {@link RecyclerView#NO_ID}.
+         *
+         * @param oldItemPosition The position of the item in the old list
+         * @return The stable id of the item or {@link RecyclerView#NO_ID}.
+         * @see #getNewItemId(int)
+         */
+        public long getOldItemId(int oldItemPosition) {
+            return RecyclerView.NO_ID;
+        }
+
+        /**
+         * Returns the stable id of the item at the given position in the new list, or
+         * {@link RecyclerView#NO_ID} if it does not have one.
+         * <p>
+         * Default implementation returns {@link RecyclerView#NO_ID}.
+         *
+         * @param newItemPosition The position of the item in the new list
+         * @return The stable id of the item or {@link RecyclerView#NO_ID}.
+         * @see #getOldItemId(int)
+         */
+        public long getNewItemId(int newItemPosition) {
+            return RecyclerView.NO_ID;
+        }
     }
 
     /**
@@ -467,6 +768,24 @@ public class DiffUtil {
         public Object getChangePayload(@NonNull T oldItem, @NonNull T newItem) {
             return null;
         }
+
+        /**
+         * Returns the stable id of the given item, or {@link RecyclerView#NO_ID} if it does not
+         * have one.
+         * <p>
+         * If two items are the same according to {@link #areItemsTheSame(T, T)}, they must have
+         * the same id. Providing ids allows detecting moves in large lists without comparing
+         * every removed item with every added item.
+         * <p>
+         * Default implementation returns {@link RecyclerView#NO_ID}.
+         *
+         * @see Callback#getOldItemId(int)
+         * @see Callback#getNewItemId(int)
+         */
+        @SuppressWarnings({"unused"})
+        public long getItemId(@NonNull T item) {
+            return RecyclerView.NO_ID;
+        }
     }
 
     /**
@@ -593,6 +912,156 @@ public class DiffUtil {
         }
     }
 
+    /**
+     * Keeps track of the item comparisons done while calculating a diff and of the signal that
+     * can cancel it.
+     */
+    static class Budget {
+        private final long mMaxOperations;
+        @Nullable
+        private final CancellationSignal mCancellationSignal;
+        private long mOperations;
+
+        Budget(long maxOperations, @Nullable CancellationSignal cancellationSignal) {
+            mMaxOperations = maxOperations;
+            mCancellationSignal = cancellationSignal;
+        }
+
+        void consume(long operations) {
+            mOperations += operations;
+        }
+
+        void exhaust() {
+            mOperations = Math.max(mOperations, mMaxOperations);
+        }
+
+        long getOperations() {
+            return mOperations;
+        }
+
+        long getMaxOperations() {
+            return mMaxOperations;
+        }
+
+        @Nullable
+        CancellationSignal getCancellationSignal() {
+            return mCancellationSignal;
+        }
+
+        boolean isLimited() {
+            return mMaxOperations != Long.MAX_VALUE;
+        }
+
+        boolean isExhausted() {
+            return mOperations >= mMaxOperations;
+        }
+
+        void throwIfCanceled() {
+            if (mCancellationSignal != null) {
+                mCancellationSignal.throwIfCanceled();
+            }
+        }
+    }
+
+    /**
+     * Diffs the segments of two lists. Segments are claimed one by one so that any number of
+     * threads can run this at the same time and share the work.
+     */
+    private static class SegmentDiffer implements Runnable {
+        private final Callback mCallback;
+        private final List<Range> mSegments;
+        private final Budget mBudget;
+        private final Budget[] mSegmentBudgets;
+        // Diagonals found in each segment, written by the thread that diffed it.
+        private final Object[] mSegmentDiagonals;
+        private final AtomicInteger mNextSegment = new AtomicInteger();
+        private final CountDownLatch mRemainingSegments;
+        private final AtomicReference<Throwable> mFailure = new AtomicReference<>();
+
+        SegmentDiffer(Callback callback, List<Range> segments, Budget budget) {
+            mCallback = callback;
+            mSegments = segments;
+            mBudget = budget;
+            mSegmentBudgets = new Budget[segments.size()];
+            mSegmentDiagonals = new Object[segments.size()];
+            mRemainingSegments = new CountDownLatch(segments.size());
+            long totalSize = 0;
+            for (Range segment : segments) {
+                totalSize += segment.oldSize() + segment.newSize();
+            }
+            for (int i = 0; i < mSegmentBudgets.length; i++) {
+                final Range segment = segments.get(i);
+                final long maxOperations = budget.isLimited()
+                        ? (long) ((double) budget.getMaxOperations()
+                        * (segment.oldSize() + segment.newSize()) / totalSize)
+                        : Long.MAX_VALUE;
+                mSegmentBudgets[i] = new Budget(maxOperations, budget.getCancellationSignal());
+            }
+        }
+
+        @Override
+        public void run() {
+            int index;
+            while ((index = mNextSegment.getAndIncrement()) < mSegments.size()) {
+                try {
+                    if (mFailure.get() == null) {
+                        diffSegment(index);
+                    }
+                } catch (Throwable t) {
+                    mFailure.compareAndSet(null, t);
+                } finally {
+                    mRemainingSegments.countDown();
+                }
+            }
+        }
+
+        private void diffSegment(int index) {
+            final Range segment = mSegments.get(index);
+            final int max = (segment.oldSize() + segment.newSize() + 1) / 2;
+            final List<Diagonal> diagonals = new ArrayList<>();
+            findDiagonals(segment, mCallback,
+                    new CenteredArray(max * 2 + 1), new CenteredArray(max * 2 + 1),
+                    diagonals, mSegmentBudgets[index]);
+            mSegmentDiagonals[index] = diagonals;
+        }
+
+        /**
+         * Waits for all segments to be diffed and adds their diagonals to the given list. Also
+         * rethrows the first failure of any segment, e.g. if the diff was canceled.
+         */
+        @SuppressWarnings("unchecked")
+        void addDiagonalsTo(List<Diagonal> diagonals) {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    mRemainingSegments.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            final Throwable failure = mFailure.get();
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            } else if (failure != null) {
+                throw new RuntimeException(failure);
+            }
+            for (int i = 0; i < mSegmentDiagonals.length; i++) {
+                diagonals.addAll((List<Diagonal>) mSegmentDiagonals[i]);
+                if (mSegmentBudgets[i].isExhausted()) {
+                    mBudget.exhaust();
+                } else {
+                    mBudget.consume(mSegmentBudgets[i].getOperations());
+                }
+            }
+        }
+    }
+
     /**
      * This class holds the information about the result of a
      * {@link DiffUtil#calculateDiff(Callback, boolean)} call.
@@ -653,6 +1122,18 @@ public class DiffUtil {
 
         private final boolean mDetectMoves;
 
+        // Limits the search for moves of items that don't have stable ids.
+        private final Budget mBudget;
+
+        // Head of the chain of additions for each stable id, in new list order. Only built if
+        // there are removals with stable ids.
+        @Nullable
+        private Map<Long, Integer> mAdditionsById;
+        // For each addition in mAdditionsById, the next addition that has the same id or
+        // NO_POSITION.
+        @Nullable
+        private int[] mNextAdditionWithSameId;
+
         /**
          * @param callback        The callback that was used to calculate the diff
          * @param diagonals       Matches between the two lists
@@ -662,6 +1143,20 @@ public class DiffUtil {
          */
         DiffResult(Callback callback, List<Diagonal> diagonals, int[] oldItemStatuses,
                 int[] newItemStatuses, boolean detectMoves) {
+            this(callback, diagonals, oldItemStatuses, newItemStatuses, detectMoves,
+                    new Budget(Long.MAX_VALUE, null));
+        }
+
+        /**
+         * @param callback        The callback that was used to calculate the diff
+         * @param diagonals       Matches between the two lists
+         * @param oldItemStatuses An int[] that can be re-purposed to keep metadata
+         * @param newItemStatuses An int[] that can be re-purposed to keep metadata
+         * @param detectMoves     True if this DiffResult will try to detect moved items
+         * @param budget          The budget left to search for moves
+         */
+        DiffResult(Callback callback, List<Diagonal> diagonals, int[] oldItemStatuses,
+                int[] newItemStatuses, boolean detectMoves, Budget budget) {
             mDiagonals = diagonals;
             mOldItemStatuses = oldItemStatuses;
             mNewItemStatuses = newItemStatuses;
@@ -670,7 +1165,10 @@ public class DiffUtil {
             mCallback = callback;
             mOldListSize = callback.getOldListSize();
             mNewListSize = callback.getNewListSize();
-            mDetectMoves = detectMoves;
+            // if the budget ran out, parts of the lists were not diffed and are dispatched as
+            // removed and re-inserted, matching moves from there would be pointless and costly
+            mDetectMoves = detectMoves && !budget.isExhausted();
+            mBudget = budget;
             addEdgeDiagonals();
             findMatchingItems();
         }
@@ -691,8 +1189,8 @@ public class DiffUtil {
 
         /**
          * Find position mapping from old list to new list.
-         * If moves are requested, we'll also try to do an n^2 search between additions and
-         * removals to find moves.
+         * If moves are requested, we'll also try to match additions and removals, either by
+         * their stable ids or with an n^2 search, to find moves.
          */
         private void findMatchingItems() {
             for (Diagonal diagonal : mDiagonals) {
@@ -717,10 +1215,16 @@ public class DiffUtil {
             // for each removal, find matching addition
             int posX = 0;
             for (Diagonal diagonal : mDiagonals) {
+                mBudget.throwIfCanceled();
                 while (posX < diagonal.x) {
                     if (mOldItemStatuses[posX] == 0) {
                         // there is a removal, find matching addition from the rest
-                        findMatchingAddition(posX);
+                        final long id = mCallback.getOldItemId(posX);
+                        if (id != RecyclerView.NO_ID) {
+                            findMatchingAdditionById(posX, id);
+                        } else if (!mBudget.isExhausted()) {
+                            findMatchingAddition(posX);
+                        }
                     }
                     posX++;
                 }
@@ -736,21 +1240,19 @@ public class DiffUtil {
          */
         private void findMatchingAddition(int posX) {
             int posY = 0;
+            int operations = 0;
             final int diagonalsSize = mDiagonals.size();
             for (int i = 0; i < diagonalsSize; i++) {
                 final Diagonal diagonal = mDiagonals.get(i);
                 while (posY < diagonal.y) {
                     // found some additions, evaluate
                     if (mNewItemStatuses[posY] == 0) { // not evaluated yet
+                        operations++;
                         boolean matching = mCallback.areItemsTheSame(posX, posY);
                         if (matching) {
                             // yay found it, set values
-                            boolean contentsMatching = mCallback.areContentsTheSame(posX, posY);
-                            final int changeFlag = contentsMatching ? FLAG_MOVED_NOT_CHANGED
-                                    : FLAG_MOVED_CHANGED;
-                            // once we process one of these, it will mark the other one as ignored.
-                            mOldItemStatuses[posX] = (posY << FLAG_OFFSET) | changeFlag;
-                            mNewItemStatuses[posY] = (posX << FLAG_OFFSET) | changeFlag;
+                            markMove(posX, posY);
+                            mBudget.consume(operations);
                             return;
                         }
                     }
@@ -758,6 +1260,75 @@ public class DiffUtil {
                 }
                 posY = diagonal.endY();
             }
+            mBudget.consume(operations);
+        }
+
+        /**
+         * Looks up the additions that have the given stable id to find the addition for the given
+         * removal of position posX
+         *
+         * @param posX position in the old list
+         * @param id   stable id of the item at posX
+         */
+        private void findMatchingAdditionById(int posX, long id) {
+            if (mAdditionsById == null) {
+                indexAdditionsById();
+            }
+            final Integer head = mAdditionsById.get(id);
+            int previousY = NO_POSITION;
+            int posY = head == null ? NO_POSITION : head;
+            while (posY != NO_POSITION) {
+                // ids may collide, so still check that these are the same items
+                if (mNewItemStatuses[posY] == 0 && mCallback.areItemsTheSame(posX, posY)) {
+                    markMove(posX, posY);
+                    // unlink the matched addition so that it is not visited again
+                    final int nextY = mNextAdditionWithSameId[posY];
+                    if (previousY != NO_POSITION) {
+                        mNextAdditionWithSameId[previousY] = nextY;
+                    } else if (nextY != NO_POSITION) {
+                        mAdditionsById.put(id, nextY);
+                    } else {
+                        mAdditionsById.remove(id);
+                    }
+                    return;
+                }
+                previousY = posY;
+                posY = mNextAdditionWithSameId[posY];
+            }
+        }
+
+        /**
+         * Builds the chains of additions that have the same stable id. Additions are visited from
+         * the end of the new list so that each chain ends up in new list order, which keeps the
+         * matches the same as the ones {@link #findMatchingAddition(int)} would find.
+         */
+        private void indexAdditionsById() {
+            mAdditionsById = new HashMap<>();
+            mNextAdditionWithSameId = new int[mNewListSize];
+            int posY = mNewListSize;
+            for (int i = mDiagonals.size() - 1; i >= 0; i--) {
+                final Diagonal diagonal = mDiagonals.get(i);
+                while (posY > diagonal.endY()) {
+                    posY--;
+                    if (mNewItemStatuses[posY] == 0) {
+                        final long id = mCallback.getNewItemId(posY);
+                        if (id != RecyclerView.NO_ID) {
+                            final Integer next = mAdditionsById.put(id, posY);
+                            mNextAdditionWithSameId[posY] = next == null ? NO_POSITION : next;
+                        }
+                    }
+                }
+                posY = diagonal.y;
+            }
+        }
+
+        private void markMove(int posX, int posY) {
+            boolean contentsMatching = mCallback.areContentsTheSame(posX, posY);
+            final int changeFlag = contentsMatching ? FLAG_MOVED_NOT_CHANGED
+                    : FLAG_MOVED_CHANGED;
+            // once we process one of these, it will mark the other one as ignored.
+            mOldItemStatuses[posX] = (posY << FLAG_OFFSET) | changeFlag;
+            mNewItemStatuses[posY] = (posX << FLAG_OFFSET) | changeFlag;
         }
 
         /**
@@ -16,15 +16,24 @@
 package androidx.recyclerview.widget;
 
 import android.annotation.SuppressLint;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.SparseBooleanArray;
+import android.util.SparseIntArray;
 import android.view.View;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.core.os.TraceCompat;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 final class GapWorker implements Runnable {
@@ -156,6 +165,114 @@ final class GapWorker implements Runnable {
         }
     }
 
+    /**
+     * Creates ViewHolders of a RecyclerView on a background Executor, for view types that
+     * prefetch could not create before its deadline, and adds them to the RecycledViewPool.
+     *
+     * @see RecyclerView#setViewHolderCreationExecutor(Executor)
+     */
+    static class ViewHolderCreator {
+        private final RecyclerView mRecyclerView;
+        private final Executor mExecutor;
+        private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+        /**
+         * Number of ViewHolders of each view type being created in the background.
+         */
+        private final SparseIntArray mPendingCounts = new SparseIntArray();
+
+        /**
+         * View types that failed to be created in the background, and are only created on the
+         * main thread from then on.
+         */
+        private final SparseBooleanArray mFailedViewTypes = new SparseBooleanArray();
+
+        ViewHolderCreator(@NonNull RecyclerView recyclerView, @NonNull Executor executor) {
+            mRecyclerView = recyclerView;
+            mExecutor = executor;
+        }
+
+        @NonNull
+        Executor getExecutor() {
+            return mExecutor;
+        }
+
+        int getPendingCount(int viewType) {
+            return mPendingCounts.get(viewType);
+        }
+
+        /**
+         * Starts creating a ViewHolder of the given view type in the background, unless the pool
+         * would not have room for it.
+         */
+        void create(final int viewType) {
+            final RecyclerView.Adapter adapter = mRecyclerView.mAdapter;
+            if (adapter == null || mFailedViewTypes.get(viewType)) {
+                return;
+            }
+            final RecyclerView.RecycledViewPool pool = mRecyclerView.getRecycledViewPool();
+            final int pendingCount = mPendingCounts.get(viewType);
+            if (pool.getRecycledViewCount(viewType) + pendingCount
+                    >= pool.getMaxRecycledViews(viewType)) {
+                return;
+            }
+            mPendingCounts.put(viewType, pendingCount + 1);
+            try {
+                mExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        RecyclerView.ViewHolder holder = null;
+                        RuntimeException failure = null;
+                        final long start = mRecyclerView.getNanoTime();
+                        try {
+                            holder = adapter.createViewHolder(mRecyclerView, viewType);
+                        } catch (RuntimeException e) {
+                            failure = e;
+                        }
+                        final long createTimeNs = mRecyclerView.getNanoTime() - start;
+                        final RecyclerView.ViewHolder createdHolder = holder;
+                        final RuntimeException createFailure = failure;
+                        mMainHandler.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                onCreated(adapter, viewType, createdHolder, createTimeNs,
+                                        createFailure);
+                            }
+                        });
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                mPendingCounts.put(viewType, pendingCount);
+            }
+        }
+
+        void onCreated(RecyclerView.Adapter adapter, int viewType,
+                @Nullable RecyclerView.ViewHolder holder, long createTimeNs,
+                @Nullable RuntimeException failure) {
+            mPendingCounts.put(viewType, mPendingCounts.get(viewType) - 1);
+            if (failure != null) {
+                Log.w(RecyclerView.TAG, "Failed to create a ViewHolder of type " + viewType
+                        + " in the background, it will only be created on the main thread.",
+                        failure);
+                mFailedViewTypes.put(viewType, true);
+                return;
+            }
+            if (holder == null || adapter != mRecyclerView.mAdapter) {
+                // adapter was swapped while creating, the holder may not be compatible anymore
+                return;
+            }
+            RecyclerView innerView = RecyclerView.findNestedRecyclerView(holder.itemView);
+            if (innerView != null) {
+                holder.mNestedRecyclerView = new WeakReference<>(innerView);
+            }
+            RecyclerView.RecycledViewPool pool = mRecyclerView.getRecycledViewPool();
+            // counted like a create on the main thread, so that pool sizing and prefetch
+            // deadlines see it
+            pool.factorInCreateTime(viewType, createTimeNs);
+            pool.putRecycledView(holder);
+        }
+    }
+
     public void add(RecyclerView recyclerView) {
         if (RecyclerView.DEBUG && mRecyclerViews.contains(recyclerView)) {
             throw new IllegalStateException("RecyclerView already present in worker list!");
@@ -93,6 +93,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * A flexible view for providing a limited window into a large data set.
@@ -562,6 +563,8 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
     GapWorker mGapWorker;
     GapWorker.LayoutPrefetchRegistryImpl mPrefetchRegistry =
             ALLOW_THREAD_GAP_WORK ? new GapWorker.LayoutPrefetchRegistryImpl() : null;
+    @Nullable
+    GapWorker.ViewHolderCreator mViewHolderCreator;
 
     final State mState = new State();
 
@@ -1593,6 +1596,47 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
         mRecycler.setViewCacheSize(size);
     }
 
+    /**
+     * Sets an Executor on which ViewHolders are created ahead of time when item prefetch can't
+     * create them on the main thread.
+     * <p>
+     * Item prefetch creates and binds ViewHolders on the main thread while it is idle between
+     * frames. When the {@link RecycledViewPool} has no ViewHolder of a view type and creating one
+     * usually takes longer than the time left before the next frame, prefetch gives up on that
+     * item. If an Executor is set, RecyclerView then creates a ViewHolder of that view type on the
+     * Executor and adds it to the pool, so that the next prefetch only has to bind it. At most
+     * {@link RecycledViewPool#setMaxRecycledViews(int, int) as many ViewHolders as the pool can
+     * hold} are created this way for each view type.
+     * <p>
+     * {@link Adapter#onCreateViewHolder(ViewGroup, int)} is called on the Executor's threads with
+     * this RecyclerView as the parent, so it must be safe to call off the main thread. Views that
+     * need a Looper when they are constructed can't be created this way. If creating a ViewHolder
+     * of a view type throws, RecyclerView logs a warning and stops creating ViewHolders of that
+     * type in the background.
+     * <p>
+     * Item prefetch is only available on Android 5.0 (API level 21) and above, so the Executor
+     * is not used on older platforms.
+     *
+     * @param executor The Executor to create ViewHolders on, or {@code null} to only create
+     *                 them on the main thread, which is the default.
+     * @see LayoutManager#setItemPrefetchEnabled(boolean)
+     */
+    public void setViewHolderCreationExecutor(@Nullable Executor executor) {
+        mViewHolderCreator = executor != null
+                ? new GapWorker.ViewHolderCreator(this, executor) : null;
+    }
+
+    /**
+     * Returns the Executor on which ViewHolders are created ahead of time, if any.
+     *
+     * @return The Executor set with {@link #setViewHolderCreationExecutor(Executor)}, or
+     * {@code null} if ViewHolders are only created on the main thread.
+     */
+    @Nullable
+    public Executor getViewHolderCreationExecutor() {
+        return mViewHolderCreator != null ? mViewHolderCreator.getExecutor() : null;
+    }
+
     /**
      * Return the current scrolling state of the RecyclerView.
      *
@@ -1611,10 +1655,16 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
             Log.d(TAG, "setting scroll state to " + state + " from " + mScrollState,
                     new Exception());
         }
+        final int previousState = mScrollState;
         mScrollState = state;
         if (state != SCROLL_STATE_SETTLING) {
             stopScrollersInternal();
         }
+        if (previousState == SCROLL_STATE_SETTLING) {
+            mRecycler.getRecycledViewPool().onFlingEnded();
+        } else if (state == SCROLL_STATE_SETTLING) {
+            mRecycler.getRecycledViewPool().onFlingStarted();
+        }
         dispatchOnScrollStateChanged(state);
     }
 
@@ -5822,10 +5872,18 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
      * and use {@link RecyclerView#setRecycledViewPool(RecycledViewPool)}.
      * <p>
      * RecyclerView automatically creates a pool for itself if you don't provide one.
+     * <p>
+     * The pool keeps up to 5 ViewHolders of each view type by default. Instead of tuning this with
+     * {@link #setMaxRecycledViews(int, int)}, you can let the pool adapt its capacity to how it is
+     * used with {@link #setAdaptiveSizingEnabled(boolean)}. Usage statistics of each view type are
+     * available from {@link #getStats(int)} and {@link #setStatsListener(StatsListener)}.
      */
     public static class RecycledViewPool {
         private static final int DEFAULT_MAX_SCRAP = 5;
 
+        // Upper bound of the capacity of a view type when adaptive sizing is enabled.
+        private static final int MAX_ADAPTIVE_SCRAP = DEFAULT_MAX_SCRAP * 4;
+
         /**
          * Tracks both pooled holders, as well as create/bind timing metadata for the given type.
          *
@@ -5843,14 +5901,164 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
         static class ScrapData {
             final ArrayList<ViewHolder> mScrapHeap = new ArrayList<>();
             int mMaxScrap = DEFAULT_MAX_SCRAP;
+            // true if mMaxScrap was set by the app, in which case it is never adapted
+            boolean mMaxScrapSetExplicitly = false;
             long mCreateRunningAverageNs = 0;
             long mBindRunningAverageNs = 0;
+
+            // usage counters since the pool was created
+            long mCreateCount = 0;
+            long mBindCount = 0;
+            long mHitCount = 0;
+            long mMissCount = 0;
+            long mDiscardCount = 0;
+
+            // usage during the current fling, used to adapt mMaxScrap
+            int mFlingMissCount = 0;
+            int mFlingDiscardCount = 0;
+            int mFlingMinScrapHeapSize = 0;
+        }
+
+        /**
+         * Usage statistics of a view type in a {@link RecycledViewPool}.
+         * <p>
+         * Counters are accumulated since the pool was created, across all RecyclerViews that
+         * use the pool.
+         *
+         * @see #getStats(int)
+         * @see StatsListener
+         */
+        public static final class Stats {
+            private final int mViewType;
+            private final long mCreateCount;
+            private final long mBindCount;
+            private final long mHitCount;
+            private final long mMissCount;
+            private final long mDiscardCount;
+            private final int mMaxRecycledViews;
+            private final int mRecycledViewCount;
+            private final long mAverageCreateTimeNs;
+            private final long mAverageBindTimeNs;
+
+            Stats(int viewType, @NonNull ScrapData scrapData) {
+                mViewType = viewType;
+                mCreateCount = scrapData.mCreateCount;
+                mBindCount = scrapData.mBindCount;
+                mHitCount = scrapData.mHitCount;
+                mMissCount = scrapData.mMissCount;
+                mDiscardCount = scrapData.mDiscardCount;
+                mMaxRecycledViews = scrapData.mMaxScrap;
+                mRecycledViewCount = scrapData.mScrapHeap.size();
+                mAverageCreateTimeNs = scrapData.mCreateRunningAverageNs;
+                mAverageBindTimeNs = scrapData.mBindRunningAverageNs;
+            }
+
+            /**
+             * Returns the view type these statistics are about.
+             */
+            public int getViewType() {
+                return mViewType;
+            }
+
+            /**
+             * Returns the number of ViewHolders of this type created by RecyclerViews using
+             * the pool.
+             */
+            public long getCreateCount() {
+                return mCreateCount;
+            }
+
+            /**
+             * Returns the number of ViewHolders of this type bound by RecyclerViews using the pool.
+             */
+            public long getBindCount() {
+                return mBindCount;
+            }
+
+            /**
+             * Returns the number of times a ViewHolder of this type was requested from the pool
+             * and one was available.
+             */
+            public long getHitCount() {
+                return mHitCount;
+            }
+
+            /**
+             * Returns the number of times a ViewHolder of this type was requested from the pool
+             * and none was available.
+             */
+            public long getMissCount() {
+                return mMissCount;
+            }
+
+            /**
+             * Returns the number of ViewHolders of this type that were discarded because the pool
+             * was full.
+             */
+            public long getDiscardCount() {
+                return mDiscardCount;
+            }
+
+            /**
+             * Returns the maximum number of ViewHolders of this type the pool can hold.
+             */
+            public int getMaxRecycledViews() {
+                return mMaxRecycledViews;
+            }
+
+            /**
+             * Returns the number of ViewHolders of this type held by the pool.
+             */
+            public int getRecycledViewCount() {
+                return mRecycledViewCount;
+            }
+
+            /**
+             * Returns the running average of the time it takes to create a ViewHolder of this
+             * type, in nanoseconds, or 0 if none was created yet.
+             */
+            public long getAverageCreateTimeNs() {
+                return mAverageCreateTimeNs;
+            }
+
+            /**
+             * Returns the running average of the time it takes to bind a ViewHolder of this type,
+             * in nanoseconds, or 0 if none was bound yet.
+             */
+            public long getAverageBindTimeNs() {
+                return mAverageBindTimeNs;
+            }
+        }
+
+        /**
+         * Listener to receive the usage statistics of a {@link RecycledViewPool}.
+         *
+         * @see #setStatsListener(StatsListener)
+         */
+        public interface StatsListener {
+            /**
+             * Called on the main thread when the statistics of a view type are updated. This
+             * happens at the end of each fling of a RecyclerView that uses the pool, after the
+             * capacity of the view type was adapted if adaptive sizing is enabled.
+             *
+             * @param pool  The pool the statistics are about.
+             * @param stats The statistics of a view type.
+             */
+            void onStatsUpdated(@NonNull RecycledViewPool pool, @NonNull Stats stats);
         }
 
         SparseArray<ScrapData> mScrap = new SparseArray<>();
 
         private int mAttachCount = 0;
 
+        private boolean mAdaptiveSizingEnabled = false;
+
+        // number of RecyclerViews using this pool that are currently flinging
+        private int mFlingCount = 0;
+
+        @Nullable
+        private StatsListener mStatsListener;
+
         /**
          * Discard all ViewHolders.
          */
@@ -5869,6 +6077,11 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
          */
         public void setMaxRecycledViews(int viewType, int max) {
             ScrapData scrapData = getScrapDataForType(viewType);
+            scrapData.mMaxScrapSetExplicitly = true;
+            setMaxScrap(scrapData, max);
+        }
+
+        private static void setMaxScrap(ScrapData scrapData, int max) {
             scrapData.mMaxScrap = max;
             final ArrayList<ViewHolder> scrapHeap = scrapData.mScrapHeap;
             while (scrapHeap.size() > max) {
@@ -5876,6 +6089,57 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
             }
         }
 
+        int getMaxRecycledViews(int viewType) {
+            return getScrapDataForType(viewType).mMaxScrap;
+        }
+
+        /**
+         * Enables or disables adaptive sizing of the pool.
+         * <p>
+         * When enabled, the pool observes how each view type is used while RecyclerViews using it
+         * fling. At the end of a fling, view types that ran out of ViewHolders after discarding
+         * some get more room, unless they are cheaper to create than to bind. View types that
+         * always had unused ViewHolders left give some of that room back.
+         * <p>
+         * View types whose maximum was set with {@link #setMaxRecycledViews(int, int)} are not
+         * adapted.
+         *
+         * @param enabled True to adapt the capacity of each view type, false to keep it fixed.
+         */
+        public void setAdaptiveSizingEnabled(boolean enabled) {
+            mAdaptiveSizingEnabled = enabled;
+        }
+
+        /**
+         * Returns whether the pool adapts the capacity of each view type to how it is used.
+         *
+         * @see #setAdaptiveSizingEnabled(boolean)
+         */
+        public boolean isAdaptiveSizingEnabled() {
+            return mAdaptiveSizingEnabled;
+        }
+
+        /**
+         * Sets a listener to receive the usage statistics of each view type at the end of each
+         * fling of a RecyclerView using the pool.
+         *
+         * @param listener The listener, or {@code null} to remove it.
+         */
+        public void setStatsListener(@Nullable StatsListener listener) {
+            mStatsListener = listener;
+        }
+
+        /**
+         * Returns a snapshot of the usage statistics of the given view type.
+         *
+         * @param viewType ViewHolder type.
+         * @return The statistics of the view type.
+         */
+        @NonNull
+        public Stats getStats(int viewType) {
+            return new Stats(viewType, getScrapDataForType(viewType));
+        }
+
         /**
          * Returns the current number of Views held by the RecycledViewPool of the given view type.
          */
@@ -5893,15 +6157,23 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
          */
         @Nullable
         public ViewHolder getRecycledView(int viewType) {
-            final ScrapData scrapData = mScrap.get(viewType);
-            if (scrapData != null && !scrapData.mScrapHeap.isEmpty()) {
+            final ScrapData scrapData = getScrapDataForType(viewType);
+            if (!scrapData.mScrapHeap.isEmpty()) {
                 final ArrayList<ViewHolder> scrapHeap = scrapData.mScrapHeap;
                 for (int i = scrapHeap.size() - 1; i >= 0; i--) {
                     if (!scrapHeap.get(i).isAttachedToTransitionOverlay()) {
-                        return scrapHeap.remove(i);
+                        scrapData.mHitCount++;
+                        final ViewHolder holder = scrapHeap.remove(i);
+                        if (scrapHeap.size() < scrapData.mFlingMinScrapHeapSize) {
+                            scrapData.mFlingMinScrapHeapSize = scrapHeap.size();
+                        }
+                        return holder;
                     }
                 }
             }
+            scrapData.mMissCount++;
+            scrapData.mFlingMissCount++;
+            scrapData.mFlingMinScrapHeapSize = 0;
             return null;
         }
 
@@ -5930,8 +6202,11 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
          */
         public void putRecycledView(ViewHolder scrap) {
             final int viewType = scrap.getItemViewType();
-            final ArrayList<ViewHolder> scrapHeap = getScrapDataForType(viewType).mScrapHeap;
-            if (mScrap.get(viewType).mMaxScrap <= scrapHeap.size()) {
+            final ScrapData scrapData = getScrapDataForType(viewType);
+            final ArrayList<ViewHolder> scrapHeap = scrapData.mScrapHeap;
+            if (scrapData.mMaxScrap <= scrapHeap.size()) {
+                scrapData.mDiscardCount++;
+                scrapData.mFlingDiscardCount++;
                 return;
             }
             if (DEBUG && scrapHeap.contains(scrap)) {
@@ -5950,12 +6225,14 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
 
         void factorInCreateTime(int viewType, long createTimeNs) {
             ScrapData scrapData = getScrapDataForType(viewType);
+            scrapData.mCreateCount++;
             scrapData.mCreateRunningAverageNs = runningAverage(
                     scrapData.mCreateRunningAverageNs, createTimeNs);
         }
 
         void factorInBindTime(int viewType, long bindTimeNs) {
             ScrapData scrapData = getScrapDataForType(viewType);
+            scrapData.mBindCount++;
             scrapData.mBindRunningAverageNs = runningAverage(
                     scrapData.mBindRunningAverageNs, bindTimeNs);
         }
@@ -5978,6 +6255,65 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
             mAttachCount--;
         }
 
+        /**
+         * Called when a RecyclerView using this pool starts flinging.
+         */
+        void onFlingStarted() {
+            if (mFlingCount++ > 0) {
+                // another RecyclerView is already flinging, keep collecting usage for both
+                return;
+            }
+            for (int i = 0; i < mScrap.size(); i++) {
+                final ScrapData scrapData = mScrap.valueAt(i);
+                scrapData.mFlingMissCount = 0;
+                scrapData.mFlingDiscardCount = 0;
+                scrapData.mFlingMinScrapHeapSize = scrapData.mScrapHeap.size();
+            }
+        }
+
+        /**
+         * Called when a RecyclerView using this pool stops flinging. Once no RecyclerView is
+         * flinging anymore, adapts the capacity of each view type to its usage during the fling
+         * and dispatches the statistics.
+         */
+        void onFlingEnded() {
+            if (mFlingCount == 0 || --mFlingCount > 0) {
+                return;
+            }
+            for (int i = 0; i < mScrap.size(); i++) {
+                final ScrapData scrapData = mScrap.valueAt(i);
+                if (mAdaptiveSizingEnabled && !scrapData.mMaxScrapSetExplicitly) {
+                    adaptMaxScrap(scrapData);
+                }
+                scrapData.mFlingMissCount = 0;
+                scrapData.mFlingDiscardCount = 0;
+                scrapData.mFlingMinScrapHeapSize = 0;
+            }
+            if (mStatsListener != null) {
+                for (int i = 0; i < mScrap.size(); i++) {
+                    mStatsListener.onStatsUpdated(this, new Stats(mScrap.keyAt(i),
+                            mScrap.valueAt(i)));
+                }
+            }
+        }
+
+        private static void adaptMaxScrap(ScrapData scrapData) {
+            if (scrapData.mFlingMissCount > 0 && scrapData.mFlingDiscardCount > 0) {
+                // ViewHolders that were discarded had to be created again, keep more of them
+                // unless creating them is cheaper than binding them anyway
+                if (scrapData.mCreateRunningAverageNs >= scrapData.mBindRunningAverageNs) {
+                    final int growth = Math.min(scrapData.mFlingMissCount,
+                            scrapData.mFlingDiscardCount);
+                    setMaxScrap(scrapData, Math.max(scrapData.mMaxScrap,
+                            Math.min(scrapData.mMaxScrap + growth, MAX_ADAPTIVE_SCRAP)));
+                }
+            } else if (scrapData.mFlingMinScrapHeapSize > 0) {
+                // some ViewHolders were never used during the fling, give back half of them
+                final int shrink = (scrapData.mFlingMinScrapHeapSize + 1) / 2;
+                setMaxScrap(scrapData, Math.max(1, scrapData.mMaxScrap - shrink));
+            }
+        }
+
 
         /**
          * Detaches the old adapter and attaches the new one.
@@ -6421,6 +6757,11 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
                     if (deadlineNs != FOREVER_NS
                             && !mRecyclerPool.willCreateInTime(type, start, deadlineNs)) {
                         // abort - we have a deadline we can't meet
+                        if (mViewHolderCreator != null) {
+                            // create one in the background, so that next time we only have to
+                            // bind it
+                            mViewHolderCreator.create(type);
+                        }
                         return null;
                     }
                     holder = mAdapter.createViewHolder(RecyclerView.this, type);
@@ -7056,11 +7397,19 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
 
         void setRecycledViewPool(RecycledViewPool pool) {
             if (mRecyclerPool != null) {
+                if (mScrollState == SCROLL_STATE_SETTLING) {
+                    mRecyclerPool.onFlingEnded();
+                }
                 mRecyclerPool.detach();
             }
             mRecyclerPool = pool;
-            if (mRecyclerPool != null && getAdapter() != null) {
-                mRecyclerPool.attach();
+            if (mRecyclerPool != null) {
+                if (getAdapter() != null) {
+                    mRecyclerPool.attach();
+                }
+                if (mScrollState == SCROLL_STATE_SETTLING) {
+                    mRecyclerPool.onFlingStarted();
+                }
             }
         }
 
@@ -20,9 +20,12 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import java.lang.reflect.Array;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.concurrent.Executor;
 
 /**
  * A Sorted list implementation that can keep items in order and also notify for changes in the
@@ -81,6 +84,26 @@ public class SortedList<T> {
     private int mSize;
     private final Class<T> mTClass;
 
+    /**
+     * Incremented on every modification of the list, so that {@link #mergeAsync} can tell
+     * whether the list was modified while it was merging in the background.
+     */
+    private int mModCount;
+
+    /**
+     * True while a merge started by {@link #mergeAsync} has not been committed yet. Volatile
+     * because it is cleared on the background executor if the callback executor rejects the
+     * merge.
+     */
+    private volatile boolean mMergeRunning;
+
+    /**
+     * Merges requested while another one is running. They are started in order, each after the
+     * previous one is committed.
+     */
+    @Nullable
+    private ArrayDeque<MergeRequest<T>> mPendingMerges;
+
     /**
      * Creates a new SortedList of type T.
      *
@@ -141,6 +164,7 @@ public class SortedList<T> {
      */
     public int add(T item) {
         throwIfInMutationOperation();
+        mModCount++;
         return add(item, true);
     }
 
@@ -160,6 +184,7 @@ public class SortedList<T> {
      */
     public void addAll(@NonNull T[] items, boolean mayModifyInput) {
         throwIfInMutationOperation();
+        mModCount++;
         if (items.length == 0) {
             return;
         }
@@ -215,6 +240,7 @@ public class SortedList<T> {
      */
     public void replaceAll(@NonNull T[] items, boolean mayModifyInput) {
         throwIfInMutationOperation();
+        mModCount++;
 
         if (mayModifyInput) {
             replaceAllInternal(items);
@@ -253,7 +279,7 @@ public class SortedList<T> {
             return;
         }
 
-        final int newSize = sortAndDedup(newItems);
+        final int newSize = sortAndDedup(newItems, mCallback);
 
         if (mSize == 0) {
             mData = newItems;
@@ -275,7 +301,7 @@ public class SortedList<T> {
         mOldData = mData;
 
         mNewDataStart = 0;
-        int newSize = sortAndDedup(newData);
+        int newSize = sortAndDedup(newData, mCallback);
         mData = (T[]) Array.newInstance(mTClass, newSize);
 
         while (mNewDataStart < newSize || mOldDataStart < mOldDataSize) {
@@ -349,13 +375,13 @@ public class SortedList<T> {
      *
      * @return Number of deduplicated items at the beginning of the array.
      */
-    private int sortAndDedup(@NonNull T[] items) {
+    private static <T> int sortAndDedup(@NonNull T[] items, @NonNull Callback<T> callback) {
         if (items.length == 0) {
             return 0;
         }
 
         // Arrays.sort is stable.
-        Arrays.sort(items, mCallback);
+        Arrays.sort(items, callback);
 
         // Keep track of the range of equal items at the end of the output.
         // Start with the range containing just the first item.
@@ -365,11 +391,12 @@ public class SortedList<T> {
         for (int i = 1; i < items.length; ++i) {
             T currentItem = items[i];
 
-            int compare = mCallback.compare(items[rangeStart], currentItem);
+            int compare = callback.compare(items[rangeStart], currentItem);
 
             if (compare == 0) {
                 // The range of equal items continues, update it.
-                final int sameItemPos = findSameItem(currentItem, items, rangeStart, rangeEnd);
+                final int sameItemPos = findSameItem(currentItem, items, rangeStart, rangeEnd,
+                        callback);
                 if (sameItemPos != INVALID_POSITION) {
                     // Replace the duplicate item.
                     items[sameItemPos] = currentItem;
@@ -392,9 +419,10 @@ public class SortedList<T> {
     }
 
 
-    private int findSameItem(T item, T[] items, int from, int to) {
+    private static <T> int findSameItem(T item, T[] items, int from, int to,
+            @NonNull Callback<T> callback) {
         for (int pos = from; pos < to; pos++) {
-            if (mCallback.areItemsTheSame(items[pos], item)) {
+            if (callback.areItemsTheSame(items[pos], item)) {
                 return pos;
             }
         }
@@ -471,6 +499,348 @@ public class SortedList<T> {
         }
     }
 
+    /**
+     * Adds and removes the given items off the calling thread, then updates the list and notifies
+     * the {@link Callback} at once.
+     * <p>
+     * This is equivalent to calling {@link #remove(Object)} for each item in
+     * {@code itemsToRemove} and then {@link #addAll(Collection)} with {@code itemsToAdd}, except
+     * that the items are sorted and merged with the current items into a new backing array on
+     * {@code backgroundExecutor}. The list only changes when the result is committed on
+     * {@code callbackExecutor}, which then dispatches the changes to the Callback as a batch.
+     * Items that are both removed and added are notified as a removal and an insertion. Changing
+     * the sorting criteria of an existing item can be done by removing its previous version and
+     * adding the new one.
+     * <p>
+     * {@link Callback#compare(Object, Object)},
+     * {@link Callback#areItemsTheSame(Object, Object)},
+     * {@link Callback#areContentsTheSame(Object, Object)} and
+     * {@link Callback#getChangePayload(Object, Object)} are called on
+     * {@code backgroundExecutor}, so they must be safe to call from that thread. The list
+     * itself must only be accessed from {@code callbackExecutor}, typically the main thread.
+     * <p>
+     * If this method is called again before the merge is committed, the new merge starts after
+     * the previous one is committed. If the list is modified by other methods while a merge is
+     * running, the merge is done again on {@code callbackExecutor} when it is committed, so that
+     * no modification is lost.
+     * <p>
+     * If a Callback method throws while the items are merged on {@code backgroundExecutor}, the
+     * list is not changed and the exception is rethrown on {@code callbackExecutor}. Merges
+     * requested after it still run. The same goes for an executor that rejects the merge, which
+     * rethrows the rejection from the thread that handed it the merge.
+     *
+     * @param itemsToAdd         Items to be added into the list, in any order. Not retained.
+     * @param itemsToRemove      Items to be removed from the list, in any order. Not retained.
+     * @param backgroundExecutor Executor on which items are sorted and merged.
+     * @param callbackExecutor   Executor on which the list is updated and the Callback is notified.
+     * @param commitCallback     Optional runnable that is executed on {@code callbackExecutor}
+     *                           once the list is updated.
+     */
+    public void mergeAsync(@NonNull Collection<T> itemsToAdd,
+            @NonNull Collection<T> itemsToRemove, @NonNull Executor backgroundExecutor,
+            @NonNull Executor callbackExecutor, @Nullable Runnable commitCallback) {
+        throwIfInMutationOperation();
+        final MergeRequest<T> request = new MergeRequest<>(
+                itemsToAdd.toArray((T[]) Array.newInstance(mTClass, itemsToAdd.size())),
+                itemsToRemove.toArray((T[]) Array.newInstance(mTClass, itemsToRemove.size())),
+                backgroundExecutor, callbackExecutor, commitCallback);
+        if (mMergeRunning) {
+            if (mPendingMerges == null) {
+                mPendingMerges = new ArrayDeque<>();
+            }
+            mPendingMerges.add(request);
+            return;
+        }
+        if (mPendingMerges != null && !mPendingMerges.isEmpty()) {
+            // left behind by a merge the callback executor rejected, they go first
+            mPendingMerges.add(request);
+            startNextMerge();
+            return;
+        }
+        startMerge(request);
+    }
+
+    private void startMerge(final MergeRequest<T> request) {
+        mMergeRunning = true;
+        final Class<T> tClass = mTClass;
+        final Callback<T> callback = mCallback;
+        final T[] data = Arrays.copyOf(mData, mSize);
+        final int modCount = mModCount;
+        try {
+            request.mBackgroundExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    MergeResult<T> mergeResult = null;
+                    Throwable mergeError = null;
+                    try {
+                        mergeResult = computeMerge(tClass, data, request, callback);
+                    } catch (Throwable t) {
+                        // rethrown on the callback executor, after the next merge is started
+                        mergeError = t;
+                    }
+                    final MergeResult<T> result = mergeResult;
+                    final Throwable error = mergeError;
+                    try {
+                        request.mCallbackExecutor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                try {
+                                    if (error != null) {
+                                        rethrow(error);
+                                    } else if (modCount == mModCount) {
+                                        commitMerge(request, result);
+                                    } else {
+                                        // the list was modified in the meantime, merge with the
+                                        // current items
+                                        commitMerge(request, computeMerge(mTClass,
+                                                Arrays.copyOf(mData, mSize), request, mCallback));
+                                    }
+                                } finally {
+                                    startNextMerge();
+                                }
+                            }
+                        });
+                    } catch (RuntimeException e) {
+                        // this merge is dropped, the next mergeAsync starts the pending ones
+                        mMergeRunning = false;
+                        throw e;
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            // this merge is dropped, move on to the pending ones
+            startNextMerge();
+            throw e;
+        }
+    }
+
+    private void commitMerge(MergeRequest<T> request, MergeResult<T> result) {
+        mModCount++;
+        mData = result.mData;
+        mSize = result.mSize;
+
+        final boolean forceBatchedUpdates = !(mCallback instanceof BatchedCallback);
+        if (forceBatchedUpdates) {
+            beginBatchedUpdates();
+        }
+        result.dispatchUpdatesTo(mCallback);
+        if (forceBatchedUpdates) {
+            endBatchedUpdates();
+        }
+
+        if (request.mCommitCallback != null) {
+            request.mCommitCallback.run();
+        }
+    }
+
+    private void startNextMerge() {
+        final MergeRequest<T> next = mPendingMerges != null ? mPendingMerges.poll() : null;
+        if (next != null) {
+            startMerge(next);
+        } else {
+            mMergeRunning = false;
+        }
+    }
+
+    private static void rethrow(Throwable t) {
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        throw new RuntimeException(t);
+    }
+
+    /**
+     * Merges the items of a {@link MergeRequest} with the given items, into a new array. Does
+     * not modify the list, so it can run on a background thread.
+     */
+    static <T> MergeResult<T> computeMerge(@NonNull Class<T> tClass, @NonNull T[] oldData,
+            @NonNull MergeRequest<T> request, @NonNull Callback<T> callback) {
+        final T[] added = Arrays.copyOf(request.mItemsToAdd, request.mItemsToAdd.length);
+        final int addedSize = sortAndDedup(added, callback);
+        final T[] removed = Arrays.copyOf(request.mItemsToRemove, request.mItemsToRemove.length);
+        Arrays.sort(removed, callback);
+
+        final int oldSize = oldData.length;
+        final MergeResult<T> result = new MergeResult<>(
+                (T[]) Array.newInstance(tClass, oldSize + addedSize + CAPACITY_GROWTH));
+        final T[] data = result.mData;
+        final BatchingListUpdateCallback updates = new BatchingListUpdateCallback(result);
+
+        int oldStart = 0;
+        int addedStart = 0;
+        int removedStart = 0;
+        int size = 0;
+        // index of the last old item that was checked against the removed items
+        int checkedOldStart = -1;
+        while (oldStart < oldSize || addedStart < addedSize) {
+            if (oldStart < oldSize && checkedOldStart != oldStart) {
+                checkedOldStart = oldStart;
+                final T oldItem = oldData[oldStart];
+                while (removedStart < removed.length
+                        && callback.compare(removed[removedStart], oldItem) < 0) {
+                    removedStart++;
+                }
+                boolean isRemoved = false;
+                for (int i = removedStart; i < removed.length
+                        && callback.compare(removed[i], oldItem) == 0; i++) {
+                    if (callback.areItemsTheSame(removed[i], oldItem)) {
+                        isRemoved = true;
+                        break;
+                    }
+                }
+                if (isRemoved) {
+                    // Removed item, skip it.
+                    updates.onRemoved(size, 1);
+                    oldStart++;
+                    continue;
+                }
+            }
+
+            if (oldStart == oldSize) {
+                // No more old items, copy the remaining new items.
+                int itemCount = addedSize - addedStart;
+                System.arraycopy(added, addedStart, data, size, itemCount);
+                updates.onInserted(size, itemCount);
+                size += itemCount;
+                break;
+            }
+
+            final T oldItem = oldData[oldStart];
+            if (addedStart == addedSize) {
+                // No more new items, output the old item.
+                data[size++] = oldItem;
+                oldStart++;
+                continue;
+            }
+
+            final T newItem = added[addedStart];
+            int compare = callback.compare(oldItem, newItem);
+            if (compare > 0) {
+                // New item is lower, output it.
+                data[size] = newItem;
+                updates.onInserted(size, 1);
+                size++;
+                addedStart++;
+            } else if (compare == 0 && callback.areItemsTheSame(oldItem, newItem)) {
+                // Items are the same. Output the new item, but consume both.
+                data[size] = newItem;
+                if (!callback.areContentsTheSame(oldItem, newItem)) {
+                    updates.onChanged(size, 1, callback.getChangePayload(oldItem, newItem));
+                }
+                size++;
+                addedStart++;
+                oldStart++;
+            } else {
+                // Old item is lower than or equal to (but not the same as the new). Output it.
+                data[size++] = oldItem;
+                oldStart++;
+            }
+        }
+        updates.dispatchLastEvent();
+        result.mSize = size;
+        return result;
+    }
+
+    /**
+     * Items and executors passed to {@link #mergeAsync}.
+     */
+    static final class MergeRequest<T> {
+        final T[] mItemsToAdd;
+        final T[] mItemsToRemove;
+        final Executor mBackgroundExecutor;
+        final Executor mCallbackExecutor;
+        @Nullable
+        final Runnable mCommitCallback;
+
+        MergeRequest(T[] itemsToAdd, T[] itemsToRemove, Executor backgroundExecutor,
+                Executor callbackExecutor, @Nullable Runnable commitCallback) {
+            mItemsToAdd = itemsToAdd;
+            mItemsToRemove = itemsToRemove;
+            mBackgroundExecutor = backgroundExecutor;
+            mCallbackExecutor = callbackExecutor;
+            mCommitCallback = commitCallback;
+        }
+    }
+
+    /**
+     * The merged items computed by {@link #computeMerge}, and the changes to dispatch once they
+     * replace the items of the list.
+     */
+    static final class MergeResult<T> implements ListUpdateCallback {
+        private static final int INSERTED = 0;
+        private static final int REMOVED = 1;
+        private static final int CHANGED = 2;
+        private static final int MOVED = 3;
+
+        final T[] mData;
+        int mSize;
+
+        // type, position and count of each change, or type, from and to positions of a move
+        private int[] mUpdates = new int[3 * 4];
+        private int mUpdateCount;
+        private final ArrayList<Object> mPayloads = new ArrayList<>();
+
+        MergeResult(T[] data) {
+            mData = data;
+        }
+
+        private void addUpdate(int type, int position, int count, Object payload) {
+            if (mUpdates.length == mUpdateCount * 3) {
+                mUpdates = Arrays.copyOf(mUpdates, mUpdates.length * 2);
+            }
+            mUpdates[mUpdateCount * 3] = type;
+            mUpdates[mUpdateCount * 3 + 1] = position;
+            mUpdates[mUpdateCount * 3 + 2] = count;
+            mPayloads.add(payload);
+            mUpdateCount++;
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            addUpdate(INSERTED, position, count, null);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            addUpdate(REMOVED, position, count, null);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            addUpdate(MOVED, fromPosition, toPosition, null);
+        }
+
+        @Override
+        public void onChanged(int position, int count, @Nullable Object payload) {
+            addUpdate(CHANGED, position, count, payload);
+        }
+
+        void dispatchUpdatesTo(@NonNull ListUpdateCallback callback) {
+            for (int i = 0; i < mUpdateCount; i++) {
+                final int position = mUpdates[i * 3 + 1];
+                final int count = mUpdates[i * 3 + 2];
+                switch (mUpdates[i * 3]) {
+                    case INSERTED:
+                        callback.onInserted(position, count);
+                        break;
+                    case REMOVED:
+                        callback.onRemoved(position, count);
+                        break;
+                    case CHANGED:
+                        callback.onChanged(position, count, mPayloads.get(i));
+                        break;
+                    case MOVED:
+                        // count holds the position the item moved to
+                        callback.onMoved(position, count);
+                        break;
+                }
+            }
+        }
+    }
+
     /**
      * Throws an exception if called while we are in the middle of a mutation operation (addAll or
      * replaceAll).
@@ -572,6 +942,7 @@ public class SortedList<T> {
      */
     public boolean remove(T item) {
         throwIfInMutationOperation();
+        mModCount++;
         return remove(item, true);
     }
 
@@ -584,6 +955,7 @@ public class SortedList<T> {
      */
     public T removeItemAt(int index) {
         throwIfInMutationOperation();
+        mModCount++;
         T item = get(index);
         removeItemAtIndex(index, true);
         return item;
@@ -629,6 +1001,7 @@ public class SortedList<T> {
      */
     public void updateItemAt(int index, T item) {
         throwIfInMutationOperation();
+        mModCount++;
         final T existing = get(index);
         // assume changed if the same object is given back
         boolean contentsChanged = existing == item || !mCallback.areContentsTheSame(existing, item);
@@ -683,6 +1056,7 @@ public class SortedList<T> {
      */
     public void recalculatePositionOfItemAt(int index) {
         throwIfInMutationOperation();
+        mModCount++;
         // TODO can be improved
         final T item = get(index);
         removeItemAtIndex(index, false);
@@ -820,6 +1194,7 @@ public class SortedList<T> {
      */
     public void clear() {
         throwIfInMutationOperation();
+        mModCount++;
         if (mSize == 0) {
             return;
         }
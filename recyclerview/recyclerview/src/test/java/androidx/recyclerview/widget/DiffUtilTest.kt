@@ -15,6 +15,8 @@
  */
 package androidx.recyclerview.widget
 
+import androidx.core.os.CancellationSignal
+import androidx.core.os.OperationCanceledException
 import org.hamcrest.CoreMatchers.`is`
 import org.hamcrest.CoreMatchers.equalTo
 import org.hamcrest.CoreMatchers.not
@@ -31,6 +33,9 @@ import org.junit.runner.RunWith
 import org.junit.runners.JUnit4
 import java.util.Random
 import java.util.UUID
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.RejectedExecutionException
 
 @RunWith(JUnit4::class)
 class DiffUtilTest {
@@ -363,6 +368,99 @@ class DiffUtilTest {
 
     private fun calculate() = DiffUtil.calculateDiff(callback, true)
 
+    @Test
+    fun stableIds_detectMoves() {
+        initWithSize(20)
+        move(0, 19)
+        move(3, 10)
+        update(10)
+        add(5)
+        delete(7)
+        duplicate(12, 4)
+        val withIds = ItemListCallback(before, after, stableIds = true)
+        val withoutIds = ItemListCallback(before, after)
+        val result = DiffUtil.calculateDiff(withIds, true)
+        val expected = DiffUtil.calculateDiff(withoutIds, true)
+        log("before", before)
+        log("after", after)
+        assertEquals(applyUpdates(before, result), after)
+        // same events, found with fewer comparisons
+        assertThat(
+            recordUpdates(result),
+            `is`(recordUpdates(expected))
+        )
+        assertThat(
+            withIds.itemComparisons < withoutIds.itemComparisons,
+            `is`(true)
+        )
+    }
+
+    @Test
+    fun budget_unlimited() {
+        initWithSize(10)
+        move(2, 8)
+        update(4)
+        add(0)
+        val result = DiffUtil.calculateDiff(callback, true, Long.MAX_VALUE, CancellationSignal())
+        assertThat(
+            recordUpdates(result),
+            `is`(recordUpdates(calculate()))
+        )
+    }
+
+    @Test
+    fun budget_exhausted_keepsCommonEnds() {
+        initWithSize(10)
+        move(3, 6)
+        add(5)
+        delete(2)
+        val result = DiffUtil.calculateDiff(callback, true, 0, null)
+        log("before", before)
+        log("after", after)
+        val applied = applyUpdates(before, result)
+        assertThat(applied.size, `is`(after.size))
+        // common prefix and suffix are still matched
+        assertThat(applied[0], equalTo(before[0]))
+        assertThat(applied[1], equalTo(before[1]))
+        assertThat(applied[after.size - 1], equalTo(before[9]))
+        assertThat(result.convertOldPositionToNew(9), `is`(after.size - 1))
+        // the rest is replaced without detecting moves
+        (2 until after.size - 3).forEach {
+            assertThat(applied[it].newItem, `is`(true))
+        }
+        assertThat(
+            result.convertOldPositionToNew(3),
+            `is`(DiffUtil.DiffResult.NO_POSITION)
+        )
+    }
+
+    @Test
+    fun budget_largeEnough() {
+        initWithSize(10)
+        move(3, 6)
+        update(0)
+        val result = DiffUtil.calculateDiff(callback, true, 1000, null)
+        log("before", before)
+        log("after", after)
+        assertEquals(applyUpdates(before, result), after)
+        assertThat(result.convertOldPositionToNew(3), `is`(6))
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun budget_negative() {
+        initWithSize(2)
+        DiffUtil.calculateDiff(callback, true, -1, null)
+    }
+
+    @Test(expected = OperationCanceledException::class)
+    fun cancellationSignal_canceled() {
+        initWithSize(5)
+        delete(1)
+        val signal = CancellationSignal()
+        signal.cancel()
+        DiffUtil.calculateDiff(callback, true, Long.MAX_VALUE, signal)
+    }
+
     @Test
     fun duplicate() {
         before.addAll(listOf(Item(false), Item(false)))
@@ -614,6 +712,96 @@ class DiffUtilTest {
         return target
     }
 
+    @Test
+    fun segments_stableIds() {
+        initWithSize(200)
+        delete(20)
+        add(50)
+        update(90)
+        updateWithPayload(91)
+        // moves from one segment to another
+        move(120, 30)
+        move(150, 180)
+        val executor = Executors.newFixedThreadPool(2)
+        try {
+            val result = DiffUtil.calculateDiffInSegments(
+                ItemListCallback(before, after, stableIds = true), true, Long.MAX_VALUE, null,
+                executor
+            )
+            log("before", before)
+            log("after", after)
+            assertEquals(applyUpdates(before, result), after)
+            assertThat(result.convertOldPositionToNew(120), `is`(after.indexOf(before[120])))
+            assertThat(result.convertOldPositionToNew(20), `is`(DiffUtil.DiffResult.NO_POSITION))
+        } finally {
+            executor.shutdown()
+        }
+    }
+
+    @Test
+    fun segments_executorRejects() {
+        initWithSize(100)
+        move(10, 60)
+        add(80)
+        delete(5)
+        val result = DiffUtil.calculateDiffInSegments(
+            ItemListCallback(before, after, stableIds = true), true, Long.MAX_VALUE, null,
+            Executor { throw RejectedExecutionException() }
+        )
+        log("before", before)
+        log("after", after)
+        assertEquals(applyUpdates(before, result), after)
+    }
+
+    @Test
+    fun segments_noStableIds() {
+        initWithSize(50)
+        move(10, 30)
+        delete(40)
+        val result = DiffUtil.calculateDiffInSegments(
+            callback, true, Long.MAX_VALUE, null,
+            Executor { Assert.fail("lists without stable ids should not be split") }
+        )
+        assertThat(
+            recordUpdates(result),
+            `is`(recordUpdates(calculate()))
+        )
+    }
+
+    @Test(expected = OperationCanceledException::class)
+    fun segments_canceled() {
+        initWithSize(100)
+        move(10, 60)
+        val signal = CancellationSignal()
+        signal.cancel()
+        DiffUtil.calculateDiffInSegments(
+            ItemListCallback(before, after, stableIds = true), true, Long.MAX_VALUE, signal,
+            Executor { it.run() }
+        )
+    }
+
+    private fun recordUpdates(result: DiffUtil.DiffResult): List<String> {
+        val updates = mutableListOf<String>()
+        result.dispatchUpdatesTo(object : ListUpdateCallback {
+            override fun onInserted(position: Int, count: Int) {
+                updates.add("insert($position, $count)")
+            }
+
+            override fun onRemoved(position: Int, count: Int) {
+                updates.add("remove($position, $count)")
+            }
+
+            override fun onMoved(fromPosition: Int, toPosition: Int) {
+                updates.add("move($fromPosition, $toPosition)")
+            }
+
+            override fun onChanged(position: Int, count: Int, payload: Any?) {
+                updates.add("change($position, $count)")
+            }
+        })
+        return updates
+    }
+
     private fun add(index: Int) {
         after.add(index, Item(true))
         log.append("add(").append(index).append(");\n")
@@ -682,8 +870,11 @@ class DiffUtilTest {
     private class ItemListCallback(
         private val oldList: List<Item>,
         private val newList: List<Item>,
-        private val assertCalls: Boolean = true
+        private val assertCalls: Boolean = true,
+        private val stableIds: Boolean = false
     ) : DiffUtil.Callback() {
+        var itemComparisons = 0
+
         override fun getOldListSize() = oldList.size
 
         override fun getNewListSize() = newList.size
@@ -692,9 +883,18 @@ class DiffUtilTest {
             oldItemIndex: Int,
             newItemIndex: Int
         ): Boolean {
+            itemComparisons++
             return oldList[oldItemIndex].id == newList[newItemIndex].id
         }
 
+        override fun getOldItemId(oldItemPosition: Int): Long {
+            return if (stableIds) oldList[oldItemPosition].id else RecyclerView.NO_ID
+        }
+
+        override fun getNewItemId(newItemPosition: Int): Long {
+            return if (stableIds) newList[newItemPosition].id else RecyclerView.NO_ID
+        }
+
         override fun areContentsTheSame(
             oldItemIndex: Int,
             newItemIndex: Int
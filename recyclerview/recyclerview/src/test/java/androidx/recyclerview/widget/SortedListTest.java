@@ -41,6 +41,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
 import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 @RunWith(JUnit4.class)
@@ -58,6 +60,7 @@ public class SortedListTest {
     private SortedList.Callback<Item> mCallback;
     InsertedCallback<Item> mInsertedCallback;
     ChangedCallback<Item> mChangedCallback;
+    RuntimeException mContentsTheSameException;
 
     private Comparator<? super Item> sItemComparator = new Comparator<Item>() {
         @Override
@@ -126,6 +129,9 @@ public class SortedListTest {
 
             @Override
             public boolean areContentsTheSame(Item oldItem, Item newItem) {
+                if (mContentsTheSameException != null) {
+                    throw mContentsTheSameException;
+                }
                 return oldItem.data == newItem.data;
             }
 
@@ -1495,6 +1501,256 @@ public class SortedListTest {
         assertTrue(mCallbackRunnables.isEmpty());
     }
 
+    @Test
+    public void mergeAsync_addsRemovesAndChanges() {
+        mList.addAll(createItemsFromInts(1, 2, 3, 4, 5));
+        mEvents.clear();
+        QueueExecutor backgroundExecutor = new QueueExecutor();
+        QueueExecutor callbackExecutor = new QueueExecutor();
+        final AtomicInteger commits = new AtomicInteger(0);
+
+        mList.mergeAsync(Arrays.asList(new Item(7), new Item(0), new Item(3, 3, 30)),
+                Arrays.asList(new Item(4), new Item(2)), backgroundExecutor, callbackExecutor,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        commits.incrementAndGet();
+                    }
+                });
+        backgroundExecutor.runAll();
+        assertTrue(sortedListEquals(mList, createItemsFromInts(1, 2, 3, 4, 5)));
+        assertEquals(0, mEvents.size());
+
+        callbackExecutor.runAll();
+        assertTrue(sortedListEquals(mList, new Item[]{
+                new Item(0), new Item(1), new Item(3, 3, 30), new Item(5), new Item(7)}));
+        assertEquals(Arrays.asList(new Event(TYPE.ADD, 0, 1), new Event(TYPE.REMOVE, 2, 1),
+                new Event(TYPE.CHANGE, 2, 1), new Event(TYPE.REMOVE, 3, 1),
+                new Event(TYPE.ADD, 4, 1)), mEvents);
+        assertEquals(1, commits.get());
+    }
+
+    @Test
+    public void mergeAsync_changesSortingCriteria() {
+        mList.addAll(createItemsFromInts(1, 2, 3));
+        QueueExecutor executor = new QueueExecutor();
+
+        mList.mergeAsync(Collections.singletonList(new Item(1, 4, 1)),
+                Collections.singletonList(new Item(1)), executor, executor, null);
+        executor.runAll();
+
+        assertTrue(sortedListEquals(mList,
+                new Item[]{new Item(2), new Item(3), new Item(1, 4, 1)}));
+    }
+
+    @Test
+    public void mergeAsync_calledWhileRunning_startsAfterCommit() {
+        QueueExecutor backgroundExecutor = new QueueExecutor();
+        QueueExecutor callbackExecutor = new QueueExecutor();
+
+        mList.mergeAsync(Arrays.asList(createItemsFromInts(1, 2, 3)),
+                Collections.<Item>emptyList(), backgroundExecutor, callbackExecutor, null);
+        mList.mergeAsync(Arrays.asList(createItemsFromInts(4)),
+                Arrays.asList(createItemsFromInts(2)), backgroundExecutor, callbackExecutor, null);
+        assertEquals(1, backgroundExecutor.size());
+
+        backgroundExecutor.runAll();
+        callbackExecutor.runAll();
+        assertTrue(sortedListEquals(mList, createItemsFromInts(1, 2, 3)));
+        assertEquals(1, backgroundExecutor.size());
+
+        backgroundExecutor.runAll();
+        callbackExecutor.runAll();
+        assertTrue(sortedListEquals(mList, createItemsFromInts(1, 3, 4)));
+    }
+
+    @Test
+    public void mergeAsync_listModifiedWhileRunning_keepsModification() {
+        mList.addAll(createItemsFromInts(1, 3));
+        QueueExecutor backgroundExecutor = new QueueExecutor();
+        QueueExecutor callbackExecutor = new QueueExecutor();
+
+        mList.mergeAsync(Arrays.asList(createItemsFromInts(2)),
+                Arrays.asList(createItemsFromInts(3)), backgroundExecutor, callbackExecutor, null);
+        backgroundExecutor.runAll();
+        mList.add(new Item(4));
+        mEvents.clear();
+        callbackExecutor.runAll();
+
+        assertTrue(sortedListEquals(mList, createItemsFromInts(1, 2, 4)));
+        assertEquals(Arrays.asList(new Event(TYPE.REMOVE, 1, 1), new Event(TYPE.ADD, 1, 1)),
+                mEvents);
+    }
+
+    @Test
+    public void mergeAsync_randomDeltas_matchesRemoveAndAddAll() {
+        Random random = new Random(1);
+        SortedList<Item> expected = new SortedList<>(Item.class, mCallback);
+        // each item has its own sorting criteria, so that removals are unambiguous
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            items.add(new Item(i, i, 0));
+        }
+        mList.addAll(items);
+        expected.addAll(items);
+        QueueExecutor executor = new QueueExecutor();
+
+        for (int round = 0; round < 20; round++) {
+            List<Item> toAdd = new ArrayList<>();
+            List<Item> toRemove = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                Item existing = mList.get(random.nextInt(mList.size()));
+                if (random.nextBoolean()) {
+                    toRemove.add(existing);
+                }
+                if (random.nextBoolean()) {
+                    toAdd.add(new Item(existing.id, existing.cmpField, random.nextInt(3)));
+                } else {
+                    toAdd.add(new Item(1000 + round * 50 + i));
+                }
+            }
+            mList.mergeAsync(toAdd, toRemove, executor, executor, null);
+            executor.runAll();
+            for (Item item : toRemove) {
+                expected.remove(item);
+            }
+            expected.addAll(toAdd);
+
+            assertEquals(expected.size(), mList.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), mList.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void mergeAsync_callbackThrows_rethrowsAndRunsNextMerge() {
+        mList.addAll(createItemsFromInts(1, 2));
+        QueueExecutor backgroundExecutor = new QueueExecutor();
+        QueueExecutor callbackExecutor = new QueueExecutor();
+        RuntimeException exception = new IllegalStateException();
+        mContentsTheSameException = exception;
+
+        mList.mergeAsync(Collections.singletonList(new Item(2, 2, 20)),
+                Collections.<Item>emptyList(), backgroundExecutor, callbackExecutor, null);
+        mList.mergeAsync(Arrays.asList(createItemsFromInts(3)),
+                Collections.<Item>emptyList(), backgroundExecutor, callbackExecutor, null);
+        backgroundExecutor.runAll();
+        mContentsTheSameException = null;
+        try {
+            callbackExecutor.runAll();
+            fail("the exception thrown by the Callback should be rethrown");
+        } catch (IllegalStateException e) {
+            assertSame(exception, e);
+        }
+        assertTrue(sortedListEquals(mList, createItemsFromInts(1, 2)));
+        assertEquals(1, backgroundExecutor.size());
+
+        backgroundExecutor.runAll();
+        callbackExecutor.runAll();
+        assertTrue(sortedListEquals(mList, createItemsFromInts(1, 2, 3)));
+
+        mList.mergeAsync(Arrays.asList(createItemsFromInts(4)),
+                Collections.<Item>emptyList(), backgroundExecutor, callbackExecutor, null);
+        assertEquals(1, backgroundExecutor.size());
+    }
+
+    @Test
+    public void mergeAsync_backgroundExecutorRejects_laterMergeCommits() {
+        QueueExecutor backgroundExecutor = new QueueExecutor();
+        QueueExecutor callbackExecutor = new QueueExecutor();
+
+        try {
+            mList.mergeAsync(Arrays.asList(createItemsFromInts(1)),
+                    Collections.<Item>emptyList(), REJECTING_EXECUTOR, callbackExecutor, null);
+            fail("the rejection should be rethrown");
+        } catch (RejectedExecutionException expected) {
+        }
+        // rejected when started after the running merge is committed
+        mList.mergeAsync(Arrays.asList(createItemsFromInts(2)),
+                Collections.<Item>emptyList(), backgroundExecutor, callbackExecutor, null);
+        mList.mergeAsync(Arrays.asList(createItemsFromInts(3)),
+                Collections.<Item>emptyList(), REJECTING_EXECUTOR, callbackExecutor, null);
+        backgroundExecutor.runAll();
+        try {
+            callbackExecutor.runAll();
+            fail("the rejection should be rethrown");
+        } catch (RejectedExecutionException expected) {
+        }
+        assertTrue(sortedListEquals(mList, createItemsFromInts(2)));
+
+        mList.mergeAsync(Arrays.asList(createItemsFromInts(4)),
+                Collections.<Item>emptyList(), backgroundExecutor, callbackExecutor, null);
+        backgroundExecutor.runAll();
+        callbackExecutor.runAll();
+        assertTrue(sortedListEquals(mList, createItemsFromInts(2, 4)));
+    }
+
+    @Test
+    public void mergeAsync_callbackExecutorRejects_laterMergeCommits() {
+        QueueExecutor backgroundExecutor = new QueueExecutor();
+        QueueExecutor callbackExecutor = new QueueExecutor();
+
+        mList.mergeAsync(Arrays.asList(createItemsFromInts(1)),
+                Collections.<Item>emptyList(), backgroundExecutor, REJECTING_EXECUTOR, null);
+        mList.mergeAsync(Arrays.asList(createItemsFromInts(2)),
+                Collections.<Item>emptyList(), backgroundExecutor, callbackExecutor, null);
+        try {
+            backgroundExecutor.runAll();
+            fail("the rejection should be rethrown");
+        } catch (RejectedExecutionException expected) {
+        }
+        assertEquals(0, size());
+
+        // starts after the merge that was pending when the rejection happened
+        mList.mergeAsync(Arrays.asList(createItemsFromInts(3)),
+                Collections.<Item>emptyList(), backgroundExecutor, callbackExecutor, null);
+        for (int i = 0; i < 2; i++) {
+            backgroundExecutor.runAll();
+            callbackExecutor.runAll();
+        }
+        assertTrue(sortedListEquals(mList, createItemsFromInts(2, 3)));
+    }
+
+    @Test
+    public void mergeResult_dispatchesMoves() {
+        SortedList.MergeResult<Item> result = new SortedList.MergeResult<>(new Item[0]);
+        result.onMoved(1, 3);
+        result.onInserted(0, 2);
+
+        result.dispatchUpdatesTo(mCallback);
+
+        assertEquals(Arrays.asList(new Event(TYPE.MOVE, 1, 3), new Event(TYPE.ADD, 0, 2)),
+                mEvents);
+    }
+
+    private static final Executor REJECTING_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            throw new RejectedExecutionException();
+        }
+    };
+
+    private static final class QueueExecutor implements Executor {
+        private final Queue<Runnable> mQueue = new LinkedList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            mQueue.add(command);
+        }
+
+        int size() {
+            return mQueue.size();
+        }
+
+        void runAll() {
+            Runnable runnable;
+            while ((runnable = mQueue.poll()) != null) {
+                runnable.run();
+            }
+        }
+    }
+
     private int size() {
         return mList.size();
     }
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.benchmark
+
+import android.os.Build
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.room.Dao
+import androidx.room.Database
+import androidx.room.Entity
+import androidx.room.Insert
+import androidx.room.PrimaryKey
+import androidx.room.Query
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SdkSuppress
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+@LargeTest
+@RunWith(Parameterized::class)
+@SdkSuppress(minSdkVersion = Build.VERSION_CODES.JELLY_BEAN)
+class InsertBenchmark(private val sampleSize: Int, private val mode: Mode) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    val context = ApplicationProvider.getApplicationContext() as android.content.Context
+
+    @Before
+    fun setup() {
+        for (postfix in arrayOf("", "-wal", "-shm")) {
+            val dbFile = context.getDatabasePath(DB_NAME + postfix)
+            if (dbFile.exists()) {
+                assertTrue(dbFile.delete())
+            }
+        }
+    }
+
+    @Test
+    fun insertList() {
+        val db = Room.databaseBuilder(context, TestDatabase::class.java, DB_NAME)
+            .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+            .build()
+        val dao = db.getUserDao()
+        val users = List(sampleSize) { User(it, "name$it", it * 2L) }
+
+        benchmarkRule.measureRepeated {
+            when (mode) {
+                // Methods returning row ids bind and execute one statement per entity.
+                Mode.PER_ROW -> dao.insertAndReturnIds(users)
+                // Methods without a result insert many entities per statement.
+                Mode.BATCHED -> dao.insert(users)
+            }
+
+            runWithTimingDisabled {
+                assertEquals(sampleSize, dao.deleteAll())
+            }
+        }
+
+        db.close()
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "sampleSize={0}, mode={1}")
+        fun data(): List<Array<Any>> {
+            return mutableListOf<Array<Any>>().apply {
+                arrayOf(Mode.PER_ROW, Mode.BATCHED).forEach { mode ->
+                    arrayOf(100, 1000, 10000, 100000).forEach { sampleSize ->
+                        add(arrayOf(sampleSize, mode))
+                    }
+                }
+            }
+        }
+
+        private const val DB_NAME = "insert-benchmark-test"
+    }
+
+    @Database(entities = [User::class], version = 1, exportSchema = false)
+    abstract class TestDatabase : RoomDatabase() {
+        abstract fun getUserDao(): UserDao
+    }
+
+    @Entity
+    data class User(@PrimaryKey val id: Int, val name: String, val score: Long)
+
+    @Dao
+    interface UserDao {
+        @Insert
+        fun insert(users: List<User>)
+
+        @Insert
+        fun insertAndReturnIds(users: List<User>): List<Long>
+
+        @Query("DELETE FROM User")
+        fun deleteAll(): Int
+    }
+
+    enum class Mode {
+        PER_ROW,
+        BATCHED
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.benchmark
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.room.RoomSQLiteQuery
+import androidx.test.filters.LargeTest
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicBoolean
+
+@LargeTest
+@RunWith(Parameterized::class)
+class RoomSQLiteQueryBenchmark(private val contendingThreads: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val running = AtomicBoolean(true)
+    private val threads = mutableListOf<Thread>()
+
+    @Before
+    fun setup() {
+        val started = CountDownLatch(contendingThreads)
+        repeat(contendingThreads) { index ->
+            threads.add(
+                Thread {
+                    started.countDown()
+                    // Same mix of argument counts as the measured thread, so that threads
+                    // compete for the same buckets.
+                    var argCount = index
+                    while (running.get()) {
+                        argCount = (argCount + 1) % MAX_ARG_COUNT
+                        RoomSQLiteQuery.acquire(QUERY, argCount).release()
+                    }
+                }.apply { start() }
+            )
+        }
+        started.await()
+    }
+
+    @After
+    fun teardown() {
+        running.set(false)
+        threads.forEach { it.join() }
+    }
+
+    @Test
+    fun acquireAndRelease() {
+        var argCount = 0
+        benchmarkRule.measureRepeated {
+            argCount = (argCount + 1) % MAX_ARG_COUNT
+            RoomSQLiteQuery.acquire(QUERY, argCount).release()
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "contendingThreads={0}")
+        fun data(): List<Int> = listOf(0, 1, 3, 7)
+
+        private const val QUERY = "SELECT * FROM User WHERE id IN (?)"
+        private const val MAX_ARG_COUNT = 8
+    }
+}
@@ -40,6 +40,9 @@ import com.squareup.javapoet.TypeSpec
  */
 class InsertMethodAdapter private constructor(private val insertionType: InsertionType) {
     companion object {
+        // matches the EntityInsertionAdapter method inserting multiple entities per statement
+        private const val BATCHED_INSERT_METHOD_NAME = "insertBatched"
+
         fun create(
             returnType: XType,
             params: List<ShortcutQueryParameter>
@@ -149,10 +152,14 @@ class InsertMethodAdapter private constructor(private val insertionType: Inserti
                             param.name
                         )
                     } else {
-                        addStatement(
-                            "$N.$L($L)", insertionAdapter, insertionType.methodName,
-                            param.name
-                        )
+                        // Multi-row statements cannot report the row id of each entity, so only
+                        // insertions without a result are batched.
+                        val methodName = if (param.isMultiple) {
+                            BATCHED_INSERT_METHOD_NAME
+                        } else {
+                            insertionType.methodName
+                        }
+                        addStatement("$N.$L($L)", insertionAdapter, methodName, param.name)
                     }
                 }
                 addStatement("$N.setTransactionSuccessful()", dbField)
@@ -100,7 +100,7 @@ public final class WriterDao_Impl implements WriterDao {
         __db.beginTransaction();
         try {
             __insertionAdapterOfUser.insert(user1);
-            __insertionAdapterOfUser.insert(others);
+            __insertionAdapterOfUser.insertBatched(others);
             __db.setTransactionSuccessful();
         } finally {
             __db.endTransaction();
@@ -112,7 +112,7 @@ public final class WriterDao_Impl implements WriterDao {
         __db.assertNotSuspendingTransaction();
         __db.beginTransaction();
         try {
-            __insertionAdapterOfUser_1.insert(users);
+            __insertionAdapterOfUser_1.insertBatched(users);
             __db.setTransactionSuccessful();
         } finally {
             __db.endTransaction();
@@ -44,6 +44,7 @@ import org.hamcrest.Matcher;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -83,6 +84,9 @@ public class OnConflictStrategyTest {
 
         @Query("SELECT name FROM Animal")
         List<String> allNames();
+
+        @Query("SELECT COUNT(*) FROM Animal")
+        int count();
     }
 
     @Test
@@ -123,6 +127,48 @@ public class OnConflictStrategyTest {
         assertThat(db.animal().allNames(), are("Dog", "Cat", "Monkey"));
     }
 
+    @Test
+    public void insertOrAbort_multipleBatches() {
+        final OnConflictStrategyDatabase db = openDatabase();
+        final List<Animal> animals = createAnimals(1200);
+        animals.add(new Animal(1100, "Duplicate"));
+        try {
+            db.animal().insertOrAbort(animals);
+            fail("Was expecting an exception");
+        } catch (SQLiteConstraintException e) {
+            assertThat(e.getMessage(), is(notNullValue()));
+        }
+        assertThat(db.animal().count(), is(0));
+    }
+
+    @Test
+    public void insertOrReplace_multipleBatches() {
+        final OnConflictStrategyDatabase db = openDatabase();
+        final List<Animal> animals = createAnimals(1200);
+        animals.add(new Animal(3, "Replaced"));
+        db.animal().insertOrReplace(animals);
+        assertThat(db.animal().count(), is(1200));
+        assertThat(db.animal().allNames(), hasItems("Replaced", "Animal1199"));
+    }
+
+    @Test
+    public void insertOrIgnore_multipleBatches() {
+        final OnConflictStrategyDatabase db = openDatabase();
+        final List<Animal> animals = createAnimals(1200);
+        animals.add(new Animal(3, "Ignored"));
+        db.animal().insertOrIgnore(animals);
+        assertThat(db.animal().count(), is(1200));
+        assertThat(db.animal().allNames(), hasItems("Animal3", "Animal1199"));
+    }
+
+    private static List<Animal> createAnimals(int count) {
+        final List<Animal> animals = new ArrayList<>(count + 1);
+        for (int i = 0; i < count; i++) {
+            animals.add(new Animal(i, "Animal" + i));
+        }
+        return animals;
+    }
+
     @SuppressWarnings("unchecked")
     private <E> Matcher<Collection<E>> are(E... args) {
         return allOf((Matcher<? super Collection<E>>) hasSize(args.length), hasItems(args));
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.database.Cursor;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.SupportSQLiteQuery;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.Executor;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class ReaderConnectionRoutingTest {
+    private static final Executor DIRECT_EXECUTOR = Runnable::run;
+
+    private SupportSQLiteOpenHelper mOpenHelper = mock(SupportSQLiteOpenHelper.class);
+    private SupportSQLiteDatabase mWriter = mock(SupportSQLiteDatabase.class);
+    private SupportSQLiteDatabase mReader = mock(SupportSQLiteDatabase.class);
+
+    @Before
+    public void init() {
+        when(mOpenHelper.getWritableDatabase()).thenReturn(mWriter);
+        when(mOpenHelper.getReadableDatabase()).thenReturn(mReader);
+        when(mWriter.query(any(SupportSQLiteQuery.class))).thenReturn(mock(Cursor.class));
+        when(mReader.query(any(SupportSQLiteQuery.class))).thenReturn(mock(Cursor.class));
+    }
+
+    @Test
+    public void selectQuery_usesReader() {
+        RoomDatabase db = createDatabase(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING, true);
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("  select * from Foo", 0);
+
+        db.query(query);
+
+        verify(mReader).query(query);
+        verify(mWriter, never()).query(any(SupportSQLiteQuery.class));
+    }
+
+    @Test
+    public void writeQuery_usesWriter() {
+        RoomDatabase db = createDatabase(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING, true);
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("DELETE FROM Foo", 0);
+
+        db.query(query);
+
+        verify(mWriter).query(query);
+        verify(mOpenHelper, never()).getReadableDatabase();
+    }
+
+    @Test
+    public void nonRoomQuery_usesWriter() {
+        RoomDatabase db = createDatabase(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING, true);
+        SimpleSQLiteQuery query = new SimpleSQLiteQuery("SELECT * FROM Foo");
+
+        db.query(query);
+
+        verify(mWriter).query(query);
+        verify(mOpenHelper, never()).getReadableDatabase();
+    }
+
+    @Test
+    public void compileStatement_usesWriter() {
+        RoomDatabase db = createDatabase(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING, true);
+
+        db.compileStatement("INSERT INTO Foo VALUES(?)");
+
+        verify(mWriter).compileStatement(anyString());
+        verify(mOpenHelper, never()).getReadableDatabase();
+    }
+
+    @Test
+    public void selectQueryInTransaction_usesWriter() {
+        RoomDatabase db = createDatabase(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING, true);
+        when(mWriter.inTransaction()).thenReturn(true);
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("SELECT * FROM Foo", 0);
+
+        db.query(query);
+
+        verify(mWriter).query(query);
+        verify(mOpenHelper, never()).getReadableDatabase();
+    }
+
+    @Test
+    public void selectQuery_walDisabled_usesWriter() {
+        RoomDatabase db = createDatabase(RoomDatabase.JournalMode.TRUNCATE, true);
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("SELECT * FROM Foo", 0);
+
+        db.query(query);
+
+        verify(mWriter).query(query);
+        verify(mOpenHelper, never()).getReadableDatabase();
+    }
+
+    @Test
+    public void selectQuery_routingDisabled_usesWriter() {
+        RoomDatabase db = createDatabase(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING, false);
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("SELECT * FROM Foo", 0);
+
+        db.query(query);
+
+        verify(mWriter).query(query);
+        verify(mOpenHelper, never()).getReadableDatabase();
+    }
+
+    private RoomDatabase createDatabase(RoomDatabase.JournalMode journalMode,
+            boolean readerConnectionRouting) {
+        DatabaseConfiguration configuration = new DatabaseConfiguration(
+                ApplicationProvider.getApplicationContext(),
+                "test.db",
+                config -> mOpenHelper,
+                new RoomDatabase.MigrationContainer(),
+                null,
+                true,
+                journalMode,
+                DIRECT_EXECUTOR,
+                DIRECT_EXECUTOR,
+                false,
+                false,
+                false,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                false,
+                readerConnectionRouting);
+        RoomDatabase db = new TestDatabase();
+        db.init(configuration);
+        return db;
+    }
+
+    static class TestDatabase extends RoomDatabase {
+        @Override
+        protected SupportSQLiteOpenHelper createOpenHelper(DatabaseConfiguration config) {
+            return config.sqliteOpenHelperFactory.create(
+                    SupportSQLiteOpenHelper.Configuration.builder(config.context)
+                            .name(config.name)
+                            .callback(mock(SupportSQLiteOpenHelper.Callback.class))
+                            .build());
+        }
+
+        @Override
+        protected InvalidationTracker createInvalidationTracker() {
+            return mock(InvalidationTracker.class);
+        }
+
+        @Override
+        public void clearAllTables() {
+        }
+    }
+}
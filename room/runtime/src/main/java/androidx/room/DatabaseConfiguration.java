@@ -69,6 +69,18 @@ public class DatabaseConfiguration {
     @NonNull
     public final List<Object> typeConverters;
 
+    /**
+     * If true, the {@link InvalidationTracker} keeps a version per table rather than an
+     * invalidated flag.
+     */
+    public final boolean versionedInvalidation;
+
+    /**
+     * If true, read-only queries run outside of transactions use
+     * {@link SupportSQLiteOpenHelper#getReadableDatabase()}.
+     */
+    public final boolean readerConnectionRouting;
+
     /**
      * Whether Room should throw an exception for queries run on the main thread.
      */
@@ -140,7 +152,7 @@ public class DatabaseConfiguration {
      * @deprecated Use {@link #DatabaseConfiguration(Context, String,
      * SupportSQLiteOpenHelper.Factory, RoomDatabase.MigrationContainer, List, boolean,
      * RoomDatabase.JournalMode, Executor, Executor, boolean, boolean, boolean, Set, String, File,
-     * Callable, RoomDatabase.PrepackagedDatabaseCallback, List<Object>)}
+     * Callable, RoomDatabase.PrepackagedDatabaseCallback, List<Object>, boolean, boolean)}
      *
      * @param context The application context.
      * @param name Name of the database, can be null if it is in memory.
@@ -179,7 +191,7 @@ public class DatabaseConfiguration {
      * @deprecated Use {@link #DatabaseConfiguration(Context, String,
      * SupportSQLiteOpenHelper.Factory, RoomDatabase.MigrationContainer, List, boolean,
      * RoomDatabase.JournalMode, Executor, Executor, boolean, boolean, boolean, Set, String, File,
-     * Callable, RoomDatabase.PrepackagedDatabaseCallback, List<Object>)}
+     * Callable, RoomDatabase.PrepackagedDatabaseCallback, List<Object>, boolean, boolean)}
      *
      * @param context The application context.
      * @param name Name of the database, can be null if it is in memory.
@@ -225,7 +237,7 @@ public class DatabaseConfiguration {
      * @deprecated Use {@link #DatabaseConfiguration(Context, String,
      * SupportSQLiteOpenHelper.Factory, RoomDatabase.MigrationContainer, List, boolean,
      * RoomDatabase.JournalMode, Executor, Executor, boolean, boolean, boolean, Set, String, File,
-     * Callable, RoomDatabase.PrepackagedDatabaseCallback, List<Object>)}
+     * Callable, RoomDatabase.PrepackagedDatabaseCallback, List<Object>, boolean, boolean)}
      *
      * @param context The application context.
      * @param name Name of the database, can be null if it is in memory.
@@ -275,7 +287,7 @@ public class DatabaseConfiguration {
      * @deprecated Use {@link #DatabaseConfiguration(Context, String,
      * SupportSQLiteOpenHelper.Factory, RoomDatabase.MigrationContainer, List, boolean,
      * RoomDatabase.JournalMode, Executor, Executor, boolean, boolean, boolean, Set, String, File,
-     * Callable, RoomDatabase.PrepackagedDatabaseCallback, List<Object>)}
+     * Callable, RoomDatabase.PrepackagedDatabaseCallback, List<Object>, boolean, boolean)}
      *
      * @param context The application context.
      * @param name Name of the database, can be null if it is in memory.
@@ -329,7 +341,7 @@ public class DatabaseConfiguration {
       * @deprecated Use {@link #DatabaseConfiguration(Context, String,
      * SupportSQLiteOpenHelper.Factory, RoomDatabase.MigrationContainer, List, boolean,
      * RoomDatabase.JournalMode, Executor, Executor, boolean, boolean, boolean, Set, String, File,
-     * Callable, RoomDatabase.PrepackagedDatabaseCallback, List<Object>)}
+     * Callable, RoomDatabase.PrepackagedDatabaseCallback, List<Object>, boolean, boolean)}
      *
      * @param context The application context.
      * @param name Name of the database, can be null if it is in memory.
@@ -383,6 +395,11 @@ public class DatabaseConfiguration {
     /**
      * Creates a database configuration with the given values.
      *
+     * @deprecated Use {@link #DatabaseConfiguration(Context, String,
+     * SupportSQLiteOpenHelper.Factory, RoomDatabase.MigrationContainer, List, boolean,
+     * RoomDatabase.JournalMode, Executor, Executor, boolean, boolean, boolean, Set, String, File,
+     * Callable, RoomDatabase.PrepackagedDatabaseCallback, List<Object>, boolean, boolean)}
+     *
      * @param context The application context.
      * @param name Name of the database, can be null if it is in memory.
      * @param sqliteOpenHelperFactory The open helper factory to use.
@@ -407,6 +424,7 @@ public class DatabaseConfiguration {
      *
      * @hide
      */
+    @Deprecated
     @SuppressLint("LambdaLast")
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
     public DatabaseConfiguration(@NonNull Context context, @Nullable String name,
@@ -426,6 +444,65 @@ public class DatabaseConfiguration {
             @Nullable Callable<InputStream> copyFromInputStream,
             @Nullable RoomDatabase.PrepackagedDatabaseCallback prepackagedDatabaseCallback,
             @Nullable List<Object> typeConverters) {
+        this(context, name, sqliteOpenHelperFactory, migrationContainer, callbacks,
+                allowMainThreadQueries, journalMode, queryExecutor, transactionExecutor,
+                multiInstanceInvalidation, requireMigration, allowDestructiveMigrationOnDowngrade,
+                migrationNotRequiredFrom, copyFromAssetPath, copyFromFile, copyFromInputStream,
+                prepackagedDatabaseCallback, typeConverters, false, false);
+    }
+
+    /**
+     * Creates a database configuration with the given values.
+     *
+     * @param context The application context.
+     * @param name Name of the database, can be null if it is in memory.
+     * @param sqliteOpenHelperFactory The open helper factory to use.
+     * @param migrationContainer The migration container for migrations.
+     * @param callbacks The list of callbacks for database events.
+     * @param allowMainThreadQueries Whether to allow main thread reads/writes or not.
+     * @param journalMode The journal mode. This has to be either TRUNCATE or WRITE_AHEAD_LOGGING.
+     * @param queryExecutor The Executor used to execute asynchronous queries.
+     * @param transactionExecutor The Executor used to execute asynchronous transactions.
+     * @param multiInstanceInvalidation True if Room should perform multi-instance invalidation.
+     * @param requireMigration True if Room should require a valid migration if version changes,
+     * @param allowDestructiveMigrationOnDowngrade True if Room should recreate tables if no
+     *                                             migration is supplied during a downgrade.
+     * @param migrationNotRequiredFrom The collection of schema versions from which migrations
+     *                                 aren't required.
+     * @param copyFromAssetPath The assets path to the pre-packaged database.
+     * @param copyFromFile The pre-packaged database file.
+     * @param copyFromInputStream The callable to get the input stream from which a
+     *                            pre-package database file will be copied from.
+     * @param prepackagedDatabaseCallback The pre-packaged callback.
+     * @param typeConverters The type converters.
+     * @param versionedInvalidation True if Room should track a version per table rather than an
+     *                              invalidated flag.
+     * @param readerConnectionRouting True if Room should run read-only queries outside of
+     *                                transactions on the readable database.
+     *
+     * @hide
+     */
+    @SuppressLint("LambdaLast")
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    public DatabaseConfiguration(@NonNull Context context, @Nullable String name,
+            @NonNull SupportSQLiteOpenHelper.Factory sqliteOpenHelperFactory,
+            @NonNull RoomDatabase.MigrationContainer migrationContainer,
+            @Nullable List<RoomDatabase.Callback> callbacks,
+            boolean allowMainThreadQueries,
+            @NonNull RoomDatabase.JournalMode journalMode,
+            @NonNull Executor queryExecutor,
+            @NonNull Executor transactionExecutor,
+            boolean multiInstanceInvalidation,
+            boolean requireMigration,
+            boolean allowDestructiveMigrationOnDowngrade,
+            @Nullable Set<Integer> migrationNotRequiredFrom,
+            @Nullable String copyFromAssetPath,
+            @Nullable File copyFromFile,
+            @Nullable Callable<InputStream> copyFromInputStream,
+            @Nullable RoomDatabase.PrepackagedDatabaseCallback prepackagedDatabaseCallback,
+            @Nullable List<Object> typeConverters,
+            boolean versionedInvalidation,
+            boolean readerConnectionRouting) {
         this.sqliteOpenHelperFactory = sqliteOpenHelperFactory;
         this.context = context;
         this.name = name;
@@ -444,6 +521,8 @@ public class DatabaseConfiguration {
         this.copyFromInputStream = copyFromInputStream;
         this.prepackagedDatabaseCallback = prepackagedDatabaseCallback;
         this.typeConverters = typeConverters == null ? Collections.emptyList() : typeConverters;
+        this.versionedInvalidation = versionedInvalidation;
+        this.readerConnectionRouting = readerConnectionRouting;
     }
 
     /**
@@ -16,10 +16,15 @@
 
 package androidx.room;
 
+import android.os.Build;
+
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.sqlite.db.SupportSQLiteStatement;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
@@ -34,6 +39,25 @@ import java.util.List;
 @SuppressWarnings({"WeakerAccess", "unused"})
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
 public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
+    /**
+     * The default maximum number of bind arguments of a single statement,
+     * SQLITE_MAX_VARIABLE_NUMBER.
+     */
+    private static final int MAX_BIND_ARGS = 999;
+
+    /**
+     * The maximum number of rows of a single VALUES clause in SQLite versions prior to 3.8.8,
+     * which counted each row as a term of a compound SELECT.
+     */
+    private static final int MAX_ROWS_PER_STATEMENT = 500;
+
+    private final RoomDatabase mDatabase;
+
+    // Lazily parsed from createQuery(), the statement inserting the largest batch is shared like
+    // the single row statement of this adapter.
+    private volatile BatchInsertStatement mBatchStmt;
+    private volatile boolean mBatchUnsupported;
+
     /**
      * Creates an InsertionAdapter that can insert the entity type T into the given database.
      *
@@ -41,6 +65,7 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      */
     public EntityInsertionAdapter(RoomDatabase database) {
         super(database);
+        mDatabase = database;
     }
 
     /**
@@ -248,4 +273,256 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
             release(stmt);
         }
     }
+
+    /**
+     * Inserts the given entities into the database using multi-row {@code INSERT} statements.
+     * <p>
+     * Each statement inserts as many entities as fit in SQLite's bind argument limit, so bulk
+     * insertions pay the statement execution overhead once per batch rather than once per
+     * entity. SQLite inserts the rows of a statement in order and applies the conflict
+     * algorithm of the insert query to each of them, so the end result of a successful insertion
+     * is the same as {@link #insert(Iterable)}. If a conflict aborts the insertion, the rows of
+     * the failing batch are not inserted either, hence this method should be called in a
+     * transaction like all generated insert methods.
+     * <p>
+     * Falls back to {@link #insert(Iterable)} when the insert query cannot be batched or the
+     * platform's SQLite predates multi-row VALUES clauses.
+     *
+     * @param entities Entities to insert
+     */
+    public final void insertBatched(Iterable<? extends T> entities) {
+        final List<? extends T> list;
+        if (entities instanceof List) {
+            list = (List<? extends T>) entities;
+        } else {
+            final ArrayList<T> copy = new ArrayList<>();
+            for (T entity : entities) {
+                copy.add(entity);
+            }
+            list = copy;
+        }
+        final BatchInsertStatement batchStmt = list.size() > 1 ? getBatchStatement() : null;
+        if (batchStmt == null) {
+            insert(list);
+            return;
+        }
+        batchStmt.insert(list);
+    }
+
+    /**
+     * Inserts the given entities into the database using multi-row {@code INSERT} statements.
+     *
+     * @param entities Entities to insert
+     * @see #insertBatched(Iterable)
+     */
+    public final void insertBatched(T[] entities) {
+        insertBatched(Arrays.asList(entities));
+    }
+
+    @Nullable
+    private BatchInsertStatement getBatchStatement() {
+        if (mBatchUnsupported) {
+            return null;
+        }
+        BatchInsertStatement batchStmt = mBatchStmt;
+        if (batchStmt == null) {
+            // Multi-row VALUES clauses require SQLite 3.7.11, available since Jelly Bean.
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                batchStmt = BatchInsertStatement.create(this, mDatabase, createQuery());
+            }
+            if (batchStmt == null) {
+                mBatchUnsupported = true;
+            } else {
+                mBatchStmt = batchStmt;
+            }
+        }
+        return batchStmt;
+    }
+
+    /**
+     * A multi-row form of the insert query of an {@link EntityInsertionAdapter}. The statement
+     * inserting a full batch is shared, the last partial batch of an insertion uses a one-off
+     * statement.
+     */
+    private static final class BatchInsertStatement extends SharedSQLiteStatement {
+        private final EntityInsertionAdapter<?> mAdapter;
+        private final RoomDatabase mDatabase;
+        // The insert query up to and including its first row of bind arguments.
+        private final String mQuery;
+        private final String mRowValues;
+        private final int mArgsPerRow;
+        private final int mRowsPerBatch;
+
+        private BatchInsertStatement(EntityInsertionAdapter<?> adapter, RoomDatabase database,
+                String query, String rowValues, int argsPerRow) {
+            super(database);
+            mAdapter = adapter;
+            mDatabase = database;
+            mQuery = query;
+            mRowValues = rowValues;
+            mArgsPerRow = argsPerRow;
+            mRowsPerBatch = Math.min(MAX_BIND_ARGS / argsPerRow, MAX_ROWS_PER_STATEMENT);
+        }
+
+        /**
+         * Returns a batch statement for the given single row insert query, or null if the query
+         * does not end with a VALUES clause that can be repeated.
+         */
+        @Nullable
+        static BatchInsertStatement create(EntityInsertionAdapter<?> adapter,
+                RoomDatabase database, String query) {
+            final int valuesIndex = query.lastIndexOf(" VALUES (");
+            if (valuesIndex < 0 || !query.endsWith(")")) {
+                return null;
+            }
+            final String rowValues = query.substring(valuesIndex + " VALUES ".length());
+            int argsPerRow = 0;
+            for (int i = 0; i < rowValues.length(); i++) {
+                if (rowValues.charAt(i) == '?') {
+                    argsPerRow++;
+                }
+            }
+            if (argsPerRow == 0 || argsPerRow > MAX_BIND_ARGS / 2) {
+                return null;
+            }
+            return new BatchInsertStatement(adapter, database, query, rowValues, argsPerRow);
+        }
+
+        @Override
+        protected String createQuery() {
+            return createQuery(mRowsPerBatch);
+        }
+
+        private String createQuery(int rows) {
+            final StringBuilder builder = new StringBuilder(
+                    mQuery.length() + (rows - 1) * (mRowValues.length() + 1));
+            builder.append(mQuery);
+            for (int i = 1; i < rows; i++) {
+                builder.append(',').append(mRowValues);
+            }
+            return builder.toString();
+        }
+
+        @SuppressWarnings("unchecked")
+        void insert(List<?> entities) {
+            final EntityInsertionAdapter<Object> adapter =
+                    (EntityInsertionAdapter<Object>) mAdapter;
+            final int size = entities.size();
+            final int fullBatchesEnd = size - size % mRowsPerBatch;
+            int index = 0;
+            if (fullBatchesEnd > 0) {
+                final SupportSQLiteStatement stmt = acquire();
+                try {
+                    final OffsetStatement offsetStmt = new OffsetStatement(stmt);
+                    while (index < fullBatchesEnd) {
+                        index = bindBatch(adapter, offsetStmt, entities, index, mRowsPerBatch);
+                        stmt.executeInsert();
+                    }
+                } finally {
+                    release(stmt);
+                }
+            }
+            final int remaining = size - index;
+            if (remaining == 1) {
+                adapter.insert(entities.get(index));
+            } else if (remaining > 1) {
+                assertNotMainThread();
+                final SupportSQLiteStatement stmt = mDatabase.compileStatement(
+                        createQuery(remaining));
+                try {
+                    bindBatch(adapter, new OffsetStatement(stmt), entities, index, remaining);
+                    stmt.executeInsert();
+                } finally {
+                    try {
+                        stmt.close();
+                    } catch (IOException ignored) {
+                        // the statement is discarded either way
+                    }
+                }
+            }
+        }
+
+        private int bindBatch(EntityInsertionAdapter<Object> adapter, OffsetStatement stmt,
+                List<?> entities, int index, int rows) {
+            for (int row = 0; row < rows; row++) {
+                stmt.mOffset = row * mArgsPerRow;
+                adapter.bind(stmt, entities.get(index++));
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Shifts the bind argument indices of a statement so that the generated {@link #bind}
+     * methods, which bind the first row of arguments, can bind any row of a batch. Everything
+     * else is forwarded to the statement as is, except {@link #close()}.
+     */
+    private static final class OffsetStatement implements SupportSQLiteStatement {
+        private final SupportSQLiteStatement mDelegate;
+        int mOffset;
+
+        OffsetStatement(SupportSQLiteStatement delegate) {
+            mDelegate = delegate;
+        }
+
+        @Override
+        public void bindNull(int index) {
+            mDelegate.bindNull(index + mOffset);
+        }
+
+        @Override
+        public void bindLong(int index, long value) {
+            mDelegate.bindLong(index + mOffset, value);
+        }
+
+        @Override
+        public void bindDouble(int index, double value) {
+            mDelegate.bindDouble(index + mOffset, value);
+        }
+
+        @Override
+        public void bindString(int index, String value) {
+            mDelegate.bindString(index + mOffset, value);
+        }
+
+        @Override
+        public void bindBlob(int index, byte[] value) {
+            mDelegate.bindBlob(index + mOffset, value);
+        }
+
+        @Override
+        public void clearBindings() {
+            mDelegate.clearBindings();
+        }
+
+        @Override
+        public void execute() {
+            mDelegate.execute();
+        }
+
+        @Override
+        public int executeUpdateDelete() {
+            return mDelegate.executeUpdateDelete();
+        }
+
+        @Override
+        public long executeInsert() {
+            return mDelegate.executeInsert();
+        }
+
+        @Override
+        public long simpleQueryForLong() {
+            return mDelegate.simpleQueryForLong();
+        }
+
+        @Override
+        public String simpleQueryForString() {
+            return mDelegate.simpleQueryForString();
+        }
+
+        @Override
+        public void close() {
+            // the delegate is owned by the batch statement
+        }
+    }
 }
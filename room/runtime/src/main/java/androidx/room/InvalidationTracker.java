@@ -36,6 +36,7 @@ import androidx.sqlite.db.SupportSQLiteStatement;
 
 import java.lang.ref.WeakReference;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -61,6 +62,16 @@ import java.util.concurrent.locks.Lock;
 // memory table table, flipping the invalidated flag ON.
 // * When multi-instance invalidation is turned on, MultiInstanceInvalidationClient will be created.
 // It works as an Observer, and notifies other instances of table invalidation.
+// * When versioned invalidation is turned on, the memory table holds a version per table instead of
+// a flag, and an extra row with table_id -1 holds the latest version given to any table. A write
+// on an observed table moves the table to a new latest version unless it already holds it, so
+// refreshing only needs to read the latest version to know whether anything changed and, if so,
+// the tables with a version newer than the last refresh. Refreshing then bumps the latest version
+// instead of clearing flags, which makes the next write on any table visible again.
+// * Tables observed by at least one RowObserver get additional triggers which record the rowid of
+// each modified row into another memory table, (table_id, row_id). When one of these tables is
+// invalidated, the refresh also reads and clears the recorded rows and hands them to the
+// RowObservers.
 public class InvalidationTracker {
 
     private static final String[] TRIGGERS = new String[]{"UPDATE", "DELETE", "INSERT"};
@@ -83,6 +94,68 @@ public class InvalidationTracker {
     static final String SELECT_UPDATED_TABLES_SQL = "SELECT * FROM " + UPDATE_TABLE_NAME
             + " WHERE " + INVALIDATED_COLUMN_NAME + " = 1;";
 
+    private static final String VERSION_TABLE_NAME = "room_table_version_log";
+
+    private static final String VERSION_COLUMN_NAME = "version";
+
+    // table_id of the row holding the latest version given to any table.
+    private static final int LATEST_VERSION_ROW_ID = -1;
+
+    // The latest version when tracking starts, greater than the initial version of every table.
+    private static final long INITIAL_LATEST_VERSION = 1;
+
+    private static final String CREATE_VERSION_TABLE_SQL = "CREATE TEMP TABLE "
+            + VERSION_TABLE_NAME + "(" + TABLE_ID_COLUMN_NAME + " INTEGER PRIMARY KEY, "
+            + VERSION_COLUMN_NAME + " INTEGER NOT NULL DEFAULT 0)";
+
+    private static final String INSERT_LATEST_VERSION_SQL = "INSERT OR IGNORE INTO "
+            + VERSION_TABLE_NAME + " VALUES(" + LATEST_VERSION_ROW_ID + ", "
+            + INITIAL_LATEST_VERSION + ")";
+
+    private static final String LATEST_VERSION_SELECTION = "(SELECT " + VERSION_COLUMN_NAME
+            + " FROM " + VERSION_TABLE_NAME + " WHERE " + TABLE_ID_COLUMN_NAME + " = "
+            + LATEST_VERSION_ROW_ID + ")";
+
+    @VisibleForTesting
+    static final String SELECT_LATEST_VERSION_SQL = "SELECT " + VERSION_COLUMN_NAME + " FROM "
+            + VERSION_TABLE_NAME + " WHERE " + TABLE_ID_COLUMN_NAME + " = "
+            + LATEST_VERSION_ROW_ID;
+
+    @VisibleForTesting
+    static final String BUMP_LATEST_VERSION_SQL = "UPDATE " + VERSION_TABLE_NAME
+            + " SET " + VERSION_COLUMN_NAME + " = " + VERSION_COLUMN_NAME + " + 1"
+            + " WHERE " + TABLE_ID_COLUMN_NAME + " = " + LATEST_VERSION_ROW_ID;
+
+    @VisibleForTesting
+    static final String SELECT_TABLES_UPDATED_SINCE_SQL = "SELECT " + TABLE_ID_COLUMN_NAME
+            + " FROM " + VERSION_TABLE_NAME + " WHERE " + TABLE_ID_COLUMN_NAME + " >= 0 AND "
+            + VERSION_COLUMN_NAME + " > ?";
+
+    private static final String ROW_UPDATE_TABLE_NAME = "room_row_modification_log";
+
+    private static final String ROW_ID_COLUMN_NAME = "row_id";
+
+    private static final String CREATE_ROW_TRACKING_TABLE_SQL = "CREATE TEMP TABLE "
+            + ROW_UPDATE_TABLE_NAME + "(" + TABLE_ID_COLUMN_NAME + " INTEGER NOT NULL, "
+            + ROW_ID_COLUMN_NAME + " INTEGER NOT NULL, "
+            + "PRIMARY KEY(" + TABLE_ID_COLUMN_NAME + ", " + ROW_ID_COLUMN_NAME + "))";
+
+    @VisibleForTesting
+    static final String SELECT_UPDATED_ROWS_SQL = "SELECT " + TABLE_ID_COLUMN_NAME + ", "
+            + ROW_ID_COLUMN_NAME + " FROM " + ROW_UPDATE_TABLE_NAME
+            + " ORDER BY " + TABLE_ID_COLUMN_NAME;
+
+    @VisibleForTesting
+    static final String RESET_UPDATED_ROWS_SQL = "DELETE FROM " + ROW_UPDATE_TABLE_NAME;
+
+    /**
+     * The maximum number of modified rows reported for a table by a single refresh. Beyond it,
+     * {@link RowObserver}s are told that the rows of the table are unknown, as reloading the whole
+     * table is then likely cheaper for them than going through the rows.
+     */
+    @VisibleForTesting
+    static final int MAX_TRACKED_ROWS_PER_TABLE = 1000;
+
     @NonNull
     final HashMap<String, Integer> mTableIdLookup;
     final String[] mTableNames;
@@ -103,8 +176,21 @@ public class InvalidationTracker {
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     volatile SupportSQLiteStatement mCleanupStatement;
 
+    private boolean mVersionedInvalidation;
+
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    volatile SupportSQLiteStatement mLatestVersionStatement;
+
+    // The latest version bumped to by the last refresh, tables with a newer version are
+    // invalidated.
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    volatile long mRefreshedVersion;
+
     private ObservedTableTracker mObservedTableTracker;
 
+    // Tracks the tables observed by RowObservers, which need row triggers.
+    private ObservedTableTracker mRowObservedTableTracker;
+
     private final InvalidationLiveDataContainer mInvalidationLiveDataContainer;
 
     // should be accessed with synchronization only.
@@ -137,6 +223,7 @@ public class InvalidationTracker {
             Map<String, Set<String>> viewTables, String... tableNames) {
         mDatabase = database;
         mObservedTableTracker = new ObservedTableTracker(tableNames.length);
+        mRowObservedTableTracker = new ObservedTableTracker(tableNames.length);
         mTableIdLookup = new HashMap<>();
         mViewTables = viewTables;
         mInvalidationLiveDataContainer = new InvalidationLiveDataContainer(mDatabase);
@@ -180,6 +267,17 @@ public class InvalidationTracker {
         mAutoCloser.setAutoCloseCallback(this::onAutoCloseCallback);
     }
 
+    /**
+     * Makes this tracker keep a version per table rather than an invalidated flag, so that
+     * refreshing does not query the modified tables nor write anything until an observed table
+     * is written to.
+     * <p>
+     * This must be called before the database is used.
+     */
+    void enableVersionedInvalidation() {
+        mVersionedInvalidation = true;
+    }
+
     /**
      * Internal method to initialize table tracking.
      * <p>
@@ -196,9 +294,19 @@ public class InvalidationTracker {
             // performed on a transaction, and recursive_triggers is not affected by transactions.
             database.execSQL("PRAGMA temp_store = MEMORY;");
             database.execSQL("PRAGMA recursive_triggers='ON';");
-            database.execSQL(CREATE_TRACKING_TABLE_SQL);
-            syncTriggers(database);
-            mCleanupStatement = database.compileStatement(RESET_UPDATED_TABLES_SQL);
+            database.execSQL(CREATE_ROW_TRACKING_TABLE_SQL);
+            if (mVersionedInvalidation) {
+                database.execSQL(CREATE_VERSION_TABLE_SQL);
+                database.execSQL(INSERT_LATEST_VERSION_SQL);
+                mRefreshedVersion = INITIAL_LATEST_VERSION;
+                syncTriggers(database);
+                mLatestVersionStatement = database.compileStatement(SELECT_LATEST_VERSION_SQL);
+                mCleanupStatement = database.compileStatement(BUMP_LATEST_VERSION_SQL);
+            } else {
+                database.execSQL(CREATE_TRACKING_TABLE_SQL);
+                syncTriggers(database);
+                mCleanupStatement = database.compileStatement(RESET_UPDATED_TABLES_SQL);
+            }
             mInitialized = true;
         }
     }
@@ -207,6 +315,7 @@ public class InvalidationTracker {
         synchronized (this) {
             mInitialized = false;
             mObservedTableTracker.resetTriggerState();
+            mRowObservedTableTracker.resetTriggerState();
         }
     }
 
@@ -244,6 +353,10 @@ public class InvalidationTracker {
     }
 
     private void startTrackingTable(SupportSQLiteDatabase writableDb, int tableId) {
+        if (mVersionedInvalidation) {
+            startTrackingTableVersion(writableDb, tableId);
+            return;
+        }
         writableDb.execSQL(
                 "INSERT OR IGNORE INTO " + UPDATE_TABLE_NAME + " VALUES(" + tableId + ", 0)");
         final String tableName = mTableNames[tableId];
@@ -266,6 +379,100 @@ public class InvalidationTracker {
         }
     }
 
+    private void stopTrackingRows(SupportSQLiteDatabase writableDb, int tableId) {
+        final String tableName = mTableNames[tableId];
+        StringBuilder stringBuilder = new StringBuilder();
+        for (String trigger : TRIGGERS) {
+            stringBuilder.setLength(0);
+            stringBuilder.append("DROP TRIGGER IF EXISTS ");
+            appendRowTriggerName(stringBuilder, tableName, trigger);
+            writableDb.execSQL(stringBuilder.toString());
+        }
+        writableDb.execSQL("DELETE FROM " + ROW_UPDATE_TABLE_NAME + " WHERE "
+                + TABLE_ID_COLUMN_NAME + " = " + tableId);
+    }
+
+    private void startTrackingRows(SupportSQLiteDatabase writableDb, int tableId) {
+        final String tableName = mTableNames[tableId];
+        StringBuilder stringBuilder = new StringBuilder();
+        for (String trigger : TRIGGERS) {
+            stringBuilder.setLength(0);
+            stringBuilder.append("CREATE TEMP TRIGGER IF NOT EXISTS ");
+            appendRowTriggerName(stringBuilder, tableName, trigger);
+            stringBuilder.append(" AFTER ")
+                    .append(trigger)
+                    .append(" ON `")
+                    .append(tableName)
+                    .append("` BEGIN");
+            // An update may change the rowid, in which case both rows are modified.
+            if (!"INSERT".equals(trigger)) {
+                appendRowInsertion(stringBuilder, tableId, "OLD");
+            }
+            if (!"DELETE".equals(trigger)) {
+                appendRowInsertion(stringBuilder, tableId, "NEW");
+            }
+            stringBuilder.append(" END");
+            writableDb.execSQL(stringBuilder.toString());
+        }
+    }
+
+    private static void appendRowTriggerName(StringBuilder builder, String tableName,
+            String triggerType) {
+        builder.append("`")
+                .append("room_row_modification_trigger_")
+                .append(tableName)
+                .append("_")
+                .append(triggerType)
+                .append("`");
+    }
+
+    private static void appendRowInsertion(StringBuilder builder, int tableId, String row) {
+        builder.append(" INSERT OR IGNORE INTO ")
+                .append(ROW_UPDATE_TABLE_NAME)
+                .append(" VALUES(").append(tableId).append(", ")
+                .append(row).append(".rowid);");
+    }
+
+    private void startTrackingTableVersion(SupportSQLiteDatabase writableDb, int tableId) {
+        // The table may keep a version from writes made before its tracking was stopped, which
+        // the next refresh would report. Resetting it marks the table as seen, while its next
+        // write still moves it to a new latest version.
+        writableDb.execSQL(
+                "INSERT OR REPLACE INTO " + VERSION_TABLE_NAME + " VALUES(" + tableId + ", 0)");
+        final String tableName = mTableNames[tableId];
+        final String tableVersionSelection = "(SELECT " + VERSION_COLUMN_NAME + " FROM "
+                + VERSION_TABLE_NAME + " WHERE " + TABLE_ID_COLUMN_NAME + " = " + tableId + ")";
+        StringBuilder stringBuilder = new StringBuilder();
+        for (String trigger : TRIGGERS) {
+            stringBuilder.setLength(0);
+            stringBuilder.append("CREATE TEMP TRIGGER IF NOT EXISTS ");
+            appendTriggerName(stringBuilder, tableName, trigger);
+            // Both updates are no-ops while the table holds the latest version, so that a burst
+            // of writes on the same table only pays for them once.
+            stringBuilder.append(" AFTER ")
+                    .append(trigger)
+                    .append(" ON `")
+                    .append(tableName)
+                    .append("` BEGIN UPDATE ")
+                    .append(VERSION_TABLE_NAME)
+                    .append(" SET ").append(VERSION_COLUMN_NAME).append(" = ")
+                    .append(VERSION_COLUMN_NAME).append(" + 1")
+                    .append(" WHERE ").append(TABLE_ID_COLUMN_NAME).append(" = ")
+                    .append(LATEST_VERSION_ROW_ID)
+                    .append(" AND ").append(VERSION_COLUMN_NAME).append(" > ")
+                    .append(tableVersionSelection)
+                    .append("; UPDATE ")
+                    .append(VERSION_TABLE_NAME)
+                    .append(" SET ").append(VERSION_COLUMN_NAME).append(" = ")
+                    .append(LATEST_VERSION_SELECTION)
+                    .append(" WHERE ").append(TABLE_ID_COLUMN_NAME).append(" = ").append(tableId)
+                    .append(" AND ").append(VERSION_COLUMN_NAME).append(" < ")
+                    .append(LATEST_VERSION_SELECTION)
+                    .append("; END");
+            writableDb.execSQL(stringBuilder.toString());
+        }
+    }
+
     /**
      * Adds the given observer to the observers list and it will be notified if any table it
      * observes changes.
@@ -302,8 +509,15 @@ public class InvalidationTracker {
         synchronized (mObserverMap) {
             currentObserver = mObserverMap.putIfAbsent(observer, wrapper);
         }
-        if (currentObserver == null && mObservedTableTracker.onAdded(tableIds)) {
-            syncTriggers();
+        if (currentObserver == null) {
+            // evaluate both, the row tracker must count the observer even if tables are tracked
+            boolean needsSync = mObservedTableTracker.onAdded(tableIds);
+            if (observer instanceof RowObserver) {
+                needsSync |= mRowObservedTableTracker.onAdded(tableIds);
+            }
+            if (needsSync) {
+                syncTriggers();
+            }
         }
     }
 
@@ -357,7 +571,11 @@ public class InvalidationTracker {
     @SuppressWarnings("unused")
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
     public void addWeakObserver(Observer observer) {
-        addObserver(new WeakObserver(this, observer));
+        if (observer instanceof RowObserver) {
+            addObserver(new WeakRowObserver(this, (RowObserver) observer));
+        } else {
+            addObserver(new WeakObserver(this, observer));
+        }
     }
 
     /**
@@ -376,8 +594,14 @@ public class InvalidationTracker {
         synchronized (mObserverMap) {
             wrapper = mObserverMap.remove(observer);
         }
-        if (wrapper != null && mObservedTableTracker.onRemoved(wrapper.mTableIds)) {
-            syncTriggers();
+        if (wrapper != null) {
+            boolean needsSync = mObservedTableTracker.onRemoved(wrapper.mTableIds);
+            if (observer instanceof RowObserver) {
+                needsSync |= mRowObservedTableTracker.onRemoved(wrapper.mTableIds);
+            }
+            if (needsSync) {
+                syncTriggers();
+            }
         }
     }
 
@@ -402,7 +626,8 @@ public class InvalidationTracker {
         @Override
         public void run() {
             final Lock closeLock = mDatabase.getCloseLock();
-            Set<Integer> invalidatedTableIds = null;
+            BitSet invalidatedTableIds = null;
+            long[][] modifiedRowIds = null;
             closeLock.lock();
             try {
 
@@ -422,6 +647,12 @@ public class InvalidationTracker {
                     return;
                 }
 
+                if (mVersionedInvalidation && !hasObservers()) {
+                    // Tables are untracked without observers and their versions are reset
+                    // once tracked again, so nothing written in the meantime is reported.
+                    return;
+                }
+
                 if (mDatabase.mWriteAheadLoggingEnabled) {
                     // This transaction has to be on the underlying DB rather than the RoomDatabase
                     // in order to avoid a recursive loop after endTransaction.
@@ -429,12 +660,14 @@ public class InvalidationTracker {
                     db.beginTransactionNonExclusive();
                     try {
                         invalidatedTableIds = checkUpdatedTable();
+                        modifiedRowIds = checkUpdatedRows(invalidatedTableIds);
                         db.setTransactionSuccessful();
                     } finally {
                         db.endTransaction();
                     }
                 } else {
                     invalidatedTableIds = checkUpdatedTable();
+                    modifiedRowIds = checkUpdatedRows(invalidatedTableIds);
                 }
             } catch (IllegalStateException | SQLiteException exception) {
                 // may happen if db is closed. just log.
@@ -450,20 +683,25 @@ public class InvalidationTracker {
             if (invalidatedTableIds != null && !invalidatedTableIds.isEmpty()) {
                 synchronized (mObserverMap) {
                     for (Map.Entry<Observer, ObserverWrapper> entry : mObserverMap) {
-                        entry.getValue().notifyByTableInvalidStatus(invalidatedTableIds);
+                        entry.getValue().notifyByTableInvalidStatus(invalidatedTableIds,
+                                modifiedRowIds);
                     }
                 }
             }
         }
 
-        private Set<Integer> checkUpdatedTable() {
-            HashSet<Integer> invalidatedTableIds = new HashSet<>();
+        @Nullable
+        private BitSet checkUpdatedTable() {
+            if (mVersionedInvalidation) {
+                return checkUpdatedTableVersions();
+            }
+            BitSet invalidatedTableIds = new BitSet(mTableNames.length);
             Cursor cursor = mDatabase.query(new SimpleSQLiteQuery(SELECT_UPDATED_TABLES_SQL));
             //noinspection TryFinallyCanBeTryWithResources
             try {
                 while (cursor.moveToNext()) {
                     final int tableId = cursor.getInt(0);
-                    invalidatedTableIds.add(tableId);
+                    invalidatedTableIds.set(tableId);
                 }
             } finally {
                 cursor.close();
@@ -473,8 +711,88 @@ public class InvalidationTracker {
             }
             return invalidatedTableIds;
         }
+
+        @Nullable
+        private BitSet checkUpdatedTableVersions() {
+            final long latestVersion = mLatestVersionStatement.simpleQueryForLong();
+            final long refreshedVersion = mRefreshedVersion;
+            if (latestVersion == refreshedVersion) {
+                // no observed table was written since the last refresh
+                return null;
+            }
+            BitSet invalidatedTableIds = new BitSet(mTableNames.length);
+            Cursor cursor = mDatabase.query(new SimpleSQLiteQuery(SELECT_TABLES_UPDATED_SINCE_SQL,
+                    new Object[]{refreshedVersion}));
+            //noinspection TryFinallyCanBeTryWithResources
+            try {
+                while (cursor.moveToNext()) {
+                    invalidatedTableIds.set(cursor.getInt(0));
+                }
+            } finally {
+                cursor.close();
+            }
+            mCleanupStatement.executeUpdateDelete();
+            mRefreshedVersion = latestVersion + 1;
+            return invalidatedTableIds;
+        }
     };
 
+    /**
+     * Reads and clears the rows recorded by row triggers if any of the invalidated tables has
+     * them.
+     *
+     * @return The modified row ids indexed by table id, null for the tables whose modified rows
+     * are unknown.
+     */
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    @Nullable
+    long[][] checkUpdatedRows(@Nullable BitSet invalidatedTableIds) {
+        if (invalidatedTableIds == null
+                || !mRowObservedTableTracker.isTrackingAny(invalidatedTableIds)) {
+            return null;
+        }
+        final long[][] modifiedRowIds = new long[mTableNames.length][];
+        Cursor cursor = mDatabase.query(new SimpleSQLiteQuery(SELECT_UPDATED_ROWS_SQL));
+        //noinspection TryFinallyCanBeTryWithResources
+        try {
+            long[] rowIds = new long[16];
+            int rowCount = 0;
+            int tableId = -1;
+            while (cursor.moveToNext()) {
+                final int rowTableId = cursor.getInt(0);
+                if (rowTableId != tableId) {
+                    if (tableId >= 0 && rowCount <= MAX_TRACKED_ROWS_PER_TABLE) {
+                        modifiedRowIds[tableId] = Arrays.copyOf(rowIds, rowCount);
+                    }
+                    tableId = rowTableId;
+                    rowCount = 0;
+                }
+                if (rowCount < MAX_TRACKED_ROWS_PER_TABLE) {
+                    if (rowCount == rowIds.length) {
+                        rowIds = Arrays.copyOf(rowIds, rowCount * 2);
+                    }
+                    rowIds[rowCount] = cursor.getLong(1);
+                }
+                rowCount++;
+            }
+            if (tableId >= 0 && rowCount <= MAX_TRACKED_ROWS_PER_TABLE) {
+                modifiedRowIds[tableId] = Arrays.copyOf(rowIds, rowCount);
+            }
+        } finally {
+            cursor.close();
+        }
+        mDatabase.getOpenHelper().getWritableDatabase().execSQL(RESET_UPDATED_ROWS_SQL);
+        return modifiedRowIds;
+    }
+
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    @SuppressLint("RestrictedApi")
+    boolean hasObservers() {
+        synchronized (mObserverMap) {
+            return mObserverMap.size() > 0;
+        }
+    }
+
     /**
      * Enqueues a task to refresh the list of updated tables.
      * <p>
@@ -549,27 +867,48 @@ public class InvalidationTracker {
                     // there is a potential race condition where another mSyncTriggers runnable
                     // can start running right after we get the tables list to sync.
                     final int[] tablesToSync = mObservedTableTracker.getTablesToSync();
-                    if (tablesToSync == null) {
+                    final int[] rowTablesToSync = mRowObservedTableTracker.getTablesToSync();
+                    if (tablesToSync == null && rowTablesToSync == null) {
                         return;
                     }
-                    final int limit = tablesToSync.length;
                     beginTransactionInternal(database);
                     try {
-                        for (int tableId = 0; tableId < limit; tableId++) {
-                            switch (tablesToSync[tableId]) {
-                                case ObservedTableTracker.ADD:
-                                    startTrackingTable(database, tableId);
-                                    break;
-                                case ObservedTableTracker.REMOVE:
-                                    stopTrackingTable(database, tableId);
-                                    break;
+                        if (tablesToSync != null) {
+                            final int limit = tablesToSync.length;
+                            for (int tableId = 0; tableId < limit; tableId++) {
+                                switch (tablesToSync[tableId]) {
+                                    case ObservedTableTracker.ADD:
+                                        startTrackingTable(database, tableId);
+                                        break;
+                                    case ObservedTableTracker.REMOVE:
+                                        stopTrackingTable(database, tableId);
+                                        break;
+                                }
+                            }
+                        }
+                        if (rowTablesToSync != null) {
+                            final int limit = rowTablesToSync.length;
+                            for (int tableId = 0; tableId < limit; tableId++) {
+                                switch (rowTablesToSync[tableId]) {
+                                    case ObservedTableTracker.ADD:
+                                        startTrackingRows(database, tableId);
+                                        break;
+                                    case ObservedTableTracker.REMOVE:
+                                        stopTrackingRows(database, tableId);
+                                        break;
+                                }
                             }
                         }
                         database.setTransactionSuccessful();
                     } finally {
                         database.endTransaction();
                     }
-                    mObservedTableTracker.onSyncCompleted();
+                    if (tablesToSync != null) {
+                        mObservedTableTracker.onSyncCompleted();
+                    }
+                    if (rowTablesToSync != null) {
+                        mRowObservedTableTracker.onSyncCompleted();
+                    }
                 } finally {
                     closeLock.unlock();
                 }
@@ -670,13 +1009,19 @@ public class InvalidationTracker {
          * based on the given invalid status set.
          *
          * @param invalidatedTablesIds The table ids of the tables that are invalidated.
+         * @param modifiedRowIds The modified row ids indexed by table id, if known.
          */
-        void notifyByTableInvalidStatus(Set<Integer> invalidatedTablesIds) {
+        void notifyByTableInvalidStatus(BitSet invalidatedTablesIds,
+                @Nullable long[][] modifiedRowIds) {
+            if (mObserver instanceof RowObserver) {
+                notifyRowObserver(invalidatedTablesIds, modifiedRowIds);
+                return;
+            }
             Set<String> invalidatedTables = null;
             final int size = mTableIds.length;
             for (int index = 0; index < size; index++) {
                 final int tableId = mTableIds[index];
-                if (invalidatedTablesIds.contains(tableId)) {
+                if (invalidatedTablesIds.get(tableId)) {
                     if (size == 1) {
                         // Optimization for a single-table observer
                         invalidatedTables = mSingleTableSet;
@@ -693,6 +1038,25 @@ public class InvalidationTracker {
             }
         }
 
+        private void notifyRowObserver(BitSet invalidatedTablesIds,
+                @Nullable long[][] modifiedRowIds) {
+            Map<String, long[]> invalidatedRows = null;
+            final int size = mTableIds.length;
+            for (int index = 0; index < size; index++) {
+                final int tableId = mTableIds[index];
+                if (invalidatedTablesIds.get(tableId)) {
+                    if (invalidatedRows == null) {
+                        invalidatedRows = new HashMap<>(size);
+                    }
+                    invalidatedRows.put(mTableNames[index],
+                            modifiedRowIds == null ? null : modifiedRowIds[tableId]);
+                }
+            }
+            if (invalidatedRows != null) {
+                ((RowObserver) mObserver).onRowsInvalidated(invalidatedRows);
+            }
+        }
+
         /**
          * Notifies the underlying {@link #mObserver} if it observes any of the specified
          * {@code tables}.
@@ -771,6 +1135,61 @@ public class InvalidationTracker {
         }
     }
 
+    /**
+     * An observer which is also told which rows of the observed tables were inserted, updated or
+     * deleted, so that it can refresh only what is affected by a change rather than re-run a
+     * whole query.
+     * <p>
+     * Tracking rows makes every write on the observed tables record the rowid of each modified
+     * row, so use it for tables where changes usually touch a few rows out of many.
+     */
+    public abstract static class RowObserver extends Observer {
+        /**
+         * Observes the given list of tables and views.
+         *
+         * @param firstTable The name of the table or view.
+         * @param rest       More names of tables or views.
+         */
+        @SuppressWarnings("unused")
+        protected RowObserver(@NonNull String firstTable, String... rest) {
+            super(firstTable, rest);
+        }
+
+        /**
+         * Observes the given list of tables and views.
+         *
+         * @param tables The list of tables or views to observe for changes.
+         */
+        public RowObserver(@NonNull String[] tables) {
+            super(tables);
+        }
+
+        /**
+         * Forwards invalidations whose modified rows are unknown, such as those from another
+         * instance of the database, to {@link #onRowsInvalidated(Map)}.
+         */
+        @Override
+        public final void onInvalidated(@NonNull Set<String> tables) {
+            Map<String, long[]> invalidatedRows = new HashMap<>(tables.size());
+            for (String table : tables) {
+                invalidatedRows.put(table, null);
+            }
+            onRowsInvalidated(invalidatedRows);
+        }
+
+        /**
+         * Called when rows of the observed tables are inserted, updated or deleted.
+         *
+         * @param rows The invalidated tables, mapped to the rowids of their modified rows in no
+         *             particular order. Observed views are reported as the tables they read
+         *             from. A table is mapped to null when its modified rows are unknown, for
+         *             instance because too many rows were modified, in which case the whole
+         *             table should be considered modified. The arrays are shared between
+         *             observers and must not be modified.
+         */
+        public abstract void onRowsInvalidated(@NonNull Map<String, long[]> rows);
+    }
+
     /**
      * Keeps a list of tables we should observe. Invalidation tracker lazily syncs this list w/
      * triggers in the database.
@@ -843,6 +1262,21 @@ public class InvalidationTracker {
             return needTriggerSync;
         }
 
+        /**
+         * @return true if triggers were added for any of the given tables at the last sync.
+         */
+        boolean isTrackingAny(BitSet tableIds) {
+            synchronized (this) {
+                for (int tableId = tableIds.nextSetBit(0); tableId >= 0;
+                        tableId = tableIds.nextSetBit(tableId + 1)) {
+                    if (mTriggerStates[tableId]) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }
+
         /**
          * If we are re-opening the db we'll need to add all the triggers that we need so change
          * the current state to false for all.
@@ -918,4 +1352,28 @@ public class InvalidationTracker {
             }
         }
     }
+
+    /**
+     * A {@link WeakObserver} for {@link RowObserver}s, which keeps tracking their rows.
+     */
+    static class WeakRowObserver extends RowObserver {
+        final InvalidationTracker mTracker;
+        final WeakReference<RowObserver> mDelegateRef;
+
+        WeakRowObserver(InvalidationTracker tracker, RowObserver delegate) {
+            super(delegate.mTables);
+            mTracker = tracker;
+            mDelegateRef = new WeakReference<>(delegate);
+        }
+
+        @Override
+        public void onRowsInvalidated(@NonNull Map<String, long[]> rows) {
+            final RowObserver observer = mDelegateRef.get();
+            if (observer == null) {
+                mTracker.removeObserver(this);
+            } else {
+                observer.onRowsInvalidated(rows);
+            }
+        }
+    }
 }
@@ -90,6 +90,8 @@ public abstract class RoomDatabase {
     private final InvalidationTracker mInvalidationTracker;
     private boolean mAllowMainThreadQueries;
     boolean mWriteAheadLoggingEnabled;
+    // Whether read-only queries run outside of transactions use the readable database.
+    private boolean mReaderConnectionRouting;
 
     /**
      * @hide
@@ -211,6 +213,12 @@ public abstract class RoomDatabase {
         mTransactionExecutor = new TransactionExecutor(configuration.transactionExecutor);
         mAllowMainThreadQueries = configuration.allowMainThreadQueries;
         mWriteAheadLoggingEnabled = wal;
+        // Readers only see committed data, which is only worth it if they can read while the
+        // writer writes.
+        mReaderConnectionRouting = wal && configuration.readerConnectionRouting;
+        if (configuration.versionedInvalidation) {
+            mInvalidationTracker.enableVersionedInvalidation();
+        }
         if (configuration.multiInstanceInvalidation) {
             mInvalidationTracker.startMultiInstanceInvalidation(configuration.context,
                     configuration.name);
@@ -440,11 +448,44 @@ public abstract class RoomDatabase {
     public Cursor query(@NonNull SupportSQLiteQuery query, @Nullable CancellationSignal signal) {
         assertNotMainThread();
         assertNotSuspendingTransaction();
+        final SupportSQLiteDatabase database = getQueryDatabase(query);
         if (signal != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
-            return mOpenHelper.getWritableDatabase().query(query, signal);
+            return database.query(query, signal);
         } else {
-            return mOpenHelper.getWritableDatabase().query(query);
+            return database.query(query);
+        }
+    }
+
+    /**
+     * Returns the database to run the given query on. DAO queries that only read are run on the
+     * readable database when reader connection routing is enabled, unless they are part of a
+     * transaction, as they would not see its writes otherwise.
+     */
+    private SupportSQLiteDatabase getQueryDatabase(@NonNull SupportSQLiteQuery query) {
+        if (mReaderConnectionRouting
+                && query instanceof RoomSQLiteQuery
+                && isReadOnlyQuery(query.getSql())
+                && !inTransaction()) {
+            return mOpenHelper.getReadableDatabase();
+        }
+        return mOpenHelper.getWritableDatabase();
+    }
+
+    /**
+     * Returns true if the given SQL starts with {@code SELECT}. This is conservative on purpose:
+     * statements such as {@code WITH} may write, and Room's own queries on its temporary tables
+     * are not {@link RoomSQLiteQuery} instances.
+     */
+    private static boolean isReadOnlyQuery(@Nullable String sql) {
+        if (sql == null) {
+            return false;
         }
+        final int length = sql.length();
+        int start = 0;
+        while (start < length && Character.isWhitespace(sql.charAt(start))) {
+            start++;
+        }
+        return sql.regionMatches(true, start, "SELECT", 0, 6);
     }
 
     /**
@@ -699,6 +740,8 @@ public abstract class RoomDatabase {
         private boolean mAllowMainThreadQueries;
         private JournalMode mJournalMode;
         private boolean mMultiInstanceInvalidation;
+        private boolean mVersionedInvalidation;
+        private boolean mReaderConnectionRouting;
         private boolean mRequireMigration;
         private boolean mAllowDestructiveMigrationOnDowngrade;
 
@@ -1071,6 +1114,50 @@ public abstract class RoomDatabase {
             return this;
         }
 
+        /**
+         * Sets whether the {@link InvalidationTracker} of this {@link RoomDatabase} should keep an
+         * increasing version per table rather than an invalidated flag.
+         * <p>
+         * With versions, the tracker checks for modified tables after each transaction by reading
+         * a single value, and only queries which tables were modified when one of the observed
+         * tables was written to. A burst of writes on tables that nobody observes thus does not
+         * cost a query per transaction, and observers are looked up with a bitset of the
+         * modified tables rather than a set of table ids.
+         * <p>
+         * This is not enabled by default.
+         *
+         * @return This {@link Builder} instance.
+         */
+        @NonNull
+        public Builder<T> enableVersionedInvalidation() {
+            mVersionedInvalidation = true;
+            return this;
+        }
+
+        /**
+         * Sets whether DAO queries which only read should run on
+         * {@link SupportSQLiteOpenHelper#getReadableDatabase()} when they are not part of a
+         * transaction.
+         * <p>
+         * Combined with an open helper keeping a pool of read-only connections, such as the
+         * ones created by {@code FrameworkSQLiteOpenHelperFactory(int)}, reads are no longer
+         * serialized behind the writable connection and can run in parallel with each other and
+         * with an open write transaction. Queries in a transaction, queries which write and
+         * Room's own queries always run on the writable database.
+         * <p>
+         * This only has an effect in {@link JournalMode#WRITE_AHEAD_LOGGING} mode and is not
+         * enabled by default.
+         *
+         * @return This {@link Builder} instance.
+         *
+         * @see #openHelperFactory(SupportSQLiteOpenHelper.Factory)
+         */
+        @NonNull
+        public Builder<T> enableReaderConnectionRouting() {
+            mReaderConnectionRouting = true;
+            return this;
+        }
+
         /**
          * Allows Room to destructively recreate database tables if {@link Migration}s that would
          * migrate old database schemas to the latest schema version are not found.
@@ -1354,7 +1441,9 @@ public abstract class RoomDatabase {
                             mCopyFromFile,
                             mCopyFromInputStream,
                             mPrepackagedDatabaseCallback,
-                            mTypeConverters);
+                            mTypeConverters,
+                            mVersionedInvalidation,
+                            mReaderConnectionRouting);
             T db = Room.getGeneratedImplementation(mDatabaseClass, DB_IMPL_SUFFIX);
             db.init(configuration);
             return db;
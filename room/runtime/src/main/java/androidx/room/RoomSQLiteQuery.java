@@ -25,9 +25,8 @@ import androidx.sqlite.db.SupportSQLiteQuery;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.Arrays;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * This class is used as an intermediate place to keep binding arguments so that we can run
@@ -42,13 +41,17 @@ import java.util.TreeMap;
 public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram {
     @SuppressWarnings("WeakerAccess")
     @VisibleForTesting
-    // Maximum number of queries we'll keep cached.
-    static final int POOL_LIMIT = 15;
+    // Maximum number of queries we'll keep cached for each argument count bucket.
+    static final int DEFAULT_QUERIES_PER_BUCKET = 4;
     @SuppressWarnings("WeakerAccess")
     @VisibleForTesting
-    // Once we hit POOL_LIMIT, we'll bring the pool size back to the desired number. We always
-    // clear the bigger queries (# of arguments).
-    static final int DESIRED_POOL_SIZE = 10;
+    // Queries with more arguments are never cached.
+    static final int DEFAULT_MAX_POOLED_ARG_COUNT = 256;
+    @SuppressWarnings("WeakerAccess")
+    @VisibleForTesting
+    // Queries with fewer arguments get a bucket per argument count, bigger ones are rounded up
+    // to the next power of two so that a few buckets cover all of them.
+    static final int EXACT_BUCKET_LIMIT = 16;
     private volatile String mQuery;
     @SuppressWarnings("WeakerAccess")
     @VisibleForTesting
@@ -72,11 +75,14 @@ public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram
     @SuppressWarnings("WeakerAccess")
     @VisibleForTesting
     int mArgCount;
+    // whether the query is held by sQueryPool, so that releasing it twice does not pool it twice
+    final AtomicBoolean mInPool = new AtomicBoolean();
 
 
     @SuppressWarnings("WeakerAccess")
     @VisibleForTesting
-    static final TreeMap<Integer, RoomSQLiteQuery> sQueryPool = new TreeMap<>();
+    static final QueryPool sQueryPool = new QueryPool(DEFAULT_MAX_POOLED_ARG_COUNT,
+            DEFAULT_QUERIES_PER_BUCKET);
 
     /**
      * Copies the given SupportSQLiteQuery and converts it into RoomSQLiteQuery.
@@ -138,21 +144,56 @@ public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram
      */
     @SuppressWarnings("WeakerAccess")
     public static RoomSQLiteQuery acquire(String query, int argumentCount) {
-        synchronized (sQueryPool) {
-            final Map.Entry<Integer, RoomSQLiteQuery> entry =
-                    sQueryPool.ceilingEntry(argumentCount);
-            if (entry != null) {
-                sQueryPool.remove(entry.getKey());
-                final RoomSQLiteQuery sqliteQuery = entry.getValue();
-                sqliteQuery.init(query, argumentCount);
-                return sqliteQuery;
-            }
+        RoomSQLiteQuery sqLiteQuery = sQueryPool.acquire(argumentCount);
+        if (sqLiteQuery == null) {
+            sqLiteQuery = new RoomSQLiteQuery(capacityFor(argumentCount));
         }
-        RoomSQLiteQuery sqLiteQuery = new RoomSQLiteQuery(argumentCount);
         sqLiteQuery.init(query, argumentCount);
         return sqLiteQuery;
     }
 
+    /**
+     * Sets how many queries are kept for reuse once released.
+     * <p>
+     * Released queries are kept in buckets by argument count and handed out again without any
+     * locking. Changing the limits drops all the queries kept so far.
+     *
+     * @param maxPooledArgCount The maximum number of arguments of a query kept for reuse.
+     * @param queriesPerBucket  The number of queries kept for each bucket, which also bounds the
+     *                          number of threads that can release queries of a similar size at
+     *                          the same time without dropping them.
+     */
+    public static void setPoolLimits(int maxPooledArgCount, int queriesPerBucket) {
+        sQueryPool.configure(maxPooledArgCount, queriesPerBucket);
+    }
+
+    @SuppressWarnings("WeakerAccess")
+    @VisibleForTesting
+    static int capacityFor(int argumentCount) {
+        if (argumentCount < EXACT_BUCKET_LIMIT) {
+            return argumentCount;
+        }
+        final int rounded = Integer.highestOneBit(argumentCount - 1) << 1;
+        // don't round past the bound of the pool, as such queries are not pooled anyway.
+        return rounded > 0 && rounded <= sQueryPool.maxCapacity() ? rounded : argumentCount;
+    }
+
+    static int bucketIndex(int capacity) {
+        if (capacity < EXACT_BUCKET_LIMIT) {
+            return capacity;
+        }
+        // EXACT_BUCKET_LIMIT goes into the first rounded bucket, then one bucket per power of two.
+        return EXACT_BUCKET_LIMIT + Integer.numberOfLeadingZeros(EXACT_BUCKET_LIMIT - 1)
+                - Integer.numberOfLeadingZeros(capacity - 1);
+    }
+
+    static int bucketCapacity(int bucketIndex) {
+        if (bucketIndex < EXACT_BUCKET_LIMIT) {
+            return bucketIndex;
+        }
+        return EXACT_BUCKET_LIMIT << (bucketIndex - EXACT_BUCKET_LIMIT);
+    }
+
     private RoomSQLiteQuery(int capacity) {
         mCapacity = capacity;
         // because, 1 based indices... we don't want to offsets everything with 1 all the time.
@@ -179,21 +220,7 @@ public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram
      */
     @SuppressWarnings("WeakerAccess")
     public void release() {
-        synchronized (sQueryPool) {
-            sQueryPool.put(mCapacity, this);
-            prunePoolLocked();
-        }
-    }
-
-    private static void prunePoolLocked() {
-        if (sQueryPool.size() > POOL_LIMIT) {
-            int toBeRemoved = sQueryPool.size() - DESIRED_POOL_SIZE;
-            final Iterator<Integer> iterator = sQueryPool.descendingKeySet().iterator();
-            while (toBeRemoved-- > 0) {
-                iterator.next();
-                iterator.remove();
-            }
-        }
+        sQueryPool.release(this);
     }
 
     @Override
@@ -286,6 +313,142 @@ public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram
         // no need to clear others
     }
 
+    /**
+     * Lock-free pool of released queries, bucketed by capacity.
+     * <p>
+     * Every bucket owns a fixed number of slots. Released queries are published in a slot with a
+     * compare-and-set and taken back with a get-and-set, starting from a slot picked by the
+     * calling thread so that threads rarely race for the same slot.
+     */
+    static final class QueryPool {
+        /**
+         * Slots of every bucket. Replaced as a whole when the pool is reconfigured, which drops
+         * all the queries pooled so far.
+         */
+        private volatile Buckets mBuckets;
+
+        private static final class Buckets {
+            final int maxCapacity;
+            final int bucketCount;
+            final int queriesPerBucket;
+            final AtomicReferenceArray<RoomSQLiteQuery> slots;
+
+            Buckets(int maxPooledArgCount, int queriesPerBucket) {
+                this.bucketCount = bucketIndex(maxPooledArgCount) + 1;
+                this.maxCapacity = bucketCapacity(bucketCount - 1);
+                this.queriesPerBucket = queriesPerBucket;
+                this.slots = new AtomicReferenceArray<>(bucketCount * queriesPerBucket);
+            }
+        }
+
+        QueryPool(int maxPooledArgCount, int queriesPerBucket) {
+            configure(maxPooledArgCount, queriesPerBucket);
+        }
+
+        void configure(int maxPooledArgCount, int queriesPerBucket) {
+            if (maxPooledArgCount < 0) {
+                throw new IllegalArgumentException("maxPooledArgCount < 0");
+            }
+            if (queriesPerBucket < 0) {
+                throw new IllegalArgumentException("queriesPerBucket < 0");
+            }
+            mBuckets = new Buckets(maxPooledArgCount, queriesPerBucket);
+        }
+
+        int maxCapacity() {
+            return mBuckets.maxCapacity;
+        }
+
+        /**
+         * Returns a pooled query with room for {@code argumentCount} arguments, looking into the
+         * buckets of bigger queries if needed, or null if there is none.
+         */
+        RoomSQLiteQuery acquire(int argumentCount) {
+            final Buckets buckets = mBuckets;
+            if (argumentCount > buckets.maxCapacity || buckets.queriesPerBucket == 0) {
+                return null;
+            }
+            final AtomicReferenceArray<RoomSQLiteQuery> slots = buckets.slots;
+            final int perBucket = buckets.queriesPerBucket;
+            final int offset = threadOffset(perBucket);
+            for (int bucket = bucketIndex(argumentCount); bucket < buckets.bucketCount;
+                    bucket++) {
+                final int start = bucket * perBucket;
+                for (int i = 0; i < perBucket; i++) {
+                    final int slot = start + (offset + i) % perBucket;
+                    if (slots.get(slot) != null) {
+                        final RoomSQLiteQuery query = slots.getAndSet(slot, null);
+                        if (query != null) {
+                            query.mInPool.set(false);
+                            return query;
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Offers {@code query} to the pool, which drops it if its bucket is full. Does nothing if
+         * {@code query} is already in the pool.
+         */
+        void release(RoomSQLiteQuery query) {
+            final Buckets buckets = mBuckets;
+            final int capacity = query.mCapacity;
+            if (capacity > buckets.maxCapacity || buckets.queriesPerBucket == 0) {
+                return;
+            }
+            final int bucket = bucketIndex(capacity);
+            if (bucketCapacity(bucket) != capacity) {
+                // not rounded up when created, it would not fit all queries of its bucket.
+                return;
+            }
+            if (!query.mInPool.compareAndSet(false, true)) {
+                // released twice
+                return;
+            }
+            final AtomicReferenceArray<RoomSQLiteQuery> slots = buckets.slots;
+            final int perBucket = buckets.queriesPerBucket;
+            final int offset = threadOffset(perBucket);
+            final int start = bucket * perBucket;
+            for (int i = 0; i < perBucket; i++) {
+                final int slot = start + (offset + i) % perBucket;
+                if (slots.get(slot) == null && slots.compareAndSet(slot, null, query)) {
+                    return;
+                }
+            }
+            // the bucket is full, the query is dropped
+            query.mInPool.set(false);
+        }
+
+        private static int threadOffset(int queriesPerBucket) {
+            return (int) (Thread.currentThread().getId() % queriesPerBucket);
+        }
+
+        @VisibleForTesting
+        int size() {
+            final AtomicReferenceArray<RoomSQLiteQuery> slots = mBuckets.slots;
+            int size = 0;
+            for (int i = 0; i < slots.length(); i++) {
+                if (slots.get(i) != null) {
+                    size++;
+                }
+            }
+            return size;
+        }
+
+        @VisibleForTesting
+        void clear() {
+            final AtomicReferenceArray<RoomSQLiteQuery> slots = mBuckets.slots;
+            for (int i = 0; i < slots.length(); i++) {
+                final RoomSQLiteQuery query = slots.getAndSet(i, null);
+                if (query != null) {
+                    query.mInPool.set(false);
+                }
+            }
+        }
+    }
+
     private static final int NULL = 1;
     private static final int LONG = 2;
     private static final int DOUBLE = 3;
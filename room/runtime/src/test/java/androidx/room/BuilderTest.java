@@ -178,6 +178,21 @@ public class BuilderTest {
         assertThat(config.requireMigration, is(false));
     }
 
+    @Test
+    public void readerConnectionRouting() {
+        Context context = mock(Context.class);
+
+        TestDatabase db = Room.databaseBuilder(context, TestDatabase.class, "foo").build();
+        DatabaseConfiguration config = ((BuilderTest_TestDatabase_Impl) db).mConfig;
+        assertThat(config.readerConnectionRouting, is(false));
+
+        db = Room.databaseBuilder(context, TestDatabase.class, "foo")
+                .enableReaderConnectionRouting()
+                .build();
+        config = ((BuilderTest_TestDatabase_Impl) db).mConfig;
+        assertThat(config.readerConnectionRouting, is(true));
+    }
+
     @Test
     public void fallbackToDestructiveMigrationFrom_calledOnce_migrationsNotRequiredForValues() {
         Context context = mock(Context.class);
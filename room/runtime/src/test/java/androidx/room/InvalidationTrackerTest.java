@@ -27,6 +27,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -68,6 +69,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
@@ -307,6 +309,99 @@ public class InvalidationTrackerTest {
         }
     }
 
+    @Test
+    public void createRowTriggers() {
+        LatchRowObserver observer = new LatchRowObserver("B");
+        ArgumentCaptor<String> sqlArgCaptor;
+        List<String> sqlCaptorValues;
+
+        mTracker.addObserver(observer);
+        sqlArgCaptor = ArgumentCaptor.forClass(String.class);
+        verify(mSqliteDb, times(7)).execSQL(sqlArgCaptor.capture());
+        sqlCaptorValues = sqlArgCaptor.getAllValues();
+        String rowInsertion = " INSERT OR IGNORE INTO room_row_modification_log VALUES(1, ";
+        assertThat(sqlCaptorValues.get(4),
+                is("CREATE TEMP TRIGGER IF NOT EXISTS `room_row_modification_trigger_b_UPDATE`"
+                        + " AFTER UPDATE ON `b` BEGIN" + rowInsertion + "OLD.rowid);"
+                        + rowInsertion + "NEW.rowid); END"));
+        assertThat(sqlCaptorValues.get(5),
+                is("CREATE TEMP TRIGGER IF NOT EXISTS `room_row_modification_trigger_b_DELETE`"
+                        + " AFTER DELETE ON `b` BEGIN" + rowInsertion + "OLD.rowid); END"));
+        assertThat(sqlCaptorValues.get(6),
+                is("CREATE TEMP TRIGGER IF NOT EXISTS `room_row_modification_trigger_b_INSERT`"
+                        + " AFTER INSERT ON `b` BEGIN" + rowInsertion + "NEW.rowid); END"));
+
+        reset(mSqliteDb);
+
+        mTracker.removeObserver(observer);
+        sqlArgCaptor = ArgumentCaptor.forClass(String.class);
+        verify(mSqliteDb, times(7)).execSQL(sqlArgCaptor.capture());
+        sqlCaptorValues = sqlArgCaptor.getAllValues();
+        assertThat(sqlCaptorValues.get(3),
+                is("DROP TRIGGER IF EXISTS `room_row_modification_trigger_b_UPDATE`"));
+        assertThat(sqlCaptorValues.get(6),
+                is("DELETE FROM room_row_modification_log WHERE table_id = 1"));
+    }
+
+    @Test
+    public void observeRows() throws InterruptedException {
+        LatchRowObserver observer = new LatchRowObserver("A", "B");
+        mTracker.addObserver(observer);
+        setInvalidatedTables(0, 2);
+        setModifiedRows(new long[][]{{0, 3}, {0, 7}, {2, 1}});
+        refreshSync();
+        assertThat(observer.await(), is(true));
+        Truth.assertThat(observer.getInvalidatedRows().keySet()).containsExactly("a");
+        Truth.assertThat(observer.getInvalidatedRows().get("a")).asList().containsExactly(3L, 7L);
+        verify(mSqliteDb).execSQL(InvalidationTracker.RESET_UPDATED_ROWS_SQL);
+    }
+
+    @Test
+    public void observeRows_weakObserver() throws InterruptedException {
+        LatchRowObserver observer = new LatchRowObserver("A", "B");
+        mTracker.addWeakObserver(observer);
+        setInvalidatedTables(0);
+        setModifiedRows(new long[][]{{0, 3}});
+        refreshSync();
+        assertThat(observer.await(), is(true));
+        Truth.assertThat(observer.getInvalidatedRows().get("a")).asList().containsExactly(3L);
+    }
+
+    @Test
+    public void observeRows_tooManyRows() throws InterruptedException {
+        LatchRowObserver observer = new LatchRowObserver("A", "B");
+        mTracker.addObserver(observer);
+        setInvalidatedTables(0, 1);
+        final int rowCount = InvalidationTracker.MAX_TRACKED_ROWS_PER_TABLE + 1;
+        long[][] rows = new long[rowCount + 1][];
+        for (int i = 0; i < rowCount; i++) {
+            rows[i] = new long[]{0, i};
+        }
+        rows[rowCount] = new long[]{1, 5};
+        setModifiedRows(rows);
+        refreshSync();
+        assertThat(observer.await(), is(true));
+        Truth.assertThat(observer.getInvalidatedRows()).containsKey("a");
+        Truth.assertThat(observer.getInvalidatedRows().get("a")).isNull();
+        Truth.assertThat(observer.getInvalidatedRows().get("b")).asList().containsExactly(5L);
+    }
+
+    @Test
+    public void observeRows_notQueriedWithoutRowObservers() throws InterruptedException {
+        LatchObserver observer = new LatchObserver(1, "a");
+        mTracker.addObserver(observer);
+        setInvalidatedTables(0);
+        refreshSync();
+        assertThat(observer.await(), is(true));
+        verify(mSqliteDb, never()).execSQL(InvalidationTracker.RESET_UPDATED_ROWS_SQL);
+        verify(mRoomDatabase, never()).query(argThat(new ArgumentMatcher<SimpleSQLiteQuery>() {
+            @Override
+            public boolean matches(SimpleSQLiteQuery argument) {
+                return argument.getSql().equals(InvalidationTracker.SELECT_UPDATED_ROWS_SQL);
+            }
+        }));
+    }
+
     @Test
     public void observeFtsTable() throws InterruptedException {
         LatchObserver observer = new LatchObserver(1, "C");
@@ -444,6 +539,92 @@ public class InvalidationTrackerTest {
         }
     }
 
+    @Test
+    public void versionedInvalidation_skipsQueryWhenNoObservedTableChanged() throws Exception {
+        SupportSQLiteStatement latestVersionStatement = mock(SupportSQLiteStatement.class);
+        SupportSQLiteStatement bumpStatement = mock(SupportSQLiteStatement.class);
+        InvalidationTracker tracker = createVersionedTracker(latestVersionStatement,
+                bumpStatement);
+        LatchObserver observer = new LatchObserver(1, "a");
+        tracker.addObserver(observer);
+
+        // the latest version is still the initial one
+        when(latestVersionStatement.simpleQueryForLong()).thenReturn(1L);
+        tracker.refreshVersionsAsync();
+        drainTasks();
+        assertThat(observer.await(), is(false));
+        verify(mRoomDatabase, never()).query(any(SimpleSQLiteQuery.class));
+        verify(bumpStatement, never()).executeUpdateDelete();
+    }
+
+    @Test
+    public void versionedInvalidation_notifiesTablesUpdatedSinceLastRefresh() throws Exception {
+        SupportSQLiteStatement latestVersionStatement = mock(SupportSQLiteStatement.class);
+        SupportSQLiteStatement bumpStatement = mock(SupportSQLiteStatement.class);
+        InvalidationTracker tracker = createVersionedTracker(latestVersionStatement,
+                bumpStatement);
+        LatchObserver observer = new LatchObserver(1, "a", "b");
+        tracker.addObserver(observer);
+
+        when(latestVersionStatement.simpleQueryForLong()).thenReturn(3L);
+        setQueryResult(InvalidationTracker.SELECT_TABLES_UPDATED_SINCE_SQL, 1);
+        tracker.refreshVersionsAsync();
+        drainTasks();
+        assertThat(observer.await(), is(true));
+        assertThat(observer.getInvalidatedTables().size(), is(1));
+        assertThat(observer.getInvalidatedTables(), hasItem("b"));
+        verify(bumpStatement).executeUpdateDelete();
+
+        // refreshing bumped the latest version, nothing was written since
+        observer.reset(1);
+        when(latestVersionStatement.simpleQueryForLong()).thenReturn(4L);
+        tracker.refreshVersionsAsync();
+        drainTasks();
+        assertThat(observer.await(), is(false));
+        verify(mRoomDatabase, times(1)).query(any(SimpleSQLiteQuery.class));
+        verify(bumpStatement, times(1)).executeUpdateDelete();
+    }
+
+    @Test
+    public void versionedInvalidation_observeAgain_resetsTableVersion() throws Exception {
+        SupportSQLiteStatement latestVersionStatement = mock(SupportSQLiteStatement.class);
+        SupportSQLiteStatement bumpStatement = mock(SupportSQLiteStatement.class);
+        InvalidationTracker tracker = createVersionedTracker(latestVersionStatement,
+                bumpStatement);
+        String resetVersionSql = "INSERT OR REPLACE INTO room_table_version_log VALUES(0, 0)";
+        LatchObserver observer = new LatchObserver(1, "a");
+        tracker.addObserver(observer);
+        verify(mSqliteDb).execSQL(resetVersionSql);
+        tracker.removeObserver(observer);
+
+        // "a" is written while nobody observes it, the refresh is skipped
+        when(latestVersionStatement.simpleQueryForLong()).thenReturn(2L);
+        tracker.refreshVersionsAsync();
+        drainTasks();
+        verify(latestVersionStatement, never()).simpleQueryForLong();
+
+        // observing again resets the version "a" got from that write
+        tracker.addObserver(observer);
+        verify(mSqliteDb, times(2)).execSQL(resetVersionSql);
+        setQueryResult(InvalidationTracker.SELECT_TABLES_UPDATED_SINCE_SQL);
+        tracker.refreshVersionsAsync();
+        drainTasks();
+        assertThat(observer.await(), is(false));
+        verify(bumpStatement).executeUpdateDelete();
+    }
+
+    private InvalidationTracker createVersionedTracker(
+            SupportSQLiteStatement latestVersionStatement, SupportSQLiteStatement bumpStatement) {
+        doReturn(latestVersionStatement).when(mSqliteDb)
+                .compileStatement(eq(InvalidationTracker.SELECT_LATEST_VERSION_SQL));
+        doReturn(bumpStatement).when(mSqliteDb)
+                .compileStatement(eq(InvalidationTracker.BUMP_LATEST_VERSION_SQL));
+        InvalidationTracker tracker = new InvalidationTracker(mRoomDatabase, "a", "b");
+        tracker.enableVersionedInvalidation();
+        tracker.internalInit(mSqliteDb);
+        return tracker;
+    }
+
     // @Test - disabled due to flakiness b/65257997
     public void closedDbAfterOpen() throws InterruptedException {
         setInvalidatedTables(3, 1);
@@ -461,16 +642,58 @@ public class InvalidationTrackerTest {
      * Setup Cursor result to return INVALIDATED for given tableIds
      */
     private void setInvalidatedTables(int... tableIds) throws InterruptedException {
+        setQueryResult(InvalidationTracker.SELECT_UPDATED_TABLES_SQL, tableIds);
+    }
+
+    /**
+     * Setup Cursor result to return the given tableIds for the given query
+     */
+    private void setQueryResult(final String sql, int... tableIds) throws InterruptedException {
         // mockito does not like multi-threaded access so before setting versions, make sure we
         // sync background tasks.
         drainTasks();
         Cursor cursor = createCursorWithValues(tableIds);
+        doReturn(cursor).when(mRoomDatabase).query(
+                argThat(new ArgumentMatcher<SimpleSQLiteQuery>() {
+                    @Override
+                    public boolean matches(SimpleSQLiteQuery argument) {
+                        return argument.getSql().equals(sql);
+                    }
+                })
+        );
+    }
+
+    /**
+     * Setup Cursor result to return the given (table id, row id) pairs as modified rows
+     */
+    private void setModifiedRows(final long[][] rows) throws InterruptedException {
+        drainTasks();
+        final Cursor cursor = mock(Cursor.class);
+        final AtomicInteger index = new AtomicInteger(-1);
+        when(cursor.moveToNext()).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                return index.addAndGet(1) < rows.length;
+            }
+        });
+        when(cursor.getInt(0)).thenAnswer(new Answer<Integer>() {
+            @Override
+            public Integer answer(InvocationOnMock invocation) throws Throwable {
+                return (int) rows[index.intValue()][0];
+            }
+        });
+        when(cursor.getLong(1)).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) throws Throwable {
+                return rows[index.intValue()][1];
+            }
+        });
         doReturn(cursor).when(mRoomDatabase).query(
                 argThat(new ArgumentMatcher<SimpleSQLiteQuery>() {
                     @Override
                     public boolean matches(SimpleSQLiteQuery argument) {
                         return argument.getSql().equals(
-                                InvalidationTracker.SELECT_UPDATED_TABLES_SQL);
+                                InvalidationTracker.SELECT_UPDATED_ROWS_SQL);
                     }
                 })
         );
@@ -526,6 +749,29 @@ public class InvalidationTrackerTest {
         }
     }
 
+    static class LatchRowObserver extends InvalidationTracker.RowObserver {
+        private final CountDownLatch mLatch = new CountDownLatch(1);
+        private Map<String, long[]> mInvalidatedRows;
+
+        LatchRowObserver(String... tableNames) {
+            super(tableNames);
+        }
+
+        boolean await() throws InterruptedException {
+            return mLatch.await(3, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void onRowsInvalidated(@NonNull Map<String, long[]> rows) {
+            mInvalidatedRows = rows;
+            mLatch.countDown();
+        }
+
+        Map<String, long[]> getInvalidatedRows() {
+            return mInvalidatedRows;
+        }
+    }
+
     /**
      * Tries to trigger garbage collection until an element is available in the given queue.
      */
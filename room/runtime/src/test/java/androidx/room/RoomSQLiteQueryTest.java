@@ -31,14 +31,18 @@ import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @RunWith(JUnit4.class)
 public class RoomSQLiteQueryTest {
     @Before
     public void clear() {
-        RoomSQLiteQuery.sQueryPool.clear();
+        RoomSQLiteQuery.setPoolLimits(RoomSQLiteQuery.DEFAULT_MAX_POOLED_ARG_COUNT,
+                RoomSQLiteQuery.DEFAULT_QUERIES_PER_BUCKET);
     }
 
     @Test
@@ -90,17 +94,45 @@ public class RoomSQLiteQueryTest {
     }
 
     @Test
-    public void dontKeepSameSizeTwice() {
-        RoomSQLiteQuery query1 = RoomSQLiteQuery.acquire("abc", 3);
-        RoomSQLiteQuery query2 = RoomSQLiteQuery.acquire("zx", 3);
-        RoomSQLiteQuery query3 = RoomSQLiteQuery.acquire("qw", 0);
+    public void releaseTwice_pooledOnce() {
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("abc", 3);
+        query.release();
+        query.release();
+        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(1));
+
+        RoomSQLiteQuery first = RoomSQLiteQuery.acquire("def", 3);
+        RoomSQLiteQuery second = RoomSQLiteQuery.acquire("ghi", 3);
+        assertThat(first, sameInstance(query));
+        assertThat(second, not(sameInstance(first)));
+    }
+
+    @Test
+    public void releaseAgainAfterAcquire_pooledAgain() {
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("abc", 3);
+        query.release();
+        assertThat(RoomSQLiteQuery.acquire("def", 3), sameInstance(query));
 
-        query1.release();
-        query2.release();
+        query.release();
         assertThat(RoomSQLiteQuery.sQueryPool.size(), is(1));
+        assertThat(RoomSQLiteQuery.acquire("ghi", 3), sameInstance(query));
+    }
 
-        query3.release();
-        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(2));
+    @Test
+    public void keepSameSizeUpToLimit() {
+        List<RoomSQLiteQuery> queries = new ArrayList<>();
+        for (int i = 0; i < RoomSQLiteQuery.DEFAULT_QUERIES_PER_BUCKET + 2; i++) {
+            queries.add(RoomSQLiteQuery.acquire("abc", 3));
+        }
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("qw", 0);
+        for (RoomSQLiteQuery released : queries) {
+            released.release();
+        }
+        assertThat(RoomSQLiteQuery.sQueryPool.size(),
+                is(RoomSQLiteQuery.DEFAULT_QUERIES_PER_BUCKET));
+
+        query.release();
+        assertThat(RoomSQLiteQuery.sQueryPool.size(),
+                is(RoomSQLiteQuery.DEFAULT_QUERIES_PER_BUCKET + 1));
     }
 
     @Test
@@ -118,32 +150,67 @@ public class RoomSQLiteQueryTest {
     }
 
     @Test
-    public void pruneCache() {
-        for (int i = 0; i < RoomSQLiteQuery.POOL_LIMIT; i++) {
-            RoomSQLiteQuery.acquire("dsdsa", i).release();
-        }
-        pruneCacheTest();
+    public void roundUpBigQueries() {
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("abc",
+                RoomSQLiteQuery.EXACT_BUCKET_LIMIT + 1);
+        assertThat(query.mCapacity, is(RoomSQLiteQuery.EXACT_BUCKET_LIMIT * 2));
+        query.release();
+        assertThat(RoomSQLiteQuery.acquire("dsa", RoomSQLiteQuery.EXACT_BUCKET_LIMIT * 2),
+                sameInstance(query));
     }
 
     @Test
-    public void pruneCacheReverseInsertion() {
-        List<RoomSQLiteQuery> queries = new ArrayList<>();
-        for (int i = RoomSQLiteQuery.POOL_LIMIT - 1; i >= 0; i--) {
-            queries.add(RoomSQLiteQuery.acquire("dsdsa", i));
-        }
-        for (RoomSQLiteQuery query : queries) {
-            query.release();
-        }
-        pruneCacheTest();
+    public void dontPoolQueriesBeyondLimit() {
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("abc",
+                RoomSQLiteQuery.DEFAULT_MAX_POOLED_ARG_COUNT + 1);
+        assertThat(query.mCapacity, is(RoomSQLiteQuery.DEFAULT_MAX_POOLED_ARG_COUNT + 1));
+        query.release();
+        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(0));
     }
 
-    private void pruneCacheTest() {
-        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(RoomSQLiteQuery.POOL_LIMIT));
-        RoomSQLiteQuery.acquire("dsadsa", RoomSQLiteQuery.POOL_LIMIT + 1).release();
-        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(RoomSQLiteQuery.DESIRED_POOL_SIZE));
-        Iterator<RoomSQLiteQuery> itr = RoomSQLiteQuery.sQueryPool.values().iterator();
-        for (int i = 0; i < RoomSQLiteQuery.DESIRED_POOL_SIZE; i++) {
-            assertThat(itr.next().mCapacity, is(i));
+    @Test
+    public void setPoolLimits() {
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("abc", 3);
+        query.release();
+        RoomSQLiteQuery.setPoolLimits(2, 1);
+        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(0));
+
+        query = RoomSQLiteQuery.acquire("abc", 2);
+        query.release();
+        RoomSQLiteQuery.acquire("abc", 2).release();
+        RoomSQLiteQuery.acquire("abc", 3).release();
+        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(1));
+        assertThat(RoomSQLiteQuery.acquire("dsa", 1), sameInstance(query));
+    }
+
+    @Test
+    public void concurrentAcquireAndRelease() throws InterruptedException {
+        final Set<RoomSQLiteQuery> inUse =
+                Collections.newSetFromMap(new ConcurrentHashMap<RoomSQLiteQuery, Boolean>());
+        final AtomicBoolean sharedQuery = new AtomicBoolean(false);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            final int argCount = i % 4;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("abc", argCount);
+                        if (!inUse.add(query)) {
+                            sharedQuery.set(true);
+                        }
+                        inUse.remove(query);
+                        query.release();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
         }
+        assertThat(sharedQuery.get(), is(false));
     }
 }
@@ -169,7 +169,9 @@ public class MigrationTestHelper extends TestWatcher {
                 null,
                 null,
                 null,
-                null);
+                null,
+                false,
+                false);
         RoomOpenHelper roomOpenHelper = new RoomOpenHelper(configuration,
                 new CreatingDelegate(schemaBundle.getDatabase()),
                 schemaBundle.getDatabase().getIdentityHash(),
@@ -232,7 +234,9 @@ public class MigrationTestHelper extends TestWatcher {
                 null,
                 null,
                 null,
-                null);
+                null,
+                false,
+                false);
         RoomOpenHelper roomOpenHelper = new RoomOpenHelper(configuration,
                 new MigratingDelegate(schemaBundle.getDatabase(), validateDroppedTables),
                 // we pass the same hash twice since an old schema does not necessarily have
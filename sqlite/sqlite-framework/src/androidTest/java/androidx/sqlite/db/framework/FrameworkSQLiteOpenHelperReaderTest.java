@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.sqlite.db.framework;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SdkSuppress;
+import androidx.test.filters.SmallTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+@SdkSuppress(minSdkVersion = 16)
+public class FrameworkSQLiteOpenHelperReaderTest {
+    private static final String DB_NAME = "reader-test.db";
+
+    private Context mContext;
+    private SupportSQLiteOpenHelper mOpenHelper;
+
+    @Before
+    public void setup() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mContext.deleteDatabase(DB_NAME);
+        mOpenHelper = new FrameworkSQLiteOpenHelperFactory(2).create(
+                SupportSQLiteOpenHelper.Configuration.builder(mContext)
+                        .name(DB_NAME)
+                        .callback(new SupportSQLiteOpenHelper.Callback(1) {
+                            @Override
+                            public void onCreate(SupportSQLiteDatabase db) {
+                                db.execSQL("CREATE TABLE Test (value INTEGER)");
+                            }
+
+                            @Override
+                            public void onUpgrade(SupportSQLiteDatabase db, int oldVersion,
+                                    int newVersion) {
+                            }
+                        })
+                        .build());
+    }
+
+    @After
+    public void tearDown() {
+        mOpenHelper.close();
+        mContext.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void walEnabled_readsUseReaders() {
+        mOpenHelper.setWriteAheadLoggingEnabled(true);
+        SupportSQLiteDatabase writer = mOpenHelper.getWritableDatabase();
+        writer.execSQL("INSERT INTO Test VALUES(1)");
+
+        SupportSQLiteDatabase first = mOpenHelper.getReadableDatabase();
+        SupportSQLiteDatabase second = mOpenHelper.getReadableDatabase();
+
+        assertThat(first).isNotSameInstanceAs(writer);
+        assertThat(second).isNotSameInstanceAs(writer);
+        assertThat(second).isNotSameInstanceAs(first);
+        assertThat(mOpenHelper.getReadableDatabase()).isSameInstanceAs(first);
+        assertThat(first.isReadOnly()).isTrue();
+        assertThat(count(first)).isEqualTo(1);
+    }
+
+    @Test
+    public void walDisabled_readersNotUsed() {
+        mOpenHelper.setWriteAheadLoggingEnabled(false);
+        SupportSQLiteDatabase writer = mOpenHelper.getWritableDatabase();
+
+        assertThat(mOpenHelper.getReadableDatabase()).isSameInstanceAs(writer);
+    }
+
+    @Test
+    public void walTurnedOff_readersClosed() {
+        mOpenHelper.setWriteAheadLoggingEnabled(true);
+        SupportSQLiteDatabase writer = mOpenHelper.getWritableDatabase();
+        SupportSQLiteDatabase reader = mOpenHelper.getReadableDatabase();
+        assertThat(reader).isNotSameInstanceAs(writer);
+
+        mOpenHelper.setWriteAheadLoggingEnabled(false);
+
+        assertThat(reader.isOpen()).isFalse();
+        assertThat(writer.isWriteAheadLoggingEnabled()).isFalse();
+        assertThat(mOpenHelper.getReadableDatabase()).isSameInstanceAs(writer);
+    }
+
+    private static long count(SupportSQLiteDatabase db) {
+        Cursor cursor = db.query("SELECT COUNT(*) FROM Test");
+        try {
+            cursor.moveToFirst();
+            return cursor.getLong(0);
+        } finally {
+            cursor.close();
+        }
+    }
+}
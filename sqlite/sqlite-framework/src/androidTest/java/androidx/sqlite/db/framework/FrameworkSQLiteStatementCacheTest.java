@@ -0,0 +1,175 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.sqlite.db.framework;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.junit.Assert.fail;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.sqlite.db.SupportSQLiteStatement;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class FrameworkSQLiteStatementCacheTest {
+    private static final String INSERT = "INSERT INTO Test VALUES(?)";
+    private static final String COUNT = "SELECT COUNT(*) FROM Test";
+
+    private FrameworkSQLiteDatabase mDatabase;
+
+    @Before
+    public void setup() {
+        mDatabase = new FrameworkSQLiteDatabase(SQLiteDatabase.create(null));
+        mDatabase.execSQL("CREATE TABLE Test (value INTEGER)");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mDatabase.close();
+    }
+
+    @Test
+    public void cacheHit() {
+        SupportSQLiteStatement first = mDatabase.compileStatement(INSERT);
+        first.bindLong(1, 1);
+        first.executeInsert();
+        first.close();
+
+        SupportSQLiteStatement second = mDatabase.compileStatement(INSERT);
+        second.bindLong(1, 2);
+        second.executeInsert();
+        second.close();
+
+        assertThat(mDatabase.getStatementCacheHitCount()).isEqualTo(1);
+        assertThat(mDatabase.getStatementCacheMissCount()).isEqualTo(1);
+        assertThat(count()).isEqualTo(2);
+    }
+
+    @Test
+    public void cacheHit_bindingsAreCleared() {
+        SupportSQLiteStatement first = mDatabase.compileStatement(INSERT);
+        first.bindLong(1, 1);
+        first.close();
+
+        SupportSQLiteStatement second = mDatabase.compileStatement(INSERT);
+        second.executeInsert();
+        second.close();
+
+        SupportSQLiteStatement nullCount =
+                mDatabase.compileStatement("SELECT COUNT(*) FROM Test WHERE value IS NULL");
+        assertThat(nullCount.simpleQueryForLong()).isEqualTo(1);
+        nullCount.close();
+    }
+
+    @Test
+    public void cacheMiss() {
+        mDatabase.compileStatement(INSERT).close();
+        mDatabase.compileStatement(COUNT).close();
+
+        assertThat(mDatabase.getStatementCacheHitCount()).isEqualTo(0);
+        assertThat(mDatabase.getStatementCacheMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void cacheMiss_whileInUse() {
+        SupportSQLiteStatement first = mDatabase.compileStatement(INSERT);
+        SupportSQLiteStatement second = mDatabase.compileStatement(INSERT);
+
+        assertThat(second).isNotSameInstanceAs(first);
+        assertThat(mDatabase.getStatementCacheMissCount()).isEqualTo(2);
+        first.close();
+        second.close();
+    }
+
+    @Test
+    public void eviction() {
+        mDatabase.setMaxSqlCacheSize(1);
+        SupportSQLiteStatement insert = mDatabase.compileStatement(INSERT);
+        SupportSQLiteStatement count = mDatabase.compileStatement(COUNT);
+        insert.close();
+        count.close();
+
+        mDatabase.compileStatement(INSERT).close();
+        assertThat(mDatabase.getStatementCacheHitCount()).isEqualTo(0);
+        assertThat(mDatabase.getStatementCacheMissCount()).isEqualTo(3);
+
+        mDatabase.compileStatement(INSERT).close();
+        assertThat(mDatabase.getStatementCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void doubleClose() {
+        SupportSQLiteStatement statement = mDatabase.compileStatement(INSERT);
+        statement.close();
+        statement.close();
+
+        SupportSQLiteStatement first = mDatabase.compileStatement(INSERT);
+        SupportSQLiteStatement second = mDatabase.compileStatement(INSERT);
+        first.bindLong(1, 1);
+        second.bindLong(1, 2);
+        first.executeInsert();
+        second.executeInsert();
+        first.close();
+        second.close();
+
+        assertThat(mDatabase.getStatementCacheHitCount()).isEqualTo(1);
+        assertThat(mDatabase.getStatementCacheMissCount()).isEqualTo(2);
+        assertThat(count()).isEqualTo(2);
+    }
+
+    @Test
+    public void useAfterClose() {
+        SupportSQLiteStatement statement = mDatabase.compileStatement(INSERT);
+        statement.close();
+        SupportSQLiteStatement reused = mDatabase.compileStatement(INSERT);
+
+        try {
+            statement.bindLong(1, 1);
+            fail("Binding a closed statement should throw");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            statement.executeInsert();
+            fail("Executing a closed statement should throw");
+        } catch (IllegalStateException expected) {
+        }
+
+        reused.bindLong(1, 2);
+        reused.executeInsert();
+        reused.close();
+        assertThat(count()).isEqualTo(1);
+    }
+
+    private long count() {
+        SupportSQLiteStatement statement = mDatabase.compileStatement(COUNT);
+        try {
+            return statement.simpleQueryForLong();
+        } finally {
+            statement.close();
+        }
+    }
+}
@@ -25,6 +25,7 @@ import android.database.sqlite.SQLiteCursor;
 import android.database.sqlite.SQLiteCursorDriver;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteQuery;
+import android.database.sqlite.SQLiteStatement;
 import android.database.sqlite.SQLiteTransactionListener;
 import android.os.Build;
 import android.os.CancellationSignal;
@@ -38,8 +39,11 @@ import androidx.sqlite.db.SupportSQLiteQuery;
 import androidx.sqlite.db.SupportSQLiteStatement;
 
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * Delegates all calls to an implementation of {@link SQLiteDatabase}.
@@ -50,8 +54,19 @@ class FrameworkSQLiteDatabase implements SupportSQLiteDatabase {
             {"", " OR ROLLBACK ", " OR ABORT ", " OR FAIL ", " OR IGNORE ", " OR REPLACE "};
     private static final String[] EMPTY_STRING_ARRAY = new String[0];
 
+    // Same as the default size of the prepared statement cache of each framework connection.
+    private static final int DEFAULT_STATEMENT_CACHE_SIZE = 25;
+
     private final SQLiteDatabase mDelegate;
 
+    // Compiled statements which were closed by their callers, by SQL, least recently used first.
+    // Guarded by itself.
+    private final LinkedHashMap<String, SQLiteStatement> mStatementCache =
+            new LinkedHashMap<>(16, 0.75f, true);
+    private int mStatementCacheSize = DEFAULT_STATEMENT_CACHE_SIZE;
+    private int mStatementCacheHitCount;
+    private int mStatementCacheMissCount;
+
     /**
      * Creates a wrapper around {@link SQLiteDatabase}.
      *
@@ -61,9 +76,97 @@ class FrameworkSQLiteDatabase implements SupportSQLiteDatabase {
         mDelegate = delegate;
     }
 
+    /**
+     * Compiles the given SQL, or returns a statement compiled earlier for the same SQL and
+     * closed since, which skips preparing it again on a connection.
+     * <p>
+     * Closing the returned statement clears its bindings and keeps the compiled statement for the
+     * next call with the same SQL. Every call returns a new wrapper, which can't be used any more
+     * once it is closed.
+     */
     @Override
     public SupportSQLiteStatement compileStatement(String sql) {
-        return new FrameworkSQLiteStatement(mDelegate.compileStatement(sql));
+        SQLiteStatement statement;
+        synchronized (mStatementCache) {
+            statement = mStatementCache.remove(sql);
+            if (statement != null) {
+                mStatementCacheHitCount++;
+            } else {
+                mStatementCacheMissCount++;
+            }
+        }
+        if (statement == null) {
+            statement = mDelegate.compileStatement(sql);
+        }
+        return new FrameworkSQLiteStatement(statement, sql, this);
+    }
+
+    /**
+     * Keeps the given compiled statement for a future {@link #compileStatement(String)}, or closes
+     * it if the cache already has one for the same SQL or is disabled.
+     * <p>
+     * Must be called at most once for each statement handed out by
+     * {@link #compileStatement(String)}.
+     */
+    void releaseStatement(String sql, SQLiteStatement statement) {
+        statement.clearBindings();
+        SQLiteStatement evicted = statement;
+        synchronized (mStatementCache) {
+            if (!mStatementCache.containsKey(sql) && mStatementCacheSize > 0
+                    && mDelegate.isOpen()) {
+                mStatementCache.put(sql, statement);
+                evicted = trimStatementCacheLocked();
+            }
+        }
+        if (evicted != null) {
+            evicted.close();
+        }
+    }
+
+    /**
+     * Removes the least recently used statement if the cache is over its size.
+     *
+     * @return The removed statement, to be closed outside of the lock, or null.
+     */
+    private SQLiteStatement trimStatementCacheLocked() {
+        if (mStatementCache.size() <= mStatementCacheSize) {
+            return null;
+        }
+        final Iterator<Map.Entry<String, SQLiteStatement>> iterator =
+                mStatementCache.entrySet().iterator();
+        final SQLiteStatement eldest = iterator.next().getValue();
+        iterator.remove();
+        return eldest;
+    }
+
+    private void clearStatementCache() {
+        final SQLiteStatement[] statements;
+        synchronized (mStatementCache) {
+            statements = mStatementCache.values().toArray(
+                    new SQLiteStatement[mStatementCache.size()]);
+            mStatementCache.clear();
+        }
+        for (SQLiteStatement statement : statements) {
+            statement.close();
+        }
+    }
+
+    /**
+     * @return The number of calls to {@link #compileStatement(String)} which reused a statement.
+     */
+    int getStatementCacheHitCount() {
+        synchronized (mStatementCache) {
+            return mStatementCacheHitCount;
+        }
+    }
+
+    /**
+     * @return The number of calls to {@link #compileStatement(String)} which compiled the SQL.
+     */
+    int getStatementCacheMissCount() {
+        synchronized (mStatementCache) {
+            return mStatementCacheMissCount;
+        }
     }
 
     @Override
@@ -292,9 +395,23 @@ class FrameworkSQLiteDatabase implements SupportSQLiteDatabase {
         mDelegate.setLocale(locale);
     }
 
+    /**
+     * Sets the size of the prepared statement cache of the framework connections as well as the
+     * number of closed statements kept for reuse by {@link #compileStatement(String)}.
+     */
     @Override
     public void setMaxSqlCacheSize(int cacheSize) {
         mDelegate.setMaxSqlCacheSize(cacheSize);
+        SQLiteStatement evicted;
+        do {
+            synchronized (mStatementCache) {
+                mStatementCacheSize = cacheSize;
+                evicted = trimStatementCacheLocked();
+            }
+            if (evicted != null) {
+                evicted.close();
+            }
+        } while (evicted != null);
     }
 
     @Override
@@ -332,6 +449,7 @@ class FrameworkSQLiteDatabase implements SupportSQLiteDatabase {
 
     @Override
     public void close() throws IOException {
+        clearStatementCache();
         mDelegate.close();
     }
 
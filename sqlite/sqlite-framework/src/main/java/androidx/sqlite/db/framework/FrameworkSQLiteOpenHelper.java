@@ -26,6 +26,8 @@ import androidx.sqlite.db.SupportSQLiteDatabase;
 import androidx.sqlite.db.SupportSQLiteOpenHelper;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 class FrameworkSQLiteOpenHelper implements SupportSQLiteOpenHelper {
 
@@ -33,12 +35,17 @@ class FrameworkSQLiteOpenHelper implements SupportSQLiteOpenHelper {
     private final String mName;
     private final Callback mCallback;
     private final boolean mUseNoBackupDirectory;
+    private final int mReaderConnectionCount;
     private final Object mLock;
 
     // Delegate is created lazily
     private OpenHelper mDelegate;
     private boolean mWriteAheadLoggingEnabled;
 
+    // Read-only connections, opened lazily once the writable database is open.
+    private FrameworkSQLiteDatabase[] mReaders;
+    private final AtomicInteger mNextReader = new AtomicInteger();
+
     FrameworkSQLiteOpenHelper(
             Context context,
             String name,
@@ -51,10 +58,20 @@ class FrameworkSQLiteOpenHelper implements SupportSQLiteOpenHelper {
             String name,
             Callback callback,
             boolean useNoBackupDirectory) {
+        this(context, name, callback, useNoBackupDirectory, 0);
+    }
+
+    FrameworkSQLiteOpenHelper(
+            Context context,
+            String name,
+            Callback callback,
+            boolean useNoBackupDirectory,
+            int readerConnectionCount) {
         mContext = context;
         mName = name;
         mCallback = callback;
         mUseNoBackupDirectory = useNoBackupDirectory;
+        mReaderConnectionCount = readerConnectionCount;
         mLock = new Object();
     }
 
@@ -94,6 +111,10 @@ class FrameworkSQLiteOpenHelper implements SupportSQLiteOpenHelper {
     @androidx.annotation.RequiresApi(api = Build.VERSION_CODES.JELLY_BEAN)
     public void setWriteAheadLoggingEnabled(boolean enabled) {
         synchronized (mLock) {
+            if (!enabled) {
+                // SQLite can only leave WAL mode when no other connection is open.
+                closeReadersLocked();
+            }
             if (mDelegate != null) {
                 mDelegate.setWriteAheadLoggingEnabled(enabled);
             }
@@ -106,13 +127,86 @@ class FrameworkSQLiteOpenHelper implements SupportSQLiteOpenHelper {
         return getDelegate().getWritableSupportDatabase();
     }
 
+    /**
+     * Returns one of the read-only connections if there are any, so that queries run through it
+     * are not serialized behind the writable connection. Otherwise returns the same database as
+     * {@link #getWritableDatabase()}.
+     * <p>
+     * Read-only connections only see committed data, so they must not be used for queries that
+     * are part of a transaction.
+     */
     @Override
     public SupportSQLiteDatabase getReadableDatabase() {
-        return getDelegate().getReadableSupportDatabase();
+        final FrameworkSQLiteDatabase[] readers = getReaders();
+        if (readers == null) {
+            return getDelegate().getReadableSupportDatabase();
+        }
+        final int index = (mNextReader.getAndIncrement() & Integer.MAX_VALUE) % readers.length;
+        return readers[index];
+    }
+
+    /**
+     * Returns the read-only connections, opening them if needed, or null if this helper does
+     * not use any.
+     * <p>
+     * Readers are only useful in write-ahead logging mode, where they can read while the
+     * writable connection writes, and need a database file to connect to.
+     */
+    private FrameworkSQLiteDatabase[] getReaders() {
+        if (mReaderConnectionCount == 0 || mName == null
+                || Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            return null;
+        }
+        synchronized (mLock) {
+            if (!mWriteAheadLoggingEnabled) {
+                return null;
+            }
+            if (mReaders == null) {
+                // The writable database must be open first, so that the schema is created or
+                // migrated before readers connect and so that the file is in WAL mode.
+                final String path = getWritableDatabase().getPath();
+                final FrameworkSQLiteDatabase[] readers =
+                        new FrameworkSQLiteDatabase[mReaderConnectionCount];
+                for (int i = 0; i < readers.length; i++) {
+                    readers[i] = openReader(path);
+                }
+                mReaders = readers;
+            }
+            return mReaders;
+        }
+    }
+
+    private FrameworkSQLiteDatabase openReader(String path) {
+        final FrameworkSQLiteDatabase[] dbRef = new FrameworkSQLiteDatabase[1];
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(path, null,
+                SQLiteDatabase.OPEN_READONLY, new DatabaseErrorHandler() {
+                    @Override
+                    public void onCorruption(SQLiteDatabase dbObj) {
+                        mCallback.onCorruption(dbRef[0]);
+                    }
+                });
+        dbRef[0] = new FrameworkSQLiteDatabase(db);
+        return dbRef[0];
+    }
+
+    private void closeReadersLocked() {
+        if (mReaders != null) {
+            for (FrameworkSQLiteDatabase reader : mReaders) {
+                try {
+                    reader.close();
+                } catch (IOException ignored) {
+                    // FrameworkSQLiteDatabase never throws on close.
+                }
+            }
+            mReaders = null;
+        }
     }
 
     @Override
     public void close() {
+        synchronized (mLock) {
+            closeReadersLocked();
+        }
         getDelegate().close();
     }
 
@@ -25,6 +25,35 @@ import androidx.sqlite.db.SupportSQLiteOpenHelper;
  */
 @SuppressWarnings("unused")
 public final class FrameworkSQLiteOpenHelperFactory implements SupportSQLiteOpenHelper.Factory {
+    private final int mReaderConnectionCount;
+
+    /**
+     * Creates a factory of open helpers using a single connection for all reads and writes.
+     */
+    public FrameworkSQLiteOpenHelperFactory() {
+        this(0);
+    }
+
+    /**
+     * Creates a factory of open helpers which, in write-ahead logging mode, return one of
+     * {@code readerConnectionCount} read-only connections from
+     * {@link SupportSQLiteOpenHelper#getReadableDatabase()}. Reads run on these connections
+     * are not serialized behind the writable connection, so they can run in parallel with each
+     * other and with an open write transaction.
+     * <p>
+     * Read-only connections only see committed data, so reads which are part of a transaction
+     * must use {@link SupportSQLiteOpenHelper#getWritableDatabase()}. In-memory databases and
+     * databases not in write-ahead logging mode do not use read-only connections.
+     *
+     * @param readerConnectionCount The number of read-only connections.
+     */
+    public FrameworkSQLiteOpenHelperFactory(int readerConnectionCount) {
+        if (readerConnectionCount < 0) {
+            throw new IllegalArgumentException("readerConnectionCount < 0");
+        }
+        mReaderConnectionCount = readerConnectionCount;
+    }
+
     @NonNull
     @Override
     public SupportSQLiteOpenHelper create(
@@ -33,6 +62,7 @@ public final class FrameworkSQLiteOpenHelperFactory implements SupportSQLiteOpen
                 configuration.context,
                 configuration.name,
                 configuration.callback,
-                configuration.useNoBackupDirectory);
+                configuration.useNoBackupDirectory,
+                mReaderConnectionCount);
     }
 }
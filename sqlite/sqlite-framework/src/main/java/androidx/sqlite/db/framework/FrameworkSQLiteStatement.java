@@ -25,6 +25,11 @@ import androidx.sqlite.db.SupportSQLiteStatement;
  */
 class FrameworkSQLiteStatement extends FrameworkSQLiteProgram implements SupportSQLiteStatement {
     private final SQLiteStatement mDelegate;
+    private final String mSql;
+    // The database which keeps the delegate for reuse once this statement is closed, if any.
+    private final FrameworkSQLiteDatabase mDatabase;
+    // Whether close() was called. The delegate may be used by another wrapper afterwards.
+    private boolean mReleased;
 
     /**
      * Creates a wrapper around a framework {@link SQLiteStatement}.
@@ -32,32 +37,110 @@ class FrameworkSQLiteStatement extends FrameworkSQLiteProgram implements Support
      * @param delegate The SQLiteStatement to delegate calls to.
      */
     FrameworkSQLiteStatement(SQLiteStatement delegate) {
+        this(delegate, null, null);
+    }
+
+    /**
+     * Creates a wrapper around a framework {@link SQLiteStatement} which is handed back to the
+     * given database for reuse when closed.
+     *
+     * @param delegate The SQLiteStatement to delegate calls to.
+     * @param sql      The SQL the statement was compiled from.
+     * @param database The database caching the statement.
+     */
+    FrameworkSQLiteStatement(SQLiteStatement delegate, String sql,
+            FrameworkSQLiteDatabase database) {
         super(delegate);
         mDelegate = delegate;
+        mSql = sql;
+        mDatabase = database;
+    }
+
+    /**
+     * Releases the statement. Calling this more than once has no effect.
+     */
+    @Override
+    public void close() {
+        if (mReleased) {
+            return;
+        }
+        mReleased = true;
+        if (mDatabase != null) {
+            mDatabase.releaseStatement(mSql, mDelegate);
+        } else {
+            super.close();
+        }
+    }
+
+    @Override
+    public void bindNull(int index) {
+        checkNotReleased();
+        super.bindNull(index);
+    }
+
+    @Override
+    public void bindLong(int index, long value) {
+        checkNotReleased();
+        super.bindLong(index, value);
+    }
+
+    @Override
+    public void bindDouble(int index, double value) {
+        checkNotReleased();
+        super.bindDouble(index, value);
+    }
+
+    @Override
+    public void bindString(int index, String value) {
+        checkNotReleased();
+        super.bindString(index, value);
+    }
+
+    @Override
+    public void bindBlob(int index, byte[] value) {
+        checkNotReleased();
+        super.bindBlob(index, value);
+    }
+
+    @Override
+    public void clearBindings() {
+        checkNotReleased();
+        super.clearBindings();
     }
 
     @Override
     public void execute() {
+        checkNotReleased();
         mDelegate.execute();
     }
 
     @Override
     public int executeUpdateDelete() {
+        checkNotReleased();
         return mDelegate.executeUpdateDelete();
     }
 
     @Override
     public long executeInsert() {
+        checkNotReleased();
         return mDelegate.executeInsert();
     }
 
     @Override
     public long simpleQueryForLong() {
+        checkNotReleased();
         return mDelegate.simpleQueryForLong();
     }
 
     @Override
     public String simpleQueryForString() {
+        checkNotReleased();
         return mDelegate.simpleQueryForString();
     }
+
+    private void checkNotReleased() {
+        if (mReleased) {
+            throw new IllegalStateException("The statement is already closed");
+        }
+    }
 }
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.versionedparcelable;
+
+import java.util.List;
+
+/**
+ * An item with a Parcelizer generated by the versionedparcelable-compiler.
+ */
+@VersionedParcelize(allowSerialization = true)
+public class BenchmarkItem implements VersionedParcelable {
+    @ParcelField(1)
+    public int mId;
+    @ParcelField(2)
+    public long mTimestamp;
+    @ParcelField(3)
+    public String mTitle;
+    @ParcelField(4)
+    public int[] mValues;
+    @ParcelField(5)
+    public List<BenchmarkItem> mChildren;
+}
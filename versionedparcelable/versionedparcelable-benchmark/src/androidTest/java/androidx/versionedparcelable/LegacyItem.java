@@ -0,0 +1,28 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.versionedparcelable;
+
+/**
+ * An item with a hand written Parcelizer that does not register itself, like the ones generated
+ * by older versions of the versionedparcelable-compiler.
+ */
+public class LegacyItem implements VersionedParcelable {
+    public int mId;
+    public long mTimestamp;
+    public String mTitle;
+    public int[] mValues;
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.versionedparcelable;
+
+/**
+ * The Parcelizer of {@link LegacyItem}, which VersionedParcel has to call through reflection.
+ */
+public final class LegacyItemParcelizer {
+    public static LegacyItem read(VersionedParcel parcel) {
+        LegacyItem obj = new LegacyItem();
+        obj.mId = parcel.readInt(obj.mId, 1);
+        obj.mTimestamp = parcel.readLong(obj.mTimestamp, 2);
+        obj.mTitle = parcel.readString(obj.mTitle, 3);
+        obj.mValues = parcel.readIntArray(obj.mValues, 4);
+        return obj;
+    }
+
+    public static void write(LegacyItem obj, VersionedParcel parcel) {
+        parcel.setSerializationFlags(true, false);
+        parcel.writeInt(obj.mId, 1);
+        parcel.writeLong(obj.mTimestamp, 2);
+        parcel.writeString(obj.mTitle, 3);
+        parcel.writeIntArray(obj.mValues, 4);
+    }
+
+    private LegacyItemParcelizer() {
+    }
+}
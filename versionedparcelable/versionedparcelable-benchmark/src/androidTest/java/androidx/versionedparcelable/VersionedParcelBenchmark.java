@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.versionedparcelable;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * Compares the stream and ByteBuffer parcels, and registered and reflective Parcelizers.
+ * <p>
+ * Lives in the androidx.versionedparcelable package to reach the package private parcels.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class VersionedParcelBenchmark {
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private BenchmarkItem mItem;
+    private LegacyItem mLegacyItem;
+    private byte[] mBytes;
+
+    @Before
+    public void setup() {
+        mItem = createItem(0);
+        mItem.mChildren = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            mItem.mChildren.add(createItem(i));
+        }
+        mLegacyItem = new LegacyItem();
+        mLegacyItem.mId = mItem.mId;
+        mLegacyItem.mTimestamp = mItem.mTimestamp;
+        mLegacyItem.mTitle = mItem.mTitle;
+        mLegacyItem.mValues = mItem.mValues;
+
+        ByteBuffer buffer = ParcelUtils.toByteBuffer(mItem);
+        mBytes = new byte[buffer.remaining()];
+        buffer.get(mBytes);
+    }
+
+    @Test
+    public void writeStream() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            VersionedParcelStream parcel = new VersionedParcelStream(null, output);
+            parcel.writeVersionedParcelable(mItem);
+            parcel.closeField();
+            output.toByteArray();
+        }
+    }
+
+    @Test
+    public void writeByteBuffer() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            ParcelUtils.toByteBuffer(mItem);
+        }
+    }
+
+    @Test
+    public void readStream() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            VersionedParcelStream parcel =
+                    new VersionedParcelStream(new ByteArrayInputStream(mBytes), null);
+            BenchmarkItem item = parcel.readVersionedParcelable();
+            assertEquals(mItem.mChildren.size(), item.mChildren.size());
+        }
+    }
+
+    @Test
+    public void readByteBuffer() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        ByteBuffer buffer = ByteBuffer.wrap(mBytes);
+        while (state.keepRunning()) {
+            BenchmarkItem item = ParcelUtils.fromByteBuffer(buffer);
+            assertEquals(mItem.mChildren.size(), item.mChildren.size());
+        }
+    }
+
+    @Test
+    public void roundTripRegisteredParcelizer() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        BenchmarkItem item = createItem(0);
+        while (state.keepRunning()) {
+            ParcelUtils.fromByteBuffer(ParcelUtils.toByteBuffer(item));
+        }
+    }
+
+    @Test
+    public void roundTripReflectiveParcelizer() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            ParcelUtils.fromByteBuffer(ParcelUtils.toByteBuffer(mLegacyItem));
+        }
+    }
+
+    private static BenchmarkItem createItem(int id) {
+        BenchmarkItem item = new BenchmarkItem();
+        item.mId = id;
+        item.mTimestamp = 1_000_000L * id;
+        item.mTitle = "Item number " + id;
+        item.mValues = new int[32];
+        for (int i = 0; i < item.mValues.length; i++) {
+            item.mValues[i] = i * id;
+        }
+        return item;
+    }
+}
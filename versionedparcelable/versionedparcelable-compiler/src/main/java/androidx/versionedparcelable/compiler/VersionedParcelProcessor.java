@@ -17,9 +17,11 @@ package androidx.versionedparcelable.compiler;
 
 import com.squareup.javapoet.AnnotationSpec;
 import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 
@@ -73,6 +75,8 @@ public class VersionedParcelProcessor extends AbstractProcessor {
     private static final ClassName RESTRICT_TO_SCOPE = RESTRICT_TO.nestedClass("Scope");
     private static final ClassName VERSIONED_PARCEL =
             ClassName.get("androidx.versionedparcelable", "VersionedParcel");
+    private static final ClassName VERSIONED_PARCELIZER =
+            ClassName.get("androidx.versionedparcelable", "VersionedParcelizer");
 
     private static final String GEN_SUFFIX = "Parcelizer";
     private static final String READ = "read";
@@ -306,6 +310,7 @@ public class VersionedParcelProcessor extends AbstractProcessor {
         readBuilder.addStatement("return obj");
         genClass.addMethod(readBuilder.build());
         genClass.addMethod(writeBuilder.build());
+        addRegistration(genClass, versionedParcelable.getSimpleName() + GEN_SUFFIX, type);
         try {
             TypeSpec typeSpec = genClass.build();
             String pkg = getPkg(versionedParcelable);
@@ -338,6 +343,8 @@ public class VersionedParcelProcessor extends AbstractProcessor {
                         .addParameter(VERSIONED_PARCEL, "parcel")
                         .addStatement("$L.write(obj, parcel)", superCls)
                         .build());
+                addRegistration(jetifyClass,
+                        jetifyAs.substring(index + 1, jetifyAs.length() - 1) + GEN_SUFFIX, type);
                 TypeSpec jetified = jetifyClass.build();
                 JavaFile.builder(jetPkg, jetified).build().writeTo(mEnv.getFiler());
             }
@@ -346,6 +353,36 @@ public class VersionedParcelProcessor extends AbstractProcessor {
         }
     }
 
+    /**
+     * Registers an instance of VersionedParcelizer that calls the static read and write methods
+     * of the generated class, so that VersionedParcel does not need reflection to call them.
+     */
+    private void addRegistration(TypeSpec.Builder genClass, String genClassName, TypeName type) {
+        TypeSpec parcelizer = TypeSpec.anonymousClassBuilder("")
+                .addSuperinterface(ParameterizedTypeName.get(VERSIONED_PARCELIZER, type))
+                .addMethod(MethodSpec
+                        .methodBuilder(READ)
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(type)
+                        .addParameter(VERSIONED_PARCEL, "parcel")
+                        .addStatement("return $L.$L(parcel)", genClassName, READ)
+                        .build())
+                .addMethod(MethodSpec
+                        .methodBuilder(WRITE)
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .addParameter(type, "obj")
+                        .addParameter(VERSIONED_PARCEL, "parcel")
+                        .addStatement("$L.$L(obj, parcel)", genClassName, WRITE)
+                        .build())
+                .build();
+        genClass.addStaticBlock(CodeBlock.builder()
+                .addStatement("$T.registerParcelizer($L.class, $L)", VERSIONED_PARCEL,
+                        genClassName, parcelizer)
+                .build());
+    }
+
     private String strip(String s) {
         if (!s.startsWith("\"")) return s;
         return s.substring(1, s.length() - 1);
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.versionedparcelable;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import androidx.test.filters.SmallTest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+@SmallTest
+public class VersionedParcelByteBufferTest {
+
+    private VersionedParcelByteBuffer mOutputParcel;
+
+    @Before
+    public void setup() {
+        mOutputParcel = new VersionedParcelByteBuffer();
+    }
+
+    @Test
+    public void testInt() {
+        mOutputParcel.writeInt(42, 0);
+        assertEquals(42, createInputParcel().readInt(0, 0));
+    }
+
+    @Test
+    public void testBoolean() {
+        mOutputParcel.writeBoolean(true, 0);
+        assertEquals(true, createInputParcel().readBoolean(false, 0));
+    }
+
+    @Test
+    public void testString() {
+        mOutputParcel.writeString("My string", 0);
+        assertEquals("My string", createInputParcel().readString(null, 0));
+    }
+
+    @Test
+    public void testEmptyField() {
+        mOutputParcel.writeString("", 0);
+        mOutputParcel.writeInt(42, 1);
+        VersionedParcelByteBuffer input = createInputParcel();
+        assertNull(input.readString(null, 0));
+        assertEquals(42, input.readInt(0, 1));
+    }
+
+    @Test
+    public void testLargeField() {
+        byte[] bytes = new byte[0x20000];
+        Arrays.fill(bytes, (byte) 7);
+        mOutputParcel.writeByteArray(bytes, 0);
+        mOutputParcel.writeInt(42, 1);
+        VersionedParcelByteBuffer input = createInputParcel();
+        assertArrayEquals(bytes, input.readByteArray(null, 0));
+        assertEquals(42, input.readInt(0, 1));
+    }
+
+    @Test
+    public void testIllegalArgumentException() {
+        mOutputParcel.writeException(new IllegalArgumentException(), 0);
+        assertEquals(IllegalArgumentException.class,
+                createInputParcel().readException(null, 0).getClass());
+    }
+
+    @Test
+    public void testSameBytesAsStream() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        VersionedParcelStream streamParcel = new VersionedParcelStream(null, output);
+        writeFields(streamParcel);
+        streamParcel.closeField();
+        writeFields(mOutputParcel);
+        mOutputParcel.closeField();
+
+        assertArrayEquals(output.toByteArray(), toArray(mOutputParcel.getWrittenBytes()));
+    }
+
+    @Test
+    public void testReadFromStream() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        VersionedParcelStream streamParcel = new VersionedParcelStream(null, output);
+        writeFields(streamParcel);
+        streamParcel.closeField();
+
+        VersionedParcelByteBuffer input =
+                new VersionedParcelByteBuffer(ByteBuffer.wrap(output.toByteArray()));
+        assertEquals(42, input.readInt(0, 0));
+        assertEquals(-5L, input.readLong(0, 1));
+        assertEquals("My string é", input.readString(null, 2));
+        assertArrayEquals(new int[] {1, 2, 3}, input.readIntArray(null, 3));
+        assertEquals(1.5, input.readDouble(0, 4), 0);
+    }
+
+    @Test
+    public void testWriteToStream() {
+        writeFields(mOutputParcel);
+        mOutputParcel.closeField();
+
+        VersionedParcelStream input = new VersionedParcelStream(
+                new ByteArrayInputStream(toArray(mOutputParcel.getWrittenBytes())), null);
+        assertEquals(42, input.readInt(0, 0));
+        assertEquals(-5L, input.readLong(0, 1));
+        assertEquals("My string é", input.readString(null, 2));
+        assertArrayEquals(new int[] {1, 2, 3}, input.readIntArray(null, 3));
+        assertEquals(1.5, input.readDouble(0, 4), 0);
+    }
+
+    private static void writeFields(VersionedParcel parcel) {
+        parcel.writeInt(42, 0);
+        parcel.writeLong(-5L, 1);
+        parcel.writeString("My string é", 2);
+        parcel.writeIntArray(new int[] {1, 2, 3}, 3);
+        parcel.writeDouble(1.5, 4);
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private VersionedParcelByteBuffer createInputParcel() {
+        mOutputParcel.closeField();
+        return new VersionedParcelByteBuffer(mOutputParcel.getWrittenBytes());
+    }
+}
@@ -25,8 +25,10 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -67,9 +69,13 @@ public class ParcelUtils {
      */
     @RestrictTo(LIBRARY_GROUP_PREFIX)
     public static void toOutputStream(VersionedParcelable obj, OutputStream output) {
-        VersionedParcelStream stream = new VersionedParcelStream(null, output);
-        stream.writeVersionedParcelable(obj);
-        stream.closeField();
+        ByteBuffer buffer = toByteBuffer(obj);
+        try {
+            output.write(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                    buffer.remaining());
+        } catch (IOException e) {
+            throw new VersionedParcel.ParcelException(e);
+        }
     }
 
     /**
@@ -83,6 +89,33 @@ public class ParcelUtils {
         return stream.readVersionedParcelable();
     }
 
+    /**
+     * Write a VersionedParcelable into a ByteBuffer, in the same format as
+     * {@link #toOutputStream(VersionedParcelable, OutputStream)}.
+     * @hide
+     */
+    @RestrictTo(LIBRARY_GROUP_PREFIX)
+    @NonNull
+    public static ByteBuffer toByteBuffer(@Nullable VersionedParcelable obj) {
+        VersionedParcelByteBuffer parcel = new VersionedParcelByteBuffer();
+        parcel.writeVersionedParcelable(obj);
+        parcel.closeField();
+        return parcel.getWrittenBytes();
+    }
+
+    /**
+     * Read a VersionedParcelable from the remaining bytes of a ByteBuffer, the position of the
+     * given buffer is not changed.
+     * @hide
+     */
+    @SuppressWarnings("TypeParameterUnusedInFormals")
+    @RestrictTo(LIBRARY_GROUP_PREFIX)
+    @Nullable
+    public static <T extends VersionedParcelable> T fromByteBuffer(@NonNull ByteBuffer input) {
+        VersionedParcelByteBuffer parcel = new VersionedParcelByteBuffer(input);
+        return parcel.readVersionedParcelable();
+    }
+
     /**
      * Add a VersionedParcelable to an existing Bundle.
      */
@@ -35,7 +35,6 @@ import androidx.annotation.RequiresApi;
 import androidx.annotation.RestrictTo;
 import androidx.collection.ArrayMap;
 import androidx.collection.ArraySet;
-import androidx.collection.SimpleArrayMap;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -51,6 +50,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @hide
@@ -78,16 +78,34 @@ public abstract class VersionedParcel {
     private static final int TYPE_INTEGER = 7;
     private static final int TYPE_FLOAT = 8;
 
-    final SimpleArrayMap<String, Method> mReadCache;
-    final SimpleArrayMap<String, Method> mWriteCache;
-    final SimpleArrayMap<String, Class<?>> mParcelizerCache;
+    // These are shared by all the parcels in the process, so that each Parcelizer is only looked
+    // up once rather than once for every top level parcel.
+    // Keyed by the Parcelizer class rather than its name, classes with the same name from
+    // different ClassLoaders each have their own Parcelizer.
+    private static final ConcurrentHashMap<Class<?>, VersionedParcelizer<?>> sParcelizers =
+            new ConcurrentHashMap<>();
+    // Parcelizers of the VersionedParcelable classes written so far.
+    private static final ConcurrentHashMap<Class<?>, VersionedParcelizer<?>> sWriteParcelizers =
+            new ConcurrentHashMap<>();
+    // Parcelizers read so far. Reads always load them with the ClassLoader of VersionedParcel,
+    // so a name stands for a single class.
+    private static final ConcurrentHashMap<String, VersionedParcelizer<?>> sReadParcelizers =
+            new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, String> sParcelizerNames =
+            new ConcurrentHashMap<>();
 
-    VersionedParcel(SimpleArrayMap<String, Method> readCache,
-            SimpleArrayMap<String, Method> writeCache,
-            SimpleArrayMap<String, Class<?>> parcelizerCache) {
-        mReadCache = readCache;
-        mWriteCache = writeCache;
-        mParcelizerCache = parcelizerCache;
+    VersionedParcel() {
+    }
+
+    /**
+     * Registers the Parcelizer of the given generated class, this is called by the generated
+     * Parcelizers when they are initialized.
+     * @hide
+     */
+    @RestrictTo(LIBRARY_GROUP_PREFIX)
+    public static void registerParcelizer(@NonNull Class<?> parcelizerClass,
+            @NonNull VersionedParcelizer<?> parcelizer) {
+        sParcelizers.put(parcelizerClass, parcelizer);
     }
 
     /**
@@ -1030,22 +1048,19 @@ public abstract class VersionedParcel {
             writeString(null);
             return;
         }
-        writeVersionedParcelableCreator(p);
-
-        VersionedParcel subParcel = createSubParcel();
-        writeToParcel(p, subParcel);
-        subParcel.closeField();
-    }
-
-    private void writeVersionedParcelableCreator(VersionedParcelable p) {
-        Class<?> name;
+        VersionedParcelizer<VersionedParcelable> parcelizer;
+        String name = getParcelizerName(p.getClass());
         try {
-            name = findParcelClass(p.getClass());
+            parcelizer = getWriteParcelizer(p.getClass());
         } catch (ClassNotFoundException e) {
             throw new RuntimeException(p.getClass().getSimpleName() + " does not have a Parcelizer",
                     e);
         }
-        writeString(name.getName());
+        writeString(name);
+
+        VersionedParcel subParcel = createSubParcel();
+        parcelizer.write(p, subParcel);
+        subParcel.closeField();
     }
 
     /**
@@ -1562,84 +1577,130 @@ public abstract class VersionedParcel {
     @SuppressWarnings({"unchecked", "TypeParameterUnusedInFormals"})
     protected <T extends VersionedParcelable> T readFromParcel(
             String parcelCls, VersionedParcel versionedParcel) {
+        VersionedParcelizer<T> parcelizer;
         try {
-            Method m = getReadMethod(parcelCls);
-            return (T) m.invoke(null, versionedParcel);
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
-        } catch (InvocationTargetException e) {
-            Throwable cause = e.getCause();
-            if (cause instanceof RuntimeException) {
-                throw (RuntimeException) cause;
-            }
-            if (cause instanceof Error) {
-                throw (Error) cause;
-            }
-            throw new RuntimeException(e);
-        } catch (NoSuchMethodException e) {
-            throw new RuntimeException(e);
+            parcelizer = getReadParcelizer(parcelCls);
         } catch (ClassNotFoundException e) {
             throw new RuntimeException(e);
         }
+        return parcelizer.read(versionedParcel);
     }
 
     /**
      */
     protected <T extends VersionedParcelable> void writeToParcel(T val,
             VersionedParcel versionedParcel) {
+        VersionedParcelizer<T> parcelizer;
         try {
-            Method m = getWriteMethod(val.getClass());
-            m.invoke(null, val, versionedParcel);
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
-        } catch (InvocationTargetException e) {
-            Throwable cause = e.getCause();
-            if (cause instanceof RuntimeException) {
-                throw (RuntimeException) cause;
-            }
-            if (cause instanceof Error) {
-                throw (Error) cause;
-            }
-            throw new RuntimeException(e);
-        } catch (NoSuchMethodException e) {
-            throw new RuntimeException(e);
+            parcelizer = getWriteParcelizer(val.getClass());
         } catch (ClassNotFoundException e) {
             throw new RuntimeException(e);
         }
+        parcelizer.write(val, versionedParcel);
     }
 
-    private Method getReadMethod(String parcelCls) throws IllegalAccessException,
-            NoSuchMethodException, ClassNotFoundException {
-        Method m = mReadCache.get(parcelCls);
-        if (m == null) {
-            Class<?> cls = Class.forName(parcelCls, true, VersionedParcel.class.getClassLoader());
-            m = cls.getDeclaredMethod("read", VersionedParcel.class);
-            mReadCache.put(parcelCls, m);
+    @SuppressWarnings("unchecked")
+    private static <T extends VersionedParcelable> VersionedParcelizer<T> getReadParcelizer(
+            String name) throws ClassNotFoundException {
+        VersionedParcelizer<?> parcelizer = sReadParcelizers.get(name);
+        if (parcelizer == null) {
+            parcelizer = getParcelizer(name, VersionedParcel.class.getClassLoader());
+            sReadParcelizers.put(name, parcelizer);
         }
-        return m;
+        return (VersionedParcelizer<T>) parcelizer;
     }
 
-    private Method getWriteMethod(Class<?> baseCls) throws IllegalAccessException,
-            NoSuchMethodException, ClassNotFoundException {
-        Method m = mWriteCache.get(baseCls.getName());
-        if (m == null) {
-            Class<?> cls = findParcelClass(baseCls);
-            m = cls.getDeclaredMethod("write", baseCls, VersionedParcel.class);
-            mWriteCache.put(baseCls.getName(), m);
+    @SuppressWarnings("unchecked")
+    private static <T extends VersionedParcelable> VersionedParcelizer<T> getWriteParcelizer(
+            Class<?> cls) throws ClassNotFoundException {
+        VersionedParcelizer<?> parcelizer = sWriteParcelizers.get(cls);
+        if (parcelizer == null) {
+            parcelizer = getParcelizer(getParcelizerName(cls), cls.getClassLoader());
+            sWriteParcelizers.put(cls, parcelizer);
         }
-        return m;
+        return (VersionedParcelizer<T>) parcelizer;
     }
 
-    private Class<?> findParcelClass(Class<?> cls)
+    private static VersionedParcelizer<?> getParcelizer(String name, ClassLoader classLoader)
             throws ClassNotFoundException {
-        Class<?> ret = mParcelizerCache.get(cls.getName());
-        if (ret == null) {
+        // Initializing the class registers Parcelizers from the current compiler, older ones
+        // only have static methods that need to be called through reflection.
+        Class<?> cls = Class.forName(name, true, classLoader);
+        VersionedParcelizer<?> parcelizer = sParcelizers.get(cls);
+        if (parcelizer == null) {
+            parcelizer = new ReflectiveParcelizer(cls);
+            VersionedParcelizer<?> previous = sParcelizers.putIfAbsent(cls, parcelizer);
+            if (previous != null) {
+                parcelizer = previous;
+            }
+        }
+        return parcelizer;
+    }
+
+    private static String getParcelizerName(Class<?> cls) {
+        String name = sParcelizerNames.get(cls.getName());
+        if (name == null) {
             String pkg = cls.getPackage().getName();
-            String c = String.format("%s.%sParcelizer", pkg, cls.getSimpleName());
-            ret = Class.forName(c, false, cls.getClassLoader());
-            mParcelizerCache.put(cls.getName(), ret);
+            name = String.format("%s.%sParcelizer", pkg, cls.getSimpleName());
+            sParcelizerNames.put(cls.getName(), name);
+        }
+        return name;
+    }
+
+    /**
+     * Calls the static read and write methods of a Parcelizer that does not register itself.
+     */
+    private static class ReflectiveParcelizer implements VersionedParcelizer<VersionedParcelable> {
+        private final Class<?> mParcelizerClass;
+        private Method mReadMethod;
+        private Method mWriteMethod;
+
+        ReflectiveParcelizer(Class<?> parcelizerClass) {
+            mParcelizerClass = parcelizerClass;
+        }
+
+        @Override
+        public VersionedParcelable read(VersionedParcel parcel) {
+            try {
+                if (mReadMethod == null) {
+                    mReadMethod = mParcelizerClass.getDeclaredMethod("read",
+                            VersionedParcel.class);
+                }
+                return (VersionedParcelable) invoke(mReadMethod, parcel);
+            } catch (NoSuchMethodException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public void write(VersionedParcelable obj, VersionedParcel parcel) {
+            try {
+                if (mWriteMethod == null) {
+                    mWriteMethod = mParcelizerClass.getDeclaredMethod("write", obj.getClass(),
+                            VersionedParcel.class);
+                }
+                invoke(mWriteMethod, obj, parcel);
+            } catch (NoSuchMethodException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private static Object invoke(Method m, Object... args) {
+            try {
+                return m.invoke(null, args);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new RuntimeException(e);
+            }
         }
-        return ret;
     }
 
     /**
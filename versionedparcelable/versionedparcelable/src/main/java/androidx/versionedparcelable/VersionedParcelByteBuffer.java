@@ -0,0 +1,414 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.versionedparcelable;
+
+import android.os.Bundle;
+import android.os.IBinder;
+import android.os.IInterface;
+import android.os.Parcelable;
+
+import androidx.annotation.RestrictTo;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
+/**
+ * A VersionedParcel that reads and writes the same format as {@link VersionedParcelStream}
+ * directly from and into a {@link ByteBuffer}.
+ * <p>
+ * Instead of buffering every field separately, the size of a field is reserved in front of it
+ * and filled in once the field is closed. Sub parcels share the buffer with their parent.
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+class VersionedParcelByteBuffer extends VersionedParcel {
+
+    private static final Charset UTF_16 = Charset.forName("UTF-16");
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private static final int DEFAULT_CAPACITY = 256;
+    private static final int HEADER_SIZE = 4;
+    private static final int MAX_SHORT_FIELD_SIZE = 0xffff;
+
+    private final Buffer mBuffer;
+    private final VersionedParcelByteBuffer mParent;
+    private boolean mIgnoreParcelables;
+
+    private int mFieldId = -1;
+    private int mFieldEnd = -1;
+
+    private int mOutputFieldId = -1;
+    private int mOutputFieldStart = -1;
+
+    /**
+     * Creates a parcel that reads from the remaining bytes of the given buffer.
+     */
+    VersionedParcelByteBuffer(ByteBuffer input) {
+        this(new Buffer(input.duplicate().order(ByteOrder.BIG_ENDIAN)), null);
+    }
+
+    /**
+     * Creates a parcel that writes into a buffer that grows as needed.
+     */
+    VersionedParcelByteBuffer() {
+        this(new Buffer(ByteBuffer.allocate(DEFAULT_CAPACITY)), null);
+    }
+
+    private VersionedParcelByteBuffer(Buffer buffer, VersionedParcelByteBuffer parent) {
+        mBuffer = buffer;
+        mParent = parent;
+    }
+
+    /**
+     * Returns the bytes written so far. The returned buffer shares its content with this parcel.
+     */
+    ByteBuffer getWrittenBytes() {
+        ByteBuffer result = mBuffer.mData.duplicate();
+        result.flip();
+        return result;
+    }
+
+    @Override
+    public boolean isStream() {
+        return true;
+    }
+
+    /**
+     */
+    @Override
+    public void setSerializationFlags(boolean allowSerialization, boolean ignoreParcelables) {
+        if (!allowSerialization) {
+            throw new RuntimeException("Serialization of this object is not allowed");
+        }
+        mIgnoreParcelables = ignoreParcelables;
+    }
+
+    @Override
+    protected VersionedParcel createSubParcel() {
+        return new VersionedParcelByteBuffer(mBuffer, this);
+    }
+
+    @Override
+    public boolean readField(int fieldId) {
+        ByteBuffer data = mBuffer.mData;
+        while (true) {
+            if (mFieldId == fieldId) {
+                return true;
+            }
+            if (String.valueOf(mFieldId).compareTo(String.valueOf(fieldId)) > 0) {
+                return false;
+            }
+            if (mFieldEnd != -1 && data.position() < mFieldEnd) {
+                data.position(mFieldEnd);
+            }
+            mFieldEnd = -1;
+            // The header of the next field has to be within the fields of the parents.
+            if (!isReadable(mParent, HEADER_SIZE)) {
+                return false;
+            }
+            int fieldInfo = data.getInt();
+            int size = fieldInfo & MAX_SHORT_FIELD_SIZE;
+            if (size == MAX_SHORT_FIELD_SIZE) {
+                if (!isReadable(mParent, HEADER_SIZE)) {
+                    return false;
+                }
+                size = data.getInt();
+            }
+            mFieldId = (fieldInfo >> 16) & 0xffff;
+            mFieldEnd = data.position() + size;
+        }
+    }
+
+    @Override
+    public void setOutputField(int fieldId) {
+        closeField();
+        mOutputFieldId = fieldId;
+        mOutputFieldStart = mBuffer.reserve(HEADER_SIZE).position();
+        mBuffer.mData.position(mOutputFieldStart + HEADER_SIZE);
+    }
+
+    @Override
+    public void closeField() {
+        if (mOutputFieldStart < 0) {
+            return;
+        }
+        ByteBuffer data = mBuffer.mData;
+        int start = mOutputFieldStart;
+        int size = data.position() - start - HEADER_SIZE;
+        mOutputFieldStart = -1;
+        if (size == 0) {
+            // Empty fields are not written at all.
+            data.position(start);
+        } else if (size < MAX_SHORT_FIELD_SIZE) {
+            data.putInt(start, (mOutputFieldId << 16) | size);
+        } else {
+            // Large fields need a second int for the size, move the content to make room for it.
+            data = mBuffer.reserve(HEADER_SIZE);
+            byte[] array = data.array();
+            int offset = data.arrayOffset() + start + HEADER_SIZE;
+            System.arraycopy(array, offset, array, offset + HEADER_SIZE, size);
+            data.putInt(start, (mOutputFieldId << 16) | MAX_SHORT_FIELD_SIZE);
+            data.putInt(start + HEADER_SIZE, size);
+            data.position(data.position() + HEADER_SIZE);
+        }
+    }
+
+    @Override
+    public void writeByteArray(byte[] b) {
+        if (b != null) {
+            writeByteArray(b, 0, b.length);
+        } else {
+            writeInt(-1);
+        }
+    }
+
+    @Override
+    public void writeByteArray(byte[] b, int offset, int len) {
+        if (b != null) {
+            mBuffer.reserve(4 + len).putInt(len).put(b, offset, len);
+        } else {
+            writeInt(-1);
+        }
+    }
+
+    @Override
+    protected void writeCharSequence(CharSequence charSequence) {
+        if (!mIgnoreParcelables) {
+            throw new RuntimeException("CharSequence cannot be written to an OutputStream");
+        }
+    }
+
+    @Override
+    public void writeInt(int val) {
+        mBuffer.reserve(4).putInt(val);
+    }
+
+    @Override
+    public void writeLong(long val) {
+        mBuffer.reserve(8).putLong(val);
+    }
+
+    @Override
+    public void writeFloat(float val) {
+        mBuffer.reserve(4).putFloat(val);
+    }
+
+    @Override
+    public void writeDouble(double val) {
+        mBuffer.reserve(8).putDouble(val);
+    }
+
+    @Override
+    public void writeString(String val) {
+        if (val == null) {
+            writeInt(-1);
+            return;
+        }
+        int length = val.length();
+        if (length == 0 || hasSurrogates(val)) {
+            // Let the charset deal with empty strings and surrogates, to match the bytes
+            // written by VersionedParcelStream.
+            writeByteArray(val.getBytes(UTF_16));
+            return;
+        }
+        // Big endian UTF-16 with a byte order mark, which is what the UTF-16 charset writes.
+        int size = (length + 1) * 2;
+        ByteBuffer data = mBuffer.reserve(4 + size);
+        data.putInt(size);
+        data.putChar(BYTE_ORDER_MARK);
+        for (int i = 0; i < length; i++) {
+            data.putChar(val.charAt(i));
+        }
+    }
+
+    @Override
+    public void writeBoolean(boolean val) {
+        mBuffer.reserve(1).put((byte) (val ? 1 : 0));
+    }
+
+    @Override
+    public void writeStrongBinder(IBinder val) {
+        if (!mIgnoreParcelables) {
+            throw new RuntimeException("Binders cannot be written to an OutputStream");
+        }
+    }
+
+    @Override
+    public void writeParcelable(Parcelable p) {
+        if (!mIgnoreParcelables) {
+            throw new RuntimeException("Parcelables cannot be written to an OutputStream");
+        }
+    }
+
+    @Override
+    public void writeStrongInterface(IInterface val) {
+        if (!mIgnoreParcelables) {
+            throw new RuntimeException("Binders cannot be written to an OutputStream");
+        }
+    }
+
+    @Override
+    public IBinder readStrongBinder() {
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("TypeParameterUnusedInFormals")
+    public <T extends Parcelable> T readParcelable() {
+        return null;
+    }
+
+    @Override
+    public int readInt() {
+        checkReadable(4);
+        return mBuffer.mData.getInt();
+    }
+
+    @Override
+    public long readLong() {
+        checkReadable(8);
+        return mBuffer.mData.getLong();
+    }
+
+    @Override
+    public float readFloat() {
+        checkReadable(4);
+        return mBuffer.mData.getFloat();
+    }
+
+    @Override
+    public double readDouble() {
+        checkReadable(8);
+        return mBuffer.mData.getDouble();
+    }
+
+    @Override
+    public String readString() {
+        int len = readInt();
+        if (len <= 0) {
+            return null;
+        }
+        checkReadable(len);
+        ByteBuffer data = mBuffer.mData;
+        String result;
+        if (data.hasArray()) {
+            result = new String(data.array(), data.arrayOffset() + data.position(), len, UTF_16);
+            data.position(data.position() + len);
+        } else {
+            byte[] bytes = new byte[len];
+            data.get(bytes);
+            result = new String(bytes, UTF_16);
+        }
+        return result;
+    }
+
+    @Override
+    public byte[] readByteArray() {
+        int len = readInt();
+        if (len <= 0) {
+            return null;
+        }
+        checkReadable(len);
+        byte[] bytes = new byte[len];
+        mBuffer.mData.get(bytes);
+        return bytes;
+    }
+
+    @Override
+    protected CharSequence readCharSequence() {
+        return null;
+    }
+
+    @Override
+    public boolean readBoolean() {
+        checkReadable(1);
+        return mBuffer.mData.get() != 0;
+    }
+
+    @Override
+    public void writeBundle(Bundle val) {
+        VersionedParcelStream.writeStreamBundle(this, val);
+    }
+
+    @Override
+    public Bundle readBundle() {
+        return VersionedParcelStream.readStreamBundle(this);
+    }
+
+    /**
+     * Throws if reading the given number of bytes would cross the end of the current field of
+     * this parcel or of any of its parents.
+     */
+    private void checkReadable(int size) {
+        if (!isReadable(this, size)) {
+            throw new ParcelException(new BufferUnderflowException());
+        }
+    }
+
+    private boolean isReadable(VersionedParcelByteBuffer parcel, int size) {
+        int end = mBuffer.mData.position() + size;
+        if (end > mBuffer.mData.limit()) {
+            return false;
+        }
+        for (; parcel != null; parcel = parcel.mParent) {
+            if (parcel.mFieldEnd != -1 && end > parcel.mFieldEnd) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasSurrogates(String val) {
+        for (int i = 0; i < val.length(); i++) {
+            char c = val.charAt(i);
+            if (Character.isHighSurrogate(c) || Character.isLowSurrogate(c)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The buffer shared between a parcel and its sub parcels.
+     */
+    private static class Buffer {
+        ByteBuffer mData;
+
+        Buffer(ByteBuffer data) {
+            mData = data;
+        }
+
+        /**
+         * Makes sure that the given number of bytes can be written at the current position and
+         * returns the buffer to write them to.
+         */
+        ByteBuffer reserve(int size) {
+            ByteBuffer data = mData;
+            if (data.remaining() < size) {
+                int capacity = Math.max(data.capacity() * 2, data.position() + size);
+                ByteBuffer grown = ByteBuffer.allocate(capacity);
+                data.flip();
+                grown.put(data);
+                mData = grown;
+                data = grown;
+            }
+            return data;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.versionedparcelable;
+
+import androidx.annotation.RestrictTo;
+
+/**
+ * Reads and writes a single type of VersionedParcelable.
+ * <p>
+ * Implementations are generated by the versionedparcelable-compiler and registered through
+ * {@link VersionedParcel#registerParcelizer(Class, VersionedParcelizer)} when the generated
+ * Parcelizer class is initialized, so that VersionedParcel can call them without reflection.
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+public interface VersionedParcelizer<T extends VersionedParcelable> {
+
+    /**
+     * Creates a new object and reads its fields from the given parcel.
+     */
+    T read(VersionedParcel parcel);
+
+    /**
+     * Writes the fields of the given object into the given parcel.
+     */
+    void write(T obj, VersionedParcel parcel);
+}
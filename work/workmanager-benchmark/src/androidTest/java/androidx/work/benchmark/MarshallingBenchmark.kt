@@ -34,6 +34,8 @@ import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
 import org.junit.runner.RunWith
+import java.io.ByteArrayOutputStream
+import java.io.ObjectOutputStream
 import java.util.concurrent.TimeUnit
 
 @RunWith(AndroidJUnit4::class)
@@ -48,6 +50,8 @@ class MarshallingBenchmark {
     lateinit var request: WorkRequest
     lateinit var parcelledWorkRequest: ParcelableWorkRequest
 
+    lateinit var data: Data
+
     @Before
     fun setUp() {
         val uri = Uri.parse("test://foo")
@@ -77,6 +81,16 @@ class MarshallingBenchmark {
 
         parcelledConstraints = ParcelableConstraints(constraints)
         parcelledWorkRequest = ParcelableWorkRequest(request)
+
+        data = Data.Builder()
+            .putString("id", "c3c5b8d8-8f9e-4f0a-9d3b-0b5d0a1e6f42")
+            .putLong("timestamp", 1600000000000L)
+            .putInt("attempt", 3)
+            .putBoolean("retry", true)
+            .putDouble("progress", 0.75)
+            .putIntArray("ids", IntArray(32) { it * 1000 })
+            .putStringArray("tags", Array(8) { "tag${it % 4}" })
+            .build()
     }
 
     @Test
@@ -89,6 +103,20 @@ class MarshallingBenchmark {
         }
     }
 
+    @Test
+    fun dataBenchmark() {
+        benchmarkRule.measureRepeated {
+            Data.fromByteArray(data.toByteArray())
+        }
+    }
+
+    @Test
+    fun javaSerializedDataBenchmark() {
+        benchmarkRule.measureRepeated {
+            Data.fromByteArray(javaSerialize(data))
+        }
+    }
+
     @Test
     fun parcelledWorkRequestBenchmark() {
         benchmarkRule.measureRepeated {
@@ -98,4 +126,20 @@ class MarshallingBenchmark {
             )
         }
     }
+
+    /**
+     * Serializes [data] the way [Data.toByteArray] did before it switched to a compact binary
+     * format.
+     */
+    private fun javaSerialize(data: Data): ByteArray {
+        val outputStream = ByteArrayOutputStream()
+        ObjectOutputStream(outputStream).use { objectOutputStream ->
+            objectOutputStream.writeInt(data.keyValueMap.size)
+            for ((key, value) in data.keyValueMap) {
+                objectOutputStream.writeUTF(key)
+                objectOutputStream.writeObject(value)
+            }
+        }
+        return outputStream.toByteArray()
+    }
 }
@@ -115,6 +115,31 @@ public class WorkSpecDaoTest extends DatabaseTest {
                 containsInAnyOrder(work.getWorkSpec(), enqueued.getWorkSpec()));
     }
 
+    @Test
+    @SmallTest
+    public void testMarkWorkSpecsScheduled() {
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+
+        OneTimeWorkRequest first = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        OneTimeWorkRequest second = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        OneTimeWorkRequest unscheduled = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        insertWork(first);
+        insertWork(second);
+        insertWork(unscheduled);
+
+        long startTime = System.currentTimeMillis();
+        int updated = workSpecDao.markWorkSpecsScheduled(
+                startTime, first.getStringId(), second.getStringId());
+
+        assertThat(updated, equalTo(2));
+        assertThat(workSpecDao.getWorkSpec(first.getStringId()).scheduleRequestedAt,
+                equalTo(startTime));
+        assertThat(workSpecDao.getWorkSpec(second.getStringId()).scheduleRequestedAt,
+                equalTo(startTime));
+        assertThat(workSpecDao.getWorkSpec(unscheduled.getStringId()).scheduleRequestedAt,
+                equalTo(WorkSpec.SCHEDULE_NOT_REQUESTED_YET));
+    }
+
     @Test
     @SmallTest
     public void testScheduledWorkSpecCount() {
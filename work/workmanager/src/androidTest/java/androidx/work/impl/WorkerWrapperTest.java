@@ -30,8 +30,10 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.isOneOf;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -62,6 +64,7 @@ import androidx.work.ListenableWorker;
 import androidx.work.OneTimeWorkRequest;
 import androidx.work.PeriodicWorkRequest;
 import androidx.work.ProgressUpdater;
+import androidx.work.SchedulingLatencyListener;
 import androidx.work.WorkerFactory;
 import androidx.work.WorkerParameters;
 import androidx.work.impl.foreground.ForegroundProcessor;
@@ -1282,6 +1285,38 @@ public class WorkerWrapperTest extends DatabaseTest {
         assertThat(workSpec.scheduleRequestedAt, is(-1L));
     }
 
+    @Test
+    @SmallTest
+    public void testSchedulingLatencyListener() {
+        long enqueueTime = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(5);
+        OneTimeWorkRequest work = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setInitialDelay(2, TimeUnit.SECONDS)
+                .setPeriodStartTime(enqueueTime, TimeUnit.MILLISECONDS)
+                .build();
+        insertWork(work);
+
+        SchedulingLatencyListener latencyListener = mock(SchedulingLatencyListener.class);
+        Configuration configuration = new Configuration.Builder(mConfiguration)
+                .setSchedulingLatencyListener(latencyListener)
+                .build();
+
+        WorkerWrapper workerWrapper = new WorkerWrapper.Builder(
+                mContext,
+                configuration,
+                mWorkTaskExecutor,
+                mMockForegroundProcessor,
+                mDatabase,
+                work.getStringId()).build();
+        workerWrapper.run();
+
+        ArgumentCaptor<Long> enqueueToStart = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<Long> eligibleToStart = ArgumentCaptor.forClass(Long.class);
+        verify(latencyListener, times(1)).onWorkStarted(
+                eq(work.getStringId()), enqueueToStart.capture(), eligibleToStart.capture());
+        assertThat(enqueueToStart.getValue(), is(greaterThanOrEqualTo(5000L)));
+        assertThat(enqueueToStart.getValue() - eligibleToStart.getValue(), is(2000L));
+    }
+
     @Test
     @SmallTest
     public void testWorkRequest_withInvalidClassName() {
@@ -21,9 +21,13 @@ import static android.app.job.JobScheduler.RESULT_SUCCESS;
 
 import static androidx.work.impl.background.systemjob.SystemJobInfoConverter.EXTRA_WORK_SPEC_ID;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
@@ -62,10 +66,14 @@ import androidx.work.worker.TestWorker;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RunWith(AndroidJUnit4.class)
 @SdkSuppress(minSdkVersion = WorkManagerImpl.MIN_JOB_SCHEDULER_API_LEVEL)
@@ -78,27 +86,31 @@ public class SystemJobSchedulerTest extends WorkManagerTest {
     private JobScheduler mJobScheduler;
     private SystemJobScheduler mSystemJobScheduler;
     private WorkSpecDao mMockWorkSpecDao;
+    private WorkDatabase mWorkDatabase;
+    private List<WorkSpec.IdAndState> mIdAndStates;
 
     @Before
     public void setUp() {
         Context context = ApplicationProvider.getApplicationContext();
         Configuration configuration = new Configuration.Builder().build();
-        WorkDatabase workDatabase = mock(WorkDatabase.class);
+        mWorkDatabase = mock(WorkDatabase.class);
         SystemIdInfoDao systemIdInfoDao = mock(SystemIdInfoDao.class);
         PreferenceDao preferenceDao = mock(PreferenceDao.class);
 
         mJobServiceComponent = new ComponentName(context, SystemJobService.class);
 
         mMockWorkSpecDao = mock(WorkSpecDao.class);
+        mIdAndStates = new ArrayList<>();
+        when(mMockWorkSpecDao.getWorkSpecIdAndStates(anyList())).thenReturn(mIdAndStates);
 
         mWorkManager = mock(WorkManagerImpl.class);
         mJobScheduler = mock(JobScheduler.class);
 
         when(mWorkManager.getConfiguration()).thenReturn(configuration);
-        when(workDatabase.systemIdInfoDao()).thenReturn(systemIdInfoDao);
-        when(workDatabase.preferenceDao()).thenReturn(preferenceDao);
-        when(workDatabase.workSpecDao()).thenReturn(mMockWorkSpecDao);
-        when(mWorkManager.getWorkDatabase()).thenReturn(workDatabase);
+        when(mWorkDatabase.systemIdInfoDao()).thenReturn(systemIdInfoDao);
+        when(mWorkDatabase.preferenceDao()).thenReturn(preferenceDao);
+        when(mWorkDatabase.workSpecDao()).thenReturn(mMockWorkSpecDao);
+        when(mWorkManager.getWorkDatabase()).thenReturn(mWorkDatabase);
 
         doReturn(RESULT_SUCCESS).when(mJobScheduler).schedule(any(JobInfo.class));
 
@@ -166,6 +178,50 @@ public class SystemJobSchedulerTest extends WorkManagerTest {
                 .scheduleInternal(eq(workSpec2), anyInt());
     }
 
+    @Test
+    @SmallTest
+    @SdkSuppress(minSdkVersion = 24)
+    public void testSystemJobScheduler_schedulesBatchAfterTransaction() {
+        OneTimeWorkRequest work1 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        WorkSpec workSpec1 = getWorkSpec(work1);
+        addToWorkSpecDao(workSpec1);
+
+        OneTimeWorkRequest work2 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        WorkSpec workSpec2 = getWorkSpec(work2);
+        addToWorkSpecDao(workSpec2);
+
+        final AtomicInteger transactionDepth = new AtomicInteger(0);
+        doAnswer(new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                transactionDepth.incrementAndGet();
+                return null;
+            }
+        }).when(mWorkDatabase).beginTransaction();
+        doAnswer(new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                transactionDepth.decrementAndGet();
+                return null;
+            }
+        }).when(mWorkDatabase).endTransaction();
+        final List<Integer> depthsWhenScheduled = new ArrayList<>();
+        doAnswer(new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                depthsWhenScheduled.add(transactionDepth.get());
+                return null;
+            }
+        }).when(mSystemJobScheduler).scheduleInternal(any(WorkSpec.class), anyInt());
+
+        mSystemJobScheduler.schedule(workSpec1, workSpec2);
+
+        verify(mMockWorkSpecDao, times(1)).getWorkSpecIdAndStates(anyList());
+        verify(mSystemJobScheduler).scheduleInternal(eq(workSpec1), anyInt());
+        verify(mSystemJobScheduler).scheduleInternal(eq(workSpec2), anyInt());
+        assertThat(depthsWhenScheduled, is(Arrays.asList(0, 0)));
+    }
+
     @Test
     @SmallTest
     @SdkSuppress(minSdkVersion = 23, maxSdkVersion = 23)
@@ -266,5 +322,9 @@ public class SystemJobSchedulerTest extends WorkManagerTest {
 
     private void addToWorkSpecDao(WorkSpec workSpec) {
         when(mMockWorkSpecDao.getWorkSpec(workSpec.id)).thenReturn(workSpec);
+        WorkSpec.IdAndState idAndState = new WorkSpec.IdAndState();
+        idAndState.id = workSpec.id;
+        idAndState.state = workSpec.state;
+        mIdAndStates.add(idAndState);
     }
 }
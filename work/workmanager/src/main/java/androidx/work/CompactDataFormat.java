@@ -0,0 +1,501 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The binary format used to persist {@link Data}.
+ * <p>
+ * The format starts with {@link #MAGIC} and a version byte, followed by a table of all the
+ * strings used as keys or values, and then the entries. Each entry is the index of its key in
+ * the string table, a type tag and the value. Integers and lengths are written as varints,
+ * floating point values as their raw bits, and arrays are written as their length followed by
+ * the packed elements.
+ * <p>
+ * Data that was written with {@link java.io.ObjectOutputStream} starts with {@code 0xACED}, so
+ * it can be told apart from this format by its first byte.
+ */
+final class CompactDataFormat {
+
+    static final byte MAGIC = (byte) 0xDA;
+    static final byte VERSION = 1;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_BOOLEAN = 1;
+    private static final byte TYPE_BYTE = 2;
+    private static final byte TYPE_INT = 3;
+    private static final byte TYPE_LONG = 4;
+    private static final byte TYPE_FLOAT = 5;
+    private static final byte TYPE_DOUBLE = 6;
+    private static final byte TYPE_STRING = 7;
+    private static final byte TYPE_BOOLEAN_ARRAY = 8;
+    private static final byte TYPE_BYTE_ARRAY = 9;
+    private static final byte TYPE_INT_ARRAY = 10;
+    private static final byte TYPE_LONG_ARRAY = 11;
+    private static final byte TYPE_FLOAT_ARRAY = 12;
+    private static final byte TYPE_DOUBLE_ARRAY = 13;
+    private static final byte TYPE_STRING_ARRAY = 14;
+
+    private byte[] mBuffer;
+    private int mPosition;
+    private int mLimit;
+
+    private CompactDataFormat(byte[] buffer, int limit) {
+        mBuffer = buffer;
+        mLimit = limit;
+    }
+
+    /**
+     * Returns {@code true} if the given bytes were written by {@link #write(Map)}.
+     */
+    static boolean isCompactFormat(@NonNull byte[] bytes) {
+        return bytes.length > 0 && bytes[0] == MAGIC;
+    }
+
+    /**
+     * Writes the given values, or returns {@code null} if they cannot be represented in this
+     * format. This is only the case for arrays of boxed primitives that contain {@code null}.
+     */
+    static @Nullable byte[] write(@NonNull Map<String, Object> values) {
+        // Collect the strings first, so that the table can be written in front of the entries.
+        Map<String, Integer> stringIndices = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            addString(entry.getKey(), stringIndices, strings);
+            Object value = entry.getValue();
+            if (value instanceof String) {
+                addString((String) value, stringIndices, strings);
+            } else if (value instanceof String[]) {
+                for (String element : (String[]) value) {
+                    if (element != null) {
+                        addString(element, stringIndices, strings);
+                    }
+                }
+            } else if (value instanceof Object[] && containsNull((Object[]) value)) {
+                return null;
+            }
+        }
+
+        CompactDataFormat output = new CompactDataFormat(new byte[64], 0);
+        output.writeByte(MAGIC);
+        output.writeByte(VERSION);
+        output.writeVarInt(strings.size());
+        for (String string : strings) {
+            output.writeString(string);
+        }
+        output.writeVarInt(values.size());
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            output.writeVarInt(stringIndices.get(entry.getKey()));
+            output.writeValue(entry.getValue(), stringIndices);
+        }
+        byte[] result = new byte[output.mPosition];
+        System.arraycopy(output.mBuffer, 0, result, 0, output.mPosition);
+        return result;
+    }
+
+    /**
+     * Reads bytes written by {@link #write(Map)} into the given map. Entries read before an
+     * error are kept in the map.
+     *
+     * @throws IOException if the bytes are truncated, malformed or of an unknown version
+     */
+    static void read(@NonNull byte[] bytes, @NonNull Map<String, Object> values)
+            throws IOException {
+        CompactDataFormat input = new CompactDataFormat(bytes, bytes.length);
+        if (input.readByte() != MAGIC) {
+            throw new IOException("Not a compact Data payload");
+        }
+        byte version = input.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported Data format version " + version);
+        }
+        String[] strings = new String[input.readLength()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = input.readString();
+        }
+        for (int i = input.readLength(); i > 0; i--) {
+            String key = input.readStringAt(strings);
+            values.put(key, input.readValue(strings));
+        }
+    }
+
+    private static void addString(String string, Map<String, Integer> indices,
+            List<String> strings) {
+        if (!indices.containsKey(string)) {
+            indices.put(string, strings.size());
+            strings.add(string);
+        }
+    }
+
+    private static boolean containsNull(Object[] array) {
+        for (Object element : array) {
+            if (element == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeValue(Object value, Map<String, Integer> stringIndices) {
+        if (value == null) {
+            writeByte(TYPE_NULL);
+        } else if (value instanceof Boolean) {
+            writeByte(TYPE_BOOLEAN);
+            writeByte((byte) ((Boolean) value ? 1 : 0));
+        } else if (value instanceof Byte) {
+            writeByte(TYPE_BYTE);
+            writeByte((Byte) value);
+        } else if (value instanceof Integer) {
+            writeByte(TYPE_INT);
+            writeVarLong(zigZag((Integer) value));
+        } else if (value instanceof Long) {
+            writeByte(TYPE_LONG);
+            writeVarLong(zigZag((Long) value));
+        } else if (value instanceof Float) {
+            writeByte(TYPE_FLOAT);
+            writeFixed(Float.floatToIntBits((Float) value), 4);
+        } else if (value instanceof Double) {
+            writeByte(TYPE_DOUBLE);
+            writeFixed(Double.doubleToLongBits((Double) value), 8);
+        } else if (value instanceof String) {
+            writeByte(TYPE_STRING);
+            writeVarInt(stringIndices.get(value));
+        } else if (value instanceof Boolean[]) {
+            Boolean[] array = (Boolean[]) value;
+            writeByte(TYPE_BOOLEAN_ARRAY);
+            writeVarInt(array.length);
+            // Eight booleans per byte.
+            for (int i = 0; i < array.length; i += 8) {
+                int bits = 0;
+                for (int j = i; j < Math.min(i + 8, array.length); j++) {
+                    if (array[j]) {
+                        bits |= 1 << (j - i);
+                    }
+                }
+                writeByte((byte) bits);
+            }
+        } else if (value instanceof Byte[]) {
+            Byte[] array = (Byte[]) value;
+            writeByte(TYPE_BYTE_ARRAY);
+            writeVarInt(array.length);
+            ensureCapacity(array.length);
+            for (Byte element : array) {
+                mBuffer[mPosition++] = element;
+            }
+        } else if (value instanceof Integer[]) {
+            Integer[] array = (Integer[]) value;
+            writeByte(TYPE_INT_ARRAY);
+            writeVarInt(array.length);
+            for (Integer element : array) {
+                writeVarLong(zigZag(element));
+            }
+        } else if (value instanceof Long[]) {
+            Long[] array = (Long[]) value;
+            writeByte(TYPE_LONG_ARRAY);
+            writeVarInt(array.length);
+            for (Long element : array) {
+                writeVarLong(zigZag(element));
+            }
+        } else if (value instanceof Float[]) {
+            Float[] array = (Float[]) value;
+            writeByte(TYPE_FLOAT_ARRAY);
+            writeVarInt(array.length);
+            for (Float element : array) {
+                writeFixed(Float.floatToIntBits(element), 4);
+            }
+        } else if (value instanceof Double[]) {
+            Double[] array = (Double[]) value;
+            writeByte(TYPE_DOUBLE_ARRAY);
+            writeVarInt(array.length);
+            for (Double element : array) {
+                writeFixed(Double.doubleToLongBits(element), 8);
+            }
+        } else if (value instanceof String[]) {
+            String[] array = (String[]) value;
+            writeByte(TYPE_STRING_ARRAY);
+            writeVarInt(array.length);
+            for (String element : array) {
+                // 0 is reserved for null elements.
+                writeVarInt(element == null ? 0 : stringIndices.get(element) + 1);
+            }
+        } else {
+            throw new IllegalArgumentException(
+                    String.format("Unsupported value type %s", value.getClass()));
+        }
+    }
+
+    private Object readValue(String[] strings) throws IOException {
+        byte type = readByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_BOOLEAN:
+                return readByte() != 0;
+            case TYPE_BYTE:
+                return readByte();
+            case TYPE_INT:
+                return (int) unZigZag(readVarLong());
+            case TYPE_LONG:
+                return unZigZag(readVarLong());
+            case TYPE_FLOAT:
+                return Float.intBitsToFloat((int) readFixed(4));
+            case TYPE_DOUBLE:
+                return Double.longBitsToDouble(readFixed(8));
+            case TYPE_STRING:
+                return readStringAt(strings);
+            case TYPE_BOOLEAN_ARRAY: {
+                Boolean[] array = new Boolean[readLength(mLimit * 8)];
+                int bits = 0;
+                for (int i = 0; i < array.length; i++) {
+                    if (i % 8 == 0) {
+                        bits = readByte();
+                    }
+                    array[i] = (bits & (1 << (i % 8))) != 0;
+                }
+                return array;
+            }
+            case TYPE_BYTE_ARRAY: {
+                int length = readLength();
+                require(length);
+                Byte[] array = new Byte[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = mBuffer[mPosition++];
+                }
+                return array;
+            }
+            case TYPE_INT_ARRAY: {
+                Integer[] array = new Integer[readLength()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = (int) unZigZag(readVarLong());
+                }
+                return array;
+            }
+            case TYPE_LONG_ARRAY: {
+                Long[] array = new Long[readLength()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = unZigZag(readVarLong());
+                }
+                return array;
+            }
+            case TYPE_FLOAT_ARRAY: {
+                Float[] array = new Float[readLength()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = Float.intBitsToFloat((int) readFixed(4));
+                }
+                return array;
+            }
+            case TYPE_DOUBLE_ARRAY: {
+                Double[] array = new Double[readLength()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = Double.longBitsToDouble(readFixed(8));
+                }
+                return array;
+            }
+            case TYPE_STRING_ARRAY: {
+                String[] array = new String[readLength()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = readStringIndex(strings);
+                }
+                return array;
+            }
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    /**
+     * Writes the string as its encoded length followed by its chars, encoded the same way as
+     * modified UTF-8 without special casing {@code '\0'}. Unlike standard UTF-8, this keeps
+     * unpaired surrogates intact.
+     */
+    private void writeString(String string) {
+        int length = string.length();
+        int encodedLength = length;
+        for (int i = 0; i < length; i++) {
+            char c = string.charAt(i);
+            if (c >= 0x800) {
+                encodedLength += 2;
+            } else if (c >= 0x80) {
+                encodedLength += 1;
+            }
+        }
+        writeVarInt(encodedLength);
+        ensureCapacity(encodedLength);
+        byte[] buffer = mBuffer;
+        int position = mPosition;
+        for (int i = 0; i < length; i++) {
+            char c = string.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        mPosition = position;
+    }
+
+    private String readString() throws IOException {
+        int encodedLength = readLength();
+        require(encodedLength);
+        byte[] buffer = mBuffer;
+        int position = mPosition;
+        int end = position + encodedLength;
+        char[] chars = new char[encodedLength];
+        int length = 0;
+        while (position < end) {
+            int b = buffer[position++] & 0xFF;
+            if (b < 0x80) {
+                chars[length++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0 && position < end) {
+                chars[length++] = (char) (((b & 0x1F) << 6) | (buffer[position++] & 0x3F));
+            } else if ((b & 0xF0) == 0xE0 && position + 1 < end) {
+                chars[length++] = (char) (((b & 0x0F) << 12)
+                        | ((buffer[position++] & 0x3F) << 6)
+                        | (buffer[position++] & 0x3F));
+            } else {
+                throw new IOException("Malformed string");
+            }
+        }
+        mPosition = end;
+        return new String(chars, 0, length);
+    }
+
+    private String readStringAt(String[] strings) throws IOException {
+        int index = readLength();
+        if (index >= strings.length) {
+            throw new IOException("Invalid string index " + index);
+        }
+        return strings[index];
+    }
+
+    /**
+     * Reads a string array element, which is written as its index plus one, or 0 for null.
+     */
+    private String readStringIndex(String[] strings) throws IOException {
+        int index = readLength();
+        if (index == 0) {
+            return null;
+        }
+        if (index > strings.length) {
+            throw new IOException("Invalid string index " + (index - 1));
+        }
+        return strings[index - 1];
+    }
+
+    private void writeByte(byte value) {
+        ensureCapacity(1);
+        mBuffer[mPosition++] = value;
+    }
+
+    private byte readByte() throws IOException {
+        require(1);
+        return mBuffer[mPosition++];
+    }
+
+    private void writeVarInt(int value) {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    private void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            mBuffer[mPosition++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        mBuffer[mPosition++] = (byte) value;
+    }
+
+    private long readVarLong() throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Reads a varint that is used as a length or an index, which can't be bigger than the size
+     * of the input.
+     */
+    private int readLength() throws IOException {
+        return readLength(mLimit);
+    }
+
+    private int readLength(int maxLength) throws IOException {
+        long value = readVarLong();
+        if (value < 0 || value > maxLength) {
+            throw new IOException("Invalid length " + value);
+        }
+        return (int) value;
+    }
+
+    private void writeFixed(long value, int size) {
+        ensureCapacity(size);
+        for (int shift = (size - 1) * 8; shift >= 0; shift -= 8) {
+            mBuffer[mPosition++] = (byte) (value >>> shift);
+        }
+    }
+
+    private long readFixed(int size) throws IOException {
+        require(size);
+        long result = 0;
+        for (int i = 0; i < size; i++) {
+            result = (result << 8) | (mBuffer[mPosition++] & 0xFF);
+        }
+        return result;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private void ensureCapacity(int size) {
+        if (mPosition + size > mBuffer.length) {
+            byte[] grown = new byte[Math.max(mBuffer.length * 2, mPosition + size)];
+            System.arraycopy(mBuffer, 0, grown, 0, mPosition);
+            mBuffer = grown;
+        }
+    }
+
+    private void require(int size) throws EOFException {
+        if (mPosition + size > mLimit) {
+            throw new EOFException();
+        }
+    }
+}
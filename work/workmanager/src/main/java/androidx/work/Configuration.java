@@ -66,6 +66,8 @@ public final class Configuration {
     @SuppressWarnings("WeakerAccess")
     final @Nullable InitializationExceptionHandler mExceptionHandler;
     @SuppressWarnings("WeakerAccess")
+    final @Nullable SchedulingLatencyListener mSchedulingLatencyListener;
+    @SuppressWarnings("WeakerAccess")
     final @Nullable String mDefaultProcessName;
     @SuppressWarnings("WeakerAccess")
     final int mLoggingLevel;
@@ -118,6 +120,7 @@ public final class Configuration {
         mMaxJobSchedulerId = builder.mMaxJobSchedulerId;
         mMaxSchedulerLimit = builder.mMaxSchedulerLimit;
         mExceptionHandler = builder.mExceptionHandler;
+        mSchedulingLatencyListener = builder.mSchedulingLatencyListener;
         mDefaultProcessName = builder.mDefaultProcessName;
     }
 
@@ -255,6 +258,15 @@ public final class Configuration {
         return mExceptionHandler;
     }
 
+    /**
+     * @return the {@link SchedulingLatencyListener} that receives scheduling latency metrics for
+     * {@link OneTimeWorkRequest}s, or {@code null} if none was set.
+     */
+    @Nullable
+    public SchedulingLatencyListener getSchedulingLatencyListener() {
+        return mSchedulingLatencyListener;
+    }
+
     private @NonNull Executor createDefaultExecutor() {
         return Executors.newFixedThreadPool(
                 // This value is the same as the core pool size for AsyncTask#THREAD_POOL_EXECUTOR.
@@ -272,6 +284,7 @@ public final class Configuration {
         Executor mTaskExecutor;
         RunnableScheduler mRunnableScheduler;
         @Nullable InitializationExceptionHandler mExceptionHandler;
+        @Nullable SchedulingLatencyListener mSchedulingLatencyListener;
         @Nullable String mDefaultProcessName;
 
         int mLoggingLevel;
@@ -310,6 +323,7 @@ public final class Configuration {
             mMaxSchedulerLimit = configuration.mMaxSchedulerLimit;
             mRunnableScheduler = configuration.mRunnableScheduler;
             mExceptionHandler = configuration.mExceptionHandler;
+            mSchedulingLatencyListener = configuration.mSchedulingLatencyListener;
             mDefaultProcessName = configuration.mDefaultProcessName;
         }
 
@@ -471,6 +485,19 @@ public final class Configuration {
             return this;
         }
 
+        /**
+         * Specifies a {@link SchedulingLatencyListener} that receives the time it took for
+         * {@link OneTimeWorkRequest}s to go from being enqueued to being started.
+         *
+         * @param listener The {@link SchedulingLatencyListener} instance.
+         * @return This {@link Builder} instance
+         */
+        @NonNull
+        public Builder setSchedulingLatencyListener(@NonNull SchedulingLatencyListener listener) {
+            mSchedulingLatencyListener = listener;
+            return this;
+        }
+
         /**
          * Designates the primary process that {@link WorkManager} should schedule work in.
          *
@@ -374,6 +374,9 @@ public final class Data {
 
     /**
      * Converts {@link Data} to a byte array for persistent storage.
+     * <p>
+     * The byte array uses a compact binary format, see {@link CompactDataFormat}. Data that can't
+     * be represented in that format is written with Java serialization instead.
      *
      * @param data The {@link Data} object to convert
      * @return The byte array representation of the input
@@ -384,6 +387,23 @@ public final class Data {
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
     @TypeConverter
     public static @NonNull byte[] toByteArrayInternal(@NonNull Data data) {
+        byte[] bytes = CompactDataFormat.write(data.mValues);
+        if (bytes == null) {
+            bytes = toSerializedByteArray(data);
+        }
+        if (bytes.length > MAX_DATA_BYTES) {
+            throw new IllegalStateException(
+                    "Data cannot occupy more than " + MAX_DATA_BYTES
+                            + " bytes when serialized");
+        }
+        return bytes;
+    }
+
+    /**
+     * Converts {@link Data} to a byte array using Java serialization, which is how Data was
+     * persisted before {@link CompactDataFormat}.
+     */
+    private static @NonNull byte[] toSerializedByteArray(@NonNull Data data) {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         ObjectOutputStream objectOutputStream = null;
         try {
@@ -412,17 +432,14 @@ public final class Data {
                 Log.e(TAG, "Error in Data#toByteArray: ", e);
             }
         }
-
-        if (outputStream.size() > MAX_DATA_BYTES) {
-            throw new IllegalStateException(
-                    "Data cannot occupy more than " + MAX_DATA_BYTES
-                            + " bytes when serialized");
-        }
         return outputStream.toByteArray();
     }
 
     /**
      * Converts a byte array to {@link Data}.
+     * <p>
+     * This reads both the compact binary format and byte arrays that were written with Java
+     * serialization by previous versions of WorkManager.
      *
      * @param bytes The byte array representation to convert
      * @return An {@link Data} object built from the input
@@ -436,6 +453,15 @@ public final class Data {
         }
 
         Map<String, Object> map = new HashMap<>();
+        if (CompactDataFormat.isCompactFormat(bytes)) {
+            try {
+                CompactDataFormat.read(bytes, map);
+            } catch (IOException e) {
+                Log.e(TAG, "Error in Data#fromByteArray: ", e);
+            }
+            return new Data(map);
+        }
+
         ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
         ObjectInputStream objectInputStream = null;
         try {
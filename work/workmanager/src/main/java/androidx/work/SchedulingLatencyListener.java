@@ -0,0 +1,47 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A listener that receives scheduling latency metrics for {@link OneTimeWorkRequest}s, measured
+ * from the time the work was enqueued to the first time {@link ListenableWorker#startWork()} is
+ * called for it.
+ * <p>
+ * Set it with {@link Configuration.Builder#setSchedulingLatencyListener}, for instance to report
+ * how long work waits to be started in production.
+ */
+public interface SchedulingLatencyListener {
+    /**
+     * Called when {@link ListenableWorker#startWork()} is about to be called for the first run
+     * attempt of a {@link OneTimeWorkRequest}.
+     * <p>
+     * This listener will be invoked on a thread bound to {@link Configuration#getTaskExecutor()}.
+     *
+     * @param workSpecId           The id of the {@link WorkRequest}
+     * @param enqueueToStartMillis The time in milliseconds between the work being enqueued and
+     *                             {@link ListenableWorker#startWork()} being called
+     * @param eligibleToStartMillis The time in milliseconds between the work first being eligible
+     *                              to run (i.e. after its initial delay) and
+     *                              {@link ListenableWorker#startWork()} being called
+     */
+    void onWorkStarted(
+            @NonNull String workSpecId,
+            long enqueueToStartMillis,
+            long eligibleToStartMillis);
+}
@@ -85,9 +85,13 @@ public class Schedulers {
                 // Mark all the WorkSpecs as scheduled.
                 // Calls to Scheduler#schedule() could potentially result in more schedules
                 // on a separate thread. Therefore, this needs to be done first.
-                for (WorkSpec workSpec : eligibleWorkSpecsForLimitedSlots) {
-                    workSpecDao.markWorkSpecScheduled(workSpec.id, now);
+                // The whole batch is marked with a single statement; the batch is bounded by
+                // Scheduler#MAX_SCHEDULER_LIMIT so it stays well within SQLite's argument limit.
+                String[] ids = new String[eligibleWorkSpecsForLimitedSlots.size()];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = eligibleWorkSpecsForLimitedSlots.get(i).id;
                 }
+                workSpecDao.markWorkSpecsScheduled(now, ids);
             }
             workDatabase.setTransactionSuccessful();
         } finally {
@@ -38,6 +38,7 @@ import androidx.work.InputMerger;
 import androidx.work.InputMergerFactory;
 import androidx.work.ListenableWorker;
 import androidx.work.Logger;
+import androidx.work.SchedulingLatencyListener;
 import androidx.work.WorkInfo;
 import androidx.work.Worker;
 import androidx.work.WorkerParameters;
@@ -280,6 +281,7 @@ public class WorkerWrapper implements Runnable {
                             try {
                                 Logger.get().debug(TAG, String.format("Starting work for %s",
                                         mWorkSpec.workerClassName));
+                                reportSchedulingLatency();
                                 mInnerFuture = mWorker.startWork();
                                 future.setFuture(mInnerFuture);
                             } catch (Throwable e) {
@@ -326,6 +328,29 @@ public class WorkerWrapper implements Runnable {
         }
     }
 
+    // Package-private for synthetic accessor.
+    void reportSchedulingLatency() {
+        final SchedulingLatencyListener listener = mConfiguration.getSchedulingLatencyListener();
+        // The periodStartTime of a OneTimeWorkRequest is its enqueue time until it is first
+        // retried, so the latency is only known for the first run attempt.
+        if (listener == null || mWorkSpec.isPeriodic() || mWorkSpec.runAttemptCount != 0) {
+            return;
+        }
+        final String workSpecId = mWorkSpecId;
+        long now = System.currentTimeMillis();
+        final long enqueueToStartMillis = now - mWorkSpec.periodStartTime;
+        final long eligibleToStartMillis = now - mWorkSpec.calculateNextRunTime();
+        Logger.get().debug(TAG, String.format(
+                "%s started %s ms after being enqueued (%s ms after being eligible to run)",
+                mWorkDescription, enqueueToStartMillis, eligibleToStartMillis));
+        mWorkTaskExecutor.executeOnBackgroundThread(new Runnable() {
+            @Override
+            public void run() {
+                listener.onWorkStarted(workSpecId, enqueueToStartMillis, eligibleToStartMillis);
+            }
+        });
+    }
+
     // Package-private for synthetic accessor.
     void onWorkFinished() {
         if (!tryCheckForInterruptionAndResolve()) {
@@ -44,9 +44,11 @@ import androidx.work.impl.model.WorkSpecDao;
 import androidx.work.impl.utils.IdGenerator;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -89,84 +91,121 @@ public class SystemJobScheduler implements Scheduler {
         WorkDatabase workDatabase = mWorkManager.getWorkDatabase();
         IdGenerator idGenerator = new IdGenerator(workDatabase);
 
-        for (WorkSpec workSpec : workSpecs) {
-            workDatabase.beginTransaction();
-            try {
-                WorkSpec currentDbWorkSpec = workDatabase.workSpecDao().getWorkSpec(workSpec.id);
-                if (currentDbWorkSpec == null) {
+        // The whole batch is validated and assigned job ids inside a single transaction, rather
+        // than one transaction per WorkSpec. JobScheduler is only called once it is committed, so
+        // that the database is not locked during the binder calls.
+        List<WorkSpec> scheduledWorkSpecs = new ArrayList<>(workSpecs.length);
+        int[] jobIds = new int[workSpecs.length];
+        workDatabase.beginTransaction();
+        try {
+            Map<String, WorkInfo.State> currentStates = getCurrentStates(workDatabase, workSpecs);
+            for (WorkSpec workSpec : workSpecs) {
+                WorkInfo.State currentState = currentStates.get(workSpec.id);
+                if (currentState == null) {
                     Logger.get().warning(
                             TAG,
                             "Skipping scheduling " + workSpec.id
                                     + " because it's no longer in the DB");
-
-                    // Marking this transaction as successful, as we don't want this transaction
-                    // to affect transactions for unrelated WorkSpecs.
-                    workDatabase.setTransactionSuccessful();
                     continue;
-                } else if (currentDbWorkSpec.state != WorkInfo.State.ENQUEUED) {
+                } else if (currentState != WorkInfo.State.ENQUEUED) {
                     Logger.get().warning(
                             TAG,
                             "Skipping scheduling " + workSpec.id
                                     + " because it is no longer enqueued");
-
-                    // Marking this transaction as successful, as we don't want this transaction
-                    // to affect transactions for unrelated WorkSpecs.
-                    workDatabase.setTransactionSuccessful();
                     continue;
                 }
 
-                SystemIdInfo info = workDatabase.systemIdInfoDao()
-                        .getSystemIdInfo(workSpec.id);
+                jobIds[scheduledWorkSpecs.size()] = getOrCreateJobId(
+                        workDatabase, idGenerator, workSpec);
+                scheduledWorkSpecs.add(workSpec);
+            }
+            workDatabase.setTransactionSuccessful();
+        } finally {
+            workDatabase.endTransaction();
+        }
 
-                int jobId = info != null ? info.systemId : idGenerator.nextJobSchedulerIdWithRange(
-                        mWorkManager.getConfiguration().getMinJobSchedulerId(),
-                        mWorkManager.getConfiguration().getMaxJobSchedulerId());
+        for (int i = 0; i < scheduledWorkSpecs.size(); i++) {
+            scheduleWithJobId(idGenerator, scheduledWorkSpecs.get(i), jobIds[i]);
+        }
+    }
 
-                if (info == null) {
-                    SystemIdInfo newSystemIdInfo = new SystemIdInfo(workSpec.id, jobId);
-                    mWorkManager.getWorkDatabase()
-                            .systemIdInfoDao()
-                            .insertSystemIdInfo(newSystemIdInfo);
+    private static Map<String, WorkInfo.State> getCurrentStates(
+            @NonNull WorkDatabase workDatabase,
+            @NonNull WorkSpec... workSpecs) {
+        List<String> ids = new ArrayList<>(workSpecs.length);
+        for (WorkSpec workSpec : workSpecs) {
+            ids.add(workSpec.id);
+        }
+        List<WorkSpec.IdAndState> idAndStates =
+                workDatabase.workSpecDao().getWorkSpecIdAndStates(ids);
+        Map<String, WorkInfo.State> currentStates = new HashMap<>(idAndStates.size());
+        for (WorkSpec.IdAndState idAndState : idAndStates) {
+            currentStates.put(idAndState.id, idAndState.state);
+        }
+        return currentStates;
+    }
+
+    /**
+     * Returns the job id of the given {@link WorkSpec}, assigning and storing a new one if it does
+     * not have one yet.
+     */
+    private int getOrCreateJobId(
+            @NonNull WorkDatabase workDatabase,
+            @NonNull IdGenerator idGenerator,
+            @NonNull WorkSpec workSpec) {
+
+        SystemIdInfo info = workDatabase.systemIdInfoDao()
+                .getSystemIdInfo(workSpec.id);
+
+        int jobId = info != null ? info.systemId : idGenerator.nextJobSchedulerIdWithRange(
+                mWorkManager.getConfiguration().getMinJobSchedulerId(),
+                mWorkManager.getConfiguration().getMaxJobSchedulerId());
+
+        if (info == null) {
+            SystemIdInfo newSystemIdInfo = new SystemIdInfo(workSpec.id, jobId);
+            workDatabase.systemIdInfoDao().insertSystemIdInfo(newSystemIdInfo);
+        }
+        return jobId;
+    }
+
+    private void scheduleWithJobId(
+            @NonNull IdGenerator idGenerator,
+            @NonNull WorkSpec workSpec,
+            int jobId) {
+
+        scheduleInternal(workSpec, jobId);
+
+        // API 23 JobScheduler only kicked off jobs if there were at least two jobs in the
+        // queue, even if the job constraints were met.  This behavior was considered
+        // undesirable and later changed in Marshmallow MR1.  To match the new behavior,
+        // we will double-schedule jobs on API 23 and de-dupe them
+        // in SystemJobService as needed.
+        if (Build.VERSION.SDK_INT == 23) {
+            // Get pending jobIds that might be currently being used.
+            // This is useful only for API 23, because we double schedule jobs.
+            List<Integer> jobIds = getPendingJobIds(mContext, mJobScheduler, workSpec.id);
+
+            // jobIds can be null if getPendingJobIds() throws an Exception.
+            // When this happens this will not setup a second job, and hence might delay
+            // execution, but it's better than crashing the app.
+            if (jobIds != null) {
+                // Remove the jobId which has been used from the list of eligible jobIds.
+                int index = jobIds.indexOf(jobId);
+                if (index >= 0) {
+                    jobIds.remove(index);
                 }
 
-                scheduleInternal(workSpec, jobId);
-
-                // API 23 JobScheduler only kicked off jobs if there were at least two jobs in the
-                // queue, even if the job constraints were met.  This behavior was considered
-                // undesirable and later changed in Marshmallow MR1.  To match the new behavior,
-                // we will double-schedule jobs on API 23 and de-dupe them
-                // in SystemJobService as needed.
-                if (Build.VERSION.SDK_INT == 23) {
-                    // Get pending jobIds that might be currently being used.
-                    // This is useful only for API 23, because we double schedule jobs.
-                    List<Integer> jobIds = getPendingJobIds(mContext, mJobScheduler, workSpec.id);
-
-                    // jobIds can be null if getPendingJobIds() throws an Exception.
-                    // When this happens this will not setup a second job, and hence might delay
-                    // execution, but it's better than crashing the app.
-                    if (jobIds != null) {
-                        // Remove the jobId which has been used from the list of eligible jobIds.
-                        int index = jobIds.indexOf(jobId);
-                        if (index >= 0) {
-                            jobIds.remove(index);
-                        }
-
-                        int nextJobId;
-                        if (!jobIds.isEmpty()) {
-                            // Use the next eligible jobId
-                            nextJobId = jobIds.get(0);
-                        } else {
-                            // Create a new jobId
-                            nextJobId = idGenerator.nextJobSchedulerIdWithRange(
-                                    mWorkManager.getConfiguration().getMinJobSchedulerId(),
-                                    mWorkManager.getConfiguration().getMaxJobSchedulerId());
-                        }
-                        scheduleInternal(workSpec, nextJobId);
-                    }
+                int nextJobId;
+                if (!jobIds.isEmpty()) {
+                    // Use the next eligible jobId
+                    nextJobId = jobIds.get(0);
+                } else {
+                    // Create a new jobId
+                    nextJobId = idGenerator.nextJobSchedulerIdWithRange(
+                            mWorkManager.getConfiguration().getMinJobSchedulerId(),
+                            mWorkManager.getConfiguration().getMaxJobSchedulerId());
                 }
-                workDatabase.setTransactionSuccessful();
-            } finally {
-                workDatabase.endTransaction();
+                scheduleInternal(workSpec, nextJobId);
             }
         }
     }
@@ -70,6 +70,15 @@ public interface WorkSpecDao {
     @Query("SELECT * FROM workspec WHERE id IN (:ids)")
     WorkSpec[] getWorkSpecs(List<String> ids);
 
+    /**
+     * Retrieves the states of {@link WorkSpec}s with the identifiers.
+     *
+     * @param ids The identifiers of desired {@link WorkSpec}s
+     * @return The {@link WorkSpec.IdAndState}s for the requested IDs that are still in the database
+     */
+    @Query("SELECT id, state FROM workspec WHERE id IN (:ids)")
+    List<WorkSpec.IdAndState> getWorkSpecIdAndStates(List<String> ids);
+
     /**
      *
      * @param name The work graph name
@@ -274,6 +283,16 @@ public interface WorkSpecDao {
     @Query("UPDATE workspec SET schedule_requested_at=:startTime WHERE id=:id")
     int markWorkSpecScheduled(@NonNull String id, long startTime);
 
+    /**
+     * Marks a batch of {@link WorkSpec}s as scheduled in a single statement.
+     *
+     * @param startTime The time at which the {@link WorkSpec}s were scheduled.
+     * @param ids       The identifiers for the {@link WorkSpec}s
+     * @return The number of rows that were updated
+     */
+    @Query("UPDATE workspec SET schedule_requested_at=:startTime WHERE id IN (:ids)")
+    int markWorkSpecsScheduled(long startTime, @NonNull String... ids);
+
     /**
      * @return The time at which the {@link WorkSpec} was scheduled.
      */
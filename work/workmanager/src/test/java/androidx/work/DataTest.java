@@ -27,6 +27,10 @@ import androidx.annotation.NonNull;
 
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -89,6 +93,69 @@ public class DataTest {
         assertThat(restoredData.getIntArray(KEY2), is(equalTo(expectedValue2)));
     }
 
+    @Test
+    public void testSerializeAllTypes() {
+        Data data = new Data.Builder()
+                .putBoolean("boolean", true)
+                .putBooleanArray("boolean array",
+                        new boolean[]{true, false, true, true, false, false, true, false, true})
+                .putByte("byte", (byte) -1)
+                .putByteArray("byte array", new byte[]{Byte.MIN_VALUE, 0, Byte.MAX_VALUE})
+                .putInt("int", Integer.MIN_VALUE)
+                .putIntArray("int array", new int[]{-1, 0, Integer.MAX_VALUE})
+                .putLong("long", Long.MIN_VALUE)
+                .putLongArray("long array", new long[]{-1L, 0L, Long.MAX_VALUE})
+                .putFloat("float", -0.5f)
+                .putFloatArray("float array", new float[]{Float.NaN, 0f, Float.MAX_VALUE})
+                .putDouble("double", Double.NEGATIVE_INFINITY)
+                .putDoubleArray("double array", new double[]{Double.MIN_VALUE, 1.5})
+                .putString("string", "\u00e9\u4e2d\0\ud83d\ude00\ud800")
+                .putStringArray("string array", new String[]{"string", null, "", "string"})
+                .putString("null", null)
+                .build();
+
+        Data restoredData = Data.fromByteArray(data.toByteArray());
+
+        assertThat(restoredData, is(data));
+    }
+
+    @Test
+    public void testSerializeBoxedArrayWithNull() {
+        Data data = new Data.Builder()
+                .put(KEY1, new Integer[]{1, null, 3})
+                .build();
+
+        Data restoredData = Data.fromByteArray(data.toByteArray());
+
+        assertThat(restoredData, is(data));
+    }
+
+    @Test
+    public void testDeserializeJavaSerializedData() throws IOException {
+        Data data = createData();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+        objectOutputStream.writeInt(data.size());
+        for (Map.Entry<String, Object> entry : data.mValues.entrySet()) {
+            objectOutputStream.writeUTF(entry.getKey());
+            objectOutputStream.writeObject(entry.getValue());
+        }
+        objectOutputStream.close();
+
+        Data restoredData = Data.fromByteArray(outputStream.toByteArray());
+
+        assertThat(restoredData, is(data));
+    }
+
+    @Test
+    public void testDeserializeTruncatedData() {
+        byte[] byteArray = createData().toByteArray();
+
+        Data restoredData = Data.fromByteArray(Arrays.copyOf(byteArray, byteArray.length - 1));
+
+        assertThat(restoredData.size() < createData().size(), is(true));
+    }
+
     @Test
     public void testSerializePastMaxSize() {
         int[] payload = new int[Data.MAX_DATA_BYTES + 1];